@@ -0,0 +1,141 @@
+package com.demo.videosearch.bench;
+
+import com.demo.videosearch.db.CompletionTrie;
+import com.demo.videosearch.model.IShow;
+import com.demo.videosearch.service.ShowSearcherBackend;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Typeahead latency, sampled so the p99 is reported: top 10 completions of short prefixes from the
+ * backend's completion trie, against a binary search in the sorted keys followed by a scan of every
+ * key under the prefix. The setup prints the size of the trie next to the number of distinct
+ * prefixes a map of all prefixes would need.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AutocompleteBenchmark {
+
+    private static final int PREFIXES = 1024;
+    private static final int N = 10;
+
+    @Param({"1000000"})
+    public int catalogSize;
+
+    private ShowSearcherBackend backend;
+    private String[] prefixes;
+    private String[] sortedKeys;
+    private int[] sortedScores;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<IShow> shows = SyntheticCatalog.shows(catalogSize, 7L);
+        backend = new ShowSearcherBackend(SyntheticCatalog.cacheConfig());
+        CompletionTrie.Builder builder = CompletionTrie.builder();
+        Set<String> allPrefixes = new HashSet<>();
+        for (IShow show : shows) {
+            backend.addShow(show);
+            String title = show.getTitle().toLowerCase();
+            builder.add(title, show.getRating());
+            for (String word : title.split(" ")) {
+                builder.add(word, show.getRating());
+            }
+        }
+        // same keys as the backend's trie, kept sorted for the scan baseline
+        List<String> keys = new ArrayList<>();
+        List<Integer> scores = new ArrayList<>();
+        CompletionTrie trie = builder.build();
+        for (CompletionTrie.Completion completion : trie.complete("", Integer.MAX_VALUE)) {
+            keys.add(completion.getKey());
+            scores.add(completion.getScore());
+            for (int i = 1; i <= completion.getKey().length(); i++) {
+                allPrefixes.add(completion.getKey().substring(0, i));
+            }
+        }
+        Integer[] order = new Integer[keys.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> keys.get(a).compareTo(keys.get(b)));
+        sortedKeys = new String[order.length];
+        sortedScores = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedKeys[i] = keys.get(order[i]);
+            sortedScores[i] = scores.get(order[i]);
+        }
+        System.out.println("\nkeys: " + sortedKeys.length + ", trie nodes: " + trie.nodeCount() + ", trie bytes: "
+                + trie.sizeInBytes() + ", distinct prefixes (entries of a map of all prefixes): " + allPrefixes.size());
+
+        Random random = new Random(13L);
+        prefixes = new String[PREFIXES];
+        for (int i = 0; i < PREFIXES; i++) {
+            String key = sortedKeys[random.nextInt(sortedKeys.length)];
+            prefixes[i] = key.substring(0, Math.min(key.length(), 1 + random.nextInt(4)));
+        }
+        backend.autocomplete(prefixes[0], N);
+    }
+
+    @Benchmark
+    public List<String> trie() {
+        next = (next + 1) & (PREFIXES - 1);
+        return backend.autocomplete(prefixes[next], N);
+    }
+
+    @Benchmark
+    public List<String> sortedScan() {
+        // baseline: every key under the prefix is visited to pick the best ones
+        next = (next + 1) & (PREFIXES - 1);
+        String prefix = prefixes[next];
+        int from = Arrays.binarySearch(sortedKeys, prefix);
+        if (from < 0) {
+            from = -from - 1;
+        }
+        long[] best = new long[N];
+        int size = 0;
+        for (int i = from; i < sortedKeys.length && sortedKeys[i].startsWith(prefix); i++) {
+            long key = ((long) -sortedScores[i] << 32) | i;
+            if (size < N) {
+                best[size++] = key;
+            } else {
+                int worst = 0;
+                for (int j = 1; j < N; j++) {
+                    if (best[j] > best[worst]) {
+                        worst = j;
+                    }
+                }
+                if (key < best[worst]) {
+                    best[worst] = key;
+                }
+            }
+        }
+        Arrays.sort(best, 0, size);
+        List<String> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(sortedKeys[(int) best[i]]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,83 @@
+package com.demo.videosearch.bench;
+
+import com.demo.videosearch.model.IShow;
+import com.demo.videosearch.service.ShowSearcherBackend;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * searchByTitleWord and searchByYear of the frontend, on catalogs of each size, without a provider
+ * filter and with the Netflix filter set before every search (a filter only applies to the next
+ * search). The title searches cycle through 64 words of middle frequency and are served from the
+ * near cache after the first round, as repeated searches are; the years are not cached.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BackendSearchBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int catalogSize;
+
+    @Param({"none", "Netflix"})
+    public String provider;
+
+    private ShowSearcherBackend backend;
+    private String[] words;
+    private int nextWord;
+    private int nextYear;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        backend = new ShowSearcherBackend(SyntheticCatalog.cacheConfig());
+        for (IShow show : SyntheticCatalog.shows(catalogSize, 7L)) {
+            backend.addShow(show);
+        }
+        String[] vocabulary = SyntheticCatalog.vocabulary(catalogSize, 7L);
+        words = new String[64];
+        System.arraycopy(vocabulary, 50, words, 0, words.length);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        backend.close();
+    }
+
+    private void filter() {
+        if (!"none".equals(provider)) {
+            backend.setProviderFilter(provider, true);
+        }
+    }
+
+    @Benchmark
+    public List<IShow> searchByTitleWord() {
+        nextWord = (nextWord + 1) & (words.length - 1);
+        filter();
+        return backend.searchByTitleWord(words[nextWord]);
+    }
+
+    @Benchmark
+    public List<IShow> searchByYear() {
+        // the synthetic catalog has the years 1950 to 2022
+        nextYear = (nextYear + 1) % 73;
+        filter();
+        return backend.searchByYear(1950 + nextYear);
+    }
+}
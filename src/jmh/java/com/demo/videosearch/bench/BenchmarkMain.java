@@ -0,0 +1,30 @@
+package com.demo.videosearch.bench;
+
+import java.util.Arrays;
+
+/**
+ * Entry point of benchmarks.jar: org.openjdk.jmh.Main with the GC profiler on by default, so every
+ * run reports allocation rates (gc.alloc.rate.norm is bytes per operation). Giving any -prof option
+ * replaces it, and the listing and help options are passed through unchanged.
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean defaultProfiler = true;
+        for (String arg : args) {
+            if (arg.equals("-prof") || arg.startsWith("-l") || arg.equals("-h")) {
+                defaultProfiler = false;
+            }
+        }
+        if (defaultProfiler) {
+            String[] withGc = Arrays.copyOf(args, args.length + 2);
+            withGc[args.length] = "-prof";
+            withGc[args.length + 1] = "gc";
+            args = withGc;
+        }
+        org.openjdk.jmh.Main.main(args);
+    }
+}
@@ -0,0 +1,112 @@
+package com.demo.videosearch.bench;
+
+import com.demo.videosearch.db.HashTablePostingLists;
+import com.demo.videosearch.db.PostingList;
+import com.demo.videosearch.db.PostingLists;
+import com.demo.videosearch.model.IShow;
+import com.demo.videosearch.service.ShowSearcherBackend;
+import com.demo.videosearch.service.TitleQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AND queries of 2, 3 and 5 title words: rarest-first intersection with skip entries against
+ * decoding every list completely, and the end-to-end backend query.
+ * The words mix the most common word of the catalog with progressively rarer ones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BooleanQueryBenchmark {
+
+    // vocabulary ranks of the query words, 0 is the most common word
+    private static final int[][] RANKS = {{0, 40}, {0, 5, 40}, {0, 1, 3, 10, 40}};
+
+    @Param({"100000", "1000000"})
+    public int catalogSize;
+
+    @Param({"2", "3", "5"})
+    public int terms;
+
+    private PostingList[] lists;
+    private ShowSearcherBackend backend;
+    private TitleQuery query;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<IShow> shows = SyntheticCatalog.shows(catalogSize, 7L);
+        String[] vocabulary = SyntheticCatalog.vocabulary(catalogSize, 7L);
+        HashTablePostingLists<String> index = new HashTablePostingLists<>();
+        backend = new ShowSearcherBackend(SyntheticCatalog.cacheConfig());
+        for (int id = 0; id < shows.size(); id++) {
+            String[] words = shows.get(id).getTitle().split(" ");
+            for (int position = 0; position < words.length; position++) {
+                index.add(words[position], id, position);
+            }
+            backend.addShow(shows.get(id));
+        }
+        index.freeze();
+        int[] ranks = RANKS[terms == 2 ? 0 : terms == 3 ? 1 : 2];
+        String[] words = new String[ranks.length];
+        lists = new PostingList[ranks.length];
+        for (int i = 0; i < ranks.length; i++) {
+            words[i] = vocabulary[ranks[i]];
+            lists[i] = index.get(words[i]);
+        }
+        query = TitleQuery.builder().allOf(words).build();
+        backend.searchByTitleQuery(query);
+    }
+
+    @Benchmark
+    public int[] intersectRarestFirst() {
+        return PostingLists.intersect(lists);
+    }
+
+    @Benchmark
+    public int[] intersectDecodeAll() {
+        // baseline: decode every list in full, then merge the arrays pairwise
+        int[] result = lists[0].toArray();
+        for (int i = 1; i < lists.length; i++) {
+            int[] other = lists[i].toArray();
+            int[] out = new int[Math.min(result.length, other.length)];
+            int a = 0;
+            int b = 0;
+            int count = 0;
+            while (a < result.length && b < other.length) {
+                if (result[a] < other[b]) {
+                    a++;
+                } else if (result[a] > other[b]) {
+                    b++;
+                } else {
+                    out[count++] = result[a];
+                    a++;
+                    b++;
+                }
+            }
+            result = Arrays.copyOf(out, count);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<IShow> backendQuery() {
+        return backend.searchByTitleQuery(query);
+    }
+}
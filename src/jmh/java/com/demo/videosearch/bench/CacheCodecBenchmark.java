@@ -0,0 +1,89 @@
+package com.demo.videosearch.bench;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.TypeReference;
+import com.demo.videosearch.cache.CachedIds;
+import com.demo.videosearch.cache.ShowIdCodec;
+import com.demo.videosearch.model.IShow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of writing and reading one cached search result: fastjson serialization of the shows
+ * against the id codec, whose read side also resolves the ids against the show table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheCodecBenchmark {
+
+    private static final int CATALOG_SIZE = 100_000;
+    private static final int EPOCH = 0x5EED1234;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int resultSize;
+
+    private IShow[] table;
+    private int[] ids;
+    private List<IShow> result;
+    private String json;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        table = SyntheticCatalog.shows(CATALOG_SIZE, 7L).toArray(new IShow[0]);
+        Random random = new Random(11L);
+        ids = new int[resultSize];
+        result = new ArrayList<>(resultSize);
+        for (int i = 0; i < resultSize; i++) {
+            ids[i] = random.nextInt(CATALOG_SIZE);
+            result.add(table[ids[i]]);
+        }
+        json = JSON.toJSONString(result);
+        encoded = ShowIdCodec.encode(new CachedIds(EPOCH, CATALOG_SIZE, ids, ids.length));
+    }
+
+    @Benchmark
+    public String jsonEncode() {
+        return JSON.toJSONString(result);
+    }
+
+    @Benchmark
+    public List<IShow> jsonDecode() {
+        return JSON.parseObject(json, new TypeReference<List<IShow>>() {
+        });
+    }
+
+    @Benchmark
+    public byte[] codecEncode() {
+        return ShowIdCodec.encode(new CachedIds(EPOCH, CATALOG_SIZE, ids, ids.length));
+    }
+
+    @Benchmark
+    public List<IShow> codecDecode() {
+        int[] decoded = ShowIdCodec.decode(encoded, EPOCH, CATALOG_SIZE, CATALOG_SIZE).getIds();
+        List<IShow> shows = new ArrayList<>(decoded.length);
+        for (int id : decoded) {
+            shows.add(table[id]);
+        }
+        return shows;
+    }
+}
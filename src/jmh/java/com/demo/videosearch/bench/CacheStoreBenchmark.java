@@ -0,0 +1,73 @@
+package com.demo.videosearch.bench;
+
+import com.demo.videosearch.cache.CacheConfig;
+import com.demo.videosearch.model.IShow;
+import com.demo.videosearch.service.ShowSearcherBackend;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * searchByTitleWord on catalogs of each size through each cache store, with the near cache switched
+ * off so every search reaches the store. Run without a Redis server, "redis" measures a search behind
+ * an open circuit breaker, which must cost no more than a search without cache; "memory" is the
+ * in-process stand-in for Redis.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheStoreBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int catalogSize;
+
+    @Param({"memory", "redis"})
+    public String store;
+
+    private ShowSearcherBackend backend;
+    private String[] words;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Properties properties = new Properties();
+        properties.setProperty("cache.store", store);
+        properties.setProperty("nearCache.maxWeight", "1");
+        backend = new ShowSearcherBackend(new CacheConfig(properties));
+        for (IShow show : SyntheticCatalog.shows(catalogSize, 7L)) {
+            backend.addShow(show);
+        }
+        // 64 words of middle frequency
+        String[] vocabulary = SyntheticCatalog.vocabulary(catalogSize, 7L);
+        words = new String[64];
+        System.arraycopy(vocabulary, 50, words, 0, words.length);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        backend.close();
+    }
+
+    @Benchmark
+    public List<IShow> searchByTitleWord() {
+        next = (next + 1) & (words.length - 1);
+        return backend.searchByTitleWord(words[next]);
+    }
+}
@@ -0,0 +1,132 @@
+package com.demo.videosearch.bench;
+
+import com.demo.videosearch.db.ConcurrentHashtableMap;
+import com.demo.videosearch.db.MapADT;
+import com.demo.videosearch.db.OpenAddressingHashtableMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Operations per millisecond on one shared map of title terms from 1, 2, 4 and 8 threads: writers
+ * alternately put and remove their terms, so the map keeps its size, and the mixed variant does one
+ * such write per nine lookups. The striped ConcurrentHashtableMap is compared with an
+ * OpenAddressingHashtableMap behind one lock. The tear down checks that the map is still consistent.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConcurrentHashtableMapBenchmark {
+
+    private static final int TERMS = 1 << 16;
+
+    @Param({"striped", "locked"})
+    public String impl;
+
+    private String[] terms;
+    private MapADT<String, Integer> map;
+    private boolean locked;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        terms = SyntheticCatalog.terms(TERMS, 42L);
+        locked = "locked".equals(impl);
+        map = locked ? new OpenAddressingHashtableMap<String, Integer>() : new ConcurrentHashtableMap<String, Integer>();
+        for (int i = 0; i < TERMS; i += 2) {
+            map.put(terms[i], i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void check() {
+        int present = 0;
+        for (String term : terms) {
+            if (map.containsKey(term)) {
+                present++;
+            }
+        }
+        if (present != map.size()) {
+            throw new IllegalStateException(present + " terms found, size " + map.size());
+        }
+    }
+
+    /**
+     * position of one thread in the terms, from a random start
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next = ThreadLocalRandom.current().nextInt(TERMS);
+
+        int nextTerm() {
+            next = (next + 1) & (TERMS - 1);
+            return next;
+        }
+    }
+
+    private boolean toggle(int i) {
+        String term = terms[i];
+        if (locked) {
+            synchronized (map) {
+                return map.put(term, i) || map.remove(term) != null;
+            }
+        }
+        return map.put(term, i) || map.remove(term) != null;
+    }
+
+    private boolean lookup(int i) {
+        if (locked) {
+            synchronized (map) {
+                return map.containsKey(terms[i]);
+            }
+        }
+        return map.containsKey(terms[i]);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean write1(Cursor cursor) {
+        return toggle(cursor.nextTerm());
+    }
+
+    @Benchmark
+    @Threads(2)
+    public boolean write2(Cursor cursor) {
+        return toggle(cursor.nextTerm());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean write4(Cursor cursor) {
+        return toggle(cursor.nextTerm());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean write8(Cursor cursor) {
+        return toggle(cursor.nextTerm());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean mixed8(Cursor cursor) {
+        int i = cursor.nextTerm();
+        return i % 10 == 0 ? toggle(i) : lookup(i);
+    }
+}
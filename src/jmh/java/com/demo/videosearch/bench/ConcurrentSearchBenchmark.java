@@ -0,0 +1,117 @@
+package com.demo.videosearch.bench;
+
+import com.demo.videosearch.model.IShow;
+import com.demo.videosearch.model.Provider;
+import com.demo.videosearch.service.ShowQuery;
+import com.demo.videosearch.service.ShowSearcherBackend;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search throughput of one shared backend from 1, 2, 4 and 8 threads. Every thread runs its own
+ * mix of word, year and provider filtered queries against the published snapshot; the locked
+ * variant serializes the same queries on the backend to show what a global lock would cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConcurrentSearchBenchmark {
+
+    private static final int QUERIES = 256;
+
+    @Param({"100000"})
+    public int catalogSize;
+
+    private ShowSearcherBackend backend;
+    private ShowQuery[] queries;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        backend = new ShowSearcherBackend(SyntheticCatalog.cacheConfig());
+        for (IShow show : SyntheticCatalog.shows(catalogSize, 7L)) {
+            backend.addShow(show);
+        }
+        // words of middle frequency, so a query is neither empty nor a scan of the catalog
+        String[] vocabulary = SyntheticCatalog.vocabulary(catalogSize, 7L);
+        Provider[] providers = Provider.values();
+        queries = new ShowQuery[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            ShowQuery.Builder builder = ShowQuery.builder();
+            switch (i % 3) {
+                case 0:
+                    builder.words(vocabulary[10 + i % 100]);
+                    break;
+                case 1:
+                    builder.words(vocabulary[10 + i % 100]).provider(providers[i % providers.length]);
+                    break;
+                default:
+                    builder.year(1950 + i % 73).provider(providers[i % providers.length]);
+                    break;
+            }
+            queries[i] = builder.limit(50).build();
+        }
+        backend.search(queries[0]);
+    }
+
+    /**
+     * position of one thread in the query mix
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        ShowQuery nextQuery(ShowQuery[] queries) {
+            next = (next + 1) & (QUERIES - 1);
+            return queries[next];
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public List<IShow> search1(Cursor cursor) {
+        return backend.search(cursor.nextQuery(queries));
+    }
+
+    @Benchmark
+    @Threads(2)
+    public List<IShow> search2(Cursor cursor) {
+        return backend.search(cursor.nextQuery(queries));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public List<IShow> search4(Cursor cursor) {
+        return backend.search(cursor.nextQuery(queries));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public List<IShow> search8(Cursor cursor) {
+        return backend.search(cursor.nextQuery(queries));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public List<IShow> searchLocked8(Cursor cursor) {
+        synchronized (backend) {
+            return backend.search(cursor.nextQuery(queries));
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.demo.videosearch.bench;
+
+import com.demo.videosearch.db.TrigramIndex;
+import com.demo.videosearch.model.IShow;
+import com.demo.videosearch.service.ShowSearcherBackend;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Suggestions for misspelled words (one or two random edits of vocabulary words): the trigram
+ * index of the backend, which checks a few candidates, against a bounded edit distance computed
+ * for every word of the vocabulary. Sampled, so the p99 is reported.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FuzzySearchBenchmark {
+
+    private static final int WORDS = 1024;
+    private static final int N = 5;
+
+    @Param({"1000000"})
+    public int catalogSize;
+
+    private ShowSearcherBackend backend;
+    private String[] vocabulary;
+    private String[] typos;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        backend = new ShowSearcherBackend(SyntheticCatalog.cacheConfig());
+        for (IShow show : SyntheticCatalog.shows(catalogSize, 7L)) {
+            backend.addShow(show);
+        }
+        vocabulary = SyntheticCatalog.vocabulary(catalogSize, 7L);
+        Random random = new Random(13L);
+        typos = new String[WORDS];
+        for (int i = 0; i < WORDS; i++) {
+            StringBuilder word = new StringBuilder(vocabulary[random.nextInt(vocabulary.length)]);
+            for (int edits = 1 + random.nextInt(2); edits > 0 && word.length() > 1; edits--) {
+                int at = random.nextInt(word.length());
+                char c = (char) ('a' + random.nextInt(26));
+                switch (random.nextInt(3)) {
+                    case 0:
+                        word.setCharAt(at, c);
+                        break;
+                    case 1:
+                        word.insert(at, c);
+                        break;
+                    default:
+                        word.deleteCharAt(at);
+                }
+            }
+            typos[i] = word.toString();
+        }
+        backend.suggestTitleWords(typos[0], N);
+    }
+
+    @Benchmark
+    public List<String> trigramIndex() {
+        next = (next + 1) & (WORDS - 1);
+        return backend.suggestTitleWords(typos[next], N);
+    }
+
+    @Benchmark
+    public List<String> vocabularyScan() {
+        // baseline: the bounded distance of every word, no candidate generation
+        next = (next + 1) & (WORDS - 1);
+        String typo = typos[next];
+        int maxEdits = typo.length() <= 2 ? 0 : typo.length() <= 5 ? 1 : 2;
+        List<String> matches = new ArrayList<>();
+        for (String word : vocabulary) {
+            if (TrigramIndex.editDistance(typo, word, maxEdits) <= maxEdits) {
+                matches.add(word);
+            }
+        }
+        return matches;
+    }
+}
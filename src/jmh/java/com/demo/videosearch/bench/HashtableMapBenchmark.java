@@ -0,0 +1,85 @@
+package com.demo.videosearch.bench;
+
+import com.demo.videosearch.db.HashtableMap;
+import com.demo.videosearch.db.MapADT;
+import com.demo.videosearch.db.OpenAddressingHashtableMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Build-time and lookup cost of the chained HashtableMap against OpenAddressingHashtableMap
+ * for a dictionary of title terms.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HashtableMapBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"chained", "open"})
+    public String impl;
+
+    private String[] terms;
+    private String[] missing;
+    private MapADT<String, Integer> filled;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String[] all = SyntheticCatalog.terms(size * 2, 42L);
+        terms = new String[size];
+        missing = new String[size];
+        System.arraycopy(all, 0, terms, 0, size);
+        System.arraycopy(all, size, missing, 0, size);
+        filled = build();
+    }
+
+    private MapADT<String, Integer> newMap() {
+        return "open".equals(impl) ? new OpenAddressingHashtableMap<String, Integer>()
+                : new HashtableMap<String, Integer>();
+    }
+
+    private MapADT<String, Integer> build() {
+        MapADT<String, Integer> map = newMap();
+        for (int i = 0; i < terms.length; i++) {
+            map.put(terms[i], i);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public MapADT<String, Integer> buildIndex() {
+        return build();
+    }
+
+    @Benchmark
+    public void lookupHits(Blackhole bh) {
+        for (String term : terms) {
+            bh.consume(filled.get(term));
+        }
+    }
+
+    @Benchmark
+    public void lookupMisses(Blackhole bh) {
+        for (String term : missing) {
+            bh.consume(filled.containsKey(term));
+        }
+    }
+}
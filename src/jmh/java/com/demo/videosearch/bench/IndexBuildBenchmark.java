@@ -0,0 +1,91 @@
+package com.demo.videosearch.bench;
+
+import com.demo.videosearch.db.HashTableSortedSets;
+import com.demo.videosearch.model.IShow;
+import com.demo.videosearch.service.ShowLoader;
+import com.demo.videosearch.service.ShowSearcherBackend;
+import com.demo.videosearch.text.Analyzer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to build a catalog of each size from scratch: parse the CSV with ShowLoader.loadShows(),
+ * add the shows one by one with ShowSearcherBackend.addShow(), and group the shows by title word in
+ * a HashTableSortedSets with add() and freeze(), the words being split beforehand.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class IndexBuildBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int catalogSize;
+
+    private List<IShow> shows;
+    private String[][] titleWords; // words of each title, in show order
+    private Path csv;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        shows = SyntheticCatalog.shows(catalogSize, 7L);
+        titleWords = new String[catalogSize][];
+        for (int i = 0; i < catalogSize; i++) {
+            titleWords[i] = Analyzer.TITLES.terms(shows.get(i).getTitle()).toArray(new String[0]);
+        }
+        csv = Files.createTempFile("shows", ".csv");
+        SyntheticCatalog.writeCsv(csv, shows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(csv);
+    }
+
+    @Benchmark
+    public List<IShow> loadShows() throws IOException {
+        return new ShowLoader().loadShows(csv.toString());
+    }
+
+    @Benchmark
+    public ShowSearcherBackend addShow() {
+        ShowSearcherBackend backend = new ShowSearcherBackend(SyntheticCatalog.cacheConfig());
+        for (IShow show : shows) {
+            backend.addShow(show);
+        }
+        backend.close();
+        return backend;
+    }
+
+    @Benchmark
+    public HashTableSortedSets<String, IShow> sortedSetsAdd() {
+        HashTableSortedSets<String, IShow> byWord = new HashTableSortedSets<>();
+        for (int i = 0; i < catalogSize; i++) {
+            IShow show = shows.get(i);
+            for (String word : titleWords[i]) {
+                byWord.add(word, show);
+            }
+        }
+        byWord.freeze();
+        return byWord;
+    }
+}
@@ -0,0 +1,117 @@
+package com.demo.videosearch.bench;
+
+import com.demo.videosearch.db.HashTableSortedSets;
+import com.demo.videosearch.db.IntHashTableSortedSets;
+import com.demo.videosearch.model.IShow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shows grouped by year in HashTableSortedSets&lt;Integer, IShow&gt;, where every add, get and containsKey
+ * boxes the year (a new Integer above 127) and calls hashCode() and equals() on it, against
+ * IntHashTableSortedSets with the years in a flat int[]; gc.alloc.rate.norm shows the boxing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IntHashtableMapBenchmark {
+
+    private static final int LOOKUPS = 1 << 20;
+
+    @Param({"100000"})
+    public int catalogSize;
+
+    @Param({"generic", "int"})
+    public String impl;
+
+    private IShow[] shows;
+    private int[] hits; // years of the catalog, drawn at random
+    private int[] misses; // years no show has
+    private HashTableSortedSets<Integer, IShow> generic;
+    private IntHashTableSortedSets<IShow> primitive;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<IShow> catalog = SyntheticCatalog.shows(catalogSize, 7L);
+        shows = catalog.toArray(new IShow[0]);
+        Random random = new Random(42L);
+        hits = new int[LOOKUPS];
+        misses = new int[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            hits[i] = shows[random.nextInt(shows.length)].getYear();
+            misses[i] = 3000 + random.nextInt(1000);
+        }
+        if ("int".equals(impl)) {
+            primitive = buildPrimitive();
+        } else {
+            generic = buildGeneric();
+        }
+    }
+
+    private HashTableSortedSets<Integer, IShow> buildGeneric() {
+        HashTableSortedSets<Integer, IShow> byYear = new HashTableSortedSets<>();
+        for (IShow show : shows) {
+            byYear.add(show.getYear(), show);
+        }
+        byYear.freeze();
+        return byYear;
+    }
+
+    private IntHashTableSortedSets<IShow> buildPrimitive() {
+        IntHashTableSortedSets<IShow> byYear = new IntHashTableSortedSets<>();
+        for (IShow show : shows) {
+            byYear.add(show.getYear(), show);
+        }
+        byYear.freeze();
+        return byYear;
+    }
+
+    @Benchmark
+    public Object buildIndex() {
+        return "int".equals(impl) ? buildPrimitive() : buildGeneric();
+    }
+
+    @Benchmark
+    public void lookupHits(Blackhole bh) {
+        if (primitive != null) {
+            for (int year : hits) {
+                bh.consume(primitive.get(year));
+            }
+        } else {
+            for (int year : hits) {
+                bh.consume(generic.get(year));
+            }
+        }
+    }
+
+    @Benchmark
+    public void lookupMisses(Blackhole bh) {
+        if (primitive != null) {
+            for (int year : misses) {
+                bh.consume(primitive.containsKey(year));
+            }
+        } else {
+            for (int year : misses) {
+                bh.consume(generic.containsKey(year));
+            }
+        }
+    }
+}
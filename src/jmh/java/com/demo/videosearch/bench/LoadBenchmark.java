@@ -0,0 +1,66 @@
+package com.demo.videosearch.bench;
+
+import com.demo.videosearch.service.ParallelShowLoader;
+import com.demo.videosearch.service.ShowSearcherBackend;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Catalog loading rate, in rows per second, of ParallelShowLoader with 1, 2, 4, 8 and 16 threads:
+ * map, parse, index each chunk, merge the shards into a new backend. The CSV is a synthetic
+ * catalog written once per trial to a temporary file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class LoadBenchmark {
+
+    private static final int ROWS = 1_000_000;
+
+    @Param({"1", "2", "4", "8", "16"})
+    public int threads;
+
+    private Path csv;
+    private ParallelShowLoader loader;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        csv = Files.createTempFile("shows", ".csv");
+        SyntheticCatalog.writeCsv(csv, SyntheticCatalog.shows(ROWS, 7L));
+        loader = new ParallelShowLoader(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(csv);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public ShowSearcherBackend load() throws IOException {
+        ShowSearcherBackend backend = new ShowSearcherBackend(SyntheticCatalog.cacheConfig());
+        loader.load(csv.toString(), backend);
+        backend.close();
+        return backend;
+    }
+}
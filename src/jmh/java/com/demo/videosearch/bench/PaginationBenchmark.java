@@ -0,0 +1,82 @@
+package com.demo.videosearch.bench;
+
+import com.demo.videosearch.model.IShow;
+import com.demo.videosearch.service.SearchPage;
+import com.demo.videosearch.service.ShowQuery;
+import com.demo.videosearch.service.ShowSearcherBackend;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * First page of 20 shows of a query with tens of thousands of matches: the whole result ranked
+ * and materialized then cut, against the bounded heap of searchPage, and the page served from
+ * a cached result prefix. Run with -prof gc to compare the allocation per query as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaginationBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"1000000"})
+    public int catalogSize;
+
+    private ShowSearcherBackend backend;
+    private String word;
+    private ShowQuery all;
+    private ShowQuery firstPage;
+    private ShowQuery decadePage;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        backend = new ShowSearcherBackend(SyntheticCatalog.cacheConfig());
+        for (IShow show : SyntheticCatalog.shows(catalogSize, 7L)) {
+            backend.addShow(show);
+        }
+        // the most common word, matched by a large part of the catalog
+        word = SyntheticCatalog.vocabulary(catalogSize, 7L)[0];
+        all = ShowQuery.builder().words(word).build();
+        firstPage = all.toBuilder().limit(PAGE_SIZE).build();
+        decadePage = ShowQuery.builder().years(1990, 1999).limit(PAGE_SIZE).build();
+        backend.searchByTitleWord(word, 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<IShow> materializeAllThenCut() {
+        // baseline: rank every match, keep the first page
+        List<IShow> shows = backend.search(all);
+        return shows.subList(0, Math.min(PAGE_SIZE, shows.size()));
+    }
+
+    @Benchmark
+    public SearchPage boundedHeapPage() {
+        return backend.snapshot().searchPage(firstPage);
+    }
+
+    @Benchmark
+    public SearchPage cachedPage() {
+        return backend.searchByTitleWord(word, 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public SearchPage lazyYearPage() {
+        return backend.searchPage(decadePage);
+    }
+}
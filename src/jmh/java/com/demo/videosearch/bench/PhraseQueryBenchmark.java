@@ -0,0 +1,93 @@
+package com.demo.videosearch.bench;
+
+import com.demo.videosearch.model.IShow;
+import com.demo.videosearch.service.IndexSnapshot;
+import com.demo.videosearch.service.ShowQuery;
+import com.demo.videosearch.service.ShowSearcherBackend;
+import com.demo.videosearch.service.TitleQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A two-word phrase, both words common: the positional merge of the posting lists, against the
+ * intersection of the two words followed by a check of each candidate title, split again into
+ * words, which is what the index could do without positions. The phrase with a slop is measured too.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PhraseQueryBenchmark {
+
+    @Param({"1000000"})
+    public int catalogSize;
+
+    @Param({"1", "10"})
+    public int secondWordRank;
+
+    private IndexSnapshot snapshot;
+    private String first;
+    private String second;
+    private ShowQuery phrase;
+    private ShowQuery near;
+    private ShowQuery both;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ShowSearcherBackend backend = new ShowSearcherBackend(SyntheticCatalog.cacheConfig());
+        for (IShow show : SyntheticCatalog.shows(catalogSize, 7L)) {
+            backend.addShow(show);
+        }
+        String[] vocabulary = SyntheticCatalog.vocabulary(catalogSize, 7L);
+        first = vocabulary[0];
+        second = vocabulary[secondWordRank];
+        phrase = ShowQuery.builder().title(TitleQuery.builder().phrase(first + " " + second, 0).build()).build();
+        near = ShowQuery.builder().title(TitleQuery.builder().phrase(first + " " + second, 2).build()).build();
+        both = ShowQuery.builder().words(first, second).build();
+        snapshot = backend.snapshot();
+    }
+
+    @Benchmark
+    public int[] positionalMerge() {
+        return snapshot.titleIds(phrase);
+    }
+
+    @Benchmark
+    public int[] positionalMergeWithSlop() {
+        return snapshot.titleIds(near);
+    }
+
+    @Benchmark
+    public int[] intersectThenCheckTitles() {
+        // baseline: both words anywhere, then the phrase looked for in each title
+        int[] ids = snapshot.titleIds(both);
+        int[] out = new int[ids.length];
+        int count = 0;
+        for (int id : ids) {
+            List<String> words = Arrays.asList(snapshot.show(id).getTitle().toLowerCase().split(" "));
+            for (int i = 0; i + 1 < words.size(); i++) {
+                if (words.get(i).equals(first) && words.get(i + 1).equals(second)) {
+                    out[count++] = id;
+                    break;
+                }
+            }
+        }
+        return Arrays.copyOf(out, count);
+    }
+}
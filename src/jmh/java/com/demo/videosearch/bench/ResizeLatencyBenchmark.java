@@ -0,0 +1,64 @@
+package com.demo.videosearch.bench;
+
+import com.demo.videosearch.db.HashtableMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency distribution of a single HashtableMap.put() while the map grows from empty to a million
+ * title terms, when the table moves all its buckets at once on growing and in the incremental resize
+ * mode. The percentiles and the maximum of the sample time output show the puts that triggered a resize.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ResizeLatencyBenchmark {
+
+    private static final int TERMS = 1 << 20;
+
+    @Param({"stopTheWorld", "incremental"})
+    public String resize;
+
+    private String[] terms;
+    private HashtableMap<String, Integer> map;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        terms = SyntheticCatalog.terms(TERMS, 42L);
+        for (String term : terms) {
+            term.hashCode(); // cache the hash codes, the benchmark measures the table
+        }
+        map = newMap();
+    }
+
+    private HashtableMap<String, Integer> newMap() {
+        return new HashtableMap<>(20, "incremental".equals(resize));
+    }
+
+    @Benchmark
+    public boolean put() {
+        if (next == TERMS) {
+            // start over with an empty map once every term is in
+            map = newMap();
+            next = 0;
+        }
+        int i = next++;
+        return map.put(terms[i], i);
+    }
+}
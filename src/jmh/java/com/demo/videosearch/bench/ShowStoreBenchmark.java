@@ -0,0 +1,82 @@
+package com.demo.videosearch.bench;
+
+import com.demo.videosearch.model.IShow;
+import com.demo.videosearch.model.ShowTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The shows of a catalog kept as one object per show (the array of Show the backend used before)
+ * against the columns of ShowTable, on the heap or with the titles off-heap: the time of a full
+ * collection with the catalog live, which grows with the number of objects to trace, and a scan of
+ * every rating. The setup prints the heap used once the catalog is built.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ShowStoreBenchmark {
+
+    @Param({"2000000"})
+    public int catalogSize;
+
+    @Param({"objects", "columns", "offHeap"})
+    public String store;
+
+    private IShow[] objects;
+    private ShowTable table;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<IShow> shows = SyntheticCatalog.shows(catalogSize, 7L);
+        if (store.equals("objects")) {
+            objects = shows.toArray(new IShow[0]);
+        } else {
+            table = new ShowTable(catalogSize, store.equals("offHeap"));
+            for (IShow show : shows) {
+                table = table.add(show);
+            }
+        }
+        shows = null;
+        System.gc();
+        long used = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        System.out.println("\nheap used: " + (used >> 20) + " MB"
+                + (table == null ? "" : ", table: " + (table.sizeInBytes() >> 20) + " MB, off-heap: " + table.isOffHeap()));
+    }
+
+    @Benchmark
+    public void fullGc() {
+        System.gc();
+    }
+
+    @Benchmark
+    public long sumRatings() {
+        long sum = 0;
+        if (objects != null) {
+            for (IShow show : objects) {
+                sum += show.getRating();
+            }
+        } else {
+            for (int id = 0; id < table.size(); id++) {
+                sum += table.rating(id);
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,164 @@
+package com.demo.videosearch.bench;
+
+import com.demo.videosearch.cache.CacheConfig;
+import com.demo.videosearch.model.IShow;
+import com.demo.videosearch.model.Provider;
+import com.demo.videosearch.model.Show;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Deterministic synthetic data for the benchmarks, so catalogs far larger than tv_shows.csv
+ * can be measured without shipping big files.
+ */
+public final class SyntheticCatalog {
+
+    private SyntheticCatalog() {
+    }
+
+    /**
+     * cache settings of the benchmarks: the in-memory store, so no Redis server is needed
+     *
+     * @return the settings
+     */
+    public static CacheConfig cacheConfig() {
+        Properties properties = new Properties();
+        properties.setProperty("cache.store", "memory");
+        return new CacheConfig(properties);
+    }
+
+    /**
+     * generate distinct lowercase words of 3 to 10 letters, shaped like title terms
+     *
+     * @param count number of distinct words
+     * @param seed  random seed, the same seed always gives the same words
+     * @return the words in generation order
+     */
+    public static String[] terms(int count, long seed) {
+        Random random = new Random(seed);
+        Set<String> seen = new HashSet<>(count * 2);
+        String[] terms = new String[count];
+        char[] buf = new char[10];
+        int n = 0;
+        while (n < count) {
+            int len = 3 + random.nextInt(8);
+            for (int i = 0; i < len; i++) {
+                buf[i] = (char) ('a' + random.nextInt(26));
+            }
+            String term = new String(buf, 0, len);
+            if (seen.add(term)) {
+                terms[n++] = term;
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * vocabulary size used for a catalog of the given number of shows
+     *
+     * @param shows catalog size
+     * @return number of distinct title words
+     */
+    public static int vocabularySize(int shows) {
+        return Math.max(1000, shows / 2);
+    }
+
+    /**
+     * generate shows whose titles have 1 to 6 words drawn from a Zipf distribution over
+     * the vocabulary, so word 0 is the most common ("the") and the tail is rare
+     *
+     * @param count number of shows
+     * @param seed  random seed
+     * @return the shows
+     */
+    public static List<IShow> shows(int count, long seed) {
+        String[] vocabulary = terms(vocabularySize(count), seed);
+        double[] cumulative = new double[vocabulary.length];
+        double sum = 0;
+        for (int i = 0; i < vocabulary.length; i++) {
+            sum += 1.0 / (i + 1);
+            cumulative[i] = sum;
+        }
+        Random random = new Random(seed + 1);
+        String[] providerNames = {"Netflix", "Hulu", "Prime Video", "Disney+"};
+        List<IShow> shows = new ArrayList<>(count);
+        StringBuilder title = new StringBuilder();
+        StringBuilder providers = new StringBuilder();
+        for (int n = 0; n < count; n++) {
+            title.setLength(0);
+            int words = 1 + random.nextInt(6);
+            for (int w = 0; w < words; w++) {
+                if (w > 0) {
+                    title.append(' ');
+                }
+                title.append(vocabulary[zipf(cumulative, random.nextDouble() * sum)]);
+            }
+            providers.setLength(0);
+            for (int p = 0; p < providerNames.length; p++) {
+                if (random.nextInt(3) == 0) {
+                    providers.append(providers.length() == 0 ? "" : ",").append(providerNames[p]);
+                }
+            }
+            shows.add(new Show(title.toString(), 1950 + random.nextInt(73), random.nextInt(101), providers.toString()));
+        }
+        return shows;
+    }
+
+    /**
+     * the words of a catalog generated with the same count and seed, most common first
+     *
+     * @param count number of shows of the catalog
+     * @param seed  random seed of the catalog
+     * @return the vocabulary ordered by expected frequency
+     */
+    public static String[] vocabulary(int count, long seed) {
+        return terms(vocabularySize(count), seed);
+    }
+
+    /**
+     * write shows in the tv_shows.csv format, titles quoted, so the loaders can be measured on a
+     * file of any size
+     *
+     * @param file  file created or replaced
+     * @param shows shows written in order
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeCsv(Path file, List<IShow> shows) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write(",ID,Title,Year,Age,IMDb,Rotten Tomatoes,Netflix,Hulu,Prime Video,Disney+,Type\n");
+            for (int i = 0; i < shows.size(); i++) {
+                IShow show = shows.get(i);
+                out.write(i + "," + (i + 1) + ",\"" + show.getTitle().replace("\"", "\"\"") + "\","
+                        + show.getYear() + ",18+,7.5/10," + show.getRating() + "/100");
+                for (Provider provider : Provider.values()) {
+                    out.write((show.getProviderMask() & provider.mask()) != 0 ? ",1" : ",0");
+                }
+                out.write(",1\n");
+            }
+        }
+    }
+
+    private static int zipf(double[] cumulative, double point) {
+        int low = 0;
+        int high = cumulative.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulative[mid] < point) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,85 @@
+package com.demo.videosearch.bench;
+
+import com.demo.videosearch.model.IShow;
+import com.demo.videosearch.text.Analyzer;
+import com.demo.videosearch.text.Tokenizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Titles tokenized per second: the regular expression and toLowerCase() the titles were indexed with
+ * before, against the char-scanning tokenizer of Analyzer.TITLES (case folding, accent stripping),
+ * with and without a String made of each token as the index does. gc.alloc.rate.norm is the
+ * allocation per title.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenizerBenchmark {
+
+    private static final int TITLES = 65536;
+    private static final Pattern TITLE_WORD = Pattern.compile("[\\w%.']+");
+
+    private String[] titles;
+    private Tokenizer tokenizer;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<IShow> shows = SyntheticCatalog.shows(TITLES, 7L);
+        titles = new String[TITLES];
+        for (int i = 0; i < TITLES; i++) {
+            titles[i] = shows.get(i).getTitle();
+        }
+        tokenizer = Analyzer.TITLES.tokenizer();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TITLES)
+    public void regexLowerCase(Blackhole blackhole) {
+        // baseline: a Matcher per title, two Strings per token
+        for (String title : titles) {
+            Matcher matcher = TITLE_WORD.matcher(title);
+            while (matcher.find()) {
+                blackhole.consume(matcher.group().toLowerCase());
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TITLES)
+    public void analyzerStrings(Blackhole blackhole) {
+        for (String title : titles) {
+            Analyzer.TITLES.analyze(title, (term, position) -> blackhole.consume(term.toString()));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TITLES)
+    public void tokenizerOnly(Blackhole blackhole) {
+        for (String title : titles) {
+            tokenizer.reset(title);
+            while (tokenizer.next()) {
+                blackhole.consume(tokenizer.term().length());
+            }
+        }
+    }
+}
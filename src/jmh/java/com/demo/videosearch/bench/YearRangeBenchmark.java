@@ -0,0 +1,73 @@
+package com.demo.videosearch.bench;
+
+import com.demo.videosearch.model.IShow;
+import com.demo.videosearch.service.ShowQuery;
+import com.demo.videosearch.service.ShowSearcherBackend;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Best rated shows of a decade: the k-way merge of the rating ordered year lists, which stops
+ * after K shows, against collecting every show of the ten years and sorting them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class YearRangeBenchmark {
+
+    private static final int FROM = 1990;
+    private static final int TO = 1999;
+
+    @Param({"100000", "1000000"})
+    public int catalogSize;
+
+    @Param({"10", "100"})
+    public int k;
+
+    private ShowSearcherBackend backend;
+    private ShowQuery decade;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        backend = new ShowSearcherBackend(SyntheticCatalog.cacheConfig());
+        for (IShow show : SyntheticCatalog.shows(catalogSize, 7L)) {
+            backend.addShow(show);
+        }
+        decade = ShowQuery.builder().years(FROM, TO).limit(k).build();
+        backend.search(decade);
+    }
+
+    @Benchmark
+    public List<IShow> topKMerge() {
+        return backend.search(decade);
+    }
+
+    @Benchmark
+    public List<IShow> collectAndSort() {
+        // baseline: every show of each year, then one sort of the whole decade
+        List<IShow> all = new ArrayList<>();
+        for (int year = FROM; year <= TO; year++) {
+            all.addAll(backend.search(ShowQuery.builder().year(year).build()));
+        }
+        all.sort(Comparator.comparingInt(IShow::getRating).reversed());
+        return all.subList(0, Math.min(k, all.size()));
+    }
+}
@@ -1,27 +1,37 @@
 package com.demo.videosearch.app;
 
-import com.demo.videosearch.model.IShow;
-import com.demo.videosearch.service.IShowLoader;
-import com.demo.videosearch.service.ShowLoader;
+import com.demo.videosearch.service.IndexSnapshotFile;
+import com.demo.videosearch.service.ParallelShowLoader;
 import com.demo.videosearch.service.ShowSearcherBackend;
 import com.demo.videosearch.ui.IShowSearcherFrontend;
 import com.demo.videosearch.ui.ShowSearcherFrontend;
 
-import java.util.List;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /**
  * The provided class
  */
 public class ShowSearcherApp {
   public static void main(String[] args) throws Exception {
-    //IShowLoader loader = null; // new ShowLoader();
-    IShowLoader loader = new ShowLoader();
-    List<IShow> shows = loader.loadShows("src/main/resources/data/tv_shows.csv");
+    Path csv = Paths.get("src/main/resources/data/tv_shows.csv");
+    Path index = Paths.get("src/main/resources/data/tv_shows.idx");
     ShowSearcherBackend backend = new ShowSearcherBackend();
-    for (IShow show : shows)
-      backend.addShow(show);
+    // the index saved by an earlier run is mapped; the CSV is only parsed when it is missing or stale
+    if (!IndexSnapshotFile.load(index, csv, backend)) {
+      // the catalog is parsed and indexed by one thread per core, then merged in file order
+      ParallelShowLoader loader = new ParallelShowLoader(Runtime.getRuntime().availableProcessors());
+      loader.load(csv.toString(), backend);
+      try {
+        IndexSnapshotFile.save(backend, index, csv);
+      } catch (IOException e) {
+        System.err.println("Index snapshot not saved: " + e.getMessage());
+      }
+    }
     IShowSearcherFrontend frontend = new ShowSearcherFrontend(backend);
     frontend.runCommandLoop();
+    backend.close();
   }
 }
 
@@ -0,0 +1,146 @@
+package com.demo.videosearch.cache;
+
+import com.demo.videosearch.util.CommonUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Cache settings read from cache.properties; a missing file or key falls back to the defaults below.
+ */
+public class CacheConfig {
+
+    private final Properties properties;
+
+    public CacheConfig(Properties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * read cache.properties from the resources
+     *
+     * @return the settings
+     */
+    public static CacheConfig load() {
+        Properties properties = new Properties();
+        try (InputStream in = CommonUtils.readResourceFile("cache.properties")) {
+            if (in != null) {
+                properties.load(in);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return new CacheConfig(properties);
+    }
+
+    /**
+     * @return total number of show ids the near cache may hold
+     */
+    public long getNearCacheMaxWeight() {
+        return Long.parseLong(this.properties.getProperty("nearCache.maxWeight", "200000"));
+    }
+
+    /**
+     * @return seconds a near-cache entry stays readable, 0 for no expiry
+     */
+    public long getNearCacheTtlSeconds() {
+        return Long.parseLong(this.properties.getProperty("nearCache.ttlSeconds", "300"));
+    }
+
+    /**
+     * @return "redis" or "memory"
+     */
+    public String getStore() {
+        return this.properties.getProperty("cache.store", "redis");
+    }
+
+    /**
+     * @return consecutive Redis failures after which Redis is skipped
+     */
+    public int getBreakerFailureThreshold() {
+        return Integer.parseInt(this.properties.getProperty("cache.breaker.failureThreshold", "3"));
+    }
+
+    /**
+     * @return milliseconds between two checks of a skipped Redis
+     */
+    public long getBreakerProbeMillis() {
+        return Long.parseLong(this.properties.getProperty("cache.breaker.probeMillis", "2000"));
+    }
+
+    /**
+     * @return "redis" or "memory"
+     */
+    public String getInvalidation() {
+        return this.properties.getProperty("nearCache.invalidation", "redis");
+    }
+
+    /**
+     * @return name of the Redis pub/sub channel of invalidations
+     */
+    public String getInvalidationChannel() {
+        return this.properties.getProperty("nearCache.channel", "videosearch:invalidate");
+    }
+
+    /**
+     * @return number of search statistics writes that may wait for the telemetry writer
+     */
+    public int getTelemetryQueueCapacity() {
+        return Integer.parseInt(this.properties.getProperty("telemetry.queueCapacity", "10000"));
+    }
+
+    /**
+     * @return longest time in milliseconds a statistics write waits before it is sent
+     */
+    public long getTelemetryFlushMillis() {
+        return Long.parseLong(this.properties.getProperty("telemetry.flushMillis", "100"));
+    }
+
+    /**
+     * @return true to keep the titles of the show table in a direct buffer, outside the heap
+     */
+    public boolean isShowTableOffHeap() {
+        return Boolean.parseBoolean(this.properties.getProperty("shows.offHeap", "false"));
+    }
+
+    /**
+     * create the store chosen by cache.store; Redis is wrapped in a circuit breaker
+     *
+     * @return the store
+     * @throws IllegalArgumentException if the setting is neither redis nor memory
+     */
+    public CacheStore newCacheStore() {
+        switch (getStore()) {
+            case "redis":
+                return new CircuitBreakerCacheStore(new RedisCacheStore(), getBreakerFailureThreshold(),
+                        getBreakerProbeMillis());
+            case "memory":
+                return new InMemoryCacheStore();
+            default:
+                throw new IllegalArgumentException("unknown cache.store: " + getStore());
+        }
+    }
+
+    /**
+     * create the invalidation bus chosen by nearCache.invalidation; without Redis (cache.store=memory)
+     * there is a single node and the bus is always in memory
+     *
+     * @param store the store created by newCacheStore()
+     * @return the bus
+     * @throws IllegalArgumentException if the setting is neither redis nor memory
+     */
+    public InvalidationBus newInvalidationBus(CacheStore store) {
+        if (store instanceof InMemoryCacheStore) {
+            return new InMemoryInvalidationBus();
+        }
+        switch (getInvalidation()) {
+            case "redis":
+                return new RedisInvalidationBus(store, getInvalidationChannel());
+            case "memory":
+                return new InMemoryInvalidationBus();
+            default:
+                throw new IllegalArgumentException("unknown nearCache.invalidation: " + getInvalidation());
+        }
+    }
+}
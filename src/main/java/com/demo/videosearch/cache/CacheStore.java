@@ -0,0 +1,69 @@
+package com.demo.videosearch.cache;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shared store of the search app: cached results, search statistics and invalidation messages.
+ * Every method throws CacheUnavailableException when the store cannot be reached.
+ */
+public interface CacheStore extends AutoCloseable {
+
+    // zset of keyword search counts
+    String HOT_KEYWORDS = "hotKeywords";
+    // list of searched keywords, most recent first
+    String HISTORY_KEYWORDS = "historyKeywords";
+
+    /**
+     * @param key the key
+     * @return the value, or null if the key is not stored or expired
+     */
+    byte[] get(String key);
+
+    /**
+     * store a value that expires
+     *
+     * @param key        the key
+     * @param value      the value
+     * @param ttlSeconds seconds until the value expires
+     */
+    void set(String key, byte[] value, int ttlSeconds);
+
+    /**
+     * remove some keys, in one round trip
+     *
+     * @param keys the keys, missing ones are ignored
+     */
+    void delete(Collection<String> keys);
+
+    /**
+     * add a batch of search statistics
+     *
+     * @param increments search count to add to each keyword of HOT_KEYWORDS
+     * @param history    keywords to push on HISTORY_KEYWORDS, oldest first
+     */
+    void writeStatistics(Map<String, Integer> increments, List<String> history);
+
+    /**
+     * @param count number of keywords
+     * @return the most searched keywords of HOT_KEYWORDS, most searched first
+     */
+    List<String> hotKeywords(int count);
+
+    /**
+     * send a message on a pub/sub channel, a no-op for a store that has no other nodes
+     *
+     * @param channel the channel
+     * @param message the message
+     */
+    void publish(String channel, String message);
+
+    /**
+     * check that the store can be reached
+     */
+    void ping();
+
+    @Override
+    void close();
+}
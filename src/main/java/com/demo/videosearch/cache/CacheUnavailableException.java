@@ -0,0 +1,26 @@
+package com.demo.videosearch.cache;
+
+/**
+ * Thrown by a CacheStore that cannot be reached, or whose circuit breaker is open.
+ * Callers go on without the cache.
+ */
+public class CacheUnavailableException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CacheUnavailableException(String message) {
+        super(message);
+    }
+
+    public CacheUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    /**
+     * @param message         the detail message
+     * @param withStackTrace  false for failures thrown on every call, where the trace would cost more than the call
+     */
+    public CacheUnavailableException(String message, boolean withStackTrace) {
+        super(message, null, false, withStackTrace);
+    }
+}
@@ -0,0 +1,68 @@
+package com.demo.videosearch.cache;
+
+/**
+ * Decoded cached search result held by the near cache: the result ids and the epoch and version of
+ * the catalog they were computed for, so a result of an older catalog, or of the same version of
+ * another load of the catalog, is never served.
+ * The ids are the whole result or only its first ones, enough for the pages served so far.
+ */
+public final class CachedIds {
+
+    private final int catalogEpoch;
+    private final int catalogVersion;
+    private final int[] ids;
+    private final int total; // number of matching shows, at least ids.length
+
+    /**
+     * @param catalogEpoch   random number drawn when the catalog the ids refer to was built or loaded
+     * @param catalogVersion version of the catalog the ids refer to
+     * @param ids            the best ranked ids of the result, in result order
+     * @param total          number of matching shows, ids.length when ids is the whole result
+     */
+    public CachedIds(int catalogEpoch, int catalogVersion, int[] ids, int total) {
+        this.catalogEpoch = catalogEpoch;
+        this.catalogVersion = catalogVersion;
+        this.ids = ids;
+        this.total = total;
+    }
+
+    public int getCatalogEpoch() {
+        return this.catalogEpoch;
+    }
+
+    public int getCatalogVersion() {
+        return this.catalogVersion;
+    }
+
+    /**
+     * @param catalogEpoch   epoch of the current catalog
+     * @param catalogVersion version of the current catalog
+     * @return true if the ids were computed for that catalog
+     */
+    public boolean isFor(int catalogEpoch, int catalogVersion) {
+        return this.catalogEpoch == catalogEpoch && this.catalogVersion == catalogVersion;
+    }
+
+    public int[] getIds() {
+        return this.ids;
+    }
+
+    public int getTotal() {
+        return this.total;
+    }
+
+    /**
+     * @param count number of ranked ids a page needs
+     * @return true if the ids hold the first count ids of the result, or the whole result
+     */
+    public boolean covers(int count) {
+        return this.ids.length >= count || this.ids.length == this.total;
+    }
+
+    /**
+     * @return weight in the near cache: the ids plus a fixed charge for the entry itself
+     */
+    public int weight() {
+        return this.ids.length + 16;
+    }
+}
@@ -0,0 +1,166 @@
+package com.demo.videosearch.cache;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * CacheStore that stops calling a failing store. After failureThreshold consecutive failures the
+ * circuit opens: every call throws CacheUnavailableException at once, without touching the store,
+ * while a background thread pings the store every probe interval and closes the circuit on the
+ * first success. A probe also runs at construction, so a store that is down at startup is found
+ * out without making a search wait for it.
+ */
+public class CircuitBreakerCacheStore implements CacheStore {
+
+    private final CacheStore delegate;
+    private final int failureThreshold;
+    private final long probeMillis;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final ScheduledExecutorService prober;
+    private volatile boolean open;
+    private boolean probeScheduled; // guarded by this, at most one probe is pending
+
+    /**
+     * @param delegate         the store being protected
+     * @param failureThreshold consecutive failures that open the circuit
+     * @param probeMillis      time between two pings while the circuit is open
+     */
+    public CircuitBreakerCacheStore(CacheStore delegate, int failureThreshold, long probeMillis) {
+        this.delegate = delegate;
+        this.failureThreshold = failureThreshold;
+        this.probeMillis = probeMillis;
+        this.prober = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-store-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.probeScheduled = true;
+        this.prober.execute(this::probe);
+    }
+
+    /**
+     * @return true while calls are refused without reaching the store
+     */
+    public boolean isOpen() {
+        return this.open;
+    }
+
+    @Override
+    public byte[] get(String key) {
+        return call(() -> this.delegate.get(key));
+    }
+
+    @Override
+    public void set(String key, byte[] value, int ttlSeconds) {
+        call(() -> {
+            this.delegate.set(key, value, ttlSeconds);
+            return null;
+        });
+    }
+
+    @Override
+    public void delete(Collection<String> keys) {
+        call(() -> {
+            this.delegate.delete(keys);
+            return null;
+        });
+    }
+
+    @Override
+    public void writeStatistics(Map<String, Integer> increments, List<String> history) {
+        call(() -> {
+            this.delegate.writeStatistics(increments, history);
+            return null;
+        });
+    }
+
+    @Override
+    public List<String> hotKeywords(int count) {
+        return call(() -> this.delegate.hotKeywords(count));
+    }
+
+    @Override
+    public void publish(String channel, String message) {
+        call(() -> {
+            this.delegate.publish(channel, message);
+            return null;
+        });
+    }
+
+    @Override
+    public void ping() {
+        call(() -> {
+            this.delegate.ping();
+            return null;
+        });
+    }
+
+    @Override
+    public void close() {
+        this.prober.shutdownNow();
+        this.delegate.close();
+    }
+
+    /**
+     * private helper to run a call unless the circuit is open, counting its failure
+     *
+     * @param call the call to the store
+     * @return result of the call
+     * @throws CacheUnavailableException if the circuit is open or the call failed
+     */
+    private <T> T call(Supplier<T> call) {
+        if (this.open) {
+            throw new CacheUnavailableException("circuit open, cache store skipped", false);
+        }
+        try {
+            T result = call.get();
+            this.consecutiveFailures.set(0);
+            return result;
+        } catch (CacheUnavailableException e) {
+            if (this.consecutiveFailures.incrementAndGet() >= this.failureThreshold) {
+                trip();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * private helper to open the circuit and make sure a probe is pending
+     */
+    private synchronized void trip() {
+        if (!this.open) {
+            this.open = true;
+            System.err.println("Cache store unavailable, continuing without it until it answers again.");
+        }
+        if (!this.probeScheduled && !this.prober.isShutdown()) {
+            this.probeScheduled = true;
+            this.prober.schedule(this::probe, this.probeMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * private helper run by the probe thread: close the circuit if the store answers,
+     * otherwise keep it open and try again later
+     */
+    private void probe() {
+        synchronized (this) {
+            this.probeScheduled = false;
+        }
+        try {
+            this.delegate.ping();
+            this.consecutiveFailures.set(0);
+            if (this.open) {
+                this.open = false;
+                System.err.println("Cache store available again.");
+            }
+        } catch (CacheUnavailableException e) {
+            trip();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.demo.videosearch.cache;
+
+/**
+ * Count-min sketch of how often keys were accessed recently, used by NearCache to decide
+ * whether a new entry is worth more than the entry it would evict.
+ * Counters are 4 bits, 16 per long, and every key has one counter in each of 4 rows.
+ * After 10 accesses per key the sketch has room for, all counters are halved, so old popularity fades.
+ */
+final class FrequencySketch {
+
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private final long[] table; // 4-bit counters
+    private final int counterMask; // number of counters - 1
+    private final int sampleSize; // accesses between two halvings
+    private int additions; // accesses since the last halving
+
+    /**
+     * @param expectedEntries about how many entries the cache holds
+     */
+    FrequencySketch(long expectedEntries) {
+        int words = Integer.highestOneBit((int) Math.max(16, Math.min(expectedEntries, 1 << 16)) - 1) << 1;
+        this.table = new long[words];
+        this.counterMask = words * 16 - 1;
+        this.sampleSize = words * 16 * 10 / 4;
+    }
+
+    /**
+     * @param key the key
+     * @return estimated number of recent accesses of the key, at most 15
+     */
+    int frequency(Object key) {
+        int hash = key.hashCode();
+        int min = 15;
+        for (int row = 0; row < SEEDS.length; row++) {
+            int counter = indexOf(hash, row);
+            min = Math.min(min, (int) ((this.table[counter >>> 4] >>> ((counter & 15) << 2)) & 15));
+        }
+        return min;
+    }
+
+    /**
+     * record one access of the key
+     *
+     * @param key the key
+     */
+    void increment(Object key) {
+        int hash = key.hashCode();
+        boolean added = false;
+        for (int row = 0; row < SEEDS.length; row++) {
+            int counter = indexOf(hash, row);
+            int shift = (counter & 15) << 2;
+            if (((this.table[counter >>> 4] >>> shift) & 15) != 15) {
+                this.table[counter >>> 4] += 1L << shift;
+                added = true;
+            }
+        }
+        if (added && ++this.additions == this.sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * private helper to halve every counter
+     */
+    private void reset() {
+        for (int i = 0; i < this.table.length; i++) {
+            this.table[i] = (this.table[i] >>> 1) & RESET_MASK;
+        }
+        this.additions >>>= 1;
+    }
+
+    /**
+     * private helper to pick the counter of a key in one row
+     */
+    private int indexOf(int hash, int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        return (int) (h ^ (h >>> 32)) & this.counterMask;
+    }
+}
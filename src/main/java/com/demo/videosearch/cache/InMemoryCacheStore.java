@@ -0,0 +1,126 @@
+package com.demo.videosearch.cache;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CacheStore inside the process, for running and benchmarking without a Redis server.
+ * It has the Redis semantics the app relies on (expiring values, a zset of counts, a list pushed at
+ * the head), except that the history list keeps only the last MAX_HISTORY keywords.
+ * All methods are synchronized.
+ */
+public class InMemoryCacheStore implements CacheStore {
+
+    private static final int MAX_HISTORY = 10000;
+    // sets between two sweeps of expired values
+    private static final int PURGE_INTERVAL = 1024;
+
+    private final HashMap<String, Value> values = new HashMap<>();
+    private final HashMap<String, Long> scores = new HashMap<>();
+    private final ArrayDeque<String> history = new ArrayDeque<>();
+    private int setsSincePurge;
+
+    @Override
+    public synchronized byte[] get(String key) {
+        Value value = this.values.get(key);
+        if (value == null) {
+            return null;
+        }
+        if (value.expired(System.nanoTime())) {
+            this.values.remove(key);
+            return null;
+        }
+        return value.bytes;
+    }
+
+    @Override
+    public synchronized void set(String key, byte[] value, int ttlSeconds) {
+        long now = System.nanoTime();
+        this.values.put(key, new Value(value, now + ttlSeconds * 1_000_000_000L));
+        if (++this.setsSincePurge == PURGE_INTERVAL) {
+            this.setsSincePurge = 0;
+            Iterator<Value> iterator = this.values.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().expired(now)) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void delete(Collection<String> keys) {
+        for (String key : keys) {
+            this.values.remove(key);
+        }
+    }
+
+    @Override
+    public synchronized void writeStatistics(Map<String, Integer> increments, List<String> history) {
+        for (Map.Entry<String, Integer> increment : increments.entrySet()) {
+            this.scores.merge(increment.getKey(), (long) increment.getValue(), Long::sum);
+        }
+        for (String keyword : history) {
+            this.history.addFirst(keyword);
+            if (this.history.size() > MAX_HISTORY) {
+                this.history.removeLast();
+            }
+        }
+    }
+
+    @Override
+    public synchronized List<String> hotKeywords(int count) {
+        ArrayList<Map.Entry<String, Long>> entries = new ArrayList<>(this.scores.entrySet());
+        // descending score, like ZREVRANGE: equal scores in descending keyword order
+        entries.sort((a, b) -> a.getValue().equals(b.getValue())
+                ? b.getKey().compareTo(a.getKey()) : Long.compare(b.getValue(), a.getValue()));
+        ArrayList<String> result = new ArrayList<>(Math.min(count, entries.size()));
+        for (int i = 0; i < count && i < entries.size(); i++) {
+            result.add(entries.get(i).getKey());
+        }
+        return result;
+    }
+
+    /**
+     * @return keywords of the history list, most recent first
+     */
+    public synchronized List<String> history() {
+        return new ArrayList<>(this.history);
+    }
+
+    @Override
+    public void publish(String channel, String message) {
+        // a single process has no other node to tell
+    }
+
+    @Override
+    public void ping() {
+    }
+
+    @Override
+    public synchronized void close() {
+        this.values.clear();
+    }
+
+    /**
+     * stored value and the System.nanoTime() at which it expires
+     */
+    private static final class Value {
+        final byte[] bytes;
+        final long expiresAt;
+
+        Value(byte[] bytes, long expiresAt) {
+            this.bytes = bytes;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean expired(long now) {
+            return now - this.expiresAt >= 0;
+        }
+    }
+}
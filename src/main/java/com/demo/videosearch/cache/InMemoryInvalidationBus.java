@@ -0,0 +1,31 @@
+package com.demo.videosearch.cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * InvalidationBus inside one process, standing in for Redis pub/sub when there is a single node
+ * or when several backends of one JVM share an instance. Messages are delivered on the publishing thread.
+ */
+public class InMemoryInvalidationBus implements InvalidationBus {
+
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(String message) {
+        for (Consumer<String> listener : this.listeners) {
+            listener.accept(message);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<String> listener) {
+        this.listeners.add(listener);
+    }
+
+    @Override
+    public void close() {
+        this.listeners.clear();
+    }
+}
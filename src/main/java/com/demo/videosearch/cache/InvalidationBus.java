@@ -0,0 +1,34 @@
+package com.demo.videosearch.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Channel on which app nodes tell each other which cached keys changed, so that every node
+ * drops its near-cache copy. A message is a key, several keys separated by spaces, or ALL for
+ * every key.
+ */
+public interface InvalidationBus extends AutoCloseable {
+
+    // message asking every node to drop every key
+    String ALL = "*";
+
+    /**
+     * send a message to every subscriber, on this node and on the others
+     *
+     * @param message a key, keys separated by spaces, or ALL
+     */
+    void publish(String message);
+
+    /**
+     * receive the messages published from now on
+     *
+     * @param listener called with each message, on a thread of the bus
+     */
+    void subscribe(Consumer<String> listener);
+
+    /**
+     * stop receiving messages and release the connection
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,475 @@
+package com.demo.videosearch.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToIntFunction;
+
+/**
+ * Size-bounded in-process cache with W-TinyLFU eviction, kept in front of Redis.
+ * New entries enter a small LRU window (1% of the weight). An entry leaving the window competes with
+ * the least recently used entry of the main area, and the one with the higher access frequency in the
+ * FrequencySketch stays, so a burst of one-off keys cannot flush the hot keys.
+ * The main area is a segmented LRU: an entry hit again in probation moves to the protected segment.
+ * Entries also expire a fixed time after they were written.
+ * get() takes no lock: it reads the concurrent map, then records the access in one of a few small
+ * ring buffers chosen by thread. The buffers are drained under the eviction lock, by the reader that
+ * fills one or by the next write, and only then are the queues and the sketch updated. A full buffer
+ * drops the access, so under contention the LRU order and the frequencies are approximate, the
+ * values never are. Writes and invalidations take the lock.
+ * @param <K> The key generic type
+ * @param <V> The value generic type
+ */
+public class NearCache<K, V> {
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+    private static final int DEAD = -1; // queue of an entry no longer in the cache
+
+    // one read buffer per thread hash, up to twice the processors as a power of two
+    private static final int READ_BUFFERS = Math.min(64,
+            Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1) << 1);
+    private static final int READ_BUFFER_SIZE = 16; // power of two
+
+    private final long maxWeight;
+    private final long windowMaxWeight;
+    private final long protectedMaxWeight;
+    private final long ttlNanos;
+    private final ToIntFunction<? super V> weigher;
+    private final ConcurrentHashMap<K, Node<K, V>> nodes = new ConcurrentHashMap<>();
+    private final ReadBuffer[] readBuffers = new ReadBuffer[READ_BUFFERS];
+    // guards the queues, the sketch, weight and evictionCount
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final FrequencySketch sketch;
+    private final AccessQueue<K, V>[] queues; // indexed by WINDOW, PROBATION, PROTECTED
+    private long weight;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private long evictionCount;
+
+    /**
+     * @param maxWeight total weight of the entries the cache may hold
+     * @param ttl       time an entry stays readable after it was written, 0 for no expiry
+     * @param unit      unit of ttl
+     * @param weigher   weight of a value, at least 1
+     */
+    public NearCache(long maxWeight, long ttl, TimeUnit unit, ToIntFunction<? super V> weigher) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("maxWeight must be positive: " + maxWeight);
+        }
+        this.maxWeight = maxWeight;
+        this.windowMaxWeight = Math.max(1, maxWeight / 100);
+        this.protectedMaxWeight = (maxWeight - this.windowMaxWeight) * 8 / 10;
+        this.ttlNanos = ttl <= 0 ? Long.MAX_VALUE : unit.toNanos(ttl);
+        this.weigher = weigher;
+        // entries weigh well over 16 in practice, so this leaves room to count keys that are not cached
+        this.sketch = new FrequencySketch(maxWeight / 16);
+        this.queues = newQueues(3);
+        for (int i = 0; i < this.readBuffers.length; i++) {
+            this.readBuffers[i] = new ReadBuffer();
+        }
+    }
+
+    /**
+     * private helper to create the empty queues, the only unchecked array creation of the class
+     */
+    @SuppressWarnings("unchecked")
+    private static <K, V> AccessQueue<K, V>[] newQueues(int count) {
+        AccessQueue<K, V>[] queues = (AccessQueue<K, V>[]) new AccessQueue<?, ?>[count];
+        for (int i = 0; i < count; i++) {
+            queues[i] = new AccessQueue<>();
+        }
+        return queues;
+    }
+
+    /**
+     * look up a key without locking, counting a hit or a miss; the access is recorded for the
+     * eviction policy later
+     *
+     * @param key the key
+     * @return the value, or null if the key is not cached or expired
+     */
+    public V get(K key) {
+        Node<K, V> node = this.nodes.get(key);
+        if (node == null) {
+            this.missCount.increment();
+            recordRead(key);
+            return null;
+        }
+        V value = node.value;
+        if (System.nanoTime() - node.writeTime >= this.ttlNanos) {
+            // removed when the access is drained, if it has not been written again by then
+            this.missCount.increment();
+            recordRead(node);
+            return null;
+        }
+        this.hitCount.increment();
+        recordRead(node);
+        return value;
+    }
+
+    /**
+     * add or replace an entry, then evict until the cache fits in its max weight
+     *
+     * @param key   the key
+     * @param value the value
+     */
+    public void put(K key, V value) {
+        int entryWeight = this.weigher.applyAsInt(value);
+        this.evictionLock.lock();
+        try {
+            drainReadBuffers();
+            Node<K, V> node = this.nodes.get(key);
+            if (entryWeight > this.maxWeight) {
+                // could never fit, and the old value is stale now
+                if (node != null) {
+                    unlink(node);
+                }
+                return;
+            }
+            this.sketch.increment(key);
+            if (node != null) {
+                this.queues[node.queue].weight += entryWeight - node.weight;
+                this.weight += entryWeight - node.weight;
+                node.weight = entryWeight;
+                node.writeTime = System.nanoTime();
+                node.value = value;
+                onHit(node);
+            } else {
+                node = new Node<>(key, value, entryWeight, System.nanoTime());
+                this.nodes.put(key, node);
+                this.queues[WINDOW].addLast(node, WINDOW);
+                this.weight += entryWeight;
+            }
+            evict();
+        } finally {
+            this.evictionLock.unlock();
+        }
+    }
+
+    /**
+     * remove one entry
+     *
+     * @param key the key
+     */
+    public void invalidate(K key) {
+        this.evictionLock.lock();
+        try {
+            Node<K, V> node = this.nodes.get(key);
+            if (node != null) {
+                unlink(node);
+            }
+        } finally {
+            this.evictionLock.unlock();
+        }
+    }
+
+    /**
+     * remove every entry; counters and access frequencies are kept
+     */
+    public void invalidateAll() {
+        this.evictionLock.lock();
+        try {
+            drainReadBuffers();
+            for (AccessQueue<K, V> queue : this.queues) {
+                for (Node<K, V> node = queue.first(); node != null; node = queue.first()) {
+                    queue.remove(node);
+                    node.queue = DEAD;
+                }
+            }
+            this.nodes.clear();
+            this.weight = 0;
+        } finally {
+            this.evictionLock.unlock();
+        }
+    }
+
+    /**
+     * @return number of entries
+     */
+    public int size() {
+        return this.nodes.size();
+    }
+
+    /**
+     * @return total weight of the entries
+     */
+    public long weight() {
+        this.evictionLock.lock();
+        try {
+            return this.weight;
+        } finally {
+            this.evictionLock.unlock();
+        }
+    }
+
+    /**
+     * @return number of get() calls that found a live entry
+     */
+    public long hitCount() {
+        return this.hitCount.sum();
+    }
+
+    /**
+     * @return number of get() calls that found no entry or an expired one
+     */
+    public long missCount() {
+        return this.missCount.sum();
+    }
+
+    /**
+     * @return number of entries removed for size or expiry, not counting invalidations
+     */
+    public long evictionCount() {
+        this.evictionLock.lock();
+        try {
+            drainReadBuffers();
+            return this.evictionCount;
+        } finally {
+            this.evictionLock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        this.evictionLock.lock();
+        try {
+            drainReadBuffers();
+            return "NearCache{" +
+                    "size=" + nodes.size() +
+                    ", weight=" + weight + "/" + maxWeight +
+                    ", hits=" + hitCount.sum() +
+                    ", misses=" + missCount.sum() +
+                    ", evictions=" + evictionCount +
+                    '}';
+        } finally {
+            this.evictionLock.unlock();
+        }
+    }
+
+    /**
+     * private helper to record an access in the read buffer of the calling thread; the reader that
+     * finds it full drains every buffer and records it then, unless another thread holds the lock
+     * already and the access is dropped
+     *
+     * @param access the node that was read, or the key that was missed
+     */
+    private void recordRead(Object access) {
+        long thread = Thread.currentThread().getId();
+        ReadBuffer buffer = this.readBuffers[(int) (thread ^ (thread >>> 16)) & (READ_BUFFERS - 1)];
+        if (!buffer.offer(access) && this.evictionLock.tryLock()) {
+            try {
+                drainReadBuffers();
+                buffer.offer(access);
+            } finally {
+                this.evictionLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * private helper to apply the recorded accesses to the sketch and the queues, called with the
+     * eviction lock held. An entry that was removed since is only counted; one that expired is removed
+     */
+    @SuppressWarnings("unchecked")
+    private void drainReadBuffers() {
+        long now = System.nanoTime();
+        for (ReadBuffer buffer : this.readBuffers) {
+            for (Object access = buffer.poll(); access != null; access = buffer.poll()) {
+                if (!(access instanceof Node)) {
+                    this.sketch.increment(access);
+                    continue;
+                }
+                Node<K, V> node = (Node<K, V>) access;
+                this.sketch.increment(node.key);
+                if (node.queue == DEAD) {
+                    continue;
+                }
+                if (now - node.writeTime >= this.ttlNanos) {
+                    unlink(node);
+                    this.evictionCount++;
+                } else {
+                    onHit(node);
+                }
+            }
+        }
+    }
+
+    /**
+     * private helper to move an accessed entry: to the recent end of the window or the protected
+     * segment, or from probation into protected
+     *
+     * @param node the entry
+     */
+    private void onHit(Node<K, V> node) {
+        if (node.queue == PROBATION) {
+            this.queues[PROBATION].remove(node);
+            this.queues[PROTECTED].addLast(node, PROTECTED);
+            // demote the least recent protected entries that no longer fit
+            while (this.queues[PROTECTED].weight > this.protectedMaxWeight) {
+                Node<K, V> demoted = this.queues[PROTECTED].first();
+                this.queues[PROTECTED].remove(demoted);
+                this.queues[PROBATION].addLast(demoted, PROBATION);
+            }
+        } else {
+            this.queues[node.queue].moveToLast(node);
+        }
+    }
+
+    /**
+     * private helper to move the overflow of the window into probation, then evict either the
+     * newcomer or the least recent probation entry, whichever is accessed less often
+     */
+    private void evict() {
+        AccessQueue<K, V> window = this.queues[WINDOW];
+        AccessQueue<K, V> probation = this.queues[PROBATION];
+        while (window.weight > this.windowMaxWeight && window.first() != null) {
+            Node<K, V> candidate = window.first();
+            window.remove(candidate);
+            probation.addLast(candidate, PROBATION);
+        }
+        while (this.weight > this.maxWeight) {
+            Node<K, V> victim = probation.first();
+            if (victim == null) {
+                victim = this.queues[PROTECTED].first() != null ? this.queues[PROTECTED].first() : window.first();
+            } else {
+                Node<K, V> candidate = probation.last();
+                if (candidate != victim
+                        && this.sketch.frequency(candidate.key) <= this.sketch.frequency(victim.key)) {
+                    victim = candidate;
+                }
+            }
+            unlink(victim);
+            this.evictionCount++;
+        }
+    }
+
+    /**
+     * private helper to remove an entry from its queue and from the map
+     *
+     * @param node the entry
+     */
+    private void unlink(Node<K, V> node) {
+        this.queues[node.queue].remove(node);
+        node.queue = DEAD;
+        this.nodes.remove(node.key, node);
+        this.weight -= node.weight;
+    }
+
+    /**
+     * entry of the cache, linked into exactly one AccessQueue while it is in the cache. value and
+     * writeTime are read without the lock, everything else is used under it
+     */
+    private static final class Node<K, V> {
+        final K key;
+        volatile V value;
+        int weight;
+        volatile long writeTime; // System.nanoTime() of the last put
+        int queue; // WINDOW, PROBATION, PROTECTED or DEAD
+        Node<K, V> prev;
+        Node<K, V> next;
+
+        Node(K key, V value, int weight, long writeTime) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.writeTime = writeTime;
+        }
+    }
+
+    /**
+     * lossy ring buffer of accesses, written by any thread without locking and read under the
+     * eviction lock; an offer that finds the buffer full or loses a race drops its access
+     */
+    private static final class ReadBuffer {
+        private final AtomicReferenceArray<Object> slots = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+        private final AtomicLong writes = new AtomicLong();
+        private volatile long reads; // only advanced by the drain
+
+        /**
+         * @param access the access to record
+         * @return false if the buffer is full and should be drained
+         */
+        boolean offer(Object access) {
+            long tail = this.writes.get();
+            if (tail - this.reads >= READ_BUFFER_SIZE) {
+                return false;
+            }
+            if (this.writes.compareAndSet(tail, tail + 1)) {
+                this.slots.lazySet((int) tail & (READ_BUFFER_SIZE - 1), access);
+            }
+            return true;
+        }
+
+        /**
+         * @return the oldest recorded access, or null if there is none or it is not visible yet
+         */
+        Object poll() {
+            long head = this.reads;
+            if (head == this.writes.get()) {
+                return null;
+            }
+            int idx = (int) head & (READ_BUFFER_SIZE - 1);
+            Object access = this.slots.get(idx);
+            if (access != null) {
+                this.slots.lazySet(idx, null);
+                this.reads = head + 1;
+            }
+            return access;
+        }
+    }
+
+    /**
+     * doubly linked list in access order, least recent first
+     */
+    private static final class AccessQueue<K, V> {
+        private final Node<K, V> head = new Node<>(null, null, 0, 0); // sentinel
+        long weight;
+
+        AccessQueue() {
+            head.prev = head;
+            head.next = head;
+        }
+
+        Node<K, V> first() {
+            return head.next == head ? null : head.next;
+        }
+
+        Node<K, V> last() {
+            return head.prev == head ? null : head.prev;
+        }
+
+        void addLast(Node<K, V> node, int queue) {
+            node.queue = queue;
+            node.prev = head.prev;
+            node.next = head;
+            head.prev.next = node;
+            head.prev = node;
+            weight += node.weight;
+        }
+
+        void remove(Node<K, V> node) {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            node.prev = null;
+            node.next = null;
+            weight -= node.weight;
+        }
+
+        void moveToLast(Node<K, V> node) {
+            int queue = node.queue;
+            remove(node);
+            addLast(node, queue);
+        }
+
+        void clear() {
+            head.prev = head;
+            head.next = head;
+            weight = 0;
+        }
+    }
+}
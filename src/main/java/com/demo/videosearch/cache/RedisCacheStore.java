@@ -0,0 +1,96 @@
+package com.demo.videosearch.cache;
+
+import com.demo.videosearch.db.JedisDBPool;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * CacheStore on the Redis server of JedisDBPool. Every call borrows one pooled connection and
+ * returns it, also when the call fails.
+ */
+public class RedisCacheStore implements CacheStore {
+
+    @Override
+    public byte[] get(String key) {
+        return execute(jedis -> jedis.get(key.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Override
+    public void set(String key, byte[] value, int ttlSeconds) {
+        execute(jedis -> jedis.setex(key.getBytes(StandardCharsets.UTF_8), ttlSeconds, value));
+    }
+
+    @Override
+    public void delete(Collection<String> keys) {
+        if (!keys.isEmpty()) {
+            execute(jedis -> jedis.del(keys.toArray(new String[0])));
+        }
+    }
+
+    @Override
+    public void writeStatistics(Map<String, Integer> increments, List<String> history) {
+        execute(jedis -> {
+            Pipeline pipeline = jedis.pipelined();
+            for (Map.Entry<String, Integer> increment : increments.entrySet()) {
+                pipeline.zincrby(HOT_KEYWORDS, increment.getValue(), increment.getKey());
+            }
+            if (!history.isEmpty()) {
+                // one LPUSH of several values leaves the last one at the head, same as one LPUSH each
+                pipeline.lpush(HISTORY_KEYWORDS, history.toArray(new String[0]));
+            }
+            pipeline.sync();
+            return null;
+        });
+    }
+
+    @Override
+    public List<String> hotKeywords(int count) {
+        return execute(jedis -> new ArrayList<>(jedis.zrevrange(HOT_KEYWORDS, 0, count - 1)));
+    }
+
+    @Override
+    public void publish(String channel, String message) {
+        execute(jedis -> jedis.publish(channel, message));
+    }
+
+    @Override
+    public void ping() {
+        execute(Jedis::ping);
+    }
+
+    @Override
+    public void close() {
+        // the pool is shared by the whole process
+    }
+
+    /**
+     * private helper to run a command on a pooled connection
+     *
+     * @param command the command
+     * @return result of the command
+     * @throws CacheUnavailableException if Redis cannot be reached
+     */
+    private static <T> T execute(Function<Jedis, T> command) {
+        Jedis jedis;
+        try {
+            jedis = JedisDBPool.getConnectJedis();
+        } catch (JedisException e) {
+            throw new CacheUnavailableException("Failed to connect to Redis", e);
+        }
+        try {
+            return command.apply(jedis);
+        } catch (JedisException e) {
+            throw new CacheUnavailableException("Redis command failed", e);
+        } finally {
+            jedis.close();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.demo.videosearch.cache;
+
+import com.demo.videosearch.db.JedisDBPool;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPubSub;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * InvalidationBus over a Redis pub/sub channel. Messages are sent through the CacheStore, so an open
+ * circuit breaker skips them instead of waiting for Redis. A daemon thread holds the subscription and
+ * subscribes again after any failure, waiting twice as long after each failure in a row up to a
+ * limit; since messages sent while it was disconnected are lost, the listeners get ALL every time
+ * the subscription is (re)established.
+ */
+public class RedisInvalidationBus implements InvalidationBus {
+
+    // wait before the first new attempt after a failure, doubled after each failure in a row
+    private static final long MIN_RETRY_MILLIS = 500;
+    private static final long MAX_RETRY_MILLIS = 30000;
+
+    private final CacheStore store;
+    private final String channel;
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+    private final JedisPubSub pubSub = new JedisPubSub() {
+        @Override
+        public void onSubscribe(String channel, int subscribedChannels) {
+            retryMillis = MIN_RETRY_MILLIS;
+            deliver(ALL);
+        }
+
+        @Override
+        public void onMessage(String channel, String message) {
+            deliver(message);
+        }
+    };
+    private Thread subscriber;
+    private volatile boolean closed;
+    // wait before the next attempt, only used by the subscriber thread
+    private long retryMillis = MIN_RETRY_MILLIS;
+
+    /**
+     * @param store   store on the same Redis server, used to publish
+     * @param channel name of the Redis channel shared by the nodes
+     */
+    public RedisInvalidationBus(CacheStore store, String channel) {
+        this.store = store;
+        this.channel = channel;
+    }
+
+    @Override
+    public void publish(String message) {
+        try {
+            this.store.publish(this.channel, message);
+        } catch (CacheUnavailableException e) {
+            System.err.println("Failed to connect to Redis, invalidation not sent to other nodes.");
+        }
+    }
+
+    @Override
+    public synchronized void subscribe(Consumer<String> listener) {
+        this.listeners.add(listener);
+        if (this.subscriber == null && !this.closed) {
+            this.subscriber = new Thread(this::listen, "redis-invalidation-" + this.channel);
+            this.subscriber.setDaemon(true);
+            this.subscriber.start();
+        }
+    }
+
+    @Override
+    public void close() {
+        this.closed = true;
+        if (this.pubSub.isSubscribed()) {
+            this.pubSub.unsubscribe();
+        }
+        this.listeners.clear();
+    }
+
+    /**
+     * private helper run by the subscriber thread: subscribe, and subscribe again after a failure of
+     * any kind, a lost connection, a protocol error or a bug, with a growing wait in between
+     */
+    private void listen() {
+        while (!this.closed) {
+            try {
+                Jedis jedis = JedisDBPool.getConnectJedis();
+                try {
+                    // blocks until unsubscribe() or a connection failure
+                    jedis.subscribe(this.pubSub, this.channel);
+                } finally {
+                    jedis.close();
+                }
+            } catch (RuntimeException e) { // JedisException and its subclasses, or a bug
+                if (this.closed) {
+                    return;
+                }
+                System.err.println("Invalidation subscription to Redis lost (" + e + "), subscribing again in "
+                        + this.retryMillis + " ms.");
+                try {
+                    Thread.sleep(this.retryMillis);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                this.retryMillis = Math.min(this.retryMillis * 2, MAX_RETRY_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * private helper to pass a message to every listener; a listener that throws does not end the
+     * subscription or keep the message from the others
+     *
+     * @param message a key, keys separated by spaces, or ALL
+     */
+    private void deliver(String message) {
+        for (Consumer<String> listener : this.listeners) {
+            try {
+                listener.accept(message);
+            } catch (RuntimeException e) {
+                System.err.println("Invalidation listener failed: " + e);
+            }
+        }
+    }
+}
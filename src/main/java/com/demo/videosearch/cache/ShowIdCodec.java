@@ -0,0 +1,118 @@
+package com.demo.videosearch.cache;
+
+import java.util.Arrays;
+
+/**
+ * Binary format of a cached search result: the ids of the result shows instead of the shows themselves.
+ * Layout: one version byte, the epoch of the catalog the ids belong to as 4 big-endian bytes (drawn
+ * at random whenever a catalog is built or loaded), then as varints the version of the catalog (it
+ * changes whenever shows are added, updated or removed), the number of matching shows, the number of
+ * ids, and the ids in result order. The ids may be only the first ones of the result, as many as the
+ * pages served so far needed; they are the whole result when their number is the number of matches.
+ * A value written for another catalog epoch or version, or by another version of the format, decodes
+ * to null and is treated as a cache miss: a backend restarted from the same index file counts its
+ * versions from the same number again, only the epoch tells its results from the old ones.
+ */
+public final class ShowIdCodec {
+
+    public static final byte VERSION = 3;
+
+    private ShowIdCodec() {
+    }
+
+    /**
+     * encode the ids of a search result
+     *
+     * @param result ids in result order, or the first of them, with their catalog epoch and version
+     * @return the encoded bytes
+     */
+    public static byte[] encode(CachedIds result) {
+        int[] ids = result.getIds();
+        byte[] bytes = new byte[1 + 4 + 5 * (ids.length + 3)];
+        bytes[0] = VERSION;
+        int epoch = result.getCatalogEpoch();
+        bytes[1] = (byte) (epoch >>> 24);
+        bytes[2] = (byte) (epoch >>> 16);
+        bytes[3] = (byte) (epoch >>> 8);
+        bytes[4] = (byte) epoch;
+        int pos = writeVarInt(bytes, 5, result.getCatalogVersion());
+        pos = writeVarInt(bytes, pos, result.getTotal());
+        pos = writeVarInt(bytes, pos, ids.length);
+        for (int id : ids) {
+            pos = writeVarInt(bytes, pos, id);
+        }
+        return Arrays.copyOf(bytes, pos);
+    }
+
+    /**
+     * decode the ids of a search result
+     *
+     * @param bytes          the encoded bytes, may be null
+     * @param catalogEpoch   epoch of the current catalog
+     * @param catalogVersion version of the current catalog
+     * @param idLimit        number of ids of the current catalog, every id must be below it
+     * @return the result, or null if the bytes are missing, malformed, of another version or written
+     * for another catalog epoch or version
+     */
+    public static CachedIds decode(byte[] bytes, int catalogEpoch, int catalogVersion, int idLimit) {
+        if (bytes == null || bytes.length < 8 || bytes[0] != VERSION) {
+            return null;
+        }
+        int epoch = (bytes[1] & 0xFF) << 24 | (bytes[2] & 0xFF) << 16 | (bytes[3] & 0xFF) << 8 | (bytes[4] & 0xFF);
+        if (epoch != catalogEpoch) {
+            return null;
+        }
+        int[] pos = {5};
+        if (readVarInt(bytes, pos) != catalogVersion) {
+            return null;
+        }
+        int total = readVarInt(bytes, pos);
+        int count = readVarInt(bytes, pos);
+        if (count < 0 || count > bytes.length - pos[0] || total < count) {
+            return null;
+        }
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            int id = readVarInt(bytes, pos);
+            if (id < 0 || id >= idLimit) {
+                return null;
+            }
+            ids[i] = id;
+        }
+        return pos[0] == bytes.length ? new CachedIds(catalogEpoch, catalogVersion, ids, total) : null;
+    }
+
+    /**
+     * private helper to write 7 bits per byte, high bit set on every byte but the last
+     *
+     * @return position after the value
+     */
+    private static int writeVarInt(byte[] bytes, int pos, int value) {
+        while ((value & ~0x7F) != 0) {
+            bytes[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[pos++] = (byte) value;
+        return pos;
+    }
+
+    /**
+     * private helper to read a varint and advance pos[0] past it
+     *
+     * @return the value, or -1 if the bytes end inside the value or it is longer than 5 bytes
+     */
+    private static int readVarInt(byte[] bytes, int[] pos) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            if (pos[0] >= bytes.length) {
+                return -1;
+            }
+            byte b = bytes[pos[0]++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,352 @@
+package com.demo.videosearch.db;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable scored trie for prefix completion, held in a few flat arrays instead of node objects.
+ * Chains of single children are merged into one node with a multi-character label (a radix tree),
+ * and the nodes are laid out breadth first, so the children of a node are consecutive and sorted
+ * by their first character. Every node also stores the best score of the keys below it; the top N
+ * completions of a prefix are found best first with a small heap, visiting only the nodes that
+ * can still beat the N-th result instead of every key under the prefix.
+ * Memory is 20 bytes per node plus 2 bytes per label character, and there are fewer nodes than
+ * twice the number of keys; a map of every prefix would hold one entry per character of every key.
+ */
+public final class CompletionTrie {
+
+    public static final CompletionTrie EMPTY = builder().build();
+
+    private final char[] labels; // labels of the nodes, back to back
+    private final int[] labelOffset; // label of node i is labels[labelOffset[i]] to labels[labelOffset[i + 1] - 1]
+    private final int[] firstChild; // children of node i are firstChild[i] to firstChild[i + 1] - 1
+    private final int[] parent; // parent of each node, -1 for the root
+    private final int[] keyScore; // score of the key ending at the node, -1 if no key ends there
+    private final int[] bestScore; // best score of the keys at or below the node
+
+    private CompletionTrie(char[] labels, int[] labelOffset, int[] firstChild, int[] parent, int[] keyScore,
+                           int[] bestScore) {
+        this.labels = labels;
+        this.labelOffset = labelOffset;
+        this.firstChild = firstChild;
+        this.parent = parent;
+        this.keyScore = keyScore;
+        this.bestScore = bestScore;
+    }
+
+    /**
+     * @return number of nodes
+     */
+    public int nodeCount() {
+        return this.keyScore.length;
+    }
+
+    /**
+     * @return approximate heap size of the arrays, in bytes
+     */
+    public long sizeInBytes() {
+        return 2L * this.labels.length + 4L * (this.labelOffset.length + this.firstChild.length
+                + this.parent.length + this.keyScore.length + this.bestScore.length);
+    }
+
+    /**
+     * the best scored keys that start with a prefix
+     *
+     * @param prefix the prefix, matched exactly
+     * @param n      maximum number of keys returned
+     * @return the keys, best score first, equal scores in trie order; a key equal to the prefix included
+     */
+    public List<Completion> complete(String prefix, int n) {
+        List<Completion> result = new ArrayList<>(Math.min(n, 16));
+        int node = find(prefix);
+        if (node < 0 || n <= 0) {
+            return result;
+        }
+        // min-heap of entries: inverted score in the high half, node * 2 in the low half, + 1 for a key
+        long[] heap = new long[16];
+        int size = 0;
+        heap[size++] = entry(this.bestScore[node], node, false);
+        while (size > 0 && result.size() < n) {
+            long top = heap[0];
+            heap[0] = heap[--size];
+            siftDown(heap, size);
+            int low = (int) top;
+            int current = low >>> 1;
+            if ((low & 1) != 0) {
+                result.add(new Completion(keyOf(current), this.keyScore[current]));
+                continue;
+            }
+            int needed = this.firstChild[current + 1] - this.firstChild[current] + 1;
+            if (size + needed > heap.length) {
+                heap = Arrays.copyOf(heap, Math.max(heap.length * 2, size + needed));
+            }
+            if (this.keyScore[current] >= 0) {
+                heap[size] = entry(this.keyScore[current], current, true);
+                siftUp(heap, size++);
+            }
+            for (int child = this.firstChild[current]; child < this.firstChild[current + 1]; child++) {
+                heap[size] = entry(this.bestScore[child], child, false);
+                siftUp(heap, size++);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * private helper to find the node where the prefix ends, inside its label or at its end
+     *
+     * @return the node, -1 if no key has the prefix
+     */
+    private int find(String prefix) {
+        int node = 0;
+        int i = 0;
+        while (i < prefix.length()) {
+            node = child(node, prefix.charAt(i));
+            if (node < 0) {
+                return -1;
+            }
+            for (int j = this.labelOffset[node]; j < this.labelOffset[node + 1] && i < prefix.length(); j++, i++) {
+                if (this.labels[j] != prefix.charAt(i)) {
+                    return -1;
+                }
+            }
+        }
+        return node;
+    }
+
+    /**
+     * private helper to find the child whose label starts with a character, by binary search
+     *
+     * @return the child, -1 if none
+     */
+    private int child(int node, char c) {
+        int low = this.firstChild[node];
+        int high = this.firstChild[node + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char first = this.labels[this.labelOffset[mid]];
+            if (first < c) {
+                low = mid + 1;
+            } else if (first > c) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * private helper to spell the key of a node from the labels on its path
+     */
+    private String keyOf(int node) {
+        int length = 0;
+        for (int n = node; n > 0; n = this.parent[n]) {
+            length += this.labelOffset[n + 1] - this.labelOffset[n];
+        }
+        char[] key = new char[length];
+        for (int n = node; n > 0; n = this.parent[n]) {
+            int labelLength = this.labelOffset[n + 1] - this.labelOffset[n];
+            length -= labelLength;
+            System.arraycopy(this.labels, this.labelOffset[n], key, length, labelLength);
+        }
+        return new String(key);
+    }
+
+    /**
+     * private helper to build a heap entry, a higher score giving a smaller entry
+     */
+    private static long entry(int score, int node, boolean key) {
+        return ((long) (Integer.MAX_VALUE - score) << 32) | ((long) node << 1) | (key ? 1 : 0);
+    }
+
+    /**
+     * private helper to move the entry at position i up to its place
+     */
+    private static void siftUp(long[] heap, int i) {
+        long value = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= value) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = value;
+    }
+
+    /**
+     * private helper to move the root down to its place
+     */
+    private static void siftDown(long[] heap, int size) {
+        if (size == 0) {
+            return;
+        }
+        long value = heap[0];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (value <= heap[child]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = value;
+    }
+
+    /**
+     * @return a new builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * A key of the trie with its score.
+     */
+    public static final class Completion {
+        private final String key;
+        private final int score;
+
+        Completion(String key, int score) {
+            this.key = key;
+            this.score = score;
+        }
+
+        public String getKey() {
+            return this.key;
+        }
+
+        public int getScore() {
+            return this.score;
+        }
+
+        @Override
+        public String toString() {
+            return this.key + "=" + this.score;
+        }
+    }
+
+    /**
+     * Collects (key, score) pairs in any order; a key added twice keeps its best score.
+     */
+    public static final class Builder {
+        private final List<Completion> entries = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * @param key   the key
+         * @param score non-negative score, higher is better
+         * @return this builder
+         */
+        public Builder add(String key, int score) {
+            if (score < 0) {
+                throw new IllegalArgumentException("score must not be negative: " + score);
+            }
+            this.entries.add(new Completion(key, score));
+            return this;
+        }
+
+        /**
+         * sort the keys and lay the nodes out breadth first: a node is a range of sorted keys that
+         * share its path, and its children split the range by the next character
+         *
+         * @return the trie
+         */
+        public CompletionTrie build() {
+            Completion[] sorted = this.entries.toArray(new Completion[0]);
+            Arrays.sort(sorted, (a, b) -> a.key.compareTo(b.key));
+            int n = 0;
+            for (Completion entry : sorted) {
+                if (n > 0 && sorted[n - 1].key.equals(entry.key)) {
+                    if (entry.score > sorted[n - 1].score) {
+                        sorted[n - 1] = entry;
+                    }
+                } else {
+                    sorted[n++] = entry;
+                }
+            }
+            // at most one node per key plus one branching node per key, and the root
+            int capacity = 2 * n + 1;
+            int[] low = new int[capacity];
+            int[] high = new int[capacity];
+            int[] depth = new int[capacity]; // length of the path up to the end of the node label
+            int[] parent = new int[capacity];
+            int[] labelOffset = new int[capacity + 1];
+            int[] firstChild = new int[capacity + 1];
+            int[] keyScore = new int[capacity];
+            StringBuilder labels = new StringBuilder();
+            low[0] = 0;
+            high[0] = n;
+            parent[0] = -1;
+            int nodes = 1;
+            for (int node = 0; node < nodes; node++) {
+                int from = low[node];
+                int to = high[node];
+                int d = depth[node];
+                if (node > 0) {
+                    labels.append(sorted[from].key, depth[parent[node]], d);
+                }
+                labelOffset[node + 1] = labels.length();
+                keyScore[node] = -1;
+                if (from < to && sorted[from].key.length() == d) {
+                    // the shortest key of the range, sorted first, ends here
+                    keyScore[node] = sorted[from].score;
+                    from++;
+                }
+                firstChild[node] = nodes;
+                while (from < to) {
+                    char c = sorted[from].key.charAt(d);
+                    int end = from + 1;
+                    while (end < to && sorted[end].key.charAt(d) == c) {
+                        end++;
+                    }
+                    low[nodes] = from;
+                    high[nodes] = end;
+                    depth[nodes] = commonPrefix(sorted[from].key, sorted[end - 1].key, d + 1);
+                    parent[nodes] = node;
+                    nodes++;
+                    from = end;
+                }
+            }
+            firstChild[nodes] = nodes;
+            int[] bestScore = new int[nodes];
+            // children come after their parent, so a reverse pass sees every child first
+            for (int node = nodes - 1; node >= 0; node--) {
+                int best = keyScore[node];
+                for (int child = firstChild[node]; child < firstChild[node + 1]; child++) {
+                    best = Math.max(best, bestScore[child]);
+                }
+                bestScore[node] = best;
+            }
+            char[] chars = new char[labels.length()];
+            labels.getChars(0, chars.length, chars, 0);
+            return new CompletionTrie(chars, Arrays.copyOf(labelOffset, nodes + 1),
+                    Arrays.copyOf(firstChild, nodes + 1), Arrays.copyOf(parent, nodes),
+                    Arrays.copyOf(keyScore, nodes), bestScore);
+        }
+
+        /**
+         * private helper: length of the common prefix of two keys known to share their first `from` chars
+         */
+        private static int commonPrefix(String a, String b, int from) {
+            int max = Math.min(a.length(), b.length());
+            int i = from;
+            while (i < max && a.charAt(i) == b.charAt(i)) {
+                i++;
+            }
+            return i;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.demo.videosearch.db;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+
+/**
+ * HashTableSortedSets that many threads can add() to at once, over a ConcurrentHashtableMap. While it is
+ * being built each key has a pending list that threads append to under the list's own lock, so producers
+ * of different keys never wait for each other and producers of one key only for the append. get() reads
+ * without locking the map: during the build it returns a sorted, duplicate free copy of the pending list,
+ * after freeze() the compacted list itself. freeze() may run while producers are still adding, the values
+ * they add from then on are inserted into sorted copies as in HashTableSortedSets.
+ */
+public class ConcurrentHashTableSortedSets<KeyType, ValueType extends Comparable<ValueType>>
+		implements IHashTableSortedSets<KeyType, ValueType> {
+
+	private final ConcurrentHashtableMap<KeyType, Object> table; // a Pending or a read-only List per key
+	private volatile boolean frozen; // true once freeze() was called
+
+	/**
+	 * The values appended to one key before freeze(). Once sealed its compacted list replaces it in the
+	 * table and append() refuses new values, which then go through the frozen path of add().
+	 */
+	private static final class Pending<ValueType extends Comparable<ValueType>> {
+		private final ArrayList<ValueType> values = new ArrayList<>();
+		private List<ValueType> sealed; // compacted values, set by seal()
+
+		synchronized boolean append(ValueType value) {
+			if (sealed != null) {
+				return false;
+			}
+			values.add(value);
+			return true;
+		}
+
+		synchronized List<ValueType> seal() {
+			if (sealed == null) {
+				sealed = HashTableSortedSets.compact(values);
+			}
+			return sealed;
+		}
+
+		synchronized List<ValueType> snapshot() {
+			return sealed != null ? sealed : HashTableSortedSets.compact(values);
+		}
+	}
+
+	public ConcurrentHashTableSortedSets() {
+		this.table = new ConcurrentHashtableMap<>();
+	}
+
+	/**
+	 * @param capacity    the expected number of keys
+	 * @param concurrency the expected number of threads adding at once
+	 */
+	public ConcurrentHashTableSortedSets(int capacity, int concurrency) {
+		this.table = new ConcurrentHashtableMap<>(capacity, concurrency);
+	}
+
+	/**
+	 * copy constructor of a frozen table; the frozen lists are immutable and shared
+	 *
+	 * @param other the frozen table to copy
+	 */
+	private ConcurrentHashTableSortedSets(ConcurrentHashTableSortedSets<KeyType, ValueType> other) {
+		this.table = new ConcurrentHashtableMap<>(other.table);
+		this.frozen = true;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public void add(KeyType key, ValueType value) {
+		// null keys and values are not added, same as HashTableSortedSets
+		if (key == null || value == null) {
+			return;
+		}
+		if (!frozen) {
+			Object entry = table.computeIfAbsent(key, k -> new Pending<ValueType>());
+			if (entry instanceof Pending && ((Pending<ValueType>) entry).append(value)) {
+				return;
+			}
+		}
+		table.compute(key, (k, entry) -> {
+			List<ValueType> value_list = listOf(entry, true);
+			if (value_list == null) {
+				return Collections.singletonList(value);
+			}
+			return HashTableSortedSets.find_duplicate(value_list, value) ? value_list
+					: HashTableSortedSets.insertSorted(value_list, value);
+		});
+	}
+
+	/**
+	 * seal the pending list of every key into a sorted, duplicate free, immutable list
+	 */
+	@Override
+	public void freeze() {
+		if (frozen) {
+			return;
+		}
+		frozen = true;
+		table.replaceAll((key, entry) -> listOf(entry, true));
+	}
+
+	/**
+	 * @return a frozen copy that add() can change without affecting this table
+	 */
+	@Override
+	public ConcurrentHashTableSortedSets<KeyType, ValueType> copy() {
+		freeze();
+		return new ConcurrentHashTableSortedSets<>(this);
+	}
+
+	/**
+	 * @return true if freeze() has been called
+	 */
+	@Override
+	public boolean isFrozen() {
+		return frozen;
+	}
+
+	/**
+	 * private helper to read the list of an entry of the table
+	 *
+	 * @param entry a Pending, a List or null
+	 * @param seal  true to seal a Pending, false to only copy it
+	 * @return the sorted list, or null
+	 */
+	@SuppressWarnings("unchecked")
+	private List<ValueType> listOf(Object entry, boolean seal) {
+		if (entry instanceof Pending) {
+			Pending<ValueType> pending = (Pending<ValueType>) entry;
+			return seal ? pending.seal() : pending.snapshot();
+		}
+		return (List<ValueType>) entry;
+	}
+
+	@Override
+	public boolean put(KeyType key, List<ValueType> value) {
+		return table.put(key, value);
+	}
+
+	@Override
+	public List<ValueType> get(KeyType key) throws NoSuchElementException {
+		return listOf(table.get(key), false);
+	}
+
+	@Override
+	public int size() {
+		return table.size();
+	}
+
+	@Override
+	public boolean containsKey(KeyType key) {
+		return table.containsKey(key);
+	}
+
+	@Override
+	public List<ValueType> remove(KeyType key) {
+		return listOf(table.remove(key), false);
+	}
+
+	@Override
+	public void clear() {
+		table.clear();
+	}
+
+	@Override
+	public void forEach(BiConsumer<? super KeyType, ? super List<ValueType>> action) {
+		table.forEach((key, entry) -> action.accept(key, listOf(entry, false)));
+	}
+}
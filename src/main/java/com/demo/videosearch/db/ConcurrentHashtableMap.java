@@ -0,0 +1,566 @@
+package com.demo.videosearch.db;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * ConcurrentHashtableMap is an OpenAddressingHashtableMap split into stripes, so that many threads can put
+ * into one map at once: the high bits of the spread hash pick the stripe of a key, and each stripe is a
+ * small open addressing table of its own with its own lock and its own size, so writers only wait for
+ * writers of the same stripe.
+ * Readers take no lock. A lookup reads the stripe under an optimistic StampedLock stamp and only falls
+ * back to the read lock when a writer changed a slot of that stripe meanwhile. A stripe that is full is
+ * copied into a table of twice the size by the writer that filled it, while readers and the other stripes
+ * keep going on the old table, and the new table is then published with one volatile write; the stripes
+ * grow independently of each other instead of the whole table being rehashed at once.
+ * The functions given to computeIfAbsent(), compute() and replaceAll() run while the stripe is locked
+ * and must not change this map.
+ * @param <KeyType>   The key generic type
+ * @param <ValueType> The value generic type
+ **/
+public class ConcurrentHashtableMap<KeyType, ValueType> implements MapADT<KeyType, ValueType> {
+
+    private static final int DEFAULT_CAPACITY = 256;
+    private static final int MAXIMUM_CAPACITY = 1 << 30; // of one stripe
+    private static final int MAXIMUM_STRIPES = 1 << 16; // the stripe index is taken from the high 16 bits of the hash
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final Object NOT_FOUND = new Object(); // result of a lookup of a missing key
+    private static final Object RETRY = new Object(); // result of an optimistic lookup that a writer interfered with
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+
+    /**
+     * Keys, values and spread hashes of one stripe, the same parallel arrays as OpenAddressingHashtableMap.
+     * The arrays of a table never change length, so a reader that read the table reference once indexes
+     * all three arrays safely.
+     */
+    private static final class Table {
+        final Object[] keys; // a null key marks an empty slot
+        final Object[] values;
+        final int[] hashes;
+        final int threshold; // size at which the stripe moves to a larger table
+
+        Table(int capacity) {
+            this.keys = new Object[capacity];
+            this.values = new Object[capacity];
+            this.hashes = new int[capacity];
+            this.threshold = capacity == MAXIMUM_CAPACITY ? Integer.MAX_VALUE : (int) (capacity * LOAD_FACTOR);
+        }
+
+        /**
+         * @return the slot of the key or of the empty slot that ends its probe run
+         */
+        int slotOf(Object key, int hash) {
+            int mask = this.keys.length - 1;
+            int idx = hash & mask;
+            Object k;
+            while ((k = this.keys[idx]) != null) {
+                if (this.hashes[idx] == hash && (k == key || k.equals(key))) {
+                    return idx;
+                }
+                idx = (idx + 1) & mask;
+            }
+            return idx;
+        }
+    }
+
+    /**
+     * One stripe: its current table, its size, the StampedLock whose write lock is held while a slot of
+     * the table changes, and its monitor, held by the writer of the stripe for the whole update.
+     */
+    private static final class Stripe {
+        final StampedLock slots = new StampedLock();
+        volatile Table table;
+        volatile int size; // only written by the writer holding the monitor
+
+        Stripe(int capacity) {
+            this.table = new Table(capacity);
+        }
+    }
+
+    /**
+     * constructor with the default capacity and four stripes per processor, at least 16
+     */
+    public ConcurrentHashtableMap() {
+        this(DEFAULT_CAPACITY, 4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * constructor if capacity of hashtable is given, with the default number of stripes
+     *
+     * @param capacity the expected number of slots
+     */
+    public ConcurrentHashtableMap(int capacity) {
+        this(capacity, 4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * constructor if capacity and number of stripes are given
+     * both are rounded up to the next power of two, the capacity is divided between the stripes
+     *
+     * @param capacity    the expected number of slots
+     * @param concurrency the expected number of threads writing at once
+     */
+    public ConcurrentHashtableMap(int capacity, int concurrency) {
+        int count = powerOfTwo(Math.max(16, Math.min(concurrency, MAXIMUM_STRIPES)), MAXIMUM_STRIPES);
+        int perStripe = powerOfTwo(Math.max(capacity / count, 2), MAXIMUM_CAPACITY);
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            this.stripes[i] = new Stripe(perStripe);
+        }
+        this.stripeMask = count - 1;
+    }
+
+    /**
+     * copy constructor, the new map has the same keys and values in its own arrays; each stripe is
+     * copied while its writers wait, but the copy is not one snapshot of the map
+     *
+     * @param other the map to copy
+     */
+    protected ConcurrentHashtableMap(ConcurrentHashtableMap<KeyType, ValueType> other) {
+        this.stripes = new Stripe[other.stripes.length];
+        for (int i = 0; i < this.stripes.length; i++) {
+            Stripe from = other.stripes[i];
+            Stripe to = new Stripe(2);
+            synchronized (from) {
+                Table table = from.table;
+                Table copy = new Table(table.keys.length);
+                System.arraycopy(table.keys, 0, copy.keys, 0, table.keys.length);
+                System.arraycopy(table.values, 0, copy.values, 0, table.values.length);
+                System.arraycopy(table.hashes, 0, copy.hashes, 0, table.hashes.length);
+                to.table = copy;
+                to.size = from.size;
+            }
+            this.stripes[i] = to;
+        }
+        this.stripeMask = other.stripeMask;
+    }
+
+    /**
+     * private helper to round a requested size up to a power of two
+     */
+    private static int powerOfTwo(int n, int maximum) {
+        if (n <= 2) {
+            return 2;
+        }
+        if (n >= maximum) {
+            return maximum;
+        }
+        return Integer.highestOneBit(n - 1) << 1;
+    }
+
+    /**
+     * private helper to find the stripe of a spread hash; the slots within the stripe use the low bits
+     */
+    private Stripe stripeOf(int hash) {
+        return this.stripes[(hash >>> 16) & this.stripeMask];
+    }
+
+    /**
+     * private helper to look a key up without locking
+     *
+     * @return the value, or NOT_FOUND
+     */
+    private Object find(Object key, int hash) {
+        Stripe stripe = stripeOf(hash);
+        long stamp = stripe.slots.tryOptimisticRead();
+        if (stamp != 0) {
+            Object found = probe(stripe.table, key, hash, stripe.slots, stamp);
+            if (found != RETRY) {
+                return found;
+            }
+        }
+        stamp = stripe.slots.readLock();
+        try {
+            return probe(stripe.table, key, hash, null, 0L);
+        } finally {
+            stripe.slots.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * private helper to walk the probe run of a key. Under an optimistic stamp the slots may be changing:
+     * the stamp is validated before equals() is called on a key read from the table and before answering,
+     * and the walk is bounded by the table length
+     *
+     * @param slots the lock of the stripe when reading optimistically, null under the read lock
+     * @return the value, NOT_FOUND, or RETRY if the stamp was invalidated
+     */
+    private static Object probe(Table table, Object key, int hash, StampedLock slots, long stamp) {
+        Object[] keys = table.keys;
+        int mask = keys.length - 1;
+        int idx = hash & mask;
+        for (int n = 0; n <= mask; n++) {
+            Object k = keys[idx];
+            if (k == null) {
+                break;
+            }
+            if (table.hashes[idx] == hash) {
+                Object value = table.values[idx];
+                if (slots != null && !slots.validate(stamp)) {
+                    return RETRY;
+                }
+                if (k == key || k.equals(key)) {
+                    return value;
+                }
+            }
+            idx = (idx + 1) & mask;
+        }
+        return slots != null && !slots.validate(stamp) ? RETRY : NOT_FOUND;
+    }
+
+    /**
+     * private helper for the writer holding the monitor of the stripe: store a new key in the free slot idx
+     * of the current table, moving the stripe to a larger table first if it is full
+     */
+    private static void insert(Stripe stripe, int idx, Object key, Object value, int hash) {
+        Table table = stripe.table;
+        if (stripe.size + 1 > table.threshold) {
+            table = grow(table);
+            stripe.table = table; // readers move to the new table, the old one is left unchanged
+            idx = table.slotOf(key, hash);
+        }
+        long stamp = stripe.slots.writeLock();
+        try {
+            table.keys[idx] = key;
+            table.values[idx] = value;
+            table.hashes[idx] = hash;
+        } finally {
+            stripe.slots.unlockWrite(stamp);
+        }
+        stripe.size = stripe.size + 1;
+    }
+
+    /**
+     * private helper to copy a table into one twice as large, using the stored hash codes
+     */
+    private static Table grow(Table old) {
+        Table table = new Table(old.keys.length * 2);
+        int mask = table.keys.length - 1;
+        for (int i = 0; i < old.keys.length; i++) {
+            if (old.keys[i] == null) {
+                continue;
+            }
+            int idx = old.hashes[i] & mask;
+            while (table.keys[idx] != null) {
+                idx = (idx + 1) & mask;
+            }
+            table.keys[idx] = old.keys[i];
+            table.values[idx] = old.values[i];
+            table.hashes[idx] = old.hashes[i];
+        }
+        return table;
+    }
+
+    /**
+     * private helper for the writer holding the monitor of the stripe: remove the key in slot idx,
+     * shifting the following entries of the probe run back as OpenAddressingHashtableMap.remove() does
+     */
+    private static void delete(Stripe stripe, int idx) {
+        Table table = stripe.table;
+        Object[] keys = table.keys;
+        int mask = keys.length - 1;
+        long stamp = stripe.slots.writeLock();
+        try {
+            int hole = idx;
+            int next = (hole + 1) & mask;
+            while (keys[next] != null) {
+                int home = table.hashes[next] & mask;
+                // move the entry into the hole unless its home slot lies cyclically in (hole, next]
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    keys[hole] = keys[next];
+                    table.values[hole] = table.values[next];
+                    table.hashes[hole] = table.hashes[next];
+                    hole = next;
+                }
+                next = (next + 1) & mask;
+            }
+            keys[hole] = null;
+            table.values[hole] = null;
+            table.hashes[hole] = 0;
+        } finally {
+            stripe.slots.unlockWrite(stamp);
+        }
+        stripe.size = stripe.size - 1;
+    }
+
+    /**
+     * private helper for the writer holding the monitor of the stripe: change the value in slot idx
+     */
+    private static void set(Stripe stripe, int idx, Object value) {
+        long stamp = stripe.slots.writeLock();
+        try {
+            stripe.table.values[idx] = value;
+        } finally {
+            stripe.slots.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * store a new key-value pair. When the put method is passed a key that is null or is equal to a key that
+     * is already stored in the hash table, that call returns false without making any changes to the hash
+     * table, same as HashtableMap.
+     *
+     * @param key   the KeyType key of the pair of data
+     * @param value the ValueType value of the pair of data
+     * @return boolean true or false to indicate the success of putting a pair
+     */
+    @Override
+    public boolean put(KeyType key, ValueType value) {
+        if (key == null) {
+            return false;
+        }
+        int hash = OpenAddressingHashtableMap.spread(key);
+        Stripe stripe = stripeOf(hash);
+        synchronized (stripe) {
+            int idx = stripe.table.slotOf(key, hash);
+            if (stripe.table.keys[idx] != null) {
+                return false;
+            }
+            insert(stripe, idx, key, value, hash);
+            return true;
+        }
+    }
+
+    /**
+     * replace the value of a key that is already stored in the hash table
+     *
+     * @param key   the KeyType key of the pair of data
+     * @param value the new ValueType value of the pair of data
+     * @return the previous value, or null if the key was not in the collection (nothing is stored then)
+     */
+    @SuppressWarnings("unchecked")
+    public ValueType replace(KeyType key, ValueType value) {
+        if (key == null) {
+            return null;
+        }
+        int hash = OpenAddressingHashtableMap.spread(key);
+        Stripe stripe = stripeOf(hash);
+        synchronized (stripe) {
+            int idx = stripe.table.slotOf(key, hash);
+            if (stripe.table.keys[idx] == null) {
+                return null;
+            }
+            ValueType previous = (ValueType) stripe.table.values[idx];
+            set(stripe, idx, value);
+            return previous;
+        }
+    }
+
+    /**
+     * return the value of a key, storing the value computed from the key first if the key is not in the
+     * collection; the function is called at most once, while the stripe of the key is locked
+     *
+     * @param key      the KeyType key of the pair of data
+     * @param function computes the value of a missing key; a null result stores nothing
+     * @return the value of the key, the new one if it was computed, or null
+     */
+    @SuppressWarnings("unchecked")
+    public ValueType computeIfAbsent(KeyType key, Function<? super KeyType, ? extends ValueType> function) {
+        if (key == null) {
+            return null;
+        }
+        int hash = OpenAddressingHashtableMap.spread(key);
+        Object found = find(key, hash);
+        if (found != NOT_FOUND) {
+            return (ValueType) found;
+        }
+        Stripe stripe = stripeOf(hash);
+        synchronized (stripe) {
+            int idx = stripe.table.slotOf(key, hash);
+            if (stripe.table.keys[idx] != null) {
+                return (ValueType) stripe.table.values[idx];
+            }
+            ValueType value = function.apply(key);
+            if (value != null) {
+                insert(stripe, idx, key, value, hash);
+            }
+            return value;
+        }
+    }
+
+    /**
+     * atomically replace the value of a key by a function of the key and its current value,
+     * while the stripe of the key is locked
+     *
+     * @param key      the KeyType key of the pair of data
+     * @param function computes the new value from the key and the current value, null if the key is
+     *                 missing; a null result removes the key
+     * @return the new value, or null
+     */
+    @SuppressWarnings("unchecked")
+    public ValueType compute(KeyType key, BiFunction<? super KeyType, ? super ValueType, ? extends ValueType> function) {
+        if (key == null) {
+            return null;
+        }
+        int hash = OpenAddressingHashtableMap.spread(key);
+        Stripe stripe = stripeOf(hash);
+        synchronized (stripe) {
+            int idx = stripe.table.slotOf(key, hash);
+            boolean present = stripe.table.keys[idx] != null;
+            ValueType value = function.apply(key, present ? (ValueType) stripe.table.values[idx] : null);
+            if (value == null) {
+                if (present) {
+                    delete(stripe, idx);
+                }
+            } else if (present) {
+                set(stripe, idx, value);
+            } else {
+                insert(stripe, idx, key, value, hash);
+            }
+            return value;
+        }
+    }
+
+    /**
+     * replace the value of every key by a function of the key and the value, one stripe at a time
+     *
+     * @param function computes the new value, must not return null
+     */
+    @SuppressWarnings("unchecked")
+    public void replaceAll(BiFunction<? super KeyType, ? super ValueType, ? extends ValueType> function) {
+        for (Stripe stripe : this.stripes) {
+            synchronized (stripe) {
+                Table table = stripe.table;
+                for (int i = 0; i < table.keys.length; i++) {
+                    if (table.keys[i] != null) {
+                        set(stripe, i, function.apply((KeyType) table.keys[i], (ValueType) table.values[i]));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * looking for the key and return the value based on the searching
+     *
+     * @param key the KeyType key of the pair of data
+     * @return value the ValueType value of the pair of data based on the key
+     * @throws NoSuchElementException indicates there is no key looking for
+     **/
+    @Override
+    @SuppressWarnings("unchecked")
+    public ValueType get(KeyType key) throws NoSuchElementException {
+        if (key == null) {
+            throw new NoSuchElementException("this key is not in the collection!");
+        }
+        Object found = find(key, OpenAddressingHashtableMap.spread(key));
+        if (found == NOT_FOUND) {
+            throw new NoSuchElementException("this key is not in the collection!");
+        }
+        return (ValueType) found;
+    }
+
+    /**
+     * single probe lookup for callers that would otherwise call containsKey() and then get()
+     *
+     * @param key          the KeyType key of the pair of data
+     * @param defaultValue value returned when the key is not in the collection
+     * @return the value of the key, or defaultValue
+     */
+    @SuppressWarnings("unchecked")
+    public ValueType getOrDefault(KeyType key, ValueType defaultValue) {
+        if (key == null) {
+            return defaultValue;
+        }
+        Object found = find(key, OpenAddressingHashtableMap.spread(key));
+        return found == NOT_FOUND ? defaultValue : (ValueType) found;
+    }
+
+    /**
+     * the number of key-value pairs, the sum of the sizes of the stripes; while writers are running it is
+     * only an estimate
+     *
+     * @return size the number of key-value pairs stored in this collection
+     */
+    @Override
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : this.stripes) {
+            size += stripe.size;
+        }
+        return size;
+    }
+
+    /**
+     * check whether the key was in the collection before doing any other behaviors and changes
+     *
+     * @param key the KeyType key of the pair of data
+     * @return boolean decides whether the key is included
+     */
+    @Override
+    public boolean containsKey(KeyType key) {
+        return key != null && find(key, OpenAddressingHashtableMap.spread(key)) != NOT_FOUND;
+    }
+
+    /**
+     * a remove method that returns a reference to the value associated with the key that is being removed.
+     * When the key being removed cannot be found, this method returns null.
+     *
+     * @param key KeyType key that points to the key that is going to be removed
+     * @return value returns a reference to the ValueType value associated with the key that is being removed
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public ValueType remove(KeyType key) {
+        if (key == null) {
+            return null;
+        }
+        int hash = OpenAddressingHashtableMap.spread(key);
+        Stripe stripe = stripeOf(hash);
+        synchronized (stripe) {
+            int idx = stripe.table.slotOf(key, hash);
+            if (stripe.table.keys[idx] == null) {
+                return null;
+            }
+            ValueType removed = (ValueType) stripe.table.values[idx];
+            delete(stripe, idx);
+            return removed;
+        }
+    }
+
+    /**
+     * a clear method that removes all key-value pairs from this collection, one stripe at a time;
+     * each stripe gets an empty table of the same capacity
+     */
+    @Override
+    public void clear() {
+        for (Stripe stripe : this.stripes) {
+            synchronized (stripe) {
+                stripe.table = new Table(stripe.table.keys.length);
+                stripe.size = 0;
+            }
+        }
+    }
+
+    /**
+     * visit every key-value pair. Each stripe is copied under its read lock and its pairs visited after
+     * the lock is released, so the action may use this map; pairs changed meanwhile may or may not be seen
+     *
+     * @param action called once for each pair
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super KeyType, ? super ValueType> action) {
+        for (Stripe stripe : this.stripes) {
+            Object[] keys;
+            Object[] values;
+            long stamp = stripe.slots.readLock();
+            try {
+                Table table = stripe.table;
+                keys = table.keys.clone();
+                values = table.values.clone();
+            } finally {
+                stripe.slots.unlockRead(stamp);
+            }
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != null) {
+                    action.accept((KeyType) keys[i], (ValueType) values[i]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.demo.videosearch.db;
+
+import java.nio.ByteBuffer;
+
+/**
+ * HashTablePostingLists maps every key to the compressed list of the ids added under it, with the
+ * positions of the key in each title.
+ * Like HashTableSortedSets it works in two phases: while it is being built, add() appends to a
+ * PostingListBuilder per key, which already holds the ids and positions varint-encoded; freeze()
+ * copies every builder into one shared arena as a PostingList with its skip entries. Ids added
+ * after freeze() are appended to a copy of the encoded list of their key.
+ */
+public class HashTablePostingLists<KeyType> extends OpenAddressingHashtableMap<KeyType, PostingList>
+        implements IHashTablePostingLists<KeyType> {
+
+    // encoded ids and positions of each key while the table is being built, null once frozen
+    private OpenAddressingHashtableMap<KeyType, PostingListBuilder> pending = new OpenAddressingHashtableMap<>();
+
+    public HashTablePostingLists() {
+    }
+
+    /**
+     * copy constructor of a frozen table; the posting lists are immutable and shared
+     *
+     * @param other the frozen table to copy
+     */
+    private HashTablePostingLists(HashTablePostingLists<KeyType> other) {
+        super(other);
+        this.pending = null;
+    }
+
+    public void add(KeyType key, int id, int position) {
+        if (key == null) {
+            return;
+        }
+        if (this.pending != null) {
+            PostingListBuilder builder = this.pending.getOrDefault(key, null);
+            if (builder == null) {
+                builder = new PostingListBuilder();
+                this.pending.put(key, builder);
+            }
+            builder.add(id, position);
+            return;
+        }
+        PostingList list = getOrDefault(key, null);
+        if (list == null) {
+            put(key, PostingList.EMPTY.append(id, position));
+        } else {
+            replace(key, list.append(id, position));
+        }
+    }
+
+    /**
+     * add every id of another table that is still being built, shifted by an offset, e.g. to merge
+     * an index built over a later part of the same catalog. Keys are looked up once per table,
+     * not once per id.
+     *
+     * @param other    a HashTablePostingLists that has not been frozen, unchanged
+     * @param idOffset added to each id of other; the shifted ids must be above the ids of this table
+     * @throws IllegalArgumentException if other is not a HashTablePostingLists still being built
+     */
+    @Override
+    public void addAll(IHashTablePostingLists<KeyType> other, int idOffset) {
+        if (!(other instanceof HashTablePostingLists) || ((HashTablePostingLists<KeyType>) other).pending == null) {
+            throw new IllegalArgumentException("only a HashTablePostingLists that is not frozen can be merged");
+        }
+        ((HashTablePostingLists<KeyType>) other).pending.forEach((key, builder) -> {
+            if (this.pending != null) {
+                PostingListBuilder mine = this.pending.getOrDefault(key, null);
+                if (mine == null) {
+                    mine = new PostingListBuilder(builder.size());
+                    this.pending.put(key, mine);
+                }
+                mine.addAll(builder, idOffset);
+                return;
+            }
+            // frozen: decode the list of the key once and encode it again with the new postings
+            PostingList list = getOrDefault(key, null);
+            PostingListBuilder merged = new PostingListBuilder((list == null ? 0 : list.size()) + builder.size());
+            if (list != null) {
+                merged.addAll(list);
+            }
+            merged.addAll(builder, idOffset);
+            if (list == null) {
+                put(key, merged.build());
+            } else {
+                replace(key, merged.build());
+            }
+        });
+    }
+
+    /**
+     * encode the buffered ids of every key, back to back in one shared arena
+     */
+    @Override
+    public void freeze() {
+        if (this.pending == null) {
+            return;
+        }
+        int[] total = new int[1];
+        this.pending.forEach((key, builder) -> total[0] += builder.encodedLength());
+        byte[] bytes = new byte[total[0]];
+        ByteBuffer arena = ByteBuffer.wrap(bytes);
+        int[] offset = new int[1];
+        this.pending.forEach((key, builder) -> {
+            PostingList list = builder.encodeTo(arena, bytes, offset[0]);
+            offset[0] += list.sizeInBytes();
+            put(key, list);
+        });
+        this.pending = null;
+    }
+
+    /**
+     * @return a frozen copy that add() can change without affecting this table
+     */
+    @Override
+    public HashTablePostingLists<KeyType> copy() {
+        freeze();
+        return new HashTablePostingLists<>(this);
+    }
+
+    /**
+     * @return number of keys, including the keys still being built
+     */
+    @Override
+    public int size() {
+        return this.pending != null ? this.pending.size() : super.size();
+    }
+
+    /**
+     * @return true if freeze() has been called
+     */
+    @Override
+    public boolean isFrozen() {
+        return this.pending == null;
+    }
+}
@@ -1,11 +1,35 @@
 package com.demo.videosearch.db;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
+/**
+ * HashTableSortedSets works in two phases. While it is being built, add() only appends the value to the
+ * list of its key, without sorting or looking for duplicates. freeze() then sorts every list once, removes
+ * the duplicates and compacts it into an immutable array, and from then on get() returns read-only views.
+ * Values added after freeze() are inserted into a sorted copy of the list of their key.
+ */
 public class HashTableSortedSets<KeyType, ValueType extends Comparable<ValueType>>
-		extends HashtableMap<KeyType, List<ValueType>> implements IHashTableSortedSets<KeyType, ValueType> {
+		extends OpenAddressingHashtableMap<KeyType, List<ValueType>> implements IHashTableSortedSets<KeyType, ValueType> {
+
+	private boolean frozen; // true once freeze() compacted the lists
+
+	public HashTableSortedSets() {
+	}
+
+	/**
+	 * copy constructor of a frozen table; the frozen lists are immutable and shared
+	 *
+	 * @param other the frozen table to copy
+	 */
+	private HashTableSortedSets(HashTableSortedSets<KeyType, ValueType> other) {
+		super(other);
+		this.frozen = true;
+	}
 
 	public void add(KeyType key, ValueType value) {
 		// check if key is null, if key is null, don't add it to the value list.
@@ -16,36 +40,129 @@ public class HashTableSortedSets<KeyType, ValueType extends Comparable<ValueType
 		if (value == null) {
 			return;
 		}
-		// check if key is in the Hashtable
-		if (!containsKey(key)) {
-			// if not, create a new value_list and add it to the corresponding key
-			List<ValueType> value_list = new ArrayList<ValueType>();
-			value_list.add(value);
-			// put the key and value_list back in Hashtable
-			put(key, value_list);
-		} else {
-			// if yes, get the value_list from the key
-			List<ValueType> value_list = get(key);
-			// check if the value is a duplicate
-			if (find_duplicate(value_list, value)) {
-				return;
+		List<ValueType> value_list = getOrDefault(key, null);
+		if (!frozen) {
+			// building: append only, sorting and duplicates are handled once by freeze()
+			if (value_list == null) {
+				value_list = new ArrayList<ValueType>();
+				put(key, value_list);
 			}
-			// add value into the value_list
 			value_list.add(value);
-			// sort the value_list
-			Collections.sort(value_list);
+			return;
+		}
+		if (value_list == null) {
+			put(key, Collections.singletonList(value));
+		} else if (!find_duplicate(value_list, value)) {
+			replace(key, insertSorted(value_list, value));
+		}
+	}
+
+	/**
+	 * sort, de-duplicate and compact the list of every key into an immutable array
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public void freeze() {
+		if (frozen) {
+			return;
+		}
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != null) {
+				values[i] = compact((List<ValueType>) values[i]);
+			}
+		}
+		frozen = true;
+	}
+
+	/**
+	 * @return a frozen copy that add() can change without affecting this table
+	 */
+	@Override
+	public HashTableSortedSets<KeyType, ValueType> copy() {
+		freeze();
+		return new HashTableSortedSets<>(this);
+	}
+
+	/**
+	 * @return true if freeze() has been called
+	 */
+	@Override
+	public boolean isFrozen() {
+		return frozen;
+	}
+
+	/**
+	 * helper that turns a list built by append into a sorted, duplicate free, read-only list,
+	 * shared with IntHashTableSortedSets and ConcurrentHashTableSortedSets
+	 *
+	 * @param value_list the appended values of one key
+	 * @return read-only view over the compacted array
+	 */
+	static <ValueType> List<ValueType> compact(List<ValueType> value_list) {
+		Object[] array = value_list.toArray();
+		int length = array.length;
+		if (length > 1) {
+			// keep the first occurrence of every value, in insertion order
+			Set<Object> seen = new HashSet<>(length * 2);
+			length = 0;
+			for (Object value : array) {
+				if (seen.add(value)) {
+					array[length++] = value;
+				}
+			}
+			if (length < array.length) {
+				array = Arrays.copyOf(array, length);
+			}
+			// stable, so values that compare equal keep their insertion order as with the old per-add sort
+			Arrays.sort(array);
 		}
+		return readOnly(array);
+	}
+
+	/**
+	 * helper to build the sorted copy of a frozen list with one more value, placed after
+	 * the values that compare equal to it, shared with IntHashTableSortedSets and ConcurrentHashTableSortedSets
+	 *
+	 * @param value_list the frozen list
+	 * @param value      the new value
+	 * @return read-only view over the new array
+	 */
+	static <ValueType extends Comparable<ValueType>> List<ValueType> insertSorted(List<ValueType> value_list, ValueType value) {
+		int low = 0;
+		int high = value_list.size();
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (value_list.get(mid).compareTo(value) <= 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		Object[] array = new Object[value_list.size() + 1];
+		for (int i = 0; i < low; i++) {
+			array[i] = value_list.get(i);
+		}
+		array[low] = value;
+		for (int i = low; i < value_list.size(); i++) {
+			array[i + 1] = value_list.get(i);
+		}
+		return readOnly(array);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <ValueType> List<ValueType> readOnly(Object[] array) {
+		return (List<ValueType>) (List<?>) Collections.unmodifiableList(Arrays.asList(array));
 	}
 
 	/**
 	 * private helper method to see if the value corresponding to the key that we
 	 * try to add is already in the List
-	 * 
+	 *
 	 * @param value_list where the key is store
 	 * @param value
 	 * @return true if has duplicate value, false if not found duplicates
 	 */
-	private boolean find_duplicate(List<ValueType> value_list, ValueType value) {
+	static <ValueType> boolean find_duplicate(List<ValueType> value_list, ValueType value) {
 		for (int j = 0; j < value_list.size(); j++) {
 			if (value_list.get(j).equals(value))
 				return true;
@@ -54,4 +171,3 @@ public class HashTableSortedSets<KeyType, ValueType extends Comparable<ValueType
 	}
 
 }
-
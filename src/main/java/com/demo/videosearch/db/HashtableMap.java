@@ -1,19 +1,46 @@
 package com.demo.videosearch.db;
 
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.NoSuchElementException;
 
 /**
  * HashtableMap data structure to implement the logic of the table list storing each KeyValuePair within a
  * linkedList in a unique index of (hashcode % capacity) of the list
+ * Buckets are created on the first key stored in them. When the table grows, the pairs of the old buckets
+ * are moved into the new table as they are, without put() and without new KeyValuePairs. In the incremental
+ * resize mode the move is spread over the following operations: both tables are kept, each put, get,
+ * containsKey or remove first moves the next MIGRATION_STEP old buckets, and a key whose old bucket has not
+ * been moved yet is still looked up, stored and removed in the old table. No single put then pays for
+ * moving the whole table.
  * @param <KeyType>   The key generic type
  * @param <ValueType> The value generic type
  **/
 public class HashtableMap<KeyType, ValueType> implements MapADT<KeyType, ValueType> {
 
-    protected LinkedList<KeyValuePair<KeyType, ValueType>>[] keyValuePairs; //list to store keyValuePairs
+    // old buckets moved by each operation during an incremental resize; at 2 or more the move is over
+    // before the new table is full enough to grow again
+    private static final int MIGRATION_STEP = 8;
+
+    protected LinkedList<KeyValuePair<KeyType, ValueType>>[] keyValuePairs; //list to store keyValuePairs, null is an empty bucket
+    private LinkedList<KeyValuePair<KeyType, ValueType>>[] previous; // table being moved into keyValuePairs, or null
+    private int migrated; // buckets of previous below this index have been moved
+    private final boolean incremental; // true to move the buckets a few at a time
     private int size; //current size of list
 
+    /**
+     * constructor if capacity of hashtable is given and whether the table grows incrementally
+     *
+     * @param capacity          the number of buckets
+     * @param incrementalResize true to spread the move of the buckets over the following operations
+     *                          when the table grows, false to move them all at once
+     */
+    public HashtableMap(int capacity, boolean incrementalResize) {
+        this.keyValuePairs = newTable(capacity);
+        this.incremental = incrementalResize;
+        this.size = 0;
+    }
+
     /**
      * constructor if capacity of hashtable is given
      * initialization of all the required instances
@@ -21,14 +48,8 @@ public class HashtableMap<KeyType, ValueType> implements MapADT<KeyType, ValueTy
      *
      * @param capacity
      */
-    @SuppressWarnings("unchecked")
     public HashtableMap(int capacity) {
-        this.keyValuePairs = new LinkedList[capacity];
-        this.size = 0;
-
-        for (int i = 0; i < this.keyValuePairs.length; i++) {
-            this.keyValuePairs[i] = new LinkedList<>();
-        }
+        this(capacity, false);
     }
 
     /**
@@ -36,14 +57,19 @@ public class HashtableMap<KeyType, ValueType> implements MapADT<KeyType, ValueTy
      * initialization of all the required instances
      * and list with default capacity 20
      */
-    @SuppressWarnings("unchecked")
     public HashtableMap() { // with default capacity = 20
-        this.keyValuePairs = new LinkedList[20]; //cast raw type to generic type
-        this.size = 0;
+        this(20, false);
+    }
 
-        for (int i = 0; i < this.keyValuePairs.length; i++) {
-            this.keyValuePairs[i] = new LinkedList<>();
-        }
+    /**
+     * private helper to create an empty table of buckets, the only unchecked array creation of the class
+     *
+     * @param capacity the number of buckets
+     * @return the table, every bucket null
+     */
+    @SuppressWarnings("unchecked")
+    private static <K, V> LinkedList<KeyValuePair<K, V>>[] newTable(int capacity) {
+        return (LinkedList<KeyValuePair<K, V>>[]) new LinkedList<?>[capacity];
     }
 
     /**
@@ -55,31 +81,94 @@ public class HashtableMap<KeyType, ValueType> implements MapADT<KeyType, ValueTy
         return this.keyValuePairs.length;
     }
 
+    /**
+     * @return true while the buckets of the old table are being moved into the new one
+     */
+    public boolean isResizing() {
+        return this.previous != null;
+    }
+
+    /**
+     * private helper for the bucket index of a key: hashcode % capacity of a non-negative hashcode
+     */
+    private static int indexOf(Object key, int capacity) {
+        return (key.hashCode() & 0x7FFFFFFF) % capacity;
+    }
+
+    /**
+     * private helper to find the bucket of a key, in the old table while that bucket has not been moved
+     *
+     * @param key    the key, not null
+     * @param create true to create the bucket if it is empty
+     * @return the bucket, or null if it is empty and create is false
+     */
+    private LinkedList<KeyValuePair<KeyType, ValueType>> bucketOf(KeyType key, boolean create) {
+        if (this.previous != null) {
+            migrate(MIGRATION_STEP);
+        }
+        LinkedList<KeyValuePair<KeyType, ValueType>>[] table = this.keyValuePairs;
+        if (this.previous != null) {
+            int old = indexOf(key, this.previous.length);
+            if (old >= this.migrated) {
+                table = this.previous;
+            }
+        }
+        int idx = indexOf(key, table.length);
+        LinkedList<KeyValuePair<KeyType, ValueType>> bucket = table[idx];
+        if (bucket == null && create) {
+            bucket = new LinkedList<>();
+            table[idx] = bucket;
+        }
+        return bucket;
+    }
+
+    /**
+     * private helper to move the next old buckets into the new table, reusing their KeyValuePairs
+     *
+     * @param buckets number of old buckets to move
+     */
+    private void migrate(int buckets) {
+        LinkedList<KeyValuePair<KeyType, ValueType>>[] old = this.previous;
+        int end = Math.min(old.length, this.migrated + buckets);
+        for (int i = this.migrated; i < end; i++) {
+            LinkedList<KeyValuePair<KeyType, ValueType>> bucket = old[i];
+            if (bucket == null) {
+                continue;
+            }
+            for (KeyValuePair<KeyType, ValueType> keyValuePair : bucket) {
+                int idx = indexOf(keyValuePair.getKey(), this.keyValuePairs.length);
+                LinkedList<KeyValuePair<KeyType, ValueType>> target = this.keyValuePairs[idx];
+                if (target == null) {
+                    target = new LinkedList<>();
+                    this.keyValuePairs[idx] = target;
+                }
+                target.add(keyValuePair);
+            }
+            old[i] = null;
+        }
+        this.migrated = end;
+        if (end == old.length) {
+            this.previous = null;
+            this.migrated = 0;
+        }
+    }
+
     /**
      * dynamically grow the collection
      * rehashHelper() helps put() to resize the size of list when
      * the size encounters the threshold of 75% capacity rate
-     * assign all the old pairs data to the new list
+     * the old pairs are moved to the new list at once, or a few buckets per operation in incremental mode
      */
-    @SuppressWarnings("unchecked")
     private void rehashHelper() {
-        LinkedList<KeyValuePair<KeyType, ValueType>>[] keyValuePairsPrevious = this.keyValuePairs;//store the old pairs
-        this.keyValuePairs = new LinkedList[(this.keyValuePairs.length * 2)];//create new empty pairs' list with
-        // doubled rehashing size
-        this.size = 0;
-
-        //create empty linkedList for each index in the new list
-        for (int i = 0; i < this.keyValuePairs.length; i++) {
-            this.keyValuePairs[i] = new LinkedList<>();
+        if (this.previous != null) {
+            migrate(this.previous.length); // the previous resize is not over yet, finish it first
         }
-
-        //assign old to new without changing data but probably with different index in list
-        for (int i = 0; i < keyValuePairsPrevious.length; i++) {
-            LinkedList oldLinkedList = keyValuePairsPrevious[i];
-            for (int idx = 0; idx < oldLinkedList.size(); idx++) {
-                KeyValuePair<KeyType, ValueType> keyValuePair = (KeyValuePair<KeyType, ValueType>) oldLinkedList.get(idx);
-                put(keyValuePair.getKey(), keyValuePair.getValue());
-            }
+        this.previous = this.keyValuePairs; //store the old pairs
+        this.keyValuePairs = newTable(this.keyValuePairs.length * 2);//create new empty pairs' list with
+        // doubled rehashing size
+        this.migrated = 0;
+        if (!this.incremental) {
+            migrate(this.previous.length);
         }
     }
 
@@ -95,7 +184,6 @@ public class HashtableMap<KeyType, ValueType> implements MapADT<KeyType, ValueTy
      * @return boolean true or false to indicate the success of putting a pair
      */
     @Override
-    @SuppressWarnings("unchecked")
     public boolean put(KeyType key, ValueType value) {
         // eliminate it and quit if key is null
         if (key == null) {
@@ -103,15 +191,11 @@ public class HashtableMap<KeyType, ValueType> implements MapADT<KeyType, ValueTy
         }
 
         // use hash function and get the unique position to place keyValue pair
-        int hashcode = key.hashCode();
-        hashcode = hashcode >= 0 ? hashcode : -hashcode; //get the absolute value of hashcode
-        int idx = hashcode % this.getCapacity();
-        LinkedList linkedList = this.keyValuePairs[idx];
+        LinkedList<KeyValuePair<KeyType, ValueType>> linkedList = bucketOf(key, true);
 
         // if the list has the keyValue pair/ a key already had in the list
         // eliminate it and quit with a return false
-        for (int i = 0; i < linkedList.size(); i++) {
-            KeyValuePair<KeyType, ValueType> keyValuePair = (KeyValuePair<KeyType, ValueType>) linkedList.get(i);
+        for (KeyValuePair<KeyType, ValueType> keyValuePair : linkedList) {
             if (key.equals(keyValuePair.getKey())) {
                 return false;
             }
@@ -122,7 +206,7 @@ public class HashtableMap<KeyType, ValueType> implements MapADT<KeyType, ValueTy
         this.size++;
 
         // call rehash helper method if the capacity rate >= 75%
-        if (this.size >= 0.75 * this.keyValuePairs.length) {
+        if (this.size >= 0.75 * this.getCapacity()) {
             rehashHelper();
         }
         return true;
@@ -136,25 +220,19 @@ public class HashtableMap<KeyType, ValueType> implements MapADT<KeyType, ValueTy
      * @throws NoSuchElementException indicates there is no key looking for
      **/
     @Override
-    @SuppressWarnings("unchecked")
     public ValueType get(KeyType key) throws NoSuchElementException {
 
         if (key == null) { // it shouldn't be a null for key cuz the base of put()
             throw new NoSuchElementException("this key is not in the collection!");
         }
 
-        int hashCode = key.hashCode();
-        hashCode = hashCode >= 0 ? hashCode : -hashCode; //get the absolute value of hashcode
-
         // use hash function and get the unique position to get keyValue pair
-        int capacity = this.keyValuePairs.length;
-        int idx = hashCode % capacity;
-
-        LinkedList linkedList = this.keyValuePairs[idx];
-        for (int i = 0; i < linkedList.size(); i++) { // tracing through the collection of the specific data pair
-            KeyValuePair<KeyType, ValueType> keyValuePair = (KeyValuePair<KeyType, ValueType>) linkedList.get(i);
-            if (keyValuePair.getKey().equals(key)) // find out the one with corresponding key and return the value
-                return keyValuePair.getValue();
+        LinkedList<KeyValuePair<KeyType, ValueType>> linkedList = bucketOf(key, false);
+        if (linkedList != null) {
+            for (KeyValuePair<KeyType, ValueType> keyValuePair : linkedList) { // tracing through the collection of the specific data pair
+                if (keyValuePair.getKey().equals(key)) // find out the one with corresponding key and return the value
+                    return keyValuePair.getValue();
+            }
         }
 
         throw new NoSuchElementException("this key is not in the collection!");
@@ -177,24 +255,19 @@ public class HashtableMap<KeyType, ValueType> implements MapADT<KeyType, ValueTy
      * @return boolean decides whether the key is included
      */
     @Override
-    @SuppressWarnings("unchecked")
     public boolean containsKey(KeyType key) {
         if (key == null) {
             return false;
         }
-        int hashCode = key.hashCode();
-        hashCode = hashCode >= 0 ? hashCode : -hashCode; //get the absolute value of hashcode
 
         // use hash function and get the unique position to get keyValue pair
-        int capacity = this.keyValuePairs.length;
-        int index = hashCode % capacity;
-
-        LinkedList linkedList = this.keyValuePairs[index];
-        for (int i = 0; i < linkedList.size(); i++) { // tracing through the collection of the specific data pair
-            // find out the one with corresponding key and return boolean deciding whether the key is included
-            KeyValuePair<KeyType, ValueType> keyValuePair = (KeyValuePair<KeyType, ValueType>) linkedList.get(i);
-            if (keyValuePair.getKey().equals(key))
-                return true;
+        LinkedList<KeyValuePair<KeyType, ValueType>> linkedList = bucketOf(key, false);
+        if (linkedList != null) {
+            for (KeyValuePair<KeyType, ValueType> keyValuePair : linkedList) { // tracing through the collection of the specific data pair
+                // find out the one with corresponding key and return boolean deciding whether the key is included
+                if (keyValuePair.getKey().equals(key))
+                    return true;
+            }
         }
 
         return false;
@@ -208,25 +281,23 @@ public class HashtableMap<KeyType, ValueType> implements MapADT<KeyType, ValueTy
      * @return value returns a reference to the ValueType value associated with the key that is being removed
      */
     @Override
-    @SuppressWarnings("unchecked")
     public ValueType remove(KeyType key) {
         if (key == null) {
             return null;
         }
 
-        int hashCode = key.hashCode();
-        hashCode = hashCode >= 0 ? hashCode : -hashCode;  //get the absolute value of hashcode
-
         // use hash function and get the unique position to get keyValue pair
-        int capacity = this.keyValuePairs.length;
-        int index = hashCode % capacity;
-
-        LinkedList linkedList = this.keyValuePairs[index];
-        for (int i = 0; i < linkedList.size(); i++) { // tracing through the collection of the specific data pair
-            KeyValuePair<KeyType, ValueType> keyValuePair = (KeyValuePair<KeyType, ValueType>) linkedList.get(i);
+        LinkedList<KeyValuePair<KeyType, ValueType>> linkedList = bucketOf(key, false);
+        if (linkedList == null) {
+            return null;
+        }
+        Iterator<KeyValuePair<KeyType, ValueType>> pairs = linkedList.iterator();
+        while (pairs.hasNext()) { // tracing through the collection of the specific data pair
+            KeyValuePair<KeyType, ValueType> keyValuePair = pairs.next();
             if (keyValuePair.getKey().equals(key)) { // find out the one with corresponding key and remove it then return
                 // the value corresponding to that key being removed
-                linkedList.remove(i);
+                pairs.remove();
+                this.size--;
                 return keyValuePair.getValue();
             }
         }
@@ -240,12 +311,9 @@ public class HashtableMap<KeyType, ValueType> implements MapADT<KeyType, ValueTy
      */
     @Override
     public void clear() {
-        int capacity = this.keyValuePairs.length;
-        this.keyValuePairs = new LinkedList[capacity];
-
-        for (int i = 0; i < capacity; i++)
-            this.keyValuePairs[i] = new LinkedList<>();
-
+        this.keyValuePairs = newTable(this.getCapacity());
+        this.previous = null;
+        this.migrated = 0;
         this.size = 0; //changing the current size instead of the capacity
     }
-}
\ No newline at end of file
+}
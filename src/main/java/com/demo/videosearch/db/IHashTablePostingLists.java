@@ -0,0 +1,57 @@
+package com.demo.videosearch.db;
+
+import java.util.function.BiConsumer;
+
+/**
+ * This class is implemented by a hashtable that stores the ascending int ids
+ * associated with each unique key, and the positions of the key in the title
+ * of each id, as a compressed PostingList.
+ */
+public interface IHashTablePostingLists<KeyType> extends MapADT<KeyType, PostingList> {
+
+    /**
+     * Appends an id and a position to the posting list of a key, creating the
+     * list if the key has none yet. Ids of one key are expected in ascending
+     * order, and the positions of one id too.
+     * @param key used to later lookup the list containing this id
+     * @param id associated with the previous key
+     * @param position of the key in the title of id, 0 for the first word
+     */
+    public void add(KeyType key, int id, int position);
+
+    /**
+     * Appends every posting of another table, ids shifted by idOffset, to the lists of
+     * the same keys. Used to merge tables built in parallel over consecutive
+     * parts of one catalog.
+     * @param other table still being built, unchanged
+     * @param idOffset added to each id of other
+     */
+    public void addAll(IHashTablePostingLists<KeyType> other, int idOffset);
+
+    /**
+     * Ends the bulk-build phase: every buffered list is encoded once.
+     * Calling it again has no effect.
+     */
+    public void freeze();
+
+    /**
+     * @return true once freeze() has been called
+     */
+    public boolean isFrozen();
+
+    /**
+     * Freezes this table and returns an independent frozen copy that shares
+     * the immutable posting lists, so the copy can be changed while this
+     * table is being read.
+     * @return the copy
+     */
+    public IHashTablePostingLists<KeyType> copy();
+
+    /**
+     * Visits every key and its list once the table is frozen, for example to
+     * write the table to a file.
+     * @param action called once for each key
+     */
+    public void forEach(BiConsumer<? super KeyType, ? super PostingList> action);
+
+}
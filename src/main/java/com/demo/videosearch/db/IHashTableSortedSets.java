@@ -1,6 +1,7 @@
 package com.demo.videosearch.db;
 
 import java.util.List;
+import java.util.function.BiConsumer;
 
 /**
  * This class is implemented by a hashtable that stores a list of values 
@@ -19,4 +20,30 @@ public interface IHashTableSortedSets <KeyType,ValueType extends Comparable<Valu
      */
     public void add(KeyType key, ValueType value);
 
+    /**
+     * Ends the bulk-build phase: every list is sorted, de-duplicated and
+     * compacted once, and get() returns read-only lists from then on.
+     * Calling it again has no effect.
+     */
+    public void freeze();
+
+    /**
+     * @return true once freeze() has been called
+     */
+    public boolean isFrozen();
+
+    /**
+     * Freezes this table and returns an independent frozen copy that shares
+     * the immutable lists, so the copy can be changed while this table is
+     * being read.
+     * @return the copy
+     */
+    public IHashTableSortedSets<KeyType, ValueType> copy();
+
+    /**
+     * Visits every key and its list, for example to write the table to a file.
+     * @param action called once for each key
+     */
+    public void forEach(BiConsumer<? super KeyType, ? super List<ValueType>> action);
+
 }
@@ -0,0 +1,126 @@
+package com.demo.videosearch.db;
+
+import java.util.Arrays;
+
+/**
+ * Growable bitmap over dense show ids, 64 ids per long word.
+ * Combining two bitmaps is a word by word AND, and testing an id is one shift and mask.
+ */
+public final class IdBitmap {
+
+    private long[] words; // bit (id & 63) of words[id >>> 6] is set when id is in the bitmap
+
+    public IdBitmap() {
+        this.words = new long[1];
+    }
+
+    private IdBitmap(long[] words) {
+        this.words = words;
+    }
+
+    /**
+     * add an id, growing the bitmap if needed
+     *
+     * @param id a non-negative id
+     */
+    public void set(int id) {
+        int word = id >>> 6;
+        if (word >= this.words.length) {
+            this.words = Arrays.copyOf(this.words, Math.max(word + 1, this.words.length * 2));
+        }
+        this.words[word] |= 1L << id;
+    }
+
+    /**
+     * remove an id
+     *
+     * @param id a non-negative id
+     */
+    public void clear(int id) {
+        int word = id >>> 6;
+        if (word < this.words.length) {
+            this.words[word] &= ~(1L << id);
+        }
+    }
+
+    /**
+     * @param id a non-negative id
+     * @return true if the id is in the bitmap
+     */
+    public boolean get(int id) {
+        int word = id >>> 6;
+        return word < this.words.length && (this.words[word] & (1L << id)) != 0;
+    }
+
+    /**
+     * keep only the ids that are also in other
+     *
+     * @param other the bitmap to intersect with
+     * @return this bitmap
+     */
+    public IdBitmap and(IdBitmap other) {
+        int common = Math.min(this.words.length, other.words.length);
+        for (int i = 0; i < common; i++) {
+            this.words[i] &= other.words[i];
+        }
+        Arrays.fill(this.words, common, this.words.length, 0L);
+        return this;
+    }
+
+    /**
+     * add every id of other
+     *
+     * @param other the bitmap to merge
+     * @return this bitmap
+     */
+    public IdBitmap or(IdBitmap other) {
+        if (other.words.length > this.words.length) {
+            this.words = Arrays.copyOf(this.words, other.words.length);
+        }
+        for (int i = 0; i < other.words.length; i++) {
+            this.words[i] |= other.words[i];
+        }
+        return this;
+    }
+
+    /**
+     * @return number of ids in the bitmap
+     */
+    public int cardinality() {
+        int count = 0;
+        for (long word : this.words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * @param from first id counted
+     * @param to   end of the range, exclusive
+     * @return number of ids of the bitmap in [from, to)
+     */
+    public int cardinality(int from, int to) {
+        int count = 0;
+        for (int id = from; id < to; ) {
+            int word = id >>> 6;
+            if (word >= this.words.length) {
+                break;
+            }
+            long bits = this.words[word] & (-1L << id);
+            int next = (word + 1) << 6;
+            if (to < next) {
+                bits &= (1L << to) - 1;
+            }
+            count += Long.bitCount(bits);
+            id = next;
+        }
+        return count;
+    }
+
+    /**
+     * @return an independent copy of this bitmap
+     */
+    public IdBitmap copy() {
+        return new IdBitmap(this.words.clone());
+    }
+}
@@ -0,0 +1,90 @@
+package com.demo.videosearch.db;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * HashTableSortedSets for int keys, such as years: the lists live in an IntHashtableMap, so add(int, ...)
+ * and get(int) find the list of a key without boxing it. Built in the same two phases, add() appends
+ * until freeze() sorts, de-duplicates and compacts every list, and values added after freeze() are
+ * inserted into a sorted copy of the list of their key.
+ */
+public class IntHashTableSortedSets<ValueType extends Comparable<ValueType>> extends IntHashtableMap<List<ValueType>> {
+
+	private boolean frozen; // true once freeze() compacted the lists
+
+	public IntHashTableSortedSets() {
+	}
+
+	/**
+	 * copy constructor of a frozen table; the frozen lists are immutable and shared
+	 *
+	 * @param other the frozen table to copy
+	 */
+	private IntHashTableSortedSets(IntHashTableSortedSets<ValueType> other) {
+		super(other);
+		this.frozen = true;
+	}
+
+	/**
+	 * append a value to the list of a key, creating the list if the key has none yet
+	 *
+	 * @param key   used to later lookup the list containing this value
+	 * @param value associated with the key, null values are ignored
+	 */
+	public void add(int key, ValueType value) {
+		if (value == null) {
+			return;
+		}
+		List<ValueType> value_list = getOrDefault(key, null);
+		if (!frozen) {
+			// building: append only, sorting and duplicates are handled once by freeze()
+			if (value_list == null) {
+				value_list = new ArrayList<ValueType>();
+				put(key, value_list);
+			}
+			value_list.add(value);
+			return;
+		}
+		if (value_list == null) {
+			put(key, Collections.singletonList(value));
+		} else if (!HashTableSortedSets.find_duplicate(value_list, value)) {
+			replace(key, HashTableSortedSets.insertSorted(value_list, value));
+		}
+	}
+
+	/**
+	 * sort, de-duplicate and compact the list of every key into an immutable array
+	 */
+	@SuppressWarnings("unchecked")
+	public void freeze() {
+		if (frozen) {
+			return;
+		}
+		if (hasZeroKey) {
+			zeroValue = HashTableSortedSets.compact((List<ValueType>) zeroValue);
+		}
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != 0) {
+				values[i] = HashTableSortedSets.compact((List<ValueType>) values[i]);
+			}
+		}
+		frozen = true;
+	}
+
+	/**
+	 * @return a frozen copy that add() can change without affecting this table
+	 */
+	public IntHashTableSortedSets<ValueType> copy() {
+		freeze();
+		return new IntHashTableSortedSets<>(this);
+	}
+
+	/**
+	 * @return true if freeze() has been called
+	 */
+	public boolean isFrozen() {
+		return frozen;
+	}
+}
@@ -0,0 +1,358 @@
+package com.demo.videosearch.db;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * IntHashtableMap is OpenAddressingHashtableMap specialized for int keys: the keys are kept in a flat int[]
+ * next to the values, so put(int, ...), get(int) and containsKey(int) neither box the key into an Integer
+ * nor call hashCode() and equals() on it, and no hash codes are stored since spreading an int is one
+ * multiplication. 0 marks an empty slot in the key array, the value of the key 0 itself is kept in a field
+ * of its own.
+ * @param <ValueType> The value generic type
+ **/
+public class IntHashtableMap<ValueType> implements IntMapADT<ValueType> {
+
+    private static final int DEFAULT_CAPACITY = 32; // same as OpenAddressingHashtableMap
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    protected int[] keys; // keys of the table, 0 marks an empty slot
+    protected Object[] values; // value stored in the same slot as its key
+    protected boolean hasZeroKey; // true if the key 0 is in the collection
+    protected Object zeroValue; // value of the key 0
+    private int size; // current number of key-value pairs, the key 0 included
+    private int threshold; // number of slots in use at which the table doubles
+
+    /**
+     * Called once for each pair by forEach(EntryConsumer), without boxing the key.
+     * @param <ValueType> The value generic type
+     */
+    @FunctionalInterface
+    public interface EntryConsumer<ValueType> {
+        void accept(int key, ValueType value);
+    }
+
+    /**
+     * constructor if capacity of hashtable is given
+     * the capacity is rounded up to the next power of two
+     *
+     * @param capacity the expected number of slots
+     */
+    public IntHashtableMap(int capacity) {
+        allocate(tableSizeFor(capacity));
+    }
+
+    /**
+     * constructor if no capacity of hashtable is given
+     * initialization of the arrays with default capacity 32
+     */
+    public IntHashtableMap() {
+        allocate(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * copy constructor, the new table has the same keys and values in its own arrays
+     *
+     * @param other the table to copy
+     */
+    protected IntHashtableMap(IntHashtableMap<ValueType> other) {
+        this.keys = other.keys.clone();
+        this.values = other.values.clone();
+        this.hasZeroKey = other.hasZeroKey;
+        this.zeroValue = other.zeroValue;
+        this.size = other.size;
+        this.threshold = other.threshold;
+    }
+
+    /**
+     * hash spreader, the same golden ratio multiplication as OpenAddressingHashtableMap.spread(),
+     * so that consecutive keys such as years do not fill one run of neighbouring slots
+     *
+     * @param key the key to hash
+     * @return the spread hash code
+     */
+    static int spread(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * private helper to round a requested capacity up to a power of two
+     *
+     * @param capacity the requested capacity
+     * @return the power of two capacity
+     */
+    private static int tableSizeFor(int capacity) {
+        if (capacity <= 2) {
+            return 2;
+        }
+        if (capacity >= MAXIMUM_CAPACITY) {
+            return MAXIMUM_CAPACITY;
+        }
+        return Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+    /**
+     * private helper to create the empty arrays of the given capacity
+     *
+     * @param capacity power of two capacity
+     */
+    private void allocate(int capacity) {
+        this.keys = new int[capacity];
+        this.values = new Object[capacity];
+        this.threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * private helper to find the slot that holds a key other than 0
+     *
+     * @param key the key looking for, not 0
+     * @return the slot index or -1 if the key is not in the table
+     */
+    private int slotOf(int key) {
+        int[] keys = this.keys;
+        int mask = keys.length - 1;
+        int idx = spread(key) & mask;
+        int k;
+        while ((k = keys[idx]) != 0) {
+            if (k == key) {
+                return idx;
+            }
+            idx = (idx + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * dynamically grow the collection
+     * doubles the arrays and moves every entry into its new slot
+     */
+    private void resize() {
+        int[] oldKeys = this.keys;
+        Object[] oldValues = this.values;
+        if (oldKeys.length == MAXIMUM_CAPACITY) {
+            this.threshold = Integer.MAX_VALUE;
+            return;
+        }
+        allocate(oldKeys.length * 2);
+        int mask = this.keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            int key = oldKeys[i];
+            if (key == 0) {
+                continue;
+            }
+            int idx = spread(key) & mask;
+            while (this.keys[idx] != 0) {
+                idx = (idx + 1) & mask;
+            }
+            this.keys[idx] = key;
+            this.values[idx] = oldValues[i];
+        }
+    }
+
+    /**
+     * store a new key-value pair in the first free slot of the probe run of the key. When the put method is
+     * passed a key that is already stored in the hash table, that call returns false without making any
+     * changes to the hash table, same as OpenAddressingHashtableMap.
+     *
+     * @param key   the int key of the pair of data
+     * @param value the ValueType value of the pair of data
+     * @return boolean true or false to indicate the success of putting a pair
+     */
+    @Override
+    public boolean put(int key, ValueType value) {
+        if (key == 0) {
+            if (this.hasZeroKey) {
+                return false;
+            }
+            this.hasZeroKey = true;
+            this.zeroValue = value;
+            this.size++;
+            return true;
+        }
+        int[] keys = this.keys;
+        int mask = keys.length - 1;
+        int idx = spread(key) & mask;
+        int k;
+        while ((k = keys[idx]) != 0) {
+            if (k == key) {
+                return false;
+            }
+            idx = (idx + 1) & mask;
+        }
+        keys[idx] = key;
+        this.values[idx] = value;
+        this.size++;
+        if (this.size - (this.hasZeroKey ? 1 : 0) > this.threshold) {
+            resize();
+        }
+        return true;
+    }
+
+    /**
+     * replace the value of a key that is already stored in the hash table
+     *
+     * @param key   the int key of the pair of data
+     * @param value the new ValueType value of the pair of data
+     * @return the previous value, or null if the key was not in the collection (nothing is stored then)
+     */
+    @SuppressWarnings("unchecked")
+    public ValueType replace(int key, ValueType value) {
+        ValueType previous;
+        if (key == 0) {
+            if (!this.hasZeroKey) {
+                return null;
+            }
+            previous = (ValueType) this.zeroValue;
+            this.zeroValue = value;
+            return previous;
+        }
+        int idx = slotOf(key);
+        if (idx < 0) {
+            return null;
+        }
+        previous = (ValueType) this.values[idx];
+        this.values[idx] = value;
+        return previous;
+    }
+
+    /**
+     * looking for the key and return the value based on the searching
+     *
+     * @param key the int key of the pair of data
+     * @return value the ValueType value of the pair of data based on the key
+     * @throws NoSuchElementException indicates there is no key looking for
+     **/
+    @SuppressWarnings("unchecked")
+    @Override
+    public ValueType get(int key) throws NoSuchElementException {
+        if (key == 0) {
+            if (!this.hasZeroKey) {
+                throw new NoSuchElementException("this key is not in the collection!");
+            }
+            return (ValueType) this.zeroValue;
+        }
+        int idx = slotOf(key);
+        if (idx < 0) {
+            throw new NoSuchElementException("this key is not in the collection!");
+        }
+        return (ValueType) this.values[idx];
+    }
+
+    /**
+     * single probe lookup for callers that would otherwise call containsKey() and then get()
+     *
+     * @param key          the int key of the pair of data
+     * @param defaultValue value returned when the key is not in the collection
+     * @return the value of the key, or defaultValue
+     */
+    @SuppressWarnings("unchecked")
+    public ValueType getOrDefault(int key, ValueType defaultValue) {
+        if (key == 0) {
+            return this.hasZeroKey ? (ValueType) this.zeroValue : defaultValue;
+        }
+        int idx = slotOf(key);
+        return idx < 0 ? defaultValue : (ValueType) this.values[idx];
+    }
+
+    /**
+     * check whether the key was in the collection before doing any other behaviors and changes
+     *
+     * @param key the int key of the pair of data
+     * @return boolean decides whether the key is included
+     */
+    @Override
+    public boolean containsKey(int key) {
+        return key == 0 ? this.hasZeroKey : slotOf(key) >= 0;
+    }
+
+    /**
+     * a remove method that returns a reference to the value associated with the key that is being removed.
+     * The entries after the removed slot in the same probe run are shifted back so later lookups still find them.
+     * When the key being removed cannot be found, this method returns null.
+     *
+     * @param key int key that points to the key that is going to be removed
+     * @return value returns a reference to the ValueType value associated with the key that is being removed
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public ValueType remove(int key) {
+        if (key == 0) {
+            if (!this.hasZeroKey) {
+                return null;
+            }
+            ValueType removed = (ValueType) this.zeroValue;
+            this.hasZeroKey = false;
+            this.zeroValue = null;
+            this.size--;
+            return removed;
+        }
+        int idx = slotOf(key);
+        if (idx < 0) {
+            return null;
+        }
+        ValueType removed = (ValueType) this.values[idx];
+        int[] keys = this.keys;
+        int mask = keys.length - 1;
+        int hole = idx;
+        int next = (hole + 1) & mask;
+        int k;
+        while ((k = keys[next]) != 0) {
+            int home = spread(k) & mask;
+            // move the entry into the hole unless its home slot lies cyclically in (hole, next]
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = k;
+                this.values[hole] = this.values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = 0;
+        this.values[hole] = null;
+        this.size--;
+        return removed;
+    }
+
+    /**
+     * a size method that returns the number of key-value pairs stored in this collection
+     *
+     * @return size the number of key-value pairs stored in this collection
+     */
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * a clear method that removes all key-value pairs from this collection
+     * (without changing the underlying array capacity).
+     */
+    @Override
+    public void clear() {
+        Arrays.fill(this.keys, 0);
+        Arrays.fill(this.values, null);
+        this.hasZeroKey = false;
+        this.zeroValue = null;
+        this.size = 0;
+    }
+
+    /**
+     * visit every key-value pair, the key 0 first and then in slot order
+     *
+     * @param action called once for each pair
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryConsumer<? super ValueType> action) {
+        if (this.hasZeroKey) {
+            action.accept(0, (ValueType) this.zeroValue);
+        }
+        int[] keys = this.keys;
+        Object[] values = this.values;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                action.accept(keys[i], (ValueType) values[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.demo.videosearch.db;
+
+
+import java.util.NoSuchElementException;
+
+/**
+ * MapADT with primitive int keys. It is a separate interface and not MapADT&lt;Integer, ValueType&gt;,
+ * because overloads taking an int and an Integer key would be ambiguous for callers whose values
+ * need boxing too, and every call through the Integer methods would box the key again.
+ */
+public interface IntMapADT<ValueType> {
+    public boolean put(int key, ValueType value);
+
+    public ValueType get(int key) throws NoSuchElementException;
+
+    public int size();
+
+    public boolean containsKey(int key);
+
+    public ValueType remove(int key);
+
+    public void clear();
+}
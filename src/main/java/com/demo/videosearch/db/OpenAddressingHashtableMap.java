@@ -0,0 +1,332 @@
+package com.demo.videosearch.db;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+
+/**
+ * OpenAddressingHashtableMap data structure keeps every key, value and hash code in three flat parallel arrays
+ * and resolves collisions by linear probing, so no KeyValuePair or LinkedList is allocated for each entry.
+ * The capacity is always a power of two so the slot of a key is (spread hash & mask) instead of a modulus,
+ * and remove() shifts the following entries of the probe run back so that no tombstones are left behind.
+ * @param <KeyType>   The key generic type
+ * @param <ValueType> The value generic type
+ **/
+public class OpenAddressingHashtableMap<KeyType, ValueType> implements MapADT<KeyType, ValueType> {
+
+    private static final int DEFAULT_CAPACITY = 32; // smallest power of two above the default 20 of HashtableMap
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+    private static final float LOAD_FACTOR = 0.75f; // same threshold as HashtableMap
+
+    protected Object[] keys; // keys of the table, a null key marks an empty slot
+    protected Object[] values; // value stored in the same slot as its key
+    protected int[] hashes; // spread hash code of the key stored in the same slot
+    private int size; // current number of key-value pairs
+    private int threshold; // size at which the table doubles
+
+    /**
+     * constructor if capacity of hashtable is given
+     * the capacity is rounded up to the next power of two
+     *
+     * @param capacity the expected number of slots
+     */
+    public OpenAddressingHashtableMap(int capacity) {
+        allocate(tableSizeFor(capacity));
+    }
+
+    /**
+     * constructor if no capacity of hashtable is given
+     * initialization of all the arrays with default capacity 32
+     */
+    public OpenAddressingHashtableMap() {
+        allocate(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * copy constructor, the new table has the same keys and values in its own arrays
+     *
+     * @param other the table to copy
+     */
+    protected OpenAddressingHashtableMap(OpenAddressingHashtableMap<KeyType, ValueType> other) {
+        this.keys = other.keys.clone();
+        this.values = other.values.clone();
+        this.hashes = other.hashes.clone();
+        this.size = other.size;
+        this.threshold = other.threshold;
+    }
+
+    /**
+     * hash spreader: multiplies by the golden ratio and folds the high bits into the low bits,
+     * because the slot index only keeps the low bits of the hash and String.hashCode() of short
+     * words differ mostly in their high bits
+     *
+     * @param key the key to hash
+     * @return the spread hash code
+     */
+    static int spread(Object key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * private helper to round a requested capacity up to a power of two
+     *
+     * @param capacity the requested capacity
+     * @return the power of two capacity
+     */
+    private static int tableSizeFor(int capacity) {
+        if (capacity <= 2) {
+            return 2;
+        }
+        if (capacity >= MAXIMUM_CAPACITY) {
+            return MAXIMUM_CAPACITY;
+        }
+        return Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+    /**
+     * private helper to create the empty arrays of the given capacity
+     *
+     * @param capacity power of two capacity
+     */
+    private void allocate(int capacity) {
+        this.keys = new Object[capacity];
+        this.values = new Object[capacity];
+        this.hashes = new int[capacity];
+        this.threshold = (int) (capacity * LOAD_FACTOR);
+        this.size = 0;
+    }
+
+    /**
+     * private helper to find the slot that holds the key
+     *
+     * @param key  the key looking for, not null
+     * @param hash the spread hash of the key
+     * @return the slot index or -1 if the key is not in the table
+     */
+    private int slotOf(Object key, int hash) {
+        Object[] keys = this.keys;
+        int mask = keys.length - 1;
+        int idx = hash & mask;
+        Object k;
+        while ((k = keys[idx]) != null) {
+            if (this.hashes[idx] == hash && (k == key || k.equals(key))) {
+                return idx;
+            }
+            idx = (idx + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * dynamically grow the collection
+     * doubles the arrays and moves every entry into its new slot using the stored hash codes,
+     * without going through put() and without calling hashCode() or equals() again
+     */
+    private void resize() {
+        Object[] oldKeys = this.keys;
+        Object[] oldValues = this.values;
+        int[] oldHashes = this.hashes;
+        int oldSize = this.size;
+        if (oldKeys.length == MAXIMUM_CAPACITY) {
+            this.threshold = Integer.MAX_VALUE;
+            return;
+        }
+        allocate(oldKeys.length * 2);
+        int mask = this.keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == null) {
+                continue;
+            }
+            int idx = oldHashes[i] & mask;
+            while (this.keys[idx] != null) {
+                idx = (idx + 1) & mask;
+            }
+            this.keys[idx] = oldKeys[i];
+            this.values[idx] = oldValues[i];
+            this.hashes[idx] = oldHashes[i];
+        }
+        this.size = oldSize;
+    }
+
+    /**
+     * store a new key-value pair in the first free slot of the probe run of the key. When the put method is
+     * passed a key that is null or is equal to a key that is already stored in the hash table, that call returns
+     * false without making any changes to the hash table, same as HashtableMap.
+     *
+     * @param key   the KeyType key of the pair of data
+     * @param value the ValueType value of the pair of data
+     * @return boolean true or false to indicate the success of putting a pair
+     */
+    @Override
+    public boolean put(KeyType key, ValueType value) {
+        if (key == null) {
+            return false;
+        }
+        int hash = spread(key);
+        Object[] keys = this.keys;
+        int mask = keys.length - 1;
+        int idx = hash & mask;
+        Object k;
+        while ((k = keys[idx]) != null) {
+            if (this.hashes[idx] == hash && (k == key || k.equals(key))) {
+                return false;
+            }
+            idx = (idx + 1) & mask;
+        }
+        keys[idx] = key;
+        this.values[idx] = value;
+        this.hashes[idx] = hash;
+        if (++this.size > this.threshold) {
+            resize();
+        }
+        return true;
+    }
+
+    /**
+     * replace the value of a key that is already stored in the hash table
+     *
+     * @param key   the KeyType key of the pair of data
+     * @param value the new ValueType value of the pair of data
+     * @return the previous value, or null if the key was not in the collection (nothing is stored then)
+     */
+    @SuppressWarnings("unchecked")
+    public ValueType replace(KeyType key, ValueType value) {
+        if (key == null) {
+            return null;
+        }
+        int idx = slotOf(key, spread(key));
+        if (idx < 0) {
+            return null;
+        }
+        ValueType previous = (ValueType) this.values[idx];
+        this.values[idx] = value;
+        return previous;
+    }
+
+    /**
+     * looking for the key and return the value based on the searching
+     *
+     * @param key the KeyType key of the pair of data
+     * @return value the ValueType value of the pair of data based on the key
+     * @throws NoSuchElementException indicates there is no key looking for
+     **/
+    @Override
+    @SuppressWarnings("unchecked")
+    public ValueType get(KeyType key) throws NoSuchElementException {
+        if (key == null) {
+            throw new NoSuchElementException("this key is not in the collection!");
+        }
+        int idx = slotOf(key, spread(key));
+        if (idx < 0) {
+            throw new NoSuchElementException("this key is not in the collection!");
+        }
+        return (ValueType) this.values[idx];
+    }
+
+    /**
+     * single probe lookup for callers that would otherwise call containsKey() and then get()
+     *
+     * @param key          the KeyType key of the pair of data
+     * @param defaultValue value returned when the key is not in the collection
+     * @return the value of the key, or defaultValue
+     */
+    @SuppressWarnings("unchecked")
+    public ValueType getOrDefault(KeyType key, ValueType defaultValue) {
+        if (key == null) {
+            return defaultValue;
+        }
+        int idx = slotOf(key, spread(key));
+        return idx < 0 ? defaultValue : (ValueType) this.values[idx];
+    }
+
+    /**
+     * a size method that returns the number of key-value pairs stored in this collection
+     *
+     * @return size the number of key-value pairs stored in this collection
+     */
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * check whether the key was in the collection before doing any other behaviors and changes
+     *
+     * @param key the KeyType key of the pair of data
+     * @return boolean decides whether the key is included
+     */
+    @Override
+    public boolean containsKey(KeyType key) {
+        return key != null && slotOf(key, spread(key)) >= 0;
+    }
+
+    /**
+     * a remove method that returns a reference to the value associated with the key that is being removed.
+     * The entries after the removed slot in the same probe run are shifted back so later lookups still find them.
+     * When the key being removed cannot be found, this method returns null.
+     *
+     * @param key KeyType key that points to the key that is going to be removed
+     * @return value returns a reference to the ValueType value associated with the key that is being removed
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public ValueType remove(KeyType key) {
+        if (key == null) {
+            return null;
+        }
+        int idx = slotOf(key, spread(key));
+        if (idx < 0) {
+            return null;
+        }
+        ValueType removed = (ValueType) this.values[idx];
+        Object[] keys = this.keys;
+        int mask = keys.length - 1;
+        int hole = idx;
+        int next = (hole + 1) & mask;
+        while (keys[next] != null) {
+            int home = this.hashes[next] & mask;
+            // move the entry into the hole unless its home slot lies cyclically in (hole, next]
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                this.values[hole] = this.values[next];
+                this.hashes[hole] = this.hashes[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = null;
+        this.values[hole] = null;
+        this.hashes[hole] = 0;
+        this.size--;
+        return removed;
+    }
+
+    /**
+     * a clear method that removes all key-value pairs from this collection
+     * (without changing the underlying array capacity).
+     */
+    @Override
+    public void clear() {
+        Arrays.fill(this.keys, null);
+        Arrays.fill(this.values, null);
+        Arrays.fill(this.hashes, 0);
+        this.size = 0;
+    }
+
+    /**
+     * visit every key-value pair in slot order
+     *
+     * @param action called once for each pair
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super KeyType, ? super ValueType> action) {
+        Object[] keys = this.keys;
+        Object[] values = this.values;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                action.accept((KeyType) keys[i], (ValueType) values[i]);
+            }
+        }
+    }
+}
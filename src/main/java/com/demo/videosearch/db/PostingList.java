@@ -0,0 +1,348 @@
+package com.demo.videosearch.db;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Immutable posting list: the ascending show ids of one index key, stored as the gaps between
+ * consecutive ids, each gap written as a varint (7 bits per byte, high bit set when more bytes follow).
+ * Dense ids make most gaps fit in one byte, against 4 to 8 bytes for an object reference in a list.
+ * Each gap is followed by the positions of the key in the title of that id (0 for the first word),
+ * ascending: a varint per position holding the difference with the previous one (the position
+ * itself for the first) shifted left by one, the low bit set when another position of the id follows.
+ * A title rarely repeats a word, so positions usually cost one byte per id.
+ * The lists of a frozen table share one arena ByteBuffer and only keep their offset and length into it,
+ * so a list costs one small object, and the arena can be a heap array or a mapped file alike.
+ * Lists longer than SKIP_INTERVAL also keep a skip entry (id, byte offset) every SKIP_INTERVAL ids,
+ * which lets Cursor.advance() jump over whole blocks when lists are intersected.
+ */
+public final class PostingList {
+
+    // returned by the cursor once every id has been read; larger than any id so merges need no special case
+    public static final int NO_MORE_IDS = Integer.MAX_VALUE;
+
+    // number of ids between two skip entries
+    public static final int SKIP_INTERVAL = 64;
+
+    // returned by Cursor.nextPosition() once every position of the current id has been read
+    public static final int NO_MORE_POSITIONS = -1;
+
+    // largest position, shifted left by one it still fits an int varint
+    public static final int MAX_POSITION = (1 << 30) - 1;
+
+    public static final PostingList EMPTY = new PostingList(ByteBuffer.wrap(new byte[0]), 0, 0, 0, -1, null);
+
+    private final ByteBuffer arena; // shared bytes, read with absolute gets only
+    private final int offset; // index of the first byte of this list in the arena
+    private final int length; // number of bytes of this list
+    private final int size; // number of ids
+    private final int lastId; // largest id, -1 when empty
+    // pairs (id, offset of the byte after its positions relative to offset) for the ids at index (k + 1) * SKIP_INTERVAL - 1,
+    // null for lists of fewer than SKIP_INTERVAL ids
+    private final int[] skips;
+
+    /**
+     * constructor used by PostingListBuilder and by readers of stored lists
+     *
+     * @param arena  bytes holding the encoded gaps
+     * @param offset index of the first byte of this list in the arena
+     * @param length number of bytes of this list
+     * @param size   number of ids in the list
+     * @param lastId the largest id in the list
+     * @param skips  skip entries, may be null
+     */
+    public PostingList(ByteBuffer arena, int offset, int length, int size, int lastId, int[] skips) {
+        this.arena = arena;
+        this.offset = offset;
+        this.length = length;
+        this.size = size;
+        this.lastId = lastId;
+        this.skips = skips;
+    }
+
+    /**
+     * @return number of ids in this list
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return largest id of this list, -1 if empty
+     */
+    public int lastId() {
+        return this.lastId;
+    }
+
+    /**
+     * @return number of bytes used by the encoded ids and positions
+     */
+    public int sizeInBytes() {
+        return this.length;
+    }
+
+    /**
+     * @return the skip entries as (id, relative byte offset) pairs, null if the list has none
+     */
+    public int[] skips() {
+        return this.skips;
+    }
+
+    /**
+     * copy the encoded gaps and positions of this list
+     *
+     * @param dest destination array
+     * @param pos  index in dest to copy to
+     */
+    public void copyBytes(byte[] dest, int pos) {
+        ByteBuffer source = this.arena.duplicate();
+        source.position(this.offset);
+        source.get(dest, pos, this.length);
+    }
+
+    /**
+     * @return a new cursor positioned before the first id
+     */
+    public Cursor cursor() {
+        return new Cursor(this);
+    }
+
+    /**
+     * copy-on-write append used when postings arrive after the list was built; ids are normally
+     * increasing, another position of the last id or an id below it rebuilds the list
+     *
+     * @param id       the id to add
+     * @param position position of the key in the title of id
+     * @return a list containing the posting
+     */
+    public PostingList append(int id, int position) {
+        if (id > this.lastId) {
+            if (position < 0 || position > MAX_POSITION) {
+                throw new IllegalArgumentException("position out of range: " + position);
+            }
+            byte[] bytes = new byte[this.length + 10];
+            copyBytes(bytes, 0);
+            int end = writeVarInt(bytes, this.length, this.lastId < 0 ? id : id - this.lastId);
+            end = writeVarInt(bytes, end, position << 1);
+            int[] skips = this.skips;
+            if ((this.size + 1) % SKIP_INTERVAL == 0) {
+                int entries = skips == null ? 0 : skips.length;
+                skips = skips == null ? new int[2] : Arrays.copyOf(skips, entries + 2);
+                skips[entries] = id;
+                skips[entries + 1] = end;
+            }
+            return new PostingList(ByteBuffer.wrap(bytes), 0, end, this.size + 1, id, skips);
+        }
+        // decode the postings and insert the new one in order
+        PostingListBuilder builder = new PostingListBuilder(this.size + 1);
+        boolean added = false;
+        Cursor cursor = cursor();
+        for (int current = cursor.next(); current != NO_MORE_IDS; current = cursor.next()) {
+            if (!added && id < current) {
+                builder.add(id, position);
+                added = true;
+            }
+            for (int p = cursor.nextPosition(); p != NO_MORE_POSITIONS; p = cursor.nextPosition()) {
+                if (!added && id == current && position <= p) {
+                    // a position already in the list is not added twice
+                    if (position < p) {
+                        builder.add(id, position);
+                    }
+                    added = true;
+                }
+                builder.add(current, p);
+            }
+            if (!added && id == current) {
+                builder.add(id, position);
+                added = true;
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return all ids decoded into a new array
+     */
+    public int[] toArray() {
+        int[] ids = new int[this.size];
+        Cursor cursor = cursor();
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = cursor.next();
+        }
+        return ids;
+    }
+
+    /**
+     * write a non-negative int as a varint
+     *
+     * @param buf   destination, needs up to 5 free bytes
+     * @param pos   index to write at
+     * @param value value to write
+     * @return index after the last byte written
+     */
+    static int writeVarInt(byte[] buf, int pos, int value) {
+        while ((value & ~0x7F) != 0) {
+            buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf[pos++] = (byte) value;
+        return pos;
+    }
+
+    /**
+     * @param value a non-negative int
+     * @return number of bytes of its varint
+     */
+    static int varIntLength(int value) {
+        return value < (1 << 7) ? 1 : value < (1 << 14) ? 2 : value < (1 << 21) ? 3 : value < (1 << 28) ? 4 : 5;
+    }
+
+    /**
+     * Decoder over one posting list. It keeps its position in a few ints, so iterating never allocates;
+     * reset() lets one cursor walk several lists.
+     */
+    public static final class Cursor {
+        private ByteBuffer arena;
+        private int base; // offset of the list in the arena
+        private int size; // number of ids of the list
+        private int[] skips; // skip entries of the list, may be null
+        private int skip; // index of the next skip entry that has not been passed
+        private int pos; // index of the next encoded byte
+        private int remaining; // ids not read yet
+        private int id; // current id, -1 before the first next()
+        private int positionPos; // index of the next position byte of the current id
+        private int position; // last position read, -1 before the first nextPosition()
+        private boolean morePositions; // true while the current id has positions not read
+
+        Cursor(PostingList list) {
+            reset(list);
+        }
+
+        /**
+         * move this cursor to the start of another list
+         *
+         * @param list the list to iterate
+         */
+        public void reset(PostingList list) {
+            this.arena = list.arena;
+            this.base = list.offset;
+            this.size = list.size;
+            this.skips = list.skips;
+            this.skip = 0;
+            this.pos = list.offset;
+            this.remaining = list.size;
+            this.id = -1;
+            this.morePositions = false;
+        }
+
+        /**
+         * @return the next id, or NO_MORE_IDS at the end of the list
+         */
+        public int next() {
+            if (this.remaining == 0) {
+                return this.id = NO_MORE_IDS;
+            }
+            this.remaining--;
+            ByteBuffer arena = this.arena;
+            int pos = this.pos;
+            int b = arena.get(pos++);
+            int gap = b & 0x7F;
+            for (int shift = 7; b < 0; shift += 7) {
+                b = arena.get(pos++);
+                gap |= (b & 0x7F) << shift;
+            }
+            this.positionPos = pos;
+            this.position = -1;
+            this.morePositions = true;
+            // step over the positions: the low bit of the first byte of each one tells if another follows
+            int more;
+            do {
+                b = arena.get(pos++);
+                more = b & 1;
+                while (b < 0) {
+                    b = arena.get(pos++);
+                }
+            } while (more != 0);
+            this.pos = pos;
+            return this.id = (this.id < 0 ? gap : this.id + gap);
+        }
+
+        /**
+         * read the positions of the current id, each once
+         *
+         * @return the next position of the key in the title of the current id, ascending, or
+         * NO_MORE_POSITIONS after the last one
+         */
+        public int nextPosition() {
+            if (!this.morePositions) {
+                return NO_MORE_POSITIONS;
+            }
+            ByteBuffer arena = this.arena;
+            int pos = this.positionPos;
+            int b = arena.get(pos++);
+            int value = b & 0x7F;
+            for (int shift = 7; b < 0; shift += 7) {
+                b = arena.get(pos++);
+                value |= (b & 0x7F) << shift;
+            }
+            this.positionPos = pos;
+            this.morePositions = (value & 1) != 0;
+            return this.position = (this.position < 0 ? value >>> 1 : this.position + (value >>> 1));
+        }
+
+        /**
+         * move to the first id that is not smaller than target, jumping over skip blocks whose
+         * last id is still below target (found by binary search over the skip entries)
+         *
+         * @param target the id looking for
+         * @return the first id &gt;= target, or NO_MORE_IDS
+         */
+        public int advance(int target) {
+            if (this.id >= target) {
+                return this.id;
+            }
+            int[] skips = this.skips;
+            if (skips != null) {
+                int entries = skips.length >> 1;
+                if (this.skip < entries && skips[this.skip << 1] < target) {
+                    // last skip entry whose id is below target
+                    int low = this.skip;
+                    int high = entries - 1;
+                    while (low < high) {
+                        int mid = (low + high + 1) >>> 1;
+                        if (skips[mid << 1] < target) {
+                            low = mid;
+                        } else {
+                            high = mid - 1;
+                        }
+                    }
+                    this.skip = low + 1;
+                    if (skips[low << 1] > this.id) {
+                        this.id = skips[low << 1];
+                        this.pos = this.base + skips[(low << 1) + 1];
+                        this.remaining = this.size - (low + 1) * SKIP_INTERVAL;
+                    }
+                }
+            }
+            int id;
+            do {
+                id = next();
+            } while (id < target);
+            return id;
+        }
+
+        /**
+         * @return the id returned by the last call to next()
+         */
+        public int id() {
+            return this.id;
+        }
+
+        /**
+         * @return index in the arena of the byte after the postings read so far
+         */
+        int end() {
+            return this.pos;
+        }
+    }
+}
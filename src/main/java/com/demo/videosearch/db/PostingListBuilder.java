@@ -0,0 +1,185 @@
+package com.demo.videosearch.db;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Growable buffer of ascending (id, position) postings, encoded in the PostingList format as they
+ * arrive, so a list being built costs about what the final list does. A position added again for the
+ * id added last is appended to the positions of that id; adding the same position twice is ignored,
+ * so a show that contains a word twice at one place is only recorded once.
+ */
+public final class PostingListBuilder {
+
+    private byte[] bytes; // encoded postings so far
+    private int length; // number of bytes used
+    private int count; // number of ids
+    private int firstId = -1;
+    private int lastId = -1;
+    private int lastPosition; // last position of lastId
+    private int lastPositionByte; // index of the first byte of the varint of lastPosition
+
+    public PostingListBuilder() {
+        this(4);
+    }
+
+    /**
+     * @param capacity expected number of ids
+     */
+    public PostingListBuilder(int capacity) {
+        this.bytes = new byte[Math.max(capacity, 1) * 2];
+    }
+
+    /**
+     * append a posting
+     *
+     * @param id       the id, not smaller than the last id added
+     * @param position position of the key in the title of id, above the last position of id if
+     *                 id is the last id added
+     * @throws IllegalArgumentException if id or position is negative or out of order
+     */
+    public void add(int id, int position) {
+        if (position < 0 || position > PostingList.MAX_POSITION) {
+            throw new IllegalArgumentException("position out of range: " + position);
+        }
+        if (id == this.lastId) {
+            if (position == this.lastPosition) {
+                return;
+            }
+            if (position < this.lastPosition) {
+                throw new IllegalArgumentException("positions must be added in ascending order: " + position
+                        + " after " + this.lastPosition + " for id " + id);
+            }
+            ensure(5);
+            // the previous position is not the last one of the id any more
+            this.bytes[this.lastPositionByte] |= 1;
+            this.lastPositionByte = this.length;
+            this.length = PostingList.writeVarInt(this.bytes, this.length, (position - this.lastPosition) << 1);
+            this.lastPosition = position;
+            return;
+        }
+        if (id < this.lastId) {
+            throw new IllegalArgumentException("ids must be added in ascending order: " + id + " after " + this.lastId);
+        }
+        if (id < 0) {
+            throw new IllegalArgumentException("ids must not be negative: " + id);
+        }
+        ensure(10);
+        this.length = PostingList.writeVarInt(this.bytes, this.length, this.lastId < 0 ? id : id - this.lastId);
+        this.lastPositionByte = this.length;
+        this.length = PostingList.writeVarInt(this.bytes, this.length, position << 1);
+        if (this.count == 0) {
+            this.firstId = id;
+        }
+        this.count++;
+        this.lastId = id;
+        this.lastPosition = position;
+    }
+
+    /**
+     * append every posting of another builder, ids shifted by an offset
+     *
+     * @param other    the builder whose postings are appended, unchanged
+     * @param idOffset added to each id of other
+     * @throws IllegalArgumentException if the shifted ids do not come after the ids of this builder
+     */
+    public void addAll(PostingListBuilder other, int idOffset) {
+        if (other.count == 0) {
+            return;
+        }
+        int first = other.firstId + idOffset;
+        if (first <= this.lastId) {
+            throw new IllegalArgumentException("ids must be added in ascending order: " + first + " after " + this.lastId);
+        }
+        // only the gap of the first id changes, the rest of the bytes are copied as they are
+        int skip = PostingList.varIntLength(other.firstId);
+        ensure(5 + other.length - skip);
+        int start = this.length;
+        this.length = PostingList.writeVarInt(this.bytes, this.length, this.lastId < 0 ? first : first - this.lastId);
+        int shift = this.length - start - skip;
+        System.arraycopy(other.bytes, skip, this.bytes, this.length, other.length - skip);
+        this.length += other.length - skip;
+        if (this.count == 0) {
+            this.firstId = first;
+        }
+        this.count += other.count;
+        this.lastId = other.lastId + idOffset;
+        this.lastPosition = other.lastPosition;
+        this.lastPositionByte = other.lastPositionByte + start + shift;
+    }
+
+    /**
+     * append every posting of an encoded list
+     *
+     * @param list the list, its ids above the ids of this builder
+     */
+    public void addAll(PostingList list) {
+        PostingList.Cursor cursor = list.cursor();
+        for (int id = cursor.next(); id != PostingList.NO_MORE_IDS; id = cursor.next()) {
+            for (int p = cursor.nextPosition(); p != PostingList.NO_MORE_POSITIONS; p = cursor.nextPosition()) {
+                add(id, p);
+            }
+        }
+    }
+
+    /**
+     * @return number of ids added
+     */
+    public int size() {
+        return this.count;
+    }
+
+    /**
+     * @return number of bytes encodeTo() writes
+     */
+    public int encodedLength() {
+        return this.length;
+    }
+
+    /**
+     * copy the encoded postings into a shared arena, with a skip entry every SKIP_INTERVAL ids
+     *
+     * @param arena  buffer wrapping bytes
+     * @param bytes  the array behind arena, with encodedLength() free bytes at offset
+     * @param offset index to write at
+     * @return the posting list reading from the arena
+     */
+    public PostingList encodeTo(ByteBuffer arena, byte[] bytes, int offset) {
+        if (this.count == 0) {
+            return PostingList.EMPTY;
+        }
+        System.arraycopy(this.bytes, 0, bytes, offset, this.length);
+        int[] skips = null;
+        if (this.count >= PostingList.SKIP_INTERVAL) {
+            skips = new int[(this.count / PostingList.SKIP_INTERVAL) * 2];
+            PostingList.Cursor cursor = new PostingList(arena, offset, this.length, this.count, this.lastId, null).cursor();
+            for (int i = 0; i < skips.length / 2; i++) {
+                for (int k = 0; k < PostingList.SKIP_INTERVAL; k++) {
+                    cursor.next();
+                }
+                skips[i * 2] = cursor.id();
+                skips[i * 2 + 1] = cursor.end() - offset;
+            }
+        }
+        return new PostingList(arena, offset, this.length, this.count, this.lastId, skips);
+    }
+
+    /**
+     * encode the buffered postings into their own arena
+     *
+     * @return the immutable posting list
+     */
+    public PostingList build() {
+        byte[] bytes = new byte[encodedLength()];
+        return encodeTo(ByteBuffer.wrap(bytes), bytes, 0);
+    }
+
+    /**
+     * private helper to make room for more bytes
+     */
+    private void ensure(int more) {
+        if (this.length + more > this.bytes.length) {
+            this.bytes = Arrays.copyOf(this.bytes, Math.max(this.length + more, this.bytes.length * 2));
+        }
+    }
+}
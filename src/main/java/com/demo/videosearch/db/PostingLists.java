@@ -0,0 +1,260 @@
+package com.demo.videosearch.db;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Set operations over posting lists, all producing ascending id arrays.
+ * Intersections are driven by the rarest list: every other list is only asked to advance()
+ * to the current candidate, so with skip entries the work follows the smallest list
+ * instead of the largest one. Phrase and proximity matches run the same intersection, then compare
+ * the positions of the words in the titles of the common ids.
+ */
+public final class PostingLists {
+
+    private static final int[] NONE = new int[0];
+
+    private PostingLists() {
+    }
+
+    /**
+     * ids that are in every list (AND)
+     *
+     * @param lists the lists to intersect
+     * @return ascending ids common to all lists, empty if there are no lists
+     */
+    public static int[] intersect(PostingList... lists) {
+        if (lists.length == 0) {
+            return NONE;
+        }
+        PostingList[] bySize = lists.clone();
+        Arrays.sort(bySize, Comparator.comparingInt(PostingList::size));
+        if (bySize[0].size() == 0) {
+            return NONE;
+        }
+        PostingList.Cursor[] cursors = new PostingList.Cursor[bySize.length];
+        for (int i = 0; i < cursors.length; i++) {
+            cursors[i] = bySize[i].cursor();
+        }
+        int[] out = new int[bySize[0].size()];
+        int count = 0;
+        PostingList.Cursor rarest = cursors[0];
+        int id = rarest.next();
+        candidates:
+        while (id != PostingList.NO_MORE_IDS) {
+            for (int i = 1; i < cursors.length; i++) {
+                int other = cursors[i].advance(id);
+                if (other != id) {
+                    // leap the rarest list to the larger id and check again
+                    id = rarest.advance(other);
+                    continue candidates;
+                }
+            }
+            out[count++] = id;
+            id = rarest.next();
+        }
+        return count == out.length ? out : Arrays.copyOf(out, count);
+    }
+
+    /**
+     * ids whose titles have the words of the lists in order, each word at most slop + 1 positions
+     * after the previous one: slop 0 is an exact phrase, a larger slop lets other words in between
+     *
+     * @param lists the lists of the words, in phrase order; a word repeated in the phrase has its list repeated
+     * @param slop  number of other words allowed between two consecutive words of the phrase
+     * @return ascending ids of the titles that have the phrase, empty if there are no lists
+     */
+    public static int[] phrase(PostingList[] lists, int slop) {
+        if (lists.length == 0) {
+            return NONE;
+        }
+        // the rarest list drives the intersection, the positions are compared in phrase order
+        PostingList.Cursor[] cursors = new PostingList.Cursor[lists.length];
+        Integer[] bySize = new Integer[lists.length];
+        for (int i = 0; i < lists.length; i++) {
+            cursors[i] = lists[i].cursor();
+            bySize[i] = i;
+        }
+        Arrays.sort(bySize, Comparator.comparingInt(i -> lists[i].size()));
+        if (lists[bySize[0]].size() == 0) {
+            return NONE;
+        }
+        int[] reach = new int[8];
+        int[] positions = new int[8];
+        int[] out = new int[lists[bySize[0]].size()];
+        int count = 0;
+        PostingList.Cursor rarest = cursors[bySize[0]];
+        int id = rarest.next();
+        candidates:
+        while (id != PostingList.NO_MORE_IDS) {
+            for (int i = 1; i < bySize.length; i++) {
+                int other = cursors[bySize[i]].advance(id);
+                if (other != id) {
+                    id = rarest.advance(other);
+                    continue candidates;
+                }
+            }
+            // positions of the first word that start a match, then the positions of each next word
+            // that follow one of them closely enough
+            int reached = 0;
+            for (int p = cursors[0].nextPosition(); p != PostingList.NO_MORE_POSITIONS; p = cursors[0].nextPosition()) {
+                if (reached == reach.length) {
+                    reach = Arrays.copyOf(reach, reached * 2);
+                }
+                reach[reached++] = p;
+            }
+            for (int i = 1; i < cursors.length && reached > 0; i++) {
+                int n = 0;
+                for (int p = cursors[i].nextPosition(); p != PostingList.NO_MORE_POSITIONS; p = cursors[i].nextPosition()) {
+                    if (n == positions.length) {
+                        positions = Arrays.copyOf(positions, n * 2);
+                    }
+                    positions[n++] = p;
+                }
+                int kept = 0;
+                int j = 0;
+                for (int k = 0; k < n; k++) {
+                    int q = positions[k];
+                    while (j < reached && reach[j] < q - slop - 1) {
+                        j++;
+                    }
+                    if (j < reached && reach[j] < q) {
+                        positions[kept++] = q;
+                    }
+                }
+                int[] swap = reach;
+                reach = positions;
+                positions = swap;
+                reached = kept;
+            }
+            if (reached > 0) {
+                out[count++] = id;
+            }
+            id = rarest.next();
+        }
+        return count == out.length ? out : Arrays.copyOf(out, count);
+    }
+
+    /**
+     * ids of a sorted array that are also in another sorted array
+     *
+     * @param ids    ascending ids
+     * @param others ascending ids
+     * @return ascending ids of both arrays
+     */
+    public static int[] retainAll(int[] ids, int[] others) {
+        int[] out = new int[Math.min(ids.length, others.length)];
+        int count = 0;
+        for (int i = 0, j = 0; i < ids.length && j < others.length; ) {
+            if (ids[i] < others[j]) {
+                i++;
+            } else if (ids[i] > others[j]) {
+                j++;
+            } else {
+                out[count++] = ids[i];
+                i++;
+                j++;
+            }
+        }
+        return count == out.length ? out : Arrays.copyOf(out, count);
+    }
+
+    /**
+     * ids that are in at least one list (OR)
+     *
+     * @param lists the lists to merge
+     * @return ascending ids of all lists without duplicates
+     */
+    public static int[] union(PostingList... lists) {
+        if (lists.length == 0) {
+            return NONE;
+        }
+        if (lists.length == 1) {
+            return lists[0].toArray();
+        }
+        PostingList.Cursor[] cursors = new PostingList.Cursor[lists.length];
+        int[] heads = new int[lists.length];
+        int total = 0;
+        for (int i = 0; i < lists.length; i++) {
+            cursors[i] = lists[i].cursor();
+            heads[i] = cursors[i].next();
+            total += lists[i].size();
+        }
+        int[] out = new int[total];
+        int count = 0;
+        while (true) {
+            // queries have a handful of terms, a linear scan for the smallest head beats a heap
+            int min = PostingList.NO_MORE_IDS;
+            for (int head : heads) {
+                min = Math.min(min, head);
+            }
+            if (min == PostingList.NO_MORE_IDS) {
+                break;
+            }
+            out[count++] = min;
+            for (int i = 0; i < heads.length; i++) {
+                if (heads[i] == min) {
+                    heads[i] = cursors[i].next();
+                }
+            }
+        }
+        return count == out.length ? out : Arrays.copyOf(out, count);
+    }
+
+    /**
+     * ids of a sorted array that are in none of the lists (AND NOT)
+     *
+     * @param ids      ascending ids
+     * @param excluded lists whose ids are removed
+     * @return ascending ids of ids that no excluded list contains
+     */
+    public static int[] subtract(int[] ids, PostingList... excluded) {
+        if (excluded.length == 0 || ids.length == 0) {
+            return ids;
+        }
+        PostingList.Cursor[] cursors = new PostingList.Cursor[excluded.length];
+        for (int i = 0; i < cursors.length; i++) {
+            cursors[i] = excluded[i].cursor();
+        }
+        int[] out = new int[ids.length];
+        int count = 0;
+        next:
+        for (int id : ids) {
+            for (PostingList.Cursor cursor : cursors) {
+                if (cursor.advance(id) == id) {
+                    continue next;
+                }
+            }
+            out[count++] = id;
+        }
+        return count == out.length ? out : Arrays.copyOf(out, count);
+    }
+
+    /**
+     * ids of a sorted array that are in at least one of the lists (AND (x OR y ...))
+     *
+     * @param ids   ascending ids
+     * @param lists lists of which one must contain the id
+     * @return ascending ids of ids found in some list
+     */
+    public static int[] retainAny(int[] ids, PostingList... lists) {
+        if (lists.length == 0 || ids.length == 0) {
+            return NONE;
+        }
+        PostingList.Cursor[] cursors = new PostingList.Cursor[lists.length];
+        for (int i = 0; i < cursors.length; i++) {
+            cursors[i] = lists[i].cursor();
+        }
+        int[] out = new int[ids.length];
+        int count = 0;
+        for (int id : ids) {
+            for (PostingList.Cursor cursor : cursors) {
+                if (cursor.advance(id) == id) {
+                    out[count++] = id;
+                    break;
+                }
+            }
+        }
+        return count == out.length ? out : Arrays.copyOf(out, count);
+    }
+}
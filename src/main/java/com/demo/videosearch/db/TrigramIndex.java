@@ -0,0 +1,314 @@
+package com.demo.videosearch.db;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable index of the character trigrams of a term dictionary, for typo-tolerant lookups.
+ * Terms are padded with two '\0' on each side, so "cat" has the trigrams "\0\0c", "\0ca", "cat",
+ * "at\0" and "t\0\0". The distinct trigrams are sorted in one array and the ids of the terms that
+ * contain each one are stored back to back, in id order, like the years of YearIndex.
+ * An edit changes at most three trigrams of a term, so a term within k edits of a word contains
+ * at least one of any 3k + 1 distinct trigrams of the word: the lists of the 3k + 1 rarest ones
+ * give every candidate, which is then checked with a Levenshtein distance that gives up beyond k.
+ * A word with no more than 3k distinct trigrams is looked up in all of its lists, and may miss
+ * terms that share none of them.
+ */
+public final class TrigramIndex {
+
+    public static final TrigramIndex EMPTY = builder().build();
+
+    private static final char PAD = '\0';
+
+    private final String[] terms; // terms by id
+    private final int[] scores; // score of each term
+    private final long[] grams; // distinct trigrams, three chars packed in 48 bits, ascending
+    private final int[] offsets; // term ids of grams[i] are termIds[offsets[i]] to termIds[offsets[i + 1] - 1]
+    private final int[] termIds;
+
+    private TrigramIndex(String[] terms, int[] scores, long[] grams, int[] offsets, int[] termIds) {
+        this.terms = terms;
+        this.scores = scores;
+        this.grams = grams;
+        this.offsets = offsets;
+        this.termIds = termIds;
+    }
+
+    /**
+     * @return number of terms
+     */
+    public int size() {
+        return this.terms.length;
+    }
+
+    /**
+     * @return approximate heap size of the arrays, the term strings excluded, in bytes
+     */
+    public long sizeInBytes() {
+        return 4L * this.terms.length + 4L * this.scores.length + 8L * this.grams.length
+                + 4L * this.offsets.length + 4L * this.termIds.length;
+    }
+
+    /**
+     * terms within a number of edits (insertions, deletions, substitutions) of a word
+     *
+     * @param word          the word, compared exactly
+     * @param maxEdits      largest edit distance accepted
+     * @param maxCandidates largest number of candidates checked; the lookup stops there, so the
+     *                      cost of a word with very common trigrams stays bounded
+     * @return the matches, closest first, then best score first
+     */
+    public List<Match> search(String word, int maxEdits, int maxCandidates) {
+        List<Match> matches = new ArrayList<>();
+        long[] wordGrams = distinctGrams(word);
+        if (wordGrams.length == 0 || this.terms.length == 0) {
+            return matches;
+        }
+        // the lists of the rarest trigrams, a trigram missing from the index has an empty one
+        int[] from = new int[wordGrams.length];
+        int[] to = new int[wordGrams.length];
+        Integer[] order = new Integer[wordGrams.length];
+        for (int i = 0; i < wordGrams.length; i++) {
+            int g = Arrays.binarySearch(this.grams, wordGrams[i]);
+            from[i] = g >= 0 ? this.offsets[g] : 0;
+            to[i] = g >= 0 ? this.offsets[g + 1] : 0;
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(to[a] - from[a], to[b] - from[b]));
+        int lists = Math.min(wordGrams.length, 3 * maxEdits + 1);
+        int[] next = new int[lists];
+        int[] end = new int[lists];
+        for (int i = 0; i < lists; i++) {
+            next[i] = from[order[i]];
+            end[i] = to[order[i]];
+        }
+        // merge the lists, each candidate once, in id order
+        int checked = 0;
+        while (checked < maxCandidates) {
+            int id = Integer.MAX_VALUE;
+            for (int i = 0; i < lists; i++) {
+                if (next[i] < end[i]) {
+                    id = Math.min(id, this.termIds[next[i]]);
+                }
+            }
+            if (id == Integer.MAX_VALUE) {
+                break;
+            }
+            for (int i = 0; i < lists; i++) {
+                if (next[i] < end[i] && this.termIds[next[i]] == id) {
+                    next[i]++;
+                }
+            }
+            checked++;
+            String term = this.terms[id];
+            if (Math.abs(term.length() - word.length()) > maxEdits) {
+                continue;
+            }
+            int distance = editDistance(word, term, maxEdits);
+            if (distance <= maxEdits) {
+                matches.add(new Match(term, distance, this.scores[id]));
+            }
+        }
+        matches.sort(Match::compareTo);
+        return matches;
+    }
+
+    /**
+     * Levenshtein distance of two strings, computed only in the band of cells that can stay within
+     * a bound, and abandoned as soon as a whole row is beyond it
+     *
+     * @param a   first string
+     * @param b   second string
+     * @param max the bound
+     * @return the distance, or max + 1 if it is larger than max
+     */
+    public static int editDistance(CharSequence a, CharSequence b, int max) {
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > max) {
+            return max + 1;
+        }
+        int beyond = max + 1;
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            previous[j] = Math.min(j, beyond);
+        }
+        for (int i = 1; i <= n; i++) {
+            int low = Math.max(1, i - max);
+            int high = Math.min(m, i + max);
+            current[low - 1] = low == 1 ? Math.min(i, beyond) : beyond;
+            int rowMin = current[low - 1];
+            char c = a.charAt(i - 1);
+            for (int j = low; j <= high; j++) {
+                int cost = c == b.charAt(j - 1) ? 0 : 1;
+                int d = Math.min(previous[j - 1] + cost, Math.min(previous[j], current[j - 1]) + 1);
+                current[j] = Math.min(d, beyond);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (high < m) {
+                current[high + 1] = beyond;
+            }
+            if (rowMin > max) {
+                return beyond;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[m];
+    }
+
+    /**
+     * private helper to list the distinct trigrams of a padded word, sorted
+     */
+    private static long[] distinctGrams(String word) {
+        if (word.isEmpty()) {
+            return new long[0];
+        }
+        long[] grams = new long[word.length() + 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = ((long) charAt(word, i - 2) << 32) | ((long) charAt(word, i - 1) << 16) | charAt(word, i);
+        }
+        Arrays.sort(grams);
+        int n = 0;
+        for (long gram : grams) {
+            if (n == 0 || grams[n - 1] != gram) {
+                grams[n++] = gram;
+            }
+        }
+        return Arrays.copyOf(grams, n);
+    }
+
+    /**
+     * private helper: character of the padded word
+     */
+    private static char charAt(String word, int i) {
+        return i >= 0 && i < word.length() ? word.charAt(i) : PAD;
+    }
+
+    /**
+     * @return a new builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * A term found by a fuzzy lookup, with its edit distance and score.
+     */
+    public static final class Match implements Comparable<Match> {
+        private final String term;
+        private final int distance;
+        private final int score;
+
+        public Match(String term, int distance, int score) {
+            this.term = term;
+            this.distance = distance;
+            this.score = score;
+        }
+
+        public String getTerm() {
+            return this.term;
+        }
+
+        public int getDistance() {
+            return this.distance;
+        }
+
+        public int getScore() {
+            return this.score;
+        }
+
+        /**
+         * closest first, then best score first, then by term
+         */
+        @Override
+        public int compareTo(Match other) {
+            if (this.distance != other.distance) {
+                return Integer.compare(this.distance, other.distance);
+            }
+            if (this.score != other.score) {
+                return Integer.compare(other.score, this.score);
+            }
+            return this.term.compareTo(other.term);
+        }
+
+        @Override
+        public String toString() {
+            return this.term + "~" + this.distance + "=" + this.score;
+        }
+    }
+
+    /**
+     * Collects distinct (term, score) pairs.
+     */
+    public static final class Builder {
+        private final List<String> terms = new ArrayList<>();
+        private int[] scores = new int[16];
+
+        private Builder() {
+        }
+
+        /**
+         * @param term  a term not added before
+         * @param score its score, higher is better
+         * @return this builder
+         */
+        public Builder add(String term, int score) {
+            if (this.terms.size() == this.scores.length) {
+                this.scores = Arrays.copyOf(this.scores, this.scores.length * 2);
+            }
+            this.scores[this.terms.size()] = score;
+            this.terms.add(term);
+            return this;
+        }
+
+        /**
+         * sort the distinct trigrams, count the terms of each, then fill the lists in term order
+         *
+         * @return the index
+         */
+        public TrigramIndex build() {
+            String[] terms = this.terms.toArray(new String[0]);
+            long[][] termGrams = new long[terms.length][];
+            int total = 0;
+            for (int t = 0; t < terms.length; t++) {
+                termGrams[t] = distinctGrams(terms[t]);
+                total += termGrams[t].length;
+            }
+            long[] all = new long[total];
+            int p = 0;
+            for (long[] grams : termGrams) {
+                System.arraycopy(grams, 0, all, p, grams.length);
+                p += grams.length;
+            }
+            Arrays.sort(all);
+            int distinct = 0;
+            for (long gram : all) {
+                if (distinct == 0 || all[distinct - 1] != gram) {
+                    all[distinct++] = gram;
+                }
+            }
+            long[] grams = Arrays.copyOf(all, distinct);
+            int[] offsets = new int[distinct + 1];
+            for (long[] termGram : termGrams) {
+                for (long gram : termGram) {
+                    offsets[Arrays.binarySearch(grams, gram) + 1]++;
+                }
+            }
+            for (int g = 0; g < distinct; g++) {
+                offsets[g + 1] += offsets[g];
+            }
+            int[] fill = Arrays.copyOf(offsets, distinct);
+            int[] termIds = new int[total];
+            for (int t = 0; t < terms.length; t++) {
+                for (long gram : termGrams[t]) {
+                    termIds[fill[Arrays.binarySearch(grams, gram)]++] = t;
+                }
+            }
+            return new TrigramIndex(terms, Arrays.copyOf(this.scores, terms.length), grams, offsets, termIds);
+        }
+    }
+}
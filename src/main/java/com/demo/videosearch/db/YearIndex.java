@@ -0,0 +1,193 @@
+package com.demo.videosearch.db;
+
+import java.util.Arrays;
+
+/**
+ * Immutable index of show ids by year, made of primitive arrays only: the distinct years in
+ * ascending order, and for each year the offset of its ids in one shared id array. The ids of a
+ * year are sorted by descending rating, equal ratings by ascending id, so the best shows of a
+ * year are the first ones of its range and a range of years is answered by merging a few sorted
+ * runs. A year is found by binary search, and a range of years is a range of positions.
+ */
+public final class YearIndex {
+
+    public static final YearIndex EMPTY = new YearIndex(new int[0], new int[1], new int[0]);
+
+    private final int[] years; // distinct years, ascending
+    private final int[] offsets; // ids of years[i] are ids[offsets[i]] to ids[offsets[i + 1] - 1]
+    private final int[] ids; // grouped by year, each group by descending rating then ascending id
+
+    /**
+     * wrap arrays built elsewhere, for example read from a file; they are used as they are
+     *
+     * @param years   distinct years in ascending order
+     * @param offsets years.length + 1 ascending offsets into ids, the first one 0
+     * @param ids     ids grouped by year, in rating order within a year
+     */
+    public YearIndex(int[] years, int[] offsets, int[] ids) {
+        if (offsets.length != years.length + 1 || offsets[years.length] != ids.length) {
+            throw new IllegalArgumentException("offsets do not match " + years.length + " years and "
+                    + ids.length + " ids");
+        }
+        this.years = years;
+        this.offsets = offsets;
+        this.ids = ids;
+    }
+
+    /**
+     * @return number of ids in the index
+     */
+    public int size() {
+        return this.ids.length;
+    }
+
+    /**
+     * @return number of distinct years
+     */
+    public int yearCount() {
+        return this.years.length;
+    }
+
+    /**
+     * @param i position of a year, below yearCount()
+     * @return the year
+     */
+    public int year(int i) {
+        return this.years[i];
+    }
+
+    /**
+     * @param i position of a year, up to yearCount(); yearCount() gives the end of the last year
+     * @return position in the id array of the first id of that year
+     */
+    public int offset(int i) {
+        return this.offsets[i];
+    }
+
+    /**
+     * @param position position in the id array, below size()
+     * @return the id
+     */
+    public int id(int position) {
+        return this.ids[position];
+    }
+
+    /**
+     * @param year a year
+     * @return position of the first year not before it, yearCount() if there is none
+     */
+    public int lowerBound(int year) {
+        int low = 0;
+        int high = this.years.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (this.years[mid] < year) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @param year a year
+     * @return position of the first year after it, yearCount() if there is none
+     */
+    public int upperBound(int year) {
+        int i = lowerBound(year);
+        return i < this.years.length && this.years[i] == year ? i + 1 : i;
+    }
+
+    /**
+     * @param year a year
+     * @return position of the year, -1 if no show of the index is of that year
+     */
+    public int indexOf(int year) {
+        int i = lowerBound(year);
+        return i < this.years.length && this.years[i] == year ? i : -1;
+    }
+
+    /**
+     * @return a new builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Collects (year, rating, id) entries in any order and sorts them once.
+     */
+    public static final class Builder {
+        private int[] years = new int[16];
+        private long[] keys = new long[16]; // negated rating in the high half, id in the low half
+        private int size;
+
+        private Builder() {
+        }
+
+        /**
+         * @param year   year of the show
+         * @param rating rating of the show
+         * @param id     non-negative id of the show, added once
+         * @return this builder
+         */
+        public Builder add(int year, int rating, int id) {
+            if (this.size == this.years.length) {
+                this.years = Arrays.copyOf(this.years, this.size * 2);
+                this.keys = Arrays.copyOf(this.keys, this.size * 2);
+            }
+            this.years[this.size] = year;
+            this.keys[this.size] = ((long) -rating << 32) | id;
+            this.size++;
+            return this;
+        }
+
+        /**
+         * @return number of entries added
+         */
+        public int size() {
+            return this.size;
+        }
+
+        /**
+         * sort the entries: group them by year with a counting pass, then sort each group
+         *
+         * @return the index
+         */
+        public YearIndex build() {
+            int n = this.size;
+            int[] distinct = Arrays.copyOf(this.years, n);
+            Arrays.sort(distinct);
+            int yearCount = 0;
+            for (int i = 0; i < n; i++) {
+                if (yearCount == 0 || distinct[yearCount - 1] != distinct[i]) {
+                    distinct[yearCount++] = distinct[i];
+                }
+            }
+            distinct = Arrays.copyOf(distinct, yearCount);
+            int[] slot = new int[n];
+            int[] offsets = new int[yearCount + 1];
+            for (int i = 0; i < n; i++) {
+                slot[i] = Arrays.binarySearch(distinct, this.years[i]);
+                offsets[slot[i] + 1]++;
+            }
+            for (int i = 0; i < yearCount; i++) {
+                offsets[i + 1] += offsets[i];
+            }
+            int[] next = Arrays.copyOf(offsets, yearCount);
+            long[] grouped = new long[n];
+            for (int i = 0; i < n; i++) {
+                grouped[next[slot[i]]++] = this.keys[i];
+            }
+            int[] ids = new int[n];
+            for (int y = 0; y < yearCount; y++) {
+                Arrays.sort(grouped, offsets[y], offsets[y + 1]);
+            }
+            for (int i = 0; i < n; i++) {
+                ids[i] = (int) grouped[i];
+            }
+            return new YearIndex(distinct, offsets, ids);
+        }
+    }
+}
@@ -13,6 +13,7 @@ public interface IShow extends Comparable<IShow> {
     int getYear(); // retrieve the year that this show was first produced
     int getRating(); // retrieve the Rotten Tomatoes Rating (out of 100)
     boolean isAvailableOn(String provider); // checks show availability
+    int getProviderMask(); // bit (1 << Provider.ordinal()) set for every streaming source
 
     // compareTo() method supports sorting shows in descending order by rating
 
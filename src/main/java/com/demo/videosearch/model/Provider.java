@@ -0,0 +1,101 @@
+package com.demo.videosearch.model;
+
+/**
+ * The streaming providers of the catalog, in the order of their csv columns.
+ * A set of providers is stored as an int mask with the bit (1 << ordinal()) set for every member.
+ */
+public enum Provider {
+    NETFLIX("Netflix"),
+    HULU("Hulu"),
+    PRIME_VIDEO("Prime Video"),
+    DISNEY_PLUS("Disney+");
+
+    // mask with every provider set
+    public static final int ALL = (1 << values().length) - 1;
+
+    private static final Provider[] VALUES = values();
+
+    private final String displayName;
+
+    Provider(String displayName) {
+        this.displayName = displayName;
+    }
+
+    /**
+     * @return the name used in the csv header and in the user interface
+     */
+    public String getDisplayName() {
+        return this.displayName;
+    }
+
+    /**
+     * @return the bit of this provider in a provider mask
+     */
+    public int mask() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * @param name display name such as "Prime Video"
+     * @return the bit of that provider, 0 if the name is not a provider
+     */
+    public static int maskOf(String name) {
+        for (Provider provider : VALUES) {
+            if (provider.displayName.equals(name)) {
+                return provider.mask();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * parse a comma separated list of display names, such as "Netflix,Hulu"
+     *
+     * @param names the names, may be empty
+     * @return the mask of the names that are providers
+     */
+    public static int parseMask(String names) {
+        int mask = 0;
+        int start = 0;
+        while (start <= names.length()) {
+            int end = names.indexOf(',', start);
+            if (end < 0) {
+                end = names.length();
+            }
+            for (Provider provider : VALUES) {
+                String name = provider.displayName;
+                if (name.length() == end - start && names.startsWith(name, start)) {
+                    mask |= provider.mask();
+                }
+            }
+            start = end + 1;
+        }
+        return mask;
+    }
+
+    /**
+     * @param mask provider mask
+     * @param separator text put between two names
+     * @return the display names of the providers in the mask, joined by separator
+     */
+    public static String join(int mask, String separator) {
+        StringBuilder names = new StringBuilder();
+        for (Provider provider : VALUES) {
+            if ((mask & provider.mask()) != 0) {
+                if (names.length() > 0) {
+                    names.append(separator);
+                }
+                names.append(provider.displayName);
+            }
+        }
+        return names.toString();
+    }
+
+    /**
+     * @param ordinal position of the provider
+     * @return the provider at that position
+     */
+    public static Provider valueOf(int ordinal) {
+        return VALUES[ordinal];
+    }
+}
@@ -1,6 +1,7 @@
 package com.demo.videosearch.model;
 
 import com.demo.videosearch.model.IShow;
+import com.demo.videosearch.model.Provider;
 
 /**
  * Instances of classes that implement this interface represent a single
@@ -12,13 +13,17 @@ public class Show implements IShow {
     private String title;
     private int year;
     private int rating;
-    private String providers;
+    private int providerMask;
 
     public Show(String title, int year, int rating, String providers) {
+        this(title, year, rating, Provider.parseMask(providers));
+    }
+
+    public Show(String title, int year, int rating, int providerMask) {
         this.title = title;
         this.year = year;
         this.rating = rating;
-        this.providers = providers;
+        this.providerMask = providerMask;
     }
 
     /**
@@ -59,7 +64,7 @@ public class Show implements IShow {
                 "title='" + title + '\'' +
                 ", year='" + year + '\'' +
                 ", rating=" + rating +
-                ", providers='" + providers + '\'' +
+                ", providers='" + Provider.join(providerMask, ",") + '\'' +
                 '}';
     }
 
@@ -70,13 +75,17 @@ public class Show implements IShow {
      * @return
      */
     public boolean isAvailableOn(String provider) {
-        String[] ltProviders = this.providers.split(",");
-        for (String str : ltProviders) {
-            if (str.equals(provider)) {
-                return true;
-            }
-        }
-        return false;
+        int mask = Provider.maskOf(provider);
+        return mask != 0 && (this.providerMask & mask) != 0;
+    }
+
+    /**
+     * retrieve the providers of this show as a mask of Provider bits
+     *
+     * @return
+     */
+    public int getProviderMask() {
+        return this.providerMask;
     }
 
     /**
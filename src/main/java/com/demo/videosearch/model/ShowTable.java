@@ -0,0 +1,283 @@
+package com.demo.videosearch.model;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Columnar table of shows: one array per field instead of one object per show, so millions of
+ * shows are a handful of objects for the garbage collector. The title of a show is the UTF-8 bytes
+ * titleOffsets[id] to titleOffsets[id + 1] of one buffer, on the heap or, optionally, in a direct
+ * ByteBuffer outside it. show(id) gives a flyweight IShow that reads the columns on demand.
+ * Rows are only appended, and ids are dense. When a column is full, add() copies the table into a
+ * larger one and returns it; a reader holding a table and a row count (a published snapshot) keeps
+ * reading the rows below that count while the writer appends after them, as with an array of shows.
+ */
+public final class ShowTable {
+
+    // largest rating a row can hold, ratings are stored in one unsigned byte
+    public static final int MAX_RATING = 255;
+
+    private final int[] years;
+    private final byte[] ratings; // unsigned
+    private final byte[] providerMasks;
+    private final int[] titleOffsets; // one more than the capacity, titleOffsets[size] is the end of the titles
+    private final ByteBuffer titles; // UTF-8 titles back to back
+    private final ByteBuffer writer; // duplicate of titles positioned at the end, used by the writer only
+    private int size; // number of rows
+
+    /**
+     * @param capacity expected number of shows
+     * @param offHeap  true to keep the titles in a direct buffer, outside the heap
+     */
+    public ShowTable(int capacity, boolean offHeap) {
+        this(Math.max(capacity, 16), Math.max(capacity, 16) * 16, offHeap);
+    }
+
+    /**
+     * @param capacity      expected number of shows
+     * @param titleCapacity expected number of bytes of the UTF-8 titles
+     * @param offHeap       true to keep the titles in a direct buffer, outside the heap
+     */
+    public ShowTable(int capacity, int titleCapacity, boolean offHeap) {
+        this.years = new int[capacity];
+        this.ratings = new byte[capacity];
+        this.providerMasks = new byte[capacity];
+        this.titleOffsets = new int[capacity + 1];
+        this.titles = offHeap ? ByteBuffer.allocateDirect(titleCapacity) : ByteBuffer.allocate(titleCapacity);
+        this.writer = this.titles.duplicate();
+    }
+
+    /**
+     * @return true if the titles are outside the heap
+     */
+    public boolean isOffHeap() {
+        return this.titles.isDirect();
+    }
+
+    /**
+     * @return number of rows appended
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * append a show
+     *
+     * @param show the show, copied
+     * @return this table, or a larger copy of it that holds the new row and must be used from now on
+     * @throws IllegalArgumentException if the rating is not between 0 and MAX_RATING
+     */
+    public ShowTable add(IShow show) {
+        byte[] title = show.getTitle().getBytes(StandardCharsets.UTF_8);
+        return add(title, 0, title.length, show.getYear(), show.getRating(), show.getProviderMask());
+    }
+
+    /**
+     * append a show whose title is already encoded
+     *
+     * @param title        buffer holding the UTF-8 title
+     * @param offset       index of the title in the buffer
+     * @param length       number of bytes of the title
+     * @param year         year the show was first produced
+     * @param rating       rating, 0 to MAX_RATING
+     * @param providerMask bits of the show's providers
+     * @return this table, or a larger copy of it that holds the new row and must be used from now on
+     * @throws IllegalArgumentException if the rating is not between 0 and MAX_RATING
+     */
+    public ShowTable add(byte[] title, int offset, int length, int year, int rating, int providerMask) {
+        if (rating < 0 || rating > MAX_RATING) {
+            throw new IllegalArgumentException("rating out of range: " + rating);
+        }
+        ShowTable table = ensure(this.size + 1, length);
+        int id = table.size;
+        table.years[id] = year;
+        table.ratings[id] = (byte) rating;
+        table.providerMasks[id] = (byte) providerMask;
+        table.writer.put(title, offset, length);
+        table.titleOffsets[id + 1] = table.titleOffsets[id] + length;
+        table.size = id + 1;
+        return table;
+    }
+
+    /**
+     * append every row of another table, column by column
+     *
+     * @param other the rows to append, unchanged
+     * @return this table, or a larger copy of it that holds the new rows and must be used from now on
+     */
+    public ShowTable addAll(ShowTable other) {
+        int count = other.size;
+        ShowTable table = ensure(this.size + count, other.titleOffsets[count]);
+        int base = table.size;
+        System.arraycopy(other.years, 0, table.years, base, count);
+        System.arraycopy(other.ratings, 0, table.ratings, base, count);
+        System.arraycopy(other.providerMasks, 0, table.providerMasks, base, count);
+        int start = table.titleOffsets[base];
+        for (int i = 1; i <= count; i++) {
+            table.titleOffsets[base + i] = start + other.titleOffsets[i];
+        }
+        ByteBuffer source = other.titles.duplicate();
+        source.position(0).limit(other.titleOffsets[count]);
+        table.writer.put(source);
+        table.size = base + count;
+        return table;
+    }
+
+    /**
+     * @param id a row
+     * @return year the show was first produced
+     */
+    public int year(int id) {
+        return this.years[id];
+    }
+
+    /**
+     * @param id a row
+     * @return rating of the show
+     */
+    public int rating(int id) {
+        return this.ratings[id] & 0xFF;
+    }
+
+    /**
+     * @param id a row
+     * @return bits of the show's providers
+     */
+    public int providerMask(int id) {
+        return this.providerMasks[id] & 0xFF;
+    }
+
+    /**
+     * decode the title of a row, a new String on every call
+     *
+     * @param id a row
+     * @return the title
+     */
+    public String title(int id) {
+        int from = this.titleOffsets[id];
+        int length = this.titleOffsets[id + 1] - from;
+        if (this.titles.hasArray()) {
+            return new String(this.titles.array(), this.titles.arrayOffset() + from, length, StandardCharsets.UTF_8);
+        }
+        byte[] bytes = new byte[length];
+        ByteBuffer source = this.titles.duplicate();
+        source.position(from);
+        source.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param id a row
+     * @return a view of the row, reading the columns on every call
+     */
+    public IShow show(int id) {
+        return new Row(this, id);
+    }
+
+    /**
+     * @return bytes used by the columns, on the heap and off it
+     */
+    public long sizeInBytes() {
+        return 4L * this.years.length + this.ratings.length + this.providerMasks.length
+                + 4L * this.titleOffsets.length + this.titles.capacity();
+    }
+
+    /**
+     * private helper: this table if it has room for the rows and title bytes, a larger copy otherwise
+     */
+    private ShowTable ensure(int rows, int titleBytes) {
+        int titleEnd = this.titleOffsets[this.size] + titleBytes;
+        if (rows <= this.years.length && titleEnd <= this.titles.capacity()) {
+            return this;
+        }
+        int capacity = rows <= this.years.length ? this.years.length : Math.max(rows, this.years.length * 2);
+        int titleCapacity = titleEnd <= this.titles.capacity() ? this.titles.capacity()
+                : Math.max(titleEnd, this.titles.capacity() * 2);
+        ShowTable table = new ShowTable(capacity, titleCapacity, isOffHeap());
+        System.arraycopy(this.years, 0, table.years, 0, this.size);
+        System.arraycopy(this.ratings, 0, table.ratings, 0, this.size);
+        System.arraycopy(this.providerMasks, 0, table.providerMasks, 0, this.size);
+        System.arraycopy(this.titleOffsets, 0, table.titleOffsets, 0, this.size + 1);
+        ByteBuffer source = this.titles.duplicate();
+        source.position(0).limit(this.titleOffsets[this.size]);
+        table.writer.put(source);
+        table.size = this.size;
+        return table;
+    }
+
+    /**
+     * Flyweight IShow over one row of a table.
+     */
+    private static final class Row implements IShow {
+        private final ShowTable table;
+        private final int id;
+
+        Row(ShowTable table, int id) {
+            this.table = table;
+            this.id = id;
+        }
+
+        @Override
+        public String getTitle() {
+            return this.table.title(this.id);
+        }
+
+        @Override
+        public int getYear() {
+            return this.table.year(this.id);
+        }
+
+        @Override
+        public int getRating() {
+            return this.table.rating(this.id);
+        }
+
+        @Override
+        public boolean isAvailableOn(String provider) {
+            int mask = Provider.maskOf(provider);
+            return mask != 0 && (getProviderMask() & mask) != 0;
+        }
+
+        @Override
+        public int getProviderMask() {
+            return this.table.providerMask(this.id);
+        }
+
+        /**
+         * descending order by rating, like Show
+         */
+        @Override
+        public int compareTo(IShow o) {
+            return Integer.compare(o.getRating(), getRating());
+        }
+
+        /**
+         * two views of the same row are equal, also when one was taken before the table grew
+         */
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Row)) {
+                return false;
+            }
+            Row other = (Row) o;
+            return this.id == other.id && getYear() == other.getYear() && getRating() == other.getRating()
+                    && getProviderMask() == other.getProviderMask() && getTitle().equals(other.getTitle());
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * this.id + getRating();
+        }
+
+        @Override
+        public String toString() {
+            return "IShow{" +
+                    "title='" + getTitle() + '\'' +
+                    ", year='" + getYear() + '\'' +
+                    ", rating=" + getRating() +
+                    ", providers='" + Provider.join(getProviderMask(), ",") + '\'' +
+                    '}';
+        }
+    }
+}
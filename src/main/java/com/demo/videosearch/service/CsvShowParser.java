@@ -0,0 +1,365 @@
+package com.demo.videosearch.service;
+
+import com.demo.videosearch.model.IShow;
+import com.demo.videosearch.model.Provider;
+import com.demo.videosearch.model.Show;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Single pass RFC 4180 parser of the tv_shows.csv format, working on the UTF-8 bytes.
+ * Each record is scanned once by a small state machine that only remembers where its fields start
+ * and end; numbers are parsed straight from the bytes and the title is the only String created.
+ * Shows are handed out one at a time as a Spliterator, so a catalog is never held in memory as a whole.
+ * The input is either one ByteBuffer holding everything (for example a mapped file) or a channel
+ * read through a reused buffer; a record that does not fit the buffer makes it grow.
+ * Columns used: 2 Title, 3 Year, 6 Rotten Tomatoes ("96/100"), 7-10 Netflix, Hulu, Prime Video, Disney+.
+ */
+public final class CsvShowParser implements Spliterator<IShow> {
+
+    static final int TITLE = 2;
+    static final int YEAR = 3;
+    static final int RATING = 6;
+    static final int FIRST_PROVIDER = 7;
+    private static final int FIELDS = FIRST_PROVIDER + 4;
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    // states of the record scanner
+    private static final int FIELD_START = 0;
+    private static final int UNQUOTED = 1;
+    private static final int QUOTED = 2;
+    private static final int QUOTE_IN_QUOTED = 3; // a quote inside a quoted field: escape or end
+
+    private final ReadableByteChannel channel; // null when the buffer holds the whole input
+    private ByteBuffer buffer; // bytes [position, limit) are not parsed yet
+    private boolean eof;
+    private boolean headerChecked;
+    private long records; // records read, for error messages
+    // content of the fields of the current record, end exclusive, quotes excluded
+    private final int[] fieldStart = new int[FIELDS];
+    private final int[] fieldEnd = new int[FIELDS];
+    private final boolean[] fieldEscaped = new boolean[FIELDS]; // contains "" to unescape
+    private byte[] scratch = new byte[256];
+
+    /**
+     * parser of a complete input
+     *
+     * @param input the whole CSV, from its position to its limit
+     */
+    public CsvShowParser(ByteBuffer input) {
+        this.channel = null;
+        this.buffer = input;
+        this.eof = true;
+    }
+
+    /**
+     * parser of a channel, read in 1 MiB blocks; the channel is not closed by the parser
+     *
+     * @param channel the CSV
+     */
+    public CsvShowParser(ReadableByteChannel channel) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        this.buffer.limit(0);
+    }
+
+    /**
+     * treat the first record as a show even if its title is "Title", for an input that starts
+     * in the middle of a file
+     *
+     * @return this parser
+     */
+    CsvShowParser noHeader() {
+        this.headerChecked = true;
+        return this;
+    }
+
+    /**
+     * parse every remaining show
+     *
+     * @param sink receives the shows in file order
+     * @return number of shows parsed
+     */
+    public long parse(Consumer<? super IShow> sink) {
+        long count = 0;
+        while (tryAdvance(sink)) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * parse the next show
+     *
+     * @param action receives the show
+     * @return false at the end of the input
+     * @throws IllegalArgumentException if a record has a missing or malformed year or rating
+     * @throws UncheckedIOException     if the channel cannot be read
+     */
+    @Override
+    public boolean tryAdvance(Consumer<? super IShow> action) {
+        while (nextRecord()) {
+            if (!this.headerChecked) {
+                this.headerChecked = true;
+                if (fieldEquals(TITLE, "Title")) {
+                    continue;
+                }
+            }
+            action.accept(toShow());
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Spliterator<IShow> trySplit() {
+        // a stream has no record boundaries to split at; ParallelShowLoader splits mapped files
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+
+    /**
+     * private helper to find the fields of the next non-empty record and move past it
+     *
+     * @return false if there is no record left
+     */
+    private boolean nextRecord() {
+        while (true) {
+            int end = scanRecord();
+            if (end >= 0) {
+                int start = this.buffer.position();
+                this.buffer.position(end);
+                if (end - start > 0 && !blank(start, end)) {
+                    this.records++;
+                    return true;
+                }
+                continue;
+            }
+            if (this.eof) {
+                return false;
+            }
+            fill();
+        }
+    }
+
+    /**
+     * private helper, the state machine: scan one record from the buffer position and note its fields
+     *
+     * @return position after the record and its line break, or -1 if the buffer ends inside the record
+     * and more input may follow
+     */
+    @SuppressWarnings("fallthrough") // FIELD_START hands a plain byte on to UNQUOTED
+    private int scanRecord() {
+        ByteBuffer buf = this.buffer;
+        int limit = buf.limit();
+        int i = buf.position();
+        if (i >= limit) {
+            return -1;
+        }
+        // fields not reached by a short record stay empty
+        Arrays.fill(this.fieldEnd, 0);
+        Arrays.fill(this.fieldStart, 0);
+        int field = 0;
+        int state = FIELD_START;
+        int start = i;
+        boolean escaped = false;
+        for (; i < limit; i++) {
+            byte b = buf.get(i);
+            switch (state) {
+                case FIELD_START:
+                    if (b == '"') {
+                        state = QUOTED;
+                        start = i + 1;
+                        escaped = false;
+                        continue;
+                    }
+                    start = i;
+                    escaped = false;
+                    state = UNQUOTED;
+                    // fall through: the byte belongs to an unquoted field
+                case UNQUOTED:
+                    if (b == ',') {
+                        endField(field++, start, i, escaped);
+                        state = FIELD_START;
+                    } else if (b == '\n') {
+                        endField(field, start, i > start && buf.get(i - 1) == '\r' ? i - 1 : i, escaped);
+                        return i + 1;
+                    }
+                    break;
+                case QUOTED:
+                    if (b == '"') {
+                        state = QUOTE_IN_QUOTED;
+                    }
+                    break;
+                default: // QUOTE_IN_QUOTED
+                    if (b == '"') {
+                        escaped = true;
+                        state = QUOTED;
+                    } else if (b == ',') {
+                        endField(field++, start, i - 1, escaped);
+                        state = FIELD_START;
+                    } else if (b == '\n' || b == '\r') {
+                        endField(field, start, i - 1, escaped);
+                        int next = b == '\r' && i + 1 < limit && buf.get(i + 1) == '\n' ? i + 2 : i + 1;
+                        if (b == '\r' && i + 1 >= limit && !this.eof) {
+                            return -1;
+                        }
+                        return next;
+                    } else {
+                        // text after a closing quote is not RFC 4180, keep it as part of the field
+                        state = UNQUOTED;
+                    }
+                    break;
+            }
+        }
+        if (!this.eof) {
+            return -1;
+        }
+        // last record without a line break
+        int end = state == QUOTE_IN_QUOTED ? limit - 1 : limit;
+        if (state == UNQUOTED && end > start && buf.get(end - 1) == '\r') {
+            end--;
+        }
+        endField(field, state == FIELD_START ? limit : start, end, escaped);
+        return limit;
+    }
+
+    /**
+     * private helper to remember a field of the current record, ignoring columns that are not used
+     */
+    private void endField(int field, int start, int end, boolean escaped) {
+        if (field < FIELDS) {
+            this.fieldStart[field] = start;
+            this.fieldEnd[field] = end;
+            this.fieldEscaped[field] = escaped;
+        }
+    }
+
+    /**
+     * private helper to read more of the channel, keeping the unparsed bytes and growing the buffer
+     * when one record fills it
+     */
+    private void fill() {
+        ByteBuffer buf = this.buffer;
+        buf.compact();
+        if (!buf.hasRemaining()) {
+            ByteBuffer bigger = ByteBuffer.allocateDirect(buf.capacity() * 2);
+            buf.flip();
+            bigger.put(buf);
+            buf = bigger;
+            this.buffer = bigger;
+        }
+        try {
+            while (buf.hasRemaining()) {
+                if (this.channel.read(buf) < 0) {
+                    this.eof = true;
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buf.flip();
+    }
+
+    /**
+     * private helper to build the show of the current record
+     */
+    private IShow toShow() {
+        int providerMask = 0;
+        for (Provider provider : Provider.values()) {
+            int field = FIRST_PROVIDER + provider.ordinal();
+            if (this.fieldEnd[field] - this.fieldStart[field] == 1 && this.buffer.get(this.fieldStart[field]) == '1') {
+                providerMask |= provider.mask();
+            }
+        }
+        return new Show(title(), parseInt(YEAR, "year"), parseInt(RATING, "rating"), providerMask);
+    }
+
+    /**
+     * private helper to decode the title, unescaping "" when needed
+     */
+    private String title() {
+        int start = this.fieldStart[TITLE];
+        int length = this.fieldEnd[TITLE] - start;
+        if (length > this.scratch.length) {
+            this.scratch = new byte[Math.max(length, this.scratch.length * 2)];
+        }
+        int n = 0;
+        for (int i = 0; i < length; i++) {
+            byte b = this.buffer.get(start + i);
+            this.scratch[n++] = b;
+            if (b == '"' && this.fieldEscaped[TITLE]) {
+                i++; // skip the second quote of ""
+            }
+        }
+        return new String(this.scratch, 0, n, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * private helper to parse the leading digits of a field: "2019" or the "96" of "96/100"
+     */
+    private int parseInt(int field, String name) {
+        int start = this.fieldStart[field];
+        int end = this.fieldEnd[field];
+        int value = 0;
+        int i = start;
+        for (; i < end; i++) {
+            int digit = this.buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                break;
+            }
+            value = value * 10 + digit;
+        }
+        if (i == start) {
+            throw new IllegalArgumentException("record " + this.records + ": no " + name + " in column " + field);
+        }
+        return value;
+    }
+
+    /**
+     * private helper to compare a field with an ASCII string
+     */
+    private boolean fieldEquals(int field, String text) {
+        int start = this.fieldStart[field];
+        if (this.fieldEnd[field] - start != text.length()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (this.buffer.get(start + i) != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * private helper to detect a record made only of a line break
+     */
+    private boolean blank(int start, int end) {
+        for (int i = start; i < end; i++) {
+            byte b = this.buffer.get(i);
+            if (b != '\r' && b != '\n') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -3,6 +3,8 @@ import com.demo.videosearch.model.IShow;
 
 import java.util.List;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.function.Consumer;
 
 /**
  * Instances of classes that implement this interface can be used to load a
@@ -25,5 +27,13 @@ public interface IShowLoader {
      */
     List<IShow> loadShows(String filepath) throws FileNotFoundException;
 
+    /**
+     * This method streams the shows described within a CSV file, without keeping them in a list.
+     * @param filepath is relative to executable's working directory
+     * @param sink receives each show in file order
+     * @return the number of shows read
+     */
+    long loadShows(String filepath, Consumer<? super IShow> sink) throws IOException;
+
 }
 
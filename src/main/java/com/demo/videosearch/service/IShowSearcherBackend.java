@@ -10,6 +10,8 @@ import java.util.List;
 public interface IShowSearcherBackend {
     
     public void addShow(IShow show); // adds show to backend database
+    public int updateShow(int id, IShow show); // replaces a show, returns the id of the new version
+    public boolean removeShow(int id); // removes a show, false if there was none with that id
     public int getNumberOfShows(); // retrieve number of shows in database
 
     // set the desired provider filters before calling either search method:
@@ -22,5 +24,22 @@ public interface IShowSearcherBackend {
     // the results are filtered according to the provider filters set above
     public List<IShow> searchByTitleWord(String word);
     public List<IShow> searchByYear(int year);
+
+    // one page of the same results: offset results skipped, at most limit shows
+    public SearchPage searchByTitleWord(String word, int offset, int limit);
+    public SearchPage searchByYear(int year, int offset, int limit);
+    public List<IShow> searchByYearRange(int from, int to, int limit); // best rated first, at most limit
+
+    // boolean AND / OR / NOT search over several title words, same filtering
+    public List<IShow> searchByTitleQuery(TitleQuery query);
+
+    // typeahead: title words and full titles starting with the prefix, best rated first
+    public List<String> autocomplete(String prefix, int n);
+    // did you mean: title words within a few typos of the word, closest first
+    public List<String> suggestTitleWords(String word, int n);
+
+    // thread-safe search: the filters travel with the query instead of the backend
+    public List<IShow> search(ShowQuery query);
+    public SearchPage searchPage(ShowQuery query); // one page, selected by the query offset and limit
     
 }
@@ -0,0 +1,415 @@
+package com.demo.videosearch.service;
+
+import com.demo.videosearch.db.CompletionTrie;
+import com.demo.videosearch.db.IdBitmap;
+import com.demo.videosearch.db.PostingList;
+import com.demo.videosearch.db.PostingLists;
+import com.demo.videosearch.db.TrigramIndex;
+import com.demo.videosearch.model.IShow;
+import com.demo.videosearch.model.Provider;
+import com.demo.videosearch.model.ShowTable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Immutable view of the index published by ShowSearcherBackend. Nothing reachable from a snapshot
+ * is modified after it is published, so any number of threads can search it without locks;
+ * the backend copies a structure before writing to it again.
+ * The posting lists are split in segments of consecutive ids: a query is evaluated on each segment
+ * and the matches are ranked together; a query on years only merges the rating ordered year lists of
+ * the segments and stops after the first results. Removed shows are hidden by the tombstone bitmap until a merge
+ * takes them out of the segments.
+ */
+public final class IndexSnapshot {
+
+    private final ShowTable shows; // shows by id; rows from size on belong to the writer
+    private final int size; // number of ids in this snapshot, removed shows included
+    private final int catalogEpoch; // drawn at random when the catalog was built or loaded
+    private final int catalogVersion; // changes whenever shows are added, updated or removed
+    private final Segment[] segments; // in id order, the ranges are adjacent
+    private final IdBitmap[] providerBitmaps; // one per Provider
+    private final IdBitmap deleted; // ids of removed shows
+    // AND of the provider bitmaps by filter mask, built the first time a mask of several providers is used
+    private final AtomicReferenceArray<IdBitmap> filters = new AtomicReferenceArray<>(1 << Provider.values().length);
+
+    IndexSnapshot(ShowTable shows, int size, int catalogEpoch, int catalogVersion, Segment[] segments,
+                  IdBitmap[] providerBitmaps, IdBitmap deleted) {
+        this.shows = shows;
+        this.size = size;
+        this.catalogEpoch = catalogEpoch;
+        this.catalogVersion = catalogVersion;
+        this.segments = segments;
+        this.providerBitmaps = providerBitmaps;
+        this.deleted = deleted;
+    }
+
+    /**
+     * @return number of ids of this snapshot, every id is below it; removed shows keep their id
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return random number drawn when the catalog was built or loaded; versions start again from the
+     * same number when an index file is loaded, cached results are only valid for the epoch and the
+     * version they were computed for
+     */
+    public int catalogEpoch() {
+        return this.catalogEpoch;
+    }
+
+    /**
+     * @return version of the catalog, changed by every add, update and remove; cached results are only valid for the
+     * version they were computed for
+     */
+    public int catalogVersion() {
+        return this.catalogVersion;
+    }
+
+    /**
+     * @param id an id below size()
+     * @return true if the show with that id was removed or replaced
+     */
+    public boolean isDeleted(int id) {
+        return this.deleted.get(id);
+    }
+
+    /**
+     * @return the segments, for IndexSnapshotFile and the merger; not to be modified
+     */
+    Segment[] segments() {
+        return this.segments;
+    }
+
+    /**
+     * @return the tombstones, for IndexSnapshotFile and the merger; not to be modified
+     */
+    IdBitmap deleted() {
+        return this.deleted;
+    }
+
+    /**
+     * @return the shows by id, for IndexSnapshotFile and the merger; not to be modified
+     */
+    ShowTable shows() {
+        return this.shows;
+    }
+
+    /**
+     * @param id id of a show of this snapshot
+     * @return a view of the show, reading the columns of the show table
+     */
+    public IShow show(int id) {
+        return this.shows.show(id);
+    }
+
+    /**
+     * @param key title word as Analyzer.TITLES gives it
+     * @return true if the key is in the title index
+     */
+    public boolean containsTitleKey(String key) {
+        for (Segment segment : this.segments) {
+            if (segment.titlePostings(key) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param key title word as Analyzer.TITLES gives it
+     * @return number of shows whose title has the word, removed shows not yet merged out included
+     */
+    public int titleKeyFrequency(String key) {
+        int frequency = 0;
+        for (Segment segment : this.segments) {
+            PostingList list = segment.titlePostings(key);
+            if (list != null) {
+                frequency += list.size();
+            }
+        }
+        return frequency;
+    }
+
+    /**
+     * @param year year looking for
+     * @return true if a show of this year is in the index
+     */
+    public boolean containsYear(int year) {
+        for (Segment segment : this.segments) {
+            if (segment.years().indexOf(year) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * complete a prefix with the title words and full titles of the index: the top completions of
+     * each segment's trie are merged, a key found in several segments keeping its best score
+     *
+     * @param prefix beginning of a word or title, normalized by Analyzer.TITLES
+     * @param n      maximum number of completions
+     * @return the keys by the rating of their best show, best first; equal ratings in no set order
+     */
+    public List<CompletionTrie.Completion> complete(String prefix, int n) {
+        if (this.segments.length == 1) {
+            return this.segments[0].completions(this.shows, this.deleted).complete(prefix, n);
+        }
+        Map<String, CompletionTrie.Completion> best = new HashMap<>();
+        for (Segment segment : this.segments) {
+            for (CompletionTrie.Completion completion : segment.completions(this.shows, this.deleted).complete(prefix, n)) {
+                CompletionTrie.Completion seen = best.get(completion.getKey());
+                if (seen == null || seen.getScore() < completion.getScore()) {
+                    best.put(completion.getKey(), completion);
+                }
+            }
+        }
+        List<CompletionTrie.Completion> result = new ArrayList<>(best.values());
+        result.sort((a, b) -> a.getScore() != b.getScore() ? Integer.compare(b.getScore(), a.getScore())
+                : a.getKey().compareTo(b.getKey()));
+        return result.size() > n ? new ArrayList<>(result.subList(0, n)) : result;
+    }
+
+    /**
+     * title words of the index within a few edits of a word: each segment's trigram index gives
+     * its candidates, and a word found in several segments keeps its smallest distance and best score
+     *
+     * @param word          normalized word, possibly misspelled
+     * @param maxEdits      largest edit distance accepted
+     * @param maxCandidates largest number of candidates checked in each segment
+     * @param n             maximum number of words
+     * @return the words, closest first, then by the rating of their best show
+     */
+    public List<TrigramIndex.Match> fuzzyTitleWords(String word, int maxEdits, int maxCandidates, int n) {
+        Map<String, TrigramIndex.Match> best = new HashMap<>();
+        for (Segment segment : this.segments) {
+            for (TrigramIndex.Match match : segment.titleWords(this.shows, this.deleted).search(word, maxEdits, maxCandidates)) {
+                TrigramIndex.Match seen = best.get(match.getTerm());
+                if (seen == null || match.compareTo(seen) < 0) {
+                    best.put(match.getTerm(), match);
+                }
+            }
+        }
+        List<TrigramIndex.Match> result = new ArrayList<>(best.values());
+        result.sort(TrigramIndex.Match::compareTo);
+        return result.size() > n ? new ArrayList<>(result.subList(0, n)) : result;
+    }
+
+    /**
+     * run a query against this snapshot
+     *
+     * @param query the query
+     * @return the page of matching shows selected by the query offset and limit, in descending rating order
+     */
+    public List<IShow> search(ShowQuery query) {
+        return searchPage(query).getShows();
+    }
+
+    /**
+     * run a query against this snapshot and return one page of the results. Only the page is
+     * materialized: a title query keeps the best offset + limit matches in a bounded heap while
+     * it walks the posting lists, and a year query reads the rating ordered year lists lazily
+     * and stops after the page.
+     *
+     * @param query the query, its offset and limit select the page
+     * @return the page
+     */
+    public SearchPage searchPage(ShowQuery query) {
+        if (query.getTitleQuery() != null) {
+            TopK top = rankTitle(query, nextEnd(query));
+            int[] ids = top.toSortedIds(query.getOffset());
+            boolean hasMore = ids.length > query.getLimit();
+            return new SearchPage(query, resolve(hasMore ? Arrays.copyOf(ids, query.getLimit()) : ids),
+                    top.offered(), hasMore);
+        } else if (query.hasYear()) {
+            YearMerge ids = rankedByYear(query);
+            int skipped = ids.skip(query.getOffset());
+            List<IShow> shows = new ArrayList<>();
+            while (shows.size() < query.getLimit() && ids.hasNext()) {
+                shows.add(this.shows.show(ids.nextInt()));
+            }
+            boolean hasMore = ids.hasNext();
+            return new SearchPage(query, shows, hasMore ? -1 : skipped + shows.size(), hasMore);
+        }
+        return new SearchPage(query, new ArrayList<>(), 0, false);
+    }
+
+    /**
+     * ids of the shows matching a query that has title words, in result order
+     *
+     * @param query the query, getTitleQuery() must not be null
+     * @return ids in descending rating order, equal ratings in id (insertion) order, from
+     * query.getOffset() on and at most query.getLimit()
+     */
+    public int[] titleIds(ShowQuery query) {
+        return rankTitle(query, query.getEnd()).toSortedIds(query.getOffset());
+    }
+
+    /**
+     * rank the shows matching a query that has title words, keeping only the best ones
+     *
+     * @param query the query, getTitleQuery() must not be null; its offset and limit are not applied
+     * @param count number of best matches kept
+     * @return the best matches, and the number of matches
+     */
+    TopK rankTitle(ShowQuery query, int count) {
+        IdBitmap available = filterBitmap(query.getProviderMask());
+        TopK top = new TopK(count);
+        TitleQuery titleQuery = query.getTitleQuery();
+        // a single word is streamed from its posting lists, nothing is materialized
+        String single = titleQuery.isSingleWord() ? titleQuery.getAllOf().get(0) : null;
+        PostingList.Cursor cursor = PostingList.EMPTY.cursor();
+        for (Segment segment : this.segments) {
+            if (single != null) {
+                PostingList list = segment.titlePostings(single);
+                if (list == null) {
+                    continue;
+                }
+                cursor.reset(list);
+                for (int id = cursor.next(); id != PostingList.NO_MORE_IDS; id = cursor.next()) {
+                    offer(top, id, available, query);
+                }
+            } else {
+                for (int id : matchTitleQuery(segment, titleQuery)) {
+                    offer(top, id, available, query);
+                }
+            }
+        }
+        return top;
+    }
+
+    /**
+     * private helper to offer a candidate to the heap if it passes the filters of the query
+     */
+    private void offer(TopK top, int id, IdBitmap available, ShowQuery query) {
+        if ((available == null || available.get(id)) && !this.deleted.get(id) && query.matchesYear(this.shows.year(id))) {
+            top.offer(id, this.shows.rating(id));
+        }
+    }
+
+    /**
+     * lazy iterator over the shows of the years of a query, best rated first
+     *
+     * @param query the query, with a year range; its title words, offset and limit are not applied
+     * @return ids in descending rating order, equal ratings in id (insertion) order
+     */
+    YearMerge rankedByYear(ShowQuery query) {
+        return new YearMerge(this.segments, query.getYearFrom(), query.getYearTo(), this.shows,
+                filterBitmap(query.getProviderMask()), this.deleted);
+    }
+
+    /**
+     * private helper: number of ranked results needed to fill a page and know if another follows
+     */
+    private static int nextEnd(ShowQuery query) {
+        return query.getEnd() == Integer.MAX_VALUE ? Integer.MAX_VALUE : query.getEnd() + 1;
+    }
+
+    /**
+     * look up the shows of some ids, leaving out the removed ones (a cached result may be older
+     * than a removal)
+     *
+     * @param ids ids of shows of this snapshot
+     * @return the shows in the same order
+     */
+    public List<IShow> resolve(int[] ids) {
+        ArrayList<IShow> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            if (!this.deleted.get(id)) {
+                result.add(this.shows.show(id));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * private helper to evaluate a title query against the posting lists of one segment
+     *
+     * @return ascending ids of the matching shows of the segment
+     */
+    private static int[] matchTitleQuery(Segment segment, TitleQuery query) {
+        PostingList[] anyOf = postingsOf(segment, query.getAnyOf(), false);
+        int[] ids = null; // null while nothing is required
+        if (!query.getAllOf().isEmpty()) {
+            PostingList[] allOf = postingsOf(segment, query.getAllOf(), true);
+            if (allOf == null) {
+                return new int[0];
+            }
+            ids = PostingLists.intersect(allOf);
+        }
+        for (TitleQuery.Phrase phrase : query.getPhrases()) {
+            // positional merge of the words of the phrase, kept in phrase order
+            PostingList[] words = postingsOf(segment, phrase.getWords(), true);
+            if (words == null) {
+                return new int[0];
+            }
+            int[] matches = PostingLists.phrase(words, phrase.getSlop());
+            ids = ids == null ? matches : PostingLists.retainAll(ids, matches);
+        }
+        if (ids == null) {
+            ids = PostingLists.union(anyOf);
+        } else if (!query.getAnyOf().isEmpty()) {
+            ids = PostingLists.retainAny(ids, anyOf);
+        }
+        return PostingLists.subtract(ids, postingsOf(segment, query.getNoneOf(), false));
+    }
+
+    /**
+     * private helper to look up the posting lists of some words in one segment
+     *
+     * @param segment  the segment
+     * @param words    normalized words
+     * @param required true if every word must be in the segment
+     * @return lists of the words found, or null if a required word is missing
+     */
+    private static PostingList[] postingsOf(Segment segment, List<String> words, boolean required) {
+        ArrayList<PostingList> lists = new ArrayList<>(words.size());
+        for (String word : words) {
+            PostingList list = segment.titlePostings(word);
+            if (list != null) {
+                lists.add(list);
+            } else if (required) {
+                return null;
+            }
+        }
+        return lists.toArray(new PostingList[0]);
+    }
+
+    /**
+     * AND the bitmaps of the filtered providers, so testing a candidate id is a single bit test.
+     * The bitmap of a single provider is used as it is; the AND for several providers is built once
+     * per snapshot and mask, two threads racing on a new mask may both build it
+     *
+     * @param mask providers of the query
+     * @return ids of the shows available on every provider of the mask, null if the mask is empty;
+     * read only, it is shared by the searches of this snapshot
+     */
+    private IdBitmap filterBitmap(int mask) {
+        mask &= Provider.ALL;
+        if (mask == 0) {
+            return null;
+        }
+        if (Integer.bitCount(mask) == 1) {
+            return this.providerBitmaps[Integer.numberOfTrailingZeros(mask)];
+        }
+        IdBitmap available = this.filters.get(mask);
+        if (available != null) {
+            return available;
+        }
+        for (Provider provider : Provider.values()) {
+            if ((mask & provider.mask()) != 0) {
+                IdBitmap bitmap = this.providerBitmaps[provider.ordinal()];
+                available = available == null ? bitmap.copy() : available.and(bitmap);
+            }
+        }
+        this.filters.set(mask, available);
+        return available;
+    }
+}
@@ -0,0 +1,410 @@
+package com.demo.videosearch.service;
+
+import com.demo.videosearch.db.HashTablePostingLists;
+import com.demo.videosearch.db.IdBitmap;
+import com.demo.videosearch.db.YearIndex;
+import com.demo.videosearch.db.PostingList;
+import com.demo.videosearch.model.Provider;
+import com.demo.videosearch.model.ShowTable;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary file of a built index, so a restart maps the index instead of parsing the CSV again.
+ * Layout, big-endian:
+ * - header (HEADER_SIZE bytes): magic, format version, size and modification time of the CSV it was
+ * built from, number of ids, catalog version, then offset, length and CRC-32 of each section; the last
+ * 4 bytes are the CRC-32 of the rest of the header
+ * - shows: year, rating, provider mask, title length and UTF-8 title of each show, in id order,
+ * removed shows included so the ids do not change
+ * - postings: the encoded posting lists of every title word, ids and positions, back to back
+ * - terms: number of keys, then for each key its UTF-8 bytes and the offset, length, size, last id and
+ * skip entries of its list in the postings section
+ * - years: number of years, the years in ascending order, the offset of each year in the ids
+ * followed by the number of ids, then the ids grouped by year and in rating order within a year
+ * - tombstones: number of removed shows, then their ids
+ * The segments of the index are merged into one, without the removed shows, before being written.
+ * The postings section is mapped and used as the arena of the posting lists without being copied;
+ * the shows, terms and years are decoded into the usual structures. A file that is missing, of
+ * another version, built from another CSV, or that fails a checksum is not used.
+ */
+public final class IndexSnapshotFile {
+
+    // "VSIX"
+    private static final int MAGIC = 0x56534958;
+    // changed whenever the layout or the analysis of the titles changes, an older file is then rebuilt
+    // from the CSV
+    public static final int VERSION = 5;
+
+    private static final int SHOWS = 0;
+    private static final int POSTINGS = 1;
+    private static final int TERMS = 2;
+    private static final int YEARS = 3;
+    private static final int TOMBSTONES = 4;
+    private static final int SECTIONS = 5;
+    // position of the section table in the header
+    private static final int SECTION_TABLE = 4 + 4 + 8 + 8 + 4 + 4;
+    // magic, version, source size, source time, id count, catalog version, 20 bytes per section, header CRC
+    private static final int HEADER_SIZE = SECTION_TABLE + SECTIONS * 20 + 4;
+
+    private IndexSnapshotFile() {
+    }
+
+    /**
+     * fill an empty backend from a snapshot file, if the file is usable
+     *
+     * @param file    snapshot file
+     * @param source  CSV the snapshot must have been built from; when it does not exist the snapshot
+     *                is used as it is
+     * @param backend empty backend
+     * @return false, with the reason on stderr, if the file is missing, stale or damaged; the backend
+     * is then unchanged
+     * @throws IOException if the file exists but cannot be read
+     */
+    public static boolean load(Path file, Path source, ShowSearcherBackend backend) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // read the whole header
+            }
+            header.flip();
+            String problem = checkHeader(header, source);
+            if (problem != null) {
+                System.err.println("Index snapshot " + file + " not used: " + problem + ".");
+                return false;
+            }
+            int count = header.getInt(24);
+            int catalogVersion = header.getInt(28);
+            ByteBuffer[] sections = new ByteBuffer[SECTIONS];
+            for (int s = 0; s < SECTIONS; s++) {
+                int at = SECTION_TABLE + s * 20;
+                long offset = header.getLong(at);
+                long length = header.getLong(at + 8);
+                if (length > Integer.MAX_VALUE || offset + length > channel.size()) {
+                    System.err.println("Index snapshot " + file + " not used: it is truncated.");
+                    return false;
+                }
+                MappedByteBuffer section = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+                if (crc(section) != header.getInt(at + 16)) {
+                    System.err.println("Index snapshot " + file + " not used: checksum mismatch.");
+                    return false;
+                }
+                sections[s] = section;
+            }
+            install(sections, count, catalogVersion, backend);
+            return true;
+        } finally {
+            // the mappings stay valid after the channel is closed
+            channel.close();
+        }
+    }
+
+    /**
+     * write the current index of a backend; the file is replaced only once it is complete
+     *
+     * @param backend backend whose published snapshot is written
+     * @param file    snapshot file
+     * @param source  CSV the backend was loaded from, recorded so a changed CSV makes the file stale
+     * @throws IOException if the file cannot be written
+     */
+    public static void save(ShowSearcherBackend backend, Path file, Path source) throws IOException {
+        IndexSnapshot snapshot = backend.snapshot();
+        Segment segment = singleSegment(snapshot);
+        BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION)
+                    .putLong(attributes.size()).putLong(attributes.lastModifiedTime().toMillis())
+                    .putInt(snapshot.size()).putInt(snapshot.catalogVersion());
+            channel.position(HEADER_SIZE);
+            CRC32 crc = new CRC32();
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), crc));
+            List<String> keys = new ArrayList<>();
+            List<PostingList> lists = new ArrayList<>();
+            segment.titleHash().forEach((key, list) -> {
+                keys.add(key);
+                lists.add(list);
+            });
+            for (int s = 0; s < SECTIONS; s++) {
+                long start = channel.position();
+                crc.reset();
+                switch (s) {
+                    case SHOWS:
+                        writeShows(out, snapshot);
+                        break;
+                    case POSTINGS:
+                        writePostings(out, lists);
+                        break;
+                    case TERMS:
+                        writeTerms(out, keys, lists);
+                        break;
+                    case YEARS:
+                        writeYears(out, segment);
+                        break;
+                    default:
+                        writeTombstones(out, snapshot);
+                        break;
+                }
+                out.flush();
+                header.putLong(start).putLong(channel.position() - start).putInt((int) crc.getValue());
+            }
+            crc.reset();
+            crc.update(header.array(), 0, header.position());
+            header.putInt((int) crc.getValue());
+            header.flip();
+            while (header.hasRemaining()) {
+                // the header is at the start of the file, its buffer position is its file position
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * private helper to get the whole index of a snapshot as one segment without removed shows
+     */
+    private static Segment singleSegment(IndexSnapshot snapshot) {
+        Segment[] segments = snapshot.segments();
+        if (segments.length == 1 && segments[0].garbage(snapshot.deleted()) == 0) {
+            return segments[0];
+        }
+        if (segments.length == 0) {
+            HashTablePostingLists<String> titles = new HashTablePostingLists<>();
+            titles.freeze();
+            return new Segment(0, 0, 0, titles, YearIndex.EMPTY);
+        }
+        return Segment.merge(segments, 0, segments.length, snapshot.deleted(), snapshot.shows());
+    }
+
+    /**
+     * private helper to validate the header
+     *
+     * @return why the file cannot be used, null if it can
+     */
+    private static String checkHeader(ByteBuffer header, Path source) throws IOException {
+        if (header.remaining() < HEADER_SIZE || header.getInt(0) != MAGIC) {
+            return "not an index snapshot";
+        }
+        if (header.getInt(4) != VERSION) {
+            return "format version " + header.getInt(4) + ", expected " + VERSION;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(header.array(), 0, HEADER_SIZE - 4);
+        if ((int) crc.getValue() != header.getInt(HEADER_SIZE - 4)) {
+            return "header checksum mismatch";
+        }
+        if (Files.exists(source)) {
+            BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+            if (attributes.size() != header.getLong(8)
+                    || attributes.lastModifiedTime().toMillis() != header.getLong(16)) {
+                return source + " changed since it was built";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * private helper to decode the sections and hand the index to the backend
+     */
+    private static void install(ByteBuffer[] sections, int count, int catalogVersion, ShowSearcherBackend backend) {
+        ByteBuffer in = sections[SHOWS];
+        // the titles are copied as they are, without being decoded
+        ShowTable shows = backend.newShowTable(count, Math.max(0, in.remaining() - 16 * count));
+        IdBitmap[] providerBitmaps = new IdBitmap[Provider.values().length];
+        for (int i = 0; i < providerBitmaps.length; i++) {
+            providerBitmaps[i] = new IdBitmap();
+        }
+        byte[] scratch = new byte[256];
+        for (int id = 0; id < count; id++) {
+            int year = in.getInt();
+            int rating = in.getInt();
+            int mask = in.getInt();
+            int length = in.getInt();
+            if (length > scratch.length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            in.get(scratch, 0, length);
+            shows = shows.add(scratch, 0, length, year, rating, mask);
+            for (Provider provider : Provider.values()) {
+                if ((mask & provider.mask()) != 0) {
+                    providerBitmaps[provider.ordinal()].set(id);
+                }
+            }
+        }
+
+        ByteBuffer arena = sections[POSTINGS];
+        HashTablePostingLists<String> titleHash = new HashTablePostingLists<>();
+        titleHash.freeze();
+        in = sections[TERMS];
+        for (int terms = in.getInt(); terms > 0; terms--) {
+            int length = in.getInt();
+            if (length > scratch.length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            in.get(scratch, 0, length);
+            String key = new String(scratch, 0, length, StandardCharsets.UTF_8);
+            int offset = in.getInt();
+            int bytes = in.getInt();
+            int size = in.getInt();
+            int lastId = in.getInt();
+            int[] skips = null;
+            int skipInts = in.getInt();
+            if (skipInts > 0) {
+                skips = new int[skipInts];
+                in.asIntBuffer().get(skips);
+                in.position(in.position() + skipInts * 4);
+            }
+            titleHash.put(key, new PostingList(arena, offset, bytes, size, lastId, skips));
+        }
+
+        in = sections[YEARS];
+        int[] years = new int[in.getInt()];
+        int[] offsets = new int[years.length + 1];
+        in.asIntBuffer().get(years).get(offsets);
+        in.position(in.position() + (years.length + offsets.length) * 4);
+        int[] yearIds = new int[offsets[years.length]];
+        in.asIntBuffer().get(yearIds);
+        // already in rating order, nothing to sort
+        YearIndex yearIndex = new YearIndex(years, offsets, yearIds);
+
+        IdBitmap deleted = new IdBitmap();
+        in = sections[TOMBSTONES];
+        for (int n = in.getInt(); n > 0; n--) {
+            deleted.set(in.getInt());
+        }
+        // the lists were written without the removed shows
+        Segment segment = new Segment(0, count, deleted.cardinality(), titleHash, yearIndex);
+        backend.install(shows, count, catalogVersion, segment, providerBitmaps, deleted);
+    }
+
+    /**
+     * private helper to write the shows section
+     */
+    private static void writeShows(DataOutputStream out, IndexSnapshot snapshot) throws IOException {
+        ShowTable shows = snapshot.shows();
+        for (int id = 0; id < snapshot.size(); id++) {
+            byte[] title = shows.title(id).getBytes(StandardCharsets.UTF_8);
+            out.writeInt(shows.year(id));
+            out.writeInt(shows.rating(id));
+            out.writeInt(shows.providerMask(id));
+            out.writeInt(title.length);
+            out.write(title);
+        }
+    }
+
+    /**
+     * private helper to write the postings section: the lists back to back, in key order
+     */
+    private static void writePostings(DataOutputStream out, List<PostingList> lists) throws IOException {
+        long total = 0;
+        byte[] bytes = new byte[256];
+        for (PostingList list : lists) {
+            total += list.sizeInBytes();
+            if (total > Integer.MAX_VALUE) {
+                throw new IOException("posting lists exceed 2 GiB, too large for one snapshot");
+            }
+            if (list.sizeInBytes() > bytes.length) {
+                bytes = new byte[Math.max(list.sizeInBytes(), bytes.length * 2)];
+            }
+            list.copyBytes(bytes, 0);
+            out.write(bytes, 0, list.sizeInBytes());
+        }
+    }
+
+    /**
+     * private helper to write the terms section, with the offsets the lists got in writePostings
+     */
+    private static void writeTerms(DataOutputStream out, List<String> keys, List<PostingList> lists)
+            throws IOException {
+        out.writeInt(keys.size());
+        int offset = 0;
+        for (int i = 0; i < keys.size(); i++) {
+            byte[] key = keys.get(i).getBytes(StandardCharsets.UTF_8);
+            PostingList list = lists.get(i);
+            out.writeInt(key.length);
+            out.write(key);
+            out.writeInt(offset);
+            out.writeInt(list.sizeInBytes());
+            out.writeInt(list.size());
+            out.writeInt(list.lastId());
+            int[] skips = list.skips();
+            out.writeInt(skips == null ? 0 : skips.length);
+            if (skips != null) {
+                for (int skip : skips) {
+                    out.writeInt(skip);
+                }
+            }
+            offset += list.sizeInBytes();
+        }
+    }
+
+    /**
+     * private helper to write the years section
+     */
+    private static void writeYears(DataOutputStream out, Segment segment) throws IOException {
+        YearIndex years = segment.years();
+        out.writeInt(years.yearCount());
+        for (int i = 0; i < years.yearCount(); i++) {
+            out.writeInt(years.year(i));
+        }
+        for (int i = 0; i <= years.yearCount(); i++) {
+            out.writeInt(years.offset(i));
+        }
+        for (int p = 0; p < years.size(); p++) {
+            out.writeInt(years.id(p));
+        }
+    }
+
+    /**
+     * private helper to write the tombstones section
+     */
+    private static void writeTombstones(DataOutputStream out, IndexSnapshot snapshot) throws IOException {
+        out.writeInt(snapshot.deleted().cardinality());
+        for (int id = 0; id < snapshot.size(); id++) {
+            if (snapshot.isDeleted(id)) {
+                out.writeInt(id);
+            }
+        }
+    }
+
+    /**
+     * private helper to compute the CRC-32 of a buffer from its position to its limit
+     */
+    private static int crc(ByteBuffer buffer) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate());
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,203 @@
+package com.demo.videosearch.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Loads a tv_shows.csv catalog into a ShowSearcherBackend with several threads.
+ * The file is memory-mapped and cut into chunks that end at record boundaries; a fork-join pool
+ * parses the chunks in parallel, each worker into a private ShowIndexShard, and the shards are
+ * merged into the backend in file order, so every show gets the id a sequential load would give it.
+ * A line break inside a quoted title is not a record boundary: the quotes before each cut are
+ * counted first (in parallel too), and a cut moves to the first line break outside quotes.
+ */
+public class ParallelShowLoader {
+
+    // chunks per thread, so a slow chunk does not leave the other threads idle
+    private static final int CHUNKS_PER_THREAD = 4;
+    // a mapping is at most 2 GiB; a chunk stays well below so its record tail still fits
+    private static final long MAX_CHUNK = 1L << 30;
+    // bytes read at a time while looking for the record boundary after a cut
+    private static final int SCAN_BLOCK = 1 << 16;
+
+    private final int parallelism;
+
+    /**
+     * @param parallelism number of threads parsing the file
+     */
+    public ParallelShowLoader(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * add every show of the file to the backend
+     *
+     * @param filepath is relative to executable's working directory
+     * @param backend  receives the shows in file order
+     * @return the number of shows read
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if a record has a missing or malformed year or rating
+     */
+    public long load(String filepath, ShowSearcherBackend backend) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+        try (FileChannel channel = FileChannel.open(Paths.get(filepath), StandardOpenOption.READ)) {
+            long[] cuts = cuts(channel.size());
+            long[] boundaries = boundaries(pool, channel, cuts);
+            List<Callable<ShowIndexShard>> tasks = new ArrayList<>(boundaries.length - 1);
+            for (int i = 0; i + 1 < boundaries.length; i++) {
+                long start = boundaries[i];
+                long end = boundaries[i + 1];
+                boolean first = i == 0;
+                tasks.add(() -> parse(channel, start, end, first));
+            }
+            long count = 0;
+            for (ShowIndexShard shard : invokeAll(pool, tasks)) {
+                backend.addShard(shard);
+                count += shard.size();
+            }
+            return count;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * private helper to cut the file in equal raw ranges, without looking at the bytes
+     *
+     * @return start of each range, then the file size
+     */
+    private long[] cuts(long size) {
+        long chunks = Math.max(this.parallelism * (long) CHUNKS_PER_THREAD, (size + MAX_CHUNK - 1) / MAX_CHUNK);
+        chunks = Math.max(1, Math.min(chunks, size / SCAN_BLOCK + 1));
+        long[] cuts = new long[(int) chunks + 1];
+        for (int i = 0; i <= chunks; i++) {
+            cuts[i] = size * i / chunks;
+        }
+        return cuts;
+    }
+
+    /**
+     * private helper to move every cut to the start of the record it falls in, or after it
+     *
+     * @return start of each chunk, then the file size; empty chunks are dropped
+     */
+    private long[] boundaries(ForkJoinPool pool, FileChannel channel, long[] cuts) throws IOException {
+        int ranges = cuts.length - 1;
+        List<Callable<Long>> counts = new ArrayList<>(ranges);
+        for (int i = 0; i < ranges; i++) {
+            long start = cuts[i];
+            long end = cuts[i + 1];
+            counts.add(() -> countQuotes(channel, start, end));
+        }
+        List<Long> quotes = invokeAll(pool, counts);
+        long[] boundaries = new long[cuts.length];
+        int n = 0;
+        boundaries[n++] = 0;
+        long quotesBefore = 0;
+        for (int i = 1; i < ranges; i++) {
+            quotesBefore += quotes.get(i - 1);
+            long boundary = nextRecord(channel, cuts[i], (quotesBefore & 1) != 0);
+            if (boundary > boundaries[n - 1] && boundary < channel.size()) {
+                boundaries[n++] = boundary;
+            }
+        }
+        boundaries[n++] = channel.size();
+        return Arrays.copyOf(boundaries, n);
+    }
+
+    /**
+     * private helper run by a worker to count the quote bytes of a raw range
+     */
+    private static long countQuotes(FileChannel channel, long start, long end) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        long count = 0;
+        for (int i = 0, limit = buffer.limit(); i < limit; i++) {
+            if (buffer.get(i) == '"') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * private helper to find the first line break outside quotes at or after a position
+     *
+     * @param quoted true if the position is inside a quoted field
+     * @return position after that line break, or the file size if there is none
+     */
+    private static long nextRecord(FileChannel channel, long position, boolean quoted) throws IOException {
+        ByteBuffer block = ByteBuffer.allocate(SCAN_BLOCK);
+        while (true) {
+            block.clear();
+            int read = channel.read(block, position);
+            if (read <= 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = block.get(i);
+                if (b == '"') {
+                    quoted = !quoted;
+                } else if (b == '\n' && !quoted) {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * private helper run by a worker to parse one chunk into a shard
+     */
+    private static ShowIndexShard parse(FileChannel channel, long start, long end, boolean first) throws IOException {
+        CsvShowParser parser = new CsvShowParser(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+        if (!first) {
+            parser.noHeader();
+        }
+        ShowIndexShard shard = new ShowIndexShard();
+        parser.parse(shard::add);
+        return shard;
+    }
+
+    /**
+     * private helper to run tasks in the pool and collect their results in task order
+     */
+    private static <T> List<T> invokeAll(ForkJoinPool pool, List<Callable<T>> tasks) throws IOException {
+        List<T> results = new ArrayList<>(tasks.size());
+        for (Future<T> future : pool.invokeAll(tasks)) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted while loading", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                if (cause instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) cause).getCause();
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new IOException(cause);
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,71 @@
+package com.demo.videosearch.service;
+
+import com.demo.videosearch.model.IShow;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of the results of a ShowQuery: the shows from the query offset on, at most its limit,
+ * whether more results follow, and the query of the next page. Only the shows of the page are
+ * materialized, however many shows match.
+ */
+public final class SearchPage {
+
+    private final ShowQuery query;
+    private final List<IShow> shows;
+    private final int total; // number of matches, -1 if not counted
+    private final boolean hasMore;
+
+    /**
+     * @param query   the query of this page
+     * @param shows   shows of the page in result order
+     * @param total   number of matching shows, -1 if the search stopped before counting them
+     * @param hasMore true if a result follows the last show of the page
+     */
+    SearchPage(ShowQuery query, List<IShow> shows, int total, boolean hasMore) {
+        this.query = query;
+        this.shows = Collections.unmodifiableList(shows);
+        this.total = total;
+        this.hasMore = hasMore;
+    }
+
+    /**
+     * @return the query this page answers
+     */
+    public ShowQuery getQuery() {
+        return this.query;
+    }
+
+    /**
+     * @return shows of the page in descending rating order
+     */
+    public List<IShow> getShows() {
+        return this.shows;
+    }
+
+    /**
+     * @return number of matching shows over all pages, -1 if unknown: a year search stops after
+     * the shows of the page instead of counting the rest
+     */
+    public int getTotal() {
+        return this.total;
+    }
+
+    /**
+     * @return true if there is a next page
+     */
+    public boolean hasMore() {
+        return this.hasMore;
+    }
+
+    /**
+     * @return the query of the next page, same size; null if this is the last page
+     */
+    public ShowQuery next() {
+        if (!this.hasMore) {
+            return null;
+        }
+        return this.query.toBuilder().offset(this.query.getEnd()).build();
+    }
+}
@@ -0,0 +1,258 @@
+package com.demo.videosearch.service;
+
+import com.demo.videosearch.db.CompletionTrie;
+import com.demo.videosearch.db.HashTablePostingLists;
+import com.demo.videosearch.db.IHashTablePostingLists;
+import com.demo.videosearch.db.IdBitmap;
+import com.demo.videosearch.db.PostingList;
+import com.demo.videosearch.db.TrigramIndex;
+import com.demo.videosearch.db.YearIndex;
+import com.demo.videosearch.model.ShowTable;
+import com.demo.videosearch.text.Analyzer;
+
+/**
+ * Immutable part of the index: the title posting lists and the year index of the shows whose ids are in
+ * [base, end). ShowSearcherBackend seals its in-memory tables into a segment instead of copying
+ * them once they are big, and merges small segments in the background; segments are never changed,
+ * so a published IndexSnapshot can hold them while new ones are built.
+ * Removed shows stay in a segment until a merge leaves them out; the snapshot's tombstones hide them.
+ */
+final class Segment {
+
+    private final int base; // smallest id of the segment
+    private final int end; // one past the largest id
+    private final int purged; // ids of the range left out of the lists because they were removed before
+    private final IHashTablePostingLists<String> titleHash; // frozen, title word -> ids and positions
+    private final YearIndex years; // ids by year, in rating order
+    private volatile Built<CompletionTrie> completions; // title keys by best rating, built on first use
+    private volatile Built<TrigramIndex> titleWords; // trigrams of the title words, built on first use
+
+    /**
+     * a structure derived from the lists of the segment and the tombstones it was built with; it is
+     * stale once more ids of [base, end) are removed (tombstones are never cleared); a snapshot
+     * older than the built value builds its own and does not keep it
+     */
+    private static final class Built<T> {
+        final T value;
+        final IdBitmap deleted; // tombstones the value was built with
+        final int removed; // ids of [base, end) in deleted
+
+        Built(T value, IdBitmap deleted, int removed) {
+            this.value = value;
+            this.deleted = deleted;
+            this.removed = removed;
+        }
+    }
+
+    /**
+     * @param base      smallest id the segment covers
+     * @param end       end of the id range, exclusive
+     * @param purged    number of removed ids of the range that the lists leave out
+     * @param titleHash frozen title index over ids in the range
+     * @param years     year index over ids in the range
+     */
+    Segment(int base, int end, int purged, IHashTablePostingLists<String> titleHash, YearIndex years) {
+        this.base = base;
+        this.end = end;
+        this.purged = purged;
+        this.titleHash = titleHash;
+        this.years = years;
+    }
+
+    /**
+     * @return smallest id the segment covers
+     */
+    int base() {
+        return this.base;
+    }
+
+    /**
+     * @return end of the id range of the segment, exclusive
+     */
+    int end() {
+        return this.end;
+    }
+
+    /**
+     * @param deleted tombstones of the snapshot
+     * @return number of removed shows still in the lists of this segment
+     */
+    int garbage(IdBitmap deleted) {
+        return deleted.cardinality(this.base, this.end) - this.purged;
+    }
+
+    /**
+     * @param key title word as Analyzer.TITLES gives it
+     * @return ids of the shows of the segment indexed under the key, null if none
+     */
+    PostingList titlePostings(String key) {
+        return this.titleHash.containsKey(key) ? this.titleHash.get(key) : null;
+    }
+
+    /**
+     * @return ids of the shows of the segment by year, each year in rating order
+     */
+    YearIndex years() {
+        return this.years;
+    }
+
+    /**
+     * the title words and the whole titles of the segment in a completion trie, each scored by the
+     * best rating of its shows; built on first use, which can race harmlessly, and built again when
+     * a show of the segment was removed since
+     *
+     * @param shows   shows by id, for the ratings and titles
+     * @param deleted tombstones; keys whose shows were all removed are left out
+     * @return the trie
+     */
+    CompletionTrie completions(ShowTable shows, IdBitmap deleted) {
+        Built<CompletionTrie> built = this.completions;
+        if (built != null && built.deleted == deleted) {
+            return built.value;
+        }
+        int removed = deleted.cardinality(this.base, this.end);
+        if (built != null && built.removed == removed) {
+            this.completions = new Built<>(built.value, deleted, removed);
+            return built.value;
+        }
+        CompletionTrie.Builder builder = CompletionTrie.builder();
+        PostingList.Cursor cursor = PostingList.EMPTY.cursor();
+        this.titleHash.forEach((key, list) -> {
+            int best = bestRating(list, cursor, shows, deleted);
+            if (best >= 0) {
+                builder.add(key, best);
+            }
+        });
+        for (int id = this.base; id < this.end; id++) {
+            if (!deleted.get(id)) {
+                builder.add(Analyzer.TITLES.normalize(shows.title(id)), shows.rating(id));
+            }
+        }
+        CompletionTrie trie = builder.build();
+        if (built == null || removed > built.removed) {
+            this.completions = new Built<>(trie, deleted, removed);
+        }
+        return trie;
+    }
+
+    /**
+     * the title words of the segment in a trigram index for fuzzy lookups;
+     * each word is scored by the best rating of its shows. Built and rebuilt like completions()
+     *
+     * @param shows   shows by id, for the ratings
+     * @param deleted tombstones; words whose shows were all removed are left out
+     * @return the index
+     */
+    TrigramIndex titleWords(ShowTable shows, IdBitmap deleted) {
+        Built<TrigramIndex> built = this.titleWords;
+        if (built != null && built.deleted == deleted) {
+            return built.value;
+        }
+        int removed = deleted.cardinality(this.base, this.end);
+        if (built != null && built.removed == removed) {
+            this.titleWords = new Built<>(built.value, deleted, removed);
+            return built.value;
+        }
+        TrigramIndex.Builder builder = TrigramIndex.builder();
+        PostingList.Cursor cursor = PostingList.EMPTY.cursor();
+        this.titleHash.forEach((key, list) -> {
+            int best = bestRating(list, cursor, shows, deleted);
+            if (best >= 0) {
+                builder.add(key, best);
+            }
+        });
+        TrigramIndex index = builder.build();
+        if (built == null || removed > built.removed) {
+            this.titleWords = new Built<>(index, deleted, removed);
+        }
+        return index;
+    }
+
+    /**
+     * private helper: best rating of the live shows of a list, -1 if all were removed
+     */
+    private static int bestRating(PostingList list, PostingList.Cursor cursor, ShowTable shows, IdBitmap deleted) {
+        int best = -1;
+        cursor.reset(list);
+        for (int id = cursor.next(); id != PostingList.NO_MORE_IDS; id = cursor.next()) {
+            if (!deleted.get(id)) {
+                best = Math.max(best, shows.rating(id));
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return the frozen title index, for IndexSnapshotFile
+     */
+    IHashTablePostingLists<String> titleHash() {
+        return this.titleHash;
+    }
+
+    /**
+     * merge consecutive segments into one, leaving the removed shows out; the ids do not change,
+     * so results computed on the segments stay valid
+     *
+     * @param parts   segments with adjacent id ranges, in id order
+     * @param from    index of the first segment merged
+     * @param to      end of the segments merged, exclusive
+     * @param deleted tombstones of removed shows, not modified
+     * @param shows   shows by id, for the ratings the year index is ordered by
+     * @return segment covering the ranges of the merged segments
+     */
+    static Segment merge(Segment[] parts, int from, int to, IdBitmap deleted, ShowTable shows) {
+        HashTablePostingLists<String> titles = new HashTablePostingLists<>();
+        YearIndex.Builder years = YearIndex.builder();
+        for (int i = from; i < to; i++) {
+            // segments are in id order, so each list receives its ids in ascending order
+            copyLive(parts[i].titleHash, titles, deleted);
+            YearIndex index = parts[i].years;
+            for (int y = 0; y < index.yearCount(); y++) {
+                for (int p = index.offset(y); p < index.offset(y + 1); p++) {
+                    int id = index.id(p);
+                    if (!deleted.get(id)) {
+                        years.add(index.year(y), shows.rating(id), id);
+                    }
+                }
+            }
+        }
+        titles.freeze();
+        int base = parts[from].base;
+        int end = parts[to - 1].end;
+        return new Segment(base, end, deleted.cardinality(base, end), titles, years.build());
+    }
+
+    /**
+     * build the year index of the shows of an id range
+     *
+     * @param shows shows by id
+     * @param from  first id
+     * @param to    end of the ids, exclusive
+     * @return the index, removed shows included
+     */
+    static YearIndex indexYears(ShowTable shows, int from, int to) {
+        YearIndex.Builder years = YearIndex.builder();
+        for (int id = from; id < to; id++) {
+            years.add(shows.year(id), shows.rating(id), id);
+        }
+        return years.build();
+    }
+
+    /**
+     * private helper to add the postings of every list of a table whose ids are not removed
+     */
+    private static <K> void copyLive(IHashTablePostingLists<K> source, HashTablePostingLists<K> target,
+                                     IdBitmap deleted) {
+        PostingList.Cursor cursor = PostingList.EMPTY.cursor();
+        source.forEach((key, list) -> {
+            cursor.reset(list);
+            for (int id = cursor.next(); id != PostingList.NO_MORE_IDS; id = cursor.next()) {
+                if (!deleted.get(id)) {
+                    for (int p = cursor.nextPosition(); p != PostingList.NO_MORE_POSITIONS; p = cursor.nextPosition()) {
+                        target.add(key, id, p);
+                    }
+                }
+            }
+        });
+    }
+}
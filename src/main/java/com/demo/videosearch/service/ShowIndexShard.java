@@ -0,0 +1,48 @@
+package com.demo.videosearch.service;
+
+import com.demo.videosearch.db.HashTablePostingLists;
+import com.demo.videosearch.model.IShow;
+import com.demo.videosearch.model.ShowTable;
+
+/**
+ * Shows of one chunk of the catalog and their title index, built by one loader worker without
+ * any sharing. Ids are local to the shard, starting at 0; ShowSearcherBackend.addShard shifts them
+ * by the number of shows already in the backend when it merges the shard.
+ */
+final class ShowIndexShard {
+
+    private ShowTable shows = new ShowTable(1024, false);
+    private final HashTablePostingLists<String> titles = new HashTablePostingLists<>();
+
+    /**
+     * give the show the next local id and index its title
+     *
+     * @param show show read from the chunk
+     */
+    void add(IShow show) {
+        int id = this.shows.size();
+        this.shows = this.shows.add(show);
+        ShowSearcherBackend.indexTitle(this.titles, show.getTitle(), id);
+    }
+
+    /**
+     * @return number of shows in the shard
+     */
+    int size() {
+        return this.shows.size();
+    }
+
+    /**
+     * @return the shows by local id, copied column by column into the backend's table
+     */
+    ShowTable shows() {
+        return this.shows;
+    }
+
+    /**
+     * @return title index over the local ids, still being built
+     */
+    HashTablePostingLists<String> titles() {
+        return this.titles;
+    }
+}
@@ -0,0 +1,203 @@
+package com.demo.videosearch.service;
+
+import com.demo.videosearch.model.Provider;
+
+/**
+ * Immutable search request: which title words, which years, which providers, and which page of
+ * the results: how many results to skip and how many to return.
+ * Every search gets its own ShowQuery, so concurrent searches never share filter state.
+ */
+public final class ShowQuery {
+
+    // year value meaning that the year is not restricted
+    public static final int ANY_YEAR = Integer.MIN_VALUE;
+
+    private final TitleQuery titleQuery; // null when the title is not restricted
+    private final int yearFrom; // first year, ANY_YEAR when the year is not restricted
+    private final int yearTo; // last year, inclusive
+    private final int providerMask; // shows must be available on every provider of the mask
+    private final int offset; // number of results skipped
+    private final int limit; // maximum number of results
+
+    private ShowQuery(Builder builder) {
+        this.titleQuery = builder.titleQuery;
+        this.yearFrom = builder.yearFrom;
+        this.yearTo = builder.yearTo;
+        this.providerMask = builder.providerMask;
+        this.offset = builder.offset;
+        this.limit = builder.limit;
+    }
+
+    /**
+     * @return a builder for a new query
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return the title words, null if the title is not restricted
+     */
+    public TitleQuery getTitleQuery() {
+        return this.titleQuery;
+    }
+
+    /**
+     * @return the first year of the range, ANY_YEAR if the year is not restricted
+     */
+    public int getYearFrom() {
+        return this.yearFrom;
+    }
+
+    /**
+     * @return the last year of the range, inclusive; ANY_YEAR if the year is not restricted
+     */
+    public int getYearTo() {
+        return this.yearTo;
+    }
+
+    /**
+     * @return true if the query asks for a year or a range of years
+     */
+    public boolean hasYear() {
+        return this.yearFrom != ANY_YEAR;
+    }
+
+    /**
+     * @param year a year
+     * @return true if the year is not restricted or is in the range of the query
+     */
+    public boolean matchesYear(int year) {
+        return !hasYear() || (year >= this.yearFrom && year <= this.yearTo);
+    }
+
+    /**
+     * @return mask of the providers a show must be available on, 0 for no filter
+     */
+    public int getProviderMask() {
+        return this.providerMask;
+    }
+
+    /**
+     * @return number of results skipped before the first one returned
+     */
+    public int getOffset() {
+        return this.offset;
+    }
+
+    /**
+     * @return maximum number of results
+     */
+    public int getLimit() {
+        return this.limit;
+    }
+
+    /**
+     * @return number of ranked results needed for this page: offset plus limit, at most Integer.MAX_VALUE
+     */
+    public int getEnd() {
+        return (int) Math.min(Integer.MAX_VALUE, (long) this.offset + this.limit);
+    }
+
+    /**
+     * @return a builder holding the parts of this query, to derive another one
+     */
+    public Builder toBuilder() {
+        Builder builder = new Builder();
+        builder.titleQuery = this.titleQuery;
+        builder.yearFrom = this.yearFrom;
+        builder.yearTo = this.yearTo;
+        builder.providerMask = this.providerMask;
+        builder.offset = this.offset;
+        builder.limit = this.limit;
+        return builder;
+    }
+
+    @Override
+    public String toString() {
+        return "ShowQuery{" +
+                "titleQuery=" + titleQuery +
+                ", year=" + (!hasYear() ? "any" : yearFrom == yearTo ? String.valueOf(yearFrom) : yearFrom + ".." + yearTo) +
+                ", providers='" + Provider.join(providerMask, ",") + '\'' +
+                ", offset=" + offset +
+                ", limit=" + limit +
+                '}';
+    }
+
+    /**
+     * Collects the parts of a ShowQuery.
+     */
+    public static final class Builder {
+        private TitleQuery titleQuery;
+        private int yearFrom = ANY_YEAR;
+        private int yearTo = ANY_YEAR;
+        private int providerMask;
+        private int offset;
+        private int limit = Integer.MAX_VALUE;
+
+        private Builder() {
+        }
+
+        public Builder title(TitleQuery titleQuery) {
+            this.titleQuery = titleQuery;
+            return this;
+        }
+
+        /**
+         * restrict to titles containing every one of the words
+         */
+        public Builder words(String... words) {
+            this.titleQuery = TitleQuery.builder().allOf(words).build();
+            return this;
+        }
+
+        public Builder year(int year) {
+            return years(year, year);
+        }
+
+        /**
+         * restrict to shows first produced from one year to another, both included
+         */
+        public Builder years(int from, int to) {
+            if (from > to || from == ANY_YEAR) {
+                throw new IllegalArgumentException("invalid year range: " + from + ".." + to);
+            }
+            this.yearFrom = from;
+            this.yearTo = to;
+            return this;
+        }
+
+        public Builder providers(int providerMask) {
+            this.providerMask = providerMask;
+            return this;
+        }
+
+        public Builder provider(Provider provider) {
+            this.providerMask |= provider.mask();
+            return this;
+        }
+
+        /**
+         * skip the first results, to get a later page
+         */
+        public Builder offset(int offset) {
+            if (offset < 0) {
+                throw new IllegalArgumentException("offset must not be negative: " + offset);
+            }
+            this.offset = offset;
+            return this;
+        }
+
+        public Builder limit(int limit) {
+            if (limit < 0) {
+                throw new IllegalArgumentException("limit must not be negative: " + limit);
+            }
+            this.limit = limit;
+            return this;
+        }
+
+        public ShowQuery build() {
+            return new ShowQuery(this);
+        }
+    }
+}
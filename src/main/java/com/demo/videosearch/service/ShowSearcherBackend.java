@@ -1,72 +1,497 @@
 package com.demo.videosearch.service;
 
-import com.alibaba.fastjson.JSON;
-import com.alibaba.fastjson.TypeReference;
-import com.demo.videosearch.db.HashTableSortedSets;
-import com.demo.videosearch.db.IHashTableSortedSets;
+import com.demo.videosearch.cache.CacheConfig;
+import com.demo.videosearch.cache.CacheStore;
+import com.demo.videosearch.cache.CacheUnavailableException;
+import com.demo.videosearch.cache.CachedIds;
+import com.demo.videosearch.cache.InvalidationBus;
+import com.demo.videosearch.cache.NearCache;
+import com.demo.videosearch.cache.ShowIdCodec;
+import com.demo.videosearch.db.CompletionTrie;
+import com.demo.videosearch.db.HashTablePostingLists;
+import com.demo.videosearch.db.IHashTablePostingLists;
+import com.demo.videosearch.db.IdBitmap;
+import com.demo.videosearch.db.TrigramIndex;
+import com.demo.videosearch.db.YearIndex;
 import com.demo.videosearch.model.IShow;
+import com.demo.videosearch.model.Provider;
+import com.demo.videosearch.model.ShowTable;
 import com.demo.videosearch.service.IShowSearcherBackend;
-import com.demo.videosearch.util.RedisQuery;
-import redis.clients.jedis.exceptions.JedisConnectionException;
+import com.demo.videosearch.text.Analyzer;
+import com.demo.videosearch.text.StopWordFilter;
+import com.demo.videosearch.util.QueryTelemetryWriter;
 
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * ShowSearcher Backend implements IShowSearcherBackend interface
  * it is used to search and retrieve the database of shows within the ShowSearcher app.
+ * Writers (addShow, updateShow, removeShow) are serialized on this backend; searches read the last
+ * published IndexSnapshot without taking any lock. The snapshot is republished by the first search
+ * that follows a write, and a structure owned by a snapshot is copied before the next write to it.
+ * The index is log-structured: new shows go to small in-memory tables, which are sealed into an
+ * immutable Segment instead of being copied once they are large; a removed or replaced show is only
+ * marked in a tombstone bitmap, and a background merger rewrites the segments without the removed
+ * shows and keeps their number logarithmic. An update is a removal plus an add, the show gets a new id.
  */
 public class ShowSearcherBackend implements IShowSearcherBackend {
-    // Hashtable class for searching and retrieve the database by mapping words and Show objects
-    protected final IHashTableSortedSets<String, IShow> titleHash;
-    // Hashtable class for searching and retrieve the database by mapping years and Show objects
-    protected final IHashTableSortedSets<Integer, IShow> yearHash;
-    // store filters
-    private ArrayList<String> filter;
-
-    private int shownumber;
+    // seconds a cached search result stays in Redis
+    private static final int CACHE_TTL_SECONDS = 3600;
+    // a write after a publish seals the in-memory tables instead of copying them from this many shows on
+    private static final int SEAL_SIZE = 4096;
+    // newest segments are merged while the segment before them is at most this many times their size
+    private static final int MERGE_RATIO = 2;
+    // a fuzzy lookup checks at most this many candidate words per segment
+    private static final int FUZZY_CANDIDATES = 2048;
+    // a misspelled keyword is searched as the best of this many of its closest title words
+    private static final int FUZZY_WORDS = 5;
+    // a keyword shorter than this is not corrected: one edit away from it are too many unrelated words
+    private static final int FUZZY_MIN_LENGTH = 4;
+    // a correction in more than this share of the titles (1/n) is too common to be the word meant
+    private static final int FUZZY_MAX_SHARE = 50;
+    // words a keyword is never corrected to
+    private static final Set<String> FUZZY_STOP_WORDS = new HashSet<>(Arrays.asList(StopWordFilter.ENGLISH));
+    // shows by id in columns, the id of a show is its row; rows below the snapshot size are never written again
+    protected ShowTable shows;
+    // number of shows added
+    protected volatile int showCount;
+    // Hashtable class for searching and retrieve the database by mapping words and compressed show ids,
+    // for the shows from memtableBase on; lower ids are in the sealed segments
+    protected IHashTablePostingLists<String> titleHash;
+    // ids of the same shows by year in rating order, built by publish(), null after an add
+    private YearIndex memtableYears;
+    // first id of titleHash and memtableYears
+    private int memtableBase;
+    // sealed segments in id order; the array is replaced, never modified
+    private Segment[] segments;
+    // one bitmap per Provider over show ids, set when the show is available on that provider
+    protected IdBitmap[] providerBitmaps;
+    // ids of the removed and replaced shows
+    private IdBitmap deleted;
+    // number of ids in deleted
+    private volatile int deletedCount;
+    // drawn at random by the constructor and by install(), cached results carry it with the version, so a
+    // restart from an index file, which counts versions from the saved one again, does not read old results
+    private int catalogEpoch;
+    // changed by every add, update and remove, cached results carry the version they were computed for
+    private int catalogVersion;
+    // runs the segment merges, one at a time
+    private final ExecutorService merger;
+    // guarded by this, true while a merge is queued or running
+    private boolean mergeScheduled;
+    // filters of the single-user search methods, as a mask of Provider bits
+    private final AtomicInteger filterMask;
+    // index view read by searches
+    private volatile IndexSnapshot snapshot;
+    // true when a write happened after the snapshot was published
+    private volatile boolean dirty;
+    // true when titleHash, memtableYears, providerBitmaps and deleted belong to the published snapshot
+    private boolean shared;
+    // in-process copies of cached results, checked before Redis
+    private final NearCache<String, CachedIds> nearCache;
+    // tells the other nodes which cached results to drop from their near caches
+    private final InvalidationBus invalidationBus;
+    // Redis, or its in-memory stand-in, holding cached results and search statistics
+    private final CacheStore cacheStore;
+    // prefix of the invalidations sent by this backend, so it does not drop what it just cached
+    private final String nodeId = UUID.randomUUID().toString();
+    // sends hotKeywords and historyKeywords updates to Redis in the background
+    private final QueryTelemetryWriter telemetry;
 
     public ShowSearcherBackend() {
-        this.titleHash = new HashTableSortedSets<>();
-        this.yearHash = new HashTableSortedSets<>();
-        this.filter = new ArrayList<>();
-        this.shownumber = 0;
+        this(CacheConfig.load());
+    }
+
+    public ShowSearcherBackend(CacheConfig config) {
+        this(config, config.newCacheStore());
+    }
+
+    private ShowSearcherBackend(CacheConfig config, CacheStore cacheStore) {
+        this(config, cacheStore, config.newInvalidationBus(cacheStore));
     }
 
     /**
-     * add shows to titleHash and yearHash
+     * @param config          near-cache and telemetry settings
+     * @param cacheStore      store of cached results and search statistics
+     * @param invalidationBus bus shared with the other nodes
+     */
+    public ShowSearcherBackend(CacheConfig config, CacheStore cacheStore, InvalidationBus invalidationBus) {
+        this.shows = new ShowTable(64, config.isShowTableOffHeap());
+        this.titleHash = new HashTablePostingLists<>();
+        this.segments = new Segment[0];
+        this.providerBitmaps = new IdBitmap[Provider.values().length];
+        for (int i = 0; i < this.providerBitmaps.length; i++) {
+            this.providerBitmaps[i] = new IdBitmap();
+        }
+        this.deleted = new IdBitmap();
+        this.catalogEpoch = ThreadLocalRandom.current().nextInt();
+        this.merger = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "segment-merger");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.filterMask = new AtomicInteger();
+        this.dirty = true;
+        this.nearCache = new NearCache<>(config.getNearCacheMaxWeight(), config.getNearCacheTtlSeconds(),
+                TimeUnit.SECONDS, CachedIds::weight);
+        this.cacheStore = cacheStore;
+        this.invalidationBus = invalidationBus;
+        this.invalidationBus.subscribe(this::onInvalidation);
+        this.telemetry = new QueryTelemetryWriter(cacheStore, config.getTelemetryQueueCapacity(),
+                config.getTelemetryFlushMillis());
+    }
+
+    /**
+     * give the show the next dense id and add it to titleHash
      *
      * @param show show object being added
      */
-    public void addShow(IShow show) {
-        this.shownumber++;
-        ArrayList<String> words = new ArrayList<>();
-        Pattern pattern = Pattern.compile("[\\w%.']+");
-        Matcher matcher = pattern.matcher(show.getTitle());
-        while (matcher.find()) {
-            words.add(matcher.group().toLowerCase());
+    public synchronized void addShow(IShow show) {
+        beginWrite();
+        append(show);
+        this.catalogVersion++;
+        this.dirty = true;
+    }
+
+    /**
+     * replace a show: the old version is removed and the new one added with a new id. The cached
+     * results of the title words of both versions are dropped, here, in Redis and on the other nodes.
+     *
+     * @param id   id of the show to replace, from IndexSnapshot.titleIds() for example
+     * @param show the new version
+     * @return id of the new version
+     * @throws NoSuchElementException if there is no show with that id or it was removed
+     */
+    @Override
+    public int updateShow(int id, IShow show) {
+        String oldTitle;
+        int newId;
+        synchronized (this) {
+            if (!isLive(id)) {
+                throw new NoSuchElementException("no show with id " + id);
+            }
+            oldTitle = this.shows.title(id);
+            beginWrite();
+            markDeleted(id);
+            newId = append(show);
+            this.catalogVersion++;
+            this.dirty = true;
         }
+        invalidateTitleKeys(oldTitle, show.getTitle());
+        return newId;
+    }
 
-        ArrayList<String> visited = new ArrayList<>();
-        for (String word : words) {
-            if (!visited.contains(word)) {
-                visited.add(word);
-                titleHash.add(word, show);
+    /**
+     * remove a show; the cached results of its title words are dropped, here, in Redis and on the
+     * other nodes
+     *
+     * @param id id of the show, from IndexSnapshot.titleIds() for example
+     * @return false if there is no show with that id or it was already removed
+     */
+    @Override
+    public boolean removeShow(int id) {
+        String oldTitle;
+        synchronized (this) {
+            if (!isLive(id)) {
+                return false;
             }
+            oldTitle = this.shows.title(id);
+            beginWrite();
+            markDeleted(id);
+            this.catalogVersion++;
+            this.dirty = true;
+        }
+        invalidateTitleKeys(oldTitle);
+        return true;
+    }
+
+    /**
+     * private helper to check that an id is assigned and not removed, called with the lock held
+     */
+    private boolean isLive(int id) {
+        return id >= 0 && id < this.showCount && !this.deleted.get(id);
+    }
+
+    /**
+     * private helper to give a show the next id and index it, called with the lock held
+     *
+     * @return the id
+     */
+    private int append(IShow show) {
+        int id = this.showCount;
+        this.shows = this.shows.add(show);
+        indexTitle(this.titleHash, show.getTitle(), id);
+        setProviders(show.getProviderMask(), id);
+        this.memtableYears = null;
+        this.showCount = id + 1;
+        return id;
+    }
+
+    /**
+     * private helper to add a tombstone, called with the lock held
+     */
+    private void markDeleted(int id) {
+        this.deleted.set(id);
+        this.deletedCount++;
+        scheduleMerge();
+    }
+
+    /**
+     * add the shows of a shard after the shows already in the backend, in shard order: the ids are
+     * the ones addShow would have given, and the title posting lists of the shard are merged
+     * key by key instead of show by show
+     *
+     * @param shard shows and title index built by one loader worker, not used afterwards
+     */
+    synchronized void addShard(ShowIndexShard shard) {
+        beginWrite();
+        int offset = this.showCount;
+        int count = shard.size();
+        this.shows = this.shows.addAll(shard.shows());
+        for (int i = 0; i < count; i++) {
+            setProviders(this.shows.providerMask(offset + i), offset + i);
+        }
+        titleHash.addAll(shard.titles(), offset);
+        this.memtableYears = null;
+        this.showCount = offset + count;
+        this.catalogVersion += count;
+        this.dirty = true;
+    }
+
+    /**
+     * @param capacity      expected number of shows
+     * @param titleCapacity expected number of bytes of their UTF-8 titles
+     * @return an empty table kept on or off the heap like the shows of this backend
+     */
+    ShowTable newShowTable(int capacity, int titleCapacity) {
+        return new ShowTable(capacity, titleCapacity, this.shows.isOffHeap());
+    }
+
+    /**
+     * take over an index read by IndexSnapshotFile, in place of an empty one; a new catalog epoch is
+     * drawn, the results cached before the file was loaded are not those of this catalog
+     *
+     * @param shows           shows by id, a table of count rows
+     * @param count           number of ids
+     * @param catalogVersion  version of the catalog when it was saved
+     * @param segment         one segment over all the ids
+     * @param providerBitmaps one bitmap per Provider over the ids
+     * @param deleted         ids of removed shows
+     * @throws IllegalStateException if shows were already added
+     */
+    synchronized void install(ShowTable shows, int count, int catalogVersion, Segment segment,
+                              IdBitmap[] providerBitmaps, IdBitmap deleted) {
+        if (this.showCount != 0) {
+            throw new IllegalStateException("an index can only be installed in an empty backend");
         }
-        titleHash.add(show.getTitle().toLowerCase(), show);
-        yearHash.add(show.getYear(), show);
+        this.shows = shows;
+        this.segments = new Segment[]{segment};
+        this.memtableBase = count;
+        this.providerBitmaps = providerBitmaps;
+        this.deleted = deleted;
+        this.deletedCount = deleted.cardinality();
+        this.shared = false;
+        this.showCount = count;
+        this.catalogEpoch = ThreadLocalRandom.current().nextInt();
+        this.catalogVersion = catalogVersion;
+        this.dirty = true;
+    }
+
+    /**
+     * add the id under each word of the title, as Analyzer.TITLES gives them, with the position of
+     * the word in the title, so phrases can be matched without a key for the whole title
+     *
+     * @param titles table the title is indexed in
+     * @param title  title of the show
+     * @param id     id of the show in that table
+     */
+    static void indexTitle(IHashTablePostingLists<String> titles, String title, int id) {
+        // a word repeated in the title adds another position to the same id
+        Analyzer.TITLES.analyze(title, (term, position) -> titles.add(term.toString(), id, position));
+    }
+
+    /**
+     * private helper to set the bits of the show's providers
+     */
+    private void setProviders(int mask, int id) {
+        for (Provider provider : Provider.values()) {
+            if ((mask & provider.mask()) != 0) {
+                this.providerBitmaps[provider.ordinal()].set(id);
+            }
+        }
+    }
+
+    /**
+     * private helper called before a write: if the published snapshot reads the writer structures,
+     * take private copies of them, or seal the in-memory tables into a segment when they are too
+     * large to copy
+     */
+    private void beginWrite() {
+        if (!this.shared) {
+            return;
+        }
+        if (this.showCount - this.memtableBase >= SEAL_SIZE) {
+            // already frozen and indexed by year by publish()
+            this.segments = appendSegment(this.segments, new Segment(this.memtableBase, this.showCount, 0,
+                    this.titleHash, this.memtableYears));
+            this.titleHash = new HashTablePostingLists<>();
+            this.memtableYears = null;
+            this.memtableBase = this.showCount;
+            scheduleMerge();
+        } else {
+            // memtableYears is immutable, the next add replaces it
+            this.titleHash = this.titleHash.copy();
+        }
+        IdBitmap[] bitmaps = new IdBitmap[this.providerBitmaps.length];
+        for (int i = 0; i < bitmaps.length; i++) {
+            bitmaps[i] = this.providerBitmaps[i].copy();
+        }
+        this.providerBitmaps = bitmaps;
+        this.deleted = this.deleted.copy();
+        this.shared = false;
+    }
+
+    /**
+     * private helper to build a segment array with one more segment at the end
+     */
+    private static Segment[] appendSegment(Segment[] segments, Segment segment) {
+        Segment[] result = Arrays.copyOf(segments, segments.length + 1);
+        result[segments.length] = segment;
+        return result;
+    }
+
+    /**
+     * private helper to queue a merge if the segments need one and none is queued, called with the lock held
+     */
+    private void scheduleMerge() {
+        if (!this.mergeScheduled && pickMerge(this.segments, this.deleted) != null) {
+            this.mergeScheduled = true;
+            this.merger.execute(this::mergeSegments);
+        }
+    }
+
+    /**
+     * choose the segments to merge next: the newest segments while the one before them is at most
+     * MERGE_RATIO times their total size, which keeps the number of segments logarithmic; otherwise
+     * a segment of which more than a quarter is removed shows
+     *
+     * @param segments sealed segments in id order
+     * @param deleted  tombstones
+     * @return first and end index of the segments to merge, null if none needs it
+     */
+    static int[] pickMerge(Segment[] segments, IdBitmap deleted) {
+        int n = segments.length;
+        int from = n - 1;
+        long size = n == 0 ? 0 : segments[n - 1].end() - segments[n - 1].base();
+        while (from > 0 && segments[from - 1].end() - segments[from - 1].base() <= MERGE_RATIO * size) {
+            from--;
+            size += segments[from].end() - segments[from].base();
+        }
+        if (from < n - 1) {
+            return new int[]{from, n};
+        }
+        for (int i = 0; i < n; i++) {
+            if (segments[i].garbage(deleted) * 4L > segments[i].end() - segments[i].base()) {
+                return new int[]{i, i + 1};
+            }
+        }
+        return null;
+    }
+
+    /**
+     * private helper run by the merger thread: merge segments until none needs it. The merge reads
+     * immutable segments without the lock; only the swap of the segment array takes it, so searches
+     * and writes go on meanwhile. Tombstones added during a merge still hide their shows afterwards.
+     */
+    private void mergeSegments() {
+        while (true) {
+            Segment[] parts;
+            IdBitmap tombstones;
+            ShowTable ratings;
+            int[] range;
+            synchronized (this) {
+                range = pickMerge(this.segments, this.deleted);
+                if (range == null) {
+                    this.mergeScheduled = false;
+                    return;
+                }
+                parts = this.segments;
+                tombstones = this.deleted.copy();
+                ratings = this.shows;
+            }
+            Segment merged;
+            try {
+                merged = Segment.merge(parts, range[0], range[1], tombstones, ratings);
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    this.mergeScheduled = false;
+                }
+                System.err.println("Segment merge failed: " + e);
+                return;
+            }
+            synchronized (this) {
+                // sealing only appends, so the merged segments are still at the same indexes
+                Segment[] current = this.segments;
+                Segment[] next = new Segment[current.length - (range[1] - range[0]) + 1];
+                System.arraycopy(current, 0, next, 0, range[0]);
+                next[range[0]] = merged;
+                System.arraycopy(current, range[1], next, range[0] + 1, current.length - range[1]);
+                this.segments = next;
+                this.dirty = true;
+            }
+        }
+    }
+
+    /**
+     * the index view for a search: the published snapshot, or a new one if shows were added since
+     *
+     * @return the current snapshot
+     */
+    public IndexSnapshot snapshot() {
+        IndexSnapshot current = this.snapshot;
+        if (current != null && !this.dirty) {
+            return current;
+        }
+        return publish();
+    }
+
+    /**
+     * private helper to freeze the writer structures and publish them as a new snapshot
+     *
+     * @return the published snapshot
+     */
+    private synchronized IndexSnapshot publish() {
+        if (this.snapshot == null || this.dirty) {
+            this.titleHash.freeze();
+            Segment[] all = this.segments;
+            if (this.showCount > this.memtableBase) {
+                if (this.memtableYears == null) {
+                    this.memtableYears = Segment.indexYears(this.shows, this.memtableBase, this.showCount);
+                }
+                all = appendSegment(all, new Segment(this.memtableBase, this.showCount, 0, this.titleHash,
+                        this.memtableYears));
+            }
+            this.snapshot = new IndexSnapshot(this.shows, this.showCount, this.catalogEpoch, this.catalogVersion,
+                    all, this.providerBitmaps, this.deleted);
+            this.shared = true;
+            this.dirty = false;
+        }
+        return this.snapshot;
     }
 
     /**
      * get the number of shows in backend database
      *
-     * @return the number of shows
+     * @return the number of shows, removed ones excluded
      */
     @Override
     public int getNumberOfShows() {
-        return this.shownumber;
+        return this.showCount - this.deletedCount;
     }
 
     /**
@@ -77,10 +502,11 @@ public class ShowSearcherBackend implements IShowSearcherBackend {
      */
     @Override
     public void setProviderFilter(String provider, boolean filter) {
+        int mask = Provider.maskOf(provider);
         if (filter) {
-            this.filter.add(provider);
+            this.filterMask.getAndUpdate(current -> current | mask);
         } else {
-            this.filter.remove(provider);
+            this.filterMask.getAndUpdate(current -> current & ~mask);
         }
     }
 
@@ -92,111 +518,372 @@ public class ShowSearcherBackend implements IShowSearcherBackend {
      */
     @Override
     public boolean getProviderFilter(String provider) {
-        if (!this.filter.contains(provider)) {
-            return false;
-        }
-        return true;
+        int mask = Provider.maskOf(provider);
+        return mask != 0 && (this.filterMask.get() & mask) != 0;
     }
 
     /**
      * toggle the provider
-     * Call setProviderFilter method and getProviderFilter to achieve functionality
      *
      * @param provider provider being toggled
      */
     @Override
     public void toggleProviderFilter(String provider) {
-        boolean filter;
-        if (!this.filter.contains(provider)) {
-            filter = true;
-        } else {
-            filter = false;
-        }
-        setProviderFilter(provider, filter);
+        int mask = Provider.maskOf(provider);
+        this.filterMask.getAndUpdate(current -> current ^ mask);
+    }
+
+    /**
+     * run a query against the current snapshot; safe to call from any number of threads
+     *
+     * @param query title words, year, providers and limit of this search
+     * @return matching shows in descending rating order
+     */
+    @Override
+    public List<IShow> search(ShowQuery query) {
+        return snapshot().search(query);
     }
 
     /**
      * search and retrieve the database of shows by selected word
      *
      * @param keyword being used to search for shows
-     * @return list of selected shows by this word
+     * @return list of selected shows by this word, or by the closest title words if no title has
+     * it (see searchByTitleWord(String, int, int)); empty if there are none either
      */
     @Override
     public List<IShow> searchByTitleWord(String keyword) {
-        // 先从缓存中查找
-        List<IShow> result = getCachedSearchResult(keyword);
-        if (result != null) {
-            // 将查询关键字的计数器加1
-            RedisQuery.incrementScore("hotKeywords", keyword, 1);
-        }
-        // 缓存中不存在，从 kv map 中查找
-        result = searchFromHashMap(keyword);
-        if (result != null) {
-            // 将结果放入缓存
-            cacheSearchResult(keyword, result);
-            // 将查询关键字的计数器加1
-            RedisQuery.incrementScore("hotKeywords", keyword, 1);
-            // 将查询关键字放入历史查询记录中
-            RedisQuery.leftPush("historyKeywords", keyword);
+        return searchByTitleWord(keyword, 0, Integer.MAX_VALUE).getShows();
+    }
+
+    /**
+     * one page of the shows whose titles contain a word; the page is served from the cached result
+     * of the word when it holds enough ids, and only the ids up to the page are ranked otherwise
+     *
+     * @param keyword being used to search for shows
+     * @param offset  number of results skipped
+     * @param limit   maximum number of shows of the page
+     * @return the page; SearchPage.next() gives the next page. A keyword of several words, a whole
+     * title for example, is searched as a phrase. If no title has the word, the page is the result
+     * of the closest title word instead, the one word of getQuery().getTitleQuery().getAllOf();
+     * empty if no word is a likely correction
+     */
+    @Override
+    public SearchPage searchByTitleWord(String keyword, int offset, int limit) {
+        IndexSnapshot snapshot = snapshot();
+        int mask = this.filterMask.getAndSet(0);
+        List<String> words = Analyzer.TITLES.terms(keyword);
+        if (words.size() > 1) {
+            // 多个单词（如完整标题）：按单词位置匹配短语，不经过缓存
+            this.telemetry.record(keyword, true);
+            return snapshot.searchPage(ShowQuery.builder()
+                    .title(TitleQuery.builder().phrase(keyword, 0).build())
+                    .providers(mask)
+                    .offset(offset)
+                    .limit(limit)
+                    .build());
         }
-        return result;
+        String key = words.isEmpty() ? Analyzer.TITLES.normalize(keyword) : words.get(0);
+        ShowQuery query = titleWordQuery(key, mask, offset, limit);
+        if (!snapshot.containsTitleKey(key)) {
+            String closest = closestTitleWord(snapshot, key);
+            if (closest == null) {
+                return new SearchPage(query, new ArrayList<>(), 0, false);
+            }
+            // 拼写错误：改为搜索编辑距离最小的标题单词; the typo itself is not recorded as a keyword
+            return cachedTitlePage(snapshot, titleWordQuery(closest, mask, offset, limit), null);
+        }
+        return cachedTitlePage(snapshot, query, keyword);
     }
 
     /**
-     * 从 HashMap 中查找查询结果
+     * "did you mean": the title words within a few edits of a word, found through the trigram
+     * index of each segment. A word of up to 2 characters must match exactly, up to 5 characters
+     * one edit is allowed and two beyond; at most a fixed number of candidates is checked per
+     * segment, so the cost of a lookup stays bounded
      *
-     * @param word
-     * @return
+     * @param word a word, any case
+     * @param n    maximum number of suggestions
+     * @return title words as they are indexed, closest first, then by the rating of their best show
      */
-    private ArrayList<IShow> searchFromHashMap(String word) {
-        if (!titleHash.containsKey(word.toLowerCase())) {
+    @Override
+    public List<String> suggestTitleWords(String word, int n) {
+        List<String> words = new ArrayList<>(Math.min(n, 16));
+        String key = Analyzer.TITLES.normalize(word);
+        for (TrigramIndex.Match match : snapshot().fuzzyTitleWords(key, maxEdits(key), FUZZY_CANDIDATES, n)) {
+            words.add(match.getTerm());
+        }
+        return words;
+    }
+
+    /**
+     * private helper: the correction of a word missing from the index, the closest title word then
+     * the best rated one. Short words, stop words and words found in a large share of the titles
+     * are not guessed, their neighbours have nothing to do with the word typed
+     *
+     * @return the title word, or null if there is no likely one
+     */
+    private static String closestTitleWord(IndexSnapshot snapshot, String key) {
+        if (key.length() < FUZZY_MIN_LENGTH || FUZZY_STOP_WORDS.contains(key)) {
             return null;
         }
-        ArrayList<IShow> result = (ArrayList<IShow>) titleHash.get(word.toLowerCase());
+        int maxFrequency = Math.max(1, snapshot.size() / FUZZY_MAX_SHARE);
+        for (TrigramIndex.Match match : snapshot.fuzzyTitleWords(key, maxEdits(key), FUZZY_CANDIDATES, FUZZY_WORDS)) {
+            if (!FUZZY_STOP_WORDS.contains(match.getTerm())
+                    && snapshot.titleKeyFrequency(match.getTerm()) <= maxFrequency) {
+                return match.getTerm();
+            }
+        }
+        return null;
+    }
 
-        for (String provider : this.filter) {
-            for (int i = 0; i < result.size(); i++) {
-                if (!result.get(i).isAvailableOn(provider)) {
-                    result.remove(i);
-                }
+    /**
+     * private helper: number of typos tolerated in a word of this length
+     */
+    private static int maxEdits(String word) {
+        return word.length() <= 2 ? 0 : word.length() <= 5 ? 1 : 2;
+    }
+
+    /**
+     * run a query and return one page of its results; safe to call from any number of threads.
+     * A query on one title word only goes through the result cache
+     *
+     * @param query title words, years, providers, offset and limit of this search
+     * @return the page; SearchPage.next() gives the query of the next page
+     */
+    @Override
+    public SearchPage searchPage(ShowQuery query) {
+        IndexSnapshot snapshot = snapshot();
+        TitleQuery title = query.getTitleQuery();
+        if (title != null && !query.hasYear() && title.isSingleWord()
+                && snapshot.containsTitleKey(title.getAllOf().get(0))) {
+            return cachedTitlePage(snapshot, query, null);
+        }
+        return snapshot.searchPage(query);
+    }
+
+    /**
+     * private helper to build the query of one title word
+     */
+    private static ShowQuery titleWordQuery(String key, int mask, int offset, int limit) {
+        return ShowQuery.builder()
+                .title(TitleQuery.builder().allOf(key).build())
+                .providers(mask)
+                .offset(offset)
+                .limit(limit)
+                .build();
+    }
+
+    /**
+     * private helper to serve a page of a one-key title query through the near cache and the cache
+     * store. A cached result holds the best ids of the key up to the deepest page asked so far, so
+     * the first page of a key with thousands of shows caches a few ids, not thousands
+     *
+     * @param snapshot index being searched, the key is in it
+     * @param query    query of one title key and no year
+     * @param keyword  keyword recorded in the search statistics, null for a following page
+     * @return the page
+     */
+    private SearchPage cachedTitlePage(IndexSnapshot snapshot, ShowQuery query, String keyword) {
+        String cacheKey = cacheKey(query.getTitleQuery().getAllOf().get(0), query.getProviderMask());
+        // the page and one more id, to know if another page follows
+        int needed = query.getEnd() == Integer.MAX_VALUE ? Integer.MAX_VALUE : query.getEnd() + 1;
+        // 先从本地缓存中查找，再从 Redis 中查找
+        CachedIds cached = this.nearCache.get(cacheKey);
+        if (cached == null || !cached.isFor(snapshot.catalogEpoch(), snapshot.catalogVersion())) {
+            cached = getCachedSearchResult(cacheKey, snapshot.catalogEpoch(), snapshot.catalogVersion(),
+                    snapshot.size());
+            if (cached != null) {
+                this.nearCache.put(cacheKey, cached);
             }
         }
-        this.filter.clear();
-        return result;
+        boolean hit = cached != null && cached.covers(needed);
+        if (!hit) {
+            // 缓存中不存在，从 kv map 中查找
+            TopK top = snapshot.rankTitle(query, needed);
+            cached = new CachedIds(snapshot.catalogEpoch(), snapshot.catalogVersion(), top.toSortedIds(0),
+                    top.offered());
+            // 将结果放入缓存，除非期间有更新或删除（结果可能已过期）；a write racing this check bumped
+            // the catalog version, so a page cached from the old snapshot is never served from the new one
+            if (snapshot == this.snapshot && !this.dirty) {
+                this.nearCache.put(cacheKey, cached);
+                cacheSearchResult(cacheKey, cached);
+            }
+        }
+        if (keyword != null) {
+            // 将查询关键字的计数器加1，未命中缓存时放入历史查询记录中
+            this.telemetry.record(keyword, !hit);
+        }
+        int[] ids = cached.getIds();
+        int from = Math.min(query.getOffset(), ids.length);
+        int to = Math.min(query.getEnd(), ids.length);
+        return new SearchPage(query, snapshot.resolve(Arrays.copyOfRange(ids, from, to)), cached.getTotal(),
+                cached.getTotal() > to);
+    }
+
+    /**
+     * typeahead: the title words and full titles that start with a prefix, the ones with the best
+     * rated shows first. Each segment answers from a compact completion trie built the first time
+     * it is asked, so a keystroke visits a few trie nodes instead of every key
+     *
+     * @param prefix beginning of a word or title, any case
+     * @param n      maximum number of suggestions
+     * @return words or titles as they are indexed, at most n
+     */
+    @Override
+    public List<String> autocomplete(String prefix, int n) {
+        List<String> keys = new ArrayList<>(Math.min(n, 16));
+        for (CompletionTrie.Completion completion : snapshot().complete(Analyzer.TITLES.normalize(prefix), n)) {
+            keys.add(completion.getKey());
+        }
+        return keys;
+    }
+
+    /**
+     * search the shows whose titles match a boolean query of several words
+     *
+     * @param query AND / OR / NOT title words
+     * @return matching shows that pass the provider filters, in descending rating order
+     */
+    @Override
+    public List<IShow> searchByTitleQuery(TitleQuery query) {
+        return search(ShowQuery.builder().title(query).providers(this.filterMask.getAndSet(0)).build());
     }
 
     /**
      * 将查询结果放入缓存
+     * the value is the ids of the result encoded by ShowIdCodec, not the shows themselves.
+     * Nothing is published: a fill does not make the near-cache copies of the other nodes wrong,
+     * only the data changes in invalidateTitleKeys() do
      *
-     * @param keyword
-     * @param result
+     * @param cacheKey key built by cacheKey()
+     * @param result   ids of the result shows in result order, or the first of them
      */
-    public void cacheSearchResult(String keyword, List<IShow> result) {
+    public void cacheSearchResult(String cacheKey, CachedIds result) {
         try {
-            String resultString = JSON.toJSONString(result);
-            RedisQuery.set(keyword, resultString);
-        } catch (JedisConnectionException e) {
-            System.err.println("Failed to connect to Redis, proceeding without caching.");
+            this.cacheStore.set(cacheKey, ShowIdCodec.encode(result), CACHE_TTL_SECONDS);
+        } catch (CacheUnavailableException e) {
+            // proceeding without caching; the circuit breaker reports the outage once
         }
     }
 
     /**
      * 从缓存中获取查询结果
      *
-     * @param keyword
-     * @return
+     * @param cacheKey       key built by cacheKey()
+     * @param catalogEpoch   epoch of the current catalog
+     * @param catalogVersion version of the current catalog
+     * @param idLimit        number of ids of the current index
+     * @return the cached ids, null if not cached or cached for another catalog
      */
-    public List<IShow> getCachedSearchResult(String keyword) {
+    public CachedIds getCachedSearchResult(String cacheKey, int catalogEpoch, int catalogVersion, int idLimit) {
         try {
-            String resultString = RedisQuery.getByKey(keyword);
-            if (resultString != null) {
-                return JSON.parseObject(resultString, new TypeReference<List<IShow>>() {
-                });
+            return ShowIdCodec.decode(this.cacheStore.get(cacheKey), catalogEpoch, catalogVersion, idLimit);
+        } catch (CacheUnavailableException e) {
+            // proceeding with normal query; the circuit breaker reports the outage once
+        }
+        return null;
+    }
+
+    /**
+     * build the key of a cached result, the filter is part of the key
+     *
+     * @param key  keyword as it is indexed
+     * @param mask providers of the filter
+     * @return "search:{mask}:{key}"
+     */
+    public static String cacheKey(String key, int mask) {
+        return "search:" + mask + ":" + key;
+    }
+
+    /**
+     * drop every cached result from the near cache of this node and of the other nodes
+     */
+    public void invalidateCachedResults() {
+        this.nearCache.invalidateAll();
+        this.invalidationBus.publish(this.nodeId + " " + InvalidationBus.ALL);
+    }
+
+    /**
+     * drop the cached results of every word of some titles, under every provider filter: from the
+     * near cache of this node, from the cache store, and from the near caches of the other nodes
+     *
+     * @param titles titles of the shows that changed
+     */
+    private void invalidateTitleKeys(String... titles) {
+        Set<String> keys = new LinkedHashSet<>();
+        int masks = 1 << Provider.values().length;
+        for (String title : titles) {
+            for (String key : Analyzer.TITLES.terms(title)) {
+                for (int mask = 0; mask < masks; mask++) {
+                    keys.add(cacheKey(key, mask));
+                }
             }
-        } catch (JedisConnectionException e) {
-            System.err.println("Failed to connect to Redis, proceeding with normal query");
         }
-        return searchFromHashMap(keyword);
+        StringBuilder message = new StringBuilder(this.nodeId);
+        for (String key : keys) {
+            this.nearCache.invalidate(key);
+            message.append(' ').append(key);
+        }
+        try {
+            this.cacheStore.delete(keys);
+            // one message for all the keys, not one round trip per key and provider filter
+            this.invalidationBus.publish(message.toString());
+        } catch (CacheUnavailableException e) {
+            // the values expire with their TTL; the circuit breaker reports the outage once
+        }
+    }
+
+    /**
+     * @return the statistics writer, for its recorded / dropped / failed counters
+     */
+    public QueryTelemetryWriter getTelemetry() {
+        return this.telemetry;
+    }
+
+    /**
+     * send the pending search statistics and stop the background threads of this backend
+     */
+    public void close() {
+        this.merger.shutdownNow();
+        this.telemetry.close();
+        this.invalidationBus.close();
+        this.cacheStore.close();
+    }
+
+    /**
+     * @return the near cache, for its hit / miss / eviction counters
+     */
+    public NearCache<String, CachedIds> getNearCache() {
+        return this.nearCache;
+    }
+
+    /**
+     * private helper called by the invalidation bus: "{node id} {key} {key}..." drops the keys,
+     * unless this node sent them; ALL or "{node id} ALL" drops every key. Cache keys hold no spaces
+     *
+     * @param message the invalidation
+     */
+    private void onInvalidation(String message) {
+        int space = message.indexOf(' ');
+        if (space >= 0 && message.substring(0, space).equals(this.nodeId)) {
+            return;
+        }
+        if (message.equals(InvalidationBus.ALL) || message.substring(space + 1).equals(InvalidationBus.ALL)) {
+            this.nearCache.invalidateAll();
+            return;
+        }
+        int start = space + 1;
+        while (start < message.length()) {
+            int end = message.indexOf(' ', start);
+            if (end < 0) {
+                end = message.length();
+            }
+            if (end > start) {
+                this.nearCache.invalidate(message.substring(start, end));
+            }
+            start = end + 1;
+        }
     }
 
 //    public List<IShow> getCachedSearchResult(String keyword) {
@@ -220,36 +907,50 @@ public class ShowSearcherBackend implements IShowSearcherBackend {
      * search and retrieve the database of shows by their publication years
      *
      * @param year year being used to search for shows
-     * @return list of selected shows by this year
+     * @return list of selected shows by this year, empty if there are none
      */
     @Override
     public List<IShow> searchByYear(int year) {
-        if (!yearHash.containsKey(year)) {
-            return null;
-        }
-        List<IShow> result = yearHash.get(year);
-        ArrayList<IShow> finals = new ArrayList<>();
-        for (IShow show : result) {
-            finals.add(show);
+        IndexSnapshot snapshot = snapshot();
+        if (!snapshot.containsYear(year)) {
+            return new ArrayList<>();
         }
-        for (String provider : this.filter) {
-            for (int i = 0; i < finals.size(); i++) {
-                if (finals.get(i).isAvailableOn(provider)) {
-                    finals.remove(i);
-                    i = -1;
-                }
-            }
-        }
-        this.filter.clear();
-        return finals;
+        return snapshot.search(ShowQuery.builder().year(year).providers(this.filterMask.getAndSet(0)).build());
+    }
+
+    /**
+     * one page of the shows first produced in a year
+     *
+     * @param year   year being used to search for shows
+     * @param offset number of results skipped
+     * @param limit  maximum number of shows of the page
+     * @return the page, in descending rating order; SearchPage.next() gives the next page
+     */
+    @Override
+    public SearchPage searchByYear(int year, int offset, int limit) {
+        return searchPage(ShowQuery.builder().year(year).providers(this.filterMask.getAndSet(0))
+                .offset(offset).limit(limit).build());
+    }
+
+    /**
+     * the best rated shows first produced in a range of years; only the first `limit` shows of the
+     * rating ordered year lists are read, however many shows the range has
+     *
+     * @param from  first year, inclusive
+     * @param to    last year, inclusive
+     * @param limit maximum number of shows returned
+     * @return shows that pass the provider filters, in descending rating order
+     */
+    @Override
+    public List<IShow> searchByYearRange(int from, int to, int limit) {
+        return search(ShowQuery.builder().years(from, to).limit(limit).providers(this.filterMask.getAndSet(0)).build());
     }
 
     // 获取热点关键字排行榜
     public List<String> getHotKeywords() {
         try {
-            Set<String> hotKeywords = RedisQuery.reverseRange("hotKeywords", 0, 9);
-            return new ArrayList<>(hotKeywords);
-        } catch (JedisConnectionException e) {
+            return this.cacheStore.hotKeywords(10);
+        } catch (CacheUnavailableException e) {
             System.err.println("Failed to connect to Redis, unable to fetch hot keywords.");
         }
         return new ArrayList<>();
@@ -0,0 +1,216 @@
+package com.demo.videosearch.service;
+
+import com.demo.videosearch.text.Analyzer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable boolean query over title words.
+ * A show matches when its title contains every word of allOf, every phrase of phrases, at least one
+ * word of anyOf (if anyOf is not empty) and no word of noneOf. Words are kept as Analyzer.TITLES
+ * normalizes them, the way titles are indexed.
+ */
+public final class TitleQuery {
+
+    // a phrase in double quotes, then ~ and its slop if it is a proximity query
+    private static final Pattern QUOTED = Pattern.compile("\"([^\"]*)\"(?:~(\\d+))?");
+
+    private final List<String> allOf; // AND words
+    private final List<String> anyOf; // OR words
+    private final List<String> noneOf; // NOT words
+    private final List<Phrase> phrases; // AND phrases
+
+    private TitleQuery(List<String> allOf, List<String> anyOf, List<String> noneOf, List<Phrase> phrases) {
+        this.allOf = Collections.unmodifiableList(allOf);
+        this.anyOf = Collections.unmodifiableList(anyOf);
+        this.noneOf = Collections.unmodifiableList(noneOf);
+        this.phrases = Collections.unmodifiableList(phrases);
+    }
+
+    /**
+     * parse a query such as "love AND death NOT robots" or "tiger OR lion".
+     * Words are joined by AND unless an OR stands on either side of them; NOT applies to the next word.
+     * The operators are only recognized in upper case, so "and", "or" and "not" stay searchable words.
+     * Words in double quotes are a phrase that must be in the title as it is, as in "of the";
+     * "love death"~2 lets up to 2 other words between them. Phrases are always required.
+     *
+     * @param expression the query text
+     * @return the parsed query
+     */
+    public static TitleQuery parse(String expression) {
+        Builder builder = builder();
+        Matcher quoted = QUOTED.matcher(expression);
+        while (quoted.find()) {
+            builder.phrase(quoted.group(1), quoted.group(2) == null ? 0 : Integer.parseInt(quoted.group(2)));
+        }
+        String[] tokens = quoted.replaceAll(" ").trim().split("\\s+");
+        for (int i = 0; i < tokens.length; i++) {
+            String token = tokens[i];
+            if (token.isEmpty() || token.equals("AND") || token.equals("OR")) {
+                continue;
+            }
+            if (token.equals("NOT")) {
+                if (i + 1 < tokens.length) {
+                    builder.noneOf(tokens[++i]);
+                }
+                continue;
+            }
+            boolean or = (i > 0 && tokens[i - 1].equals("OR")) || (i + 1 < tokens.length && tokens[i + 1].equals("OR"));
+            if (or) {
+                builder.anyOf(token);
+            } else {
+                builder.allOf(token);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return a builder for a new query
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return words that must all be in the title
+     */
+    public List<String> getAllOf() {
+        return this.allOf;
+    }
+
+    /**
+     * @return words of which at least one must be in the title
+     */
+    public List<String> getAnyOf() {
+        return this.anyOf;
+    }
+
+    /**
+     * @return words that must not be in the title
+     */
+    public List<String> getNoneOf() {
+        return this.noneOf;
+    }
+
+    /**
+     * @return phrases that must all be in the title
+     */
+    public List<Phrase> getPhrases() {
+        return this.phrases;
+    }
+
+    /**
+     * @return true if the query is one required word and nothing else, the query of searchByTitleWord
+     */
+    public boolean isSingleWord() {
+        return this.allOf.size() == 1 && this.anyOf.isEmpty() && this.noneOf.isEmpty() && this.phrases.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "TitleQuery{" +
+                "allOf=" + allOf +
+                ", anyOf=" + anyOf +
+                ", noneOf=" + noneOf +
+                ", phrases=" + phrases +
+                '}';
+    }
+
+    /**
+     * Words that must be in a title in this order, next to each other or, with a slop, with at
+     * most that many other words between two of them.
+     */
+    public static final class Phrase {
+        private final List<String> words;
+        private final int slop;
+
+        private Phrase(List<String> words, int slop) {
+            this.words = Collections.unmodifiableList(words);
+            this.slop = slop;
+        }
+
+        /**
+         * @return the normalized words, in order
+         */
+        public List<String> getWords() {
+            return this.words;
+        }
+
+        /**
+         * @return number of other words allowed between two words of the phrase, 0 for an exact phrase
+         */
+        public int getSlop() {
+            return this.slop;
+        }
+
+        @Override
+        public String toString() {
+            return "\"" + String.join(" ", this.words) + "\"" + (this.slop == 0 ? "" : "~" + this.slop);
+        }
+    }
+
+    /**
+     * Collects the words of a TitleQuery.
+     */
+    public static final class Builder {
+        private final List<String> allOf = new ArrayList<>();
+        private final List<String> anyOf = new ArrayList<>();
+        private final List<String> noneOf = new ArrayList<>();
+        private final List<Phrase> phrases = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        public Builder allOf(String... words) {
+            for (String word : words) {
+                this.allOf.add(Analyzer.TITLES.normalize(word));
+            }
+            return this;
+        }
+
+        public Builder anyOf(String... words) {
+            for (String word : words) {
+                this.anyOf.add(Analyzer.TITLES.normalize(word));
+            }
+            return this;
+        }
+
+        public Builder noneOf(String... words) {
+            for (String word : words) {
+                this.noneOf.add(Analyzer.TITLES.normalize(word));
+            }
+            return this;
+        }
+
+        /**
+         * require a phrase; its words are split the way titles are indexed, and a phrase of
+         * one word is a required word
+         *
+         * @param text the words of the phrase, any case
+         * @param slop number of other words allowed between two of them, 0 for an exact phrase
+         * @return this builder
+         */
+        public Builder phrase(String text, int slop) {
+            if (slop < 0) {
+                throw new IllegalArgumentException("slop must not be negative: " + slop);
+            }
+            List<String> words = Analyzer.TITLES.terms(text);
+            if (words.size() == 1) {
+                this.allOf.add(words.get(0));
+            } else if (!words.isEmpty()) {
+                this.phrases.add(new Phrase(words, slop));
+            }
+            return this;
+        }
+
+        public TitleQuery build() {
+            return new TitleQuery(new ArrayList<>(this.allOf), new ArrayList<>(this.anyOf), new ArrayList<>(this.noneOf),
+                    new ArrayList<>(this.phrases));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.demo.videosearch.service;
+
+import java.util.Arrays;
+
+/**
+ * Bounded selection of the best ranked ids among candidates that come in id order: a max-heap of
+ * the K best keys seen so far, the worst of them at the root, so a candidate that does not beat
+ * the root costs one comparison. A key is the negated rating in the high half and the id in the
+ * low half, so a smaller key ranks first and equal ratings keep id order.
+ * The heap only grows to the number of candidates offered, so K can be Integer.MAX_VALUE.
+ */
+final class TopK {
+
+    private final int capacity;
+    private long[] heap;
+    private int size;
+    private int offered; // candidates offered, the total number of matches
+
+    /**
+     * @param capacity number of best ids kept
+     */
+    TopK(int capacity) {
+        this.capacity = capacity;
+        this.heap = new long[Math.min(capacity, 16)];
+    }
+
+    /**
+     * @param id     id of a matching show
+     * @param rating its rating
+     */
+    void offer(int id, int rating) {
+        this.offered++;
+        long key = ((long) -rating << 32) | id;
+        if (this.size < this.capacity) {
+            if (this.size == this.heap.length) {
+                this.heap = Arrays.copyOf(this.heap, (int) Math.min(this.capacity, this.size * 2L));
+            }
+            siftUp(this.size++, key);
+        } else if (this.size > 0 && key < this.heap[0]) {
+            siftDown(key);
+        }
+    }
+
+    /**
+     * @return number of ids offered
+     */
+    int offered() {
+        return this.offered;
+    }
+
+    /**
+     * @param skip number of best ids left out
+     * @return the ids kept, best first, from the skip-th on
+     */
+    int[] toSortedIds(int skip) {
+        long[] keys = Arrays.copyOf(this.heap, this.size);
+        Arrays.sort(keys);
+        int[] ids = new int[Math.max(0, keys.length - skip)];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = (int) keys[skip + i];
+        }
+        return ids;
+    }
+
+    /**
+     * private helper to move a new key up from position i
+     */
+    private void siftUp(int i, long key) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (this.heap[parent] >= key) {
+                break;
+            }
+            this.heap[i] = this.heap[parent];
+            i = parent;
+        }
+        this.heap[i] = key;
+    }
+
+    /**
+     * private helper to replace the root, the worst key, and move the new key down
+     */
+    private void siftDown(long key) {
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= this.size) {
+                break;
+            }
+            if (child + 1 < this.size && this.heap[child + 1] > this.heap[child]) {
+                child++;
+            }
+            if (key >= this.heap[child]) {
+                break;
+            }
+            this.heap[i] = this.heap[child];
+            i = child;
+        }
+        this.heap[i] = key;
+    }
+}
@@ -0,0 +1,158 @@
+package com.demo.videosearch.service;
+
+import com.demo.videosearch.db.IdBitmap;
+import com.demo.videosearch.db.YearIndex;
+import com.demo.videosearch.model.ShowTable;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Lazy iterator over the ids of the shows of a range of years, best rated first. The ids of each
+ * year of each segment are already in rating order, so a min-heap over the heads of these runs
+ * gives the next id in result order; nothing is read or allocated beyond the runs and the ids
+ * actually consumed, so the first K results cost O(K log runs).
+ * Ids of removed shows and of shows not available on the filtered providers are skipped.
+ */
+final class YearMerge implements PrimitiveIterator.OfInt {
+
+    private final ShowTable shows;
+    private final IdBitmap available; // null if not filtered
+    private final IdBitmap deleted;
+    private final YearIndex[] runIndex; // year index each run reads from
+    private final int[] next; // position of the head of each run in its index
+    private final int[] end; // end of each run, exclusive
+    // min-heap of the run heads: negated rating in the high half, id in the low half
+    private final long[] heapKey;
+    private final int[] heapRun;
+    private int heapSize;
+    private int pending = -1; // next id found by hasNext(), -1 if none
+
+    /**
+     * @param segments  segments of a snapshot
+     * @param from      first year, inclusive
+     * @param to        last year, inclusive
+     * @param shows     shows by id, for the ratings
+     * @param available ids of the shows on every filtered provider, null for no filter
+     * @param deleted   ids of removed shows
+     */
+    YearMerge(Segment[] segments, int from, int to, ShowTable shows, IdBitmap available, IdBitmap deleted) {
+        this.shows = shows;
+        this.available = available;
+        this.deleted = deleted;
+        int runs = 0;
+        for (Segment segment : segments) {
+            YearIndex years = segment.years();
+            runs += years.upperBound(to) - years.lowerBound(from);
+        }
+        this.runIndex = new YearIndex[runs];
+        this.next = new int[runs];
+        this.end = new int[runs];
+        this.heapKey = new long[runs];
+        this.heapRun = new int[runs];
+        int run = 0;
+        for (Segment segment : segments) {
+            YearIndex years = segment.years();
+            for (int y = years.lowerBound(from), last = years.upperBound(to); y < last; y++) {
+                this.runIndex[run] = years;
+                this.next[run] = years.offset(y);
+                this.end[run] = years.offset(y + 1);
+                if (this.next[run] < this.end[run]) {
+                    siftUp(this.heapSize++, headKey(run), run);
+                }
+                run++;
+            }
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (this.pending < 0 && this.heapSize > 0) {
+            int run = this.heapRun[0];
+            int id = (int) this.heapKey[0];
+            if (++this.next[run] < this.end[run]) {
+                siftDown(headKey(run), run);
+            } else if (--this.heapSize > 0) {
+                siftDown(this.heapKey[this.heapSize], this.heapRun[this.heapSize]);
+            }
+            if ((this.available == null || this.available.get(id)) && !this.deleted.get(id)) {
+                this.pending = id;
+            }
+        }
+        return this.pending >= 0;
+    }
+
+    @Override
+    public int nextInt() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        int id = this.pending;
+        this.pending = -1;
+        return id;
+    }
+
+    /**
+     * skip results
+     *
+     * @param count number of results to skip
+     * @return number of results skipped, less than count at the end
+     */
+    int skip(int count) {
+        int skipped = 0;
+        while (skipped < count && hasNext()) {
+            this.pending = -1;
+            skipped++;
+        }
+        return skipped;
+    }
+
+    /**
+     * private helper to build the heap key of the head of a run
+     */
+    private long headKey(int run) {
+        int id = this.runIndex[run].id(this.next[run]);
+        return ((long) -this.shows.rating(id) << 32) | id;
+    }
+
+    /**
+     * private helper to move a new heap entry up from position i
+     */
+    private void siftUp(int i, long key, int run) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (this.heapKey[parent] <= key) {
+                break;
+            }
+            this.heapKey[i] = this.heapKey[parent];
+            this.heapRun[i] = this.heapRun[parent];
+            i = parent;
+        }
+        this.heapKey[i] = key;
+        this.heapRun[i] = run;
+    }
+
+    /**
+     * private helper to replace the root of the heap and move the new entry down
+     */
+    private void siftDown(long key, int run) {
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= this.heapSize) {
+                break;
+            }
+            if (child + 1 < this.heapSize && this.heapKey[child + 1] < this.heapKey[child]) {
+                child++;
+            }
+            if (key <= this.heapKey[child]) {
+                break;
+            }
+            this.heapKey[i] = this.heapKey[child];
+            this.heapRun[i] = this.heapRun[child];
+            i = child;
+        }
+        this.heapKey[i] = key;
+        this.heapRun[i] = run;
+    }
+}
@@ -0,0 +1,99 @@
+package com.demo.videosearch.text;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+
+/**
+ * Strips the diacritics of Latin letters, so a title with an accented letter is found when the word
+ * is typed without the accent: a precomposed letter is replaced by its base letter, a combining
+ * mark is removed, and the letters that Unicode does not decompose are mapped by hand (o with a
+ * stroke to o, sharp s to ss, ae ligature to ae...). The mappings are computed once into a table
+ * over the first 0x2000 characters; a token with no character from U+00C0 on is looked at once
+ * and left as it is.
+ */
+public final class AccentFilter implements TokenFilter {
+
+    public static final AccentFilter INSTANCE = new AccentFilter();
+
+    // characters below this one are never changed
+    private static final char FIRST = '\u00c0';
+    private static final int TABLE_SIZE = 0x2000;
+    // base letter of each character, 0 if the character is kept
+    private static final char[] BASE = new char[TABLE_SIZE];
+    // the letters replaced by two
+    private static final String[] EXPANDED = new String[TABLE_SIZE];
+
+    static {
+        for (char c = FIRST; c < TABLE_SIZE; c++) {
+            String decomposed = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+            if (decomposed.length() < 2 || decomposed.charAt(0) >= '\u0250') {
+                continue;
+            }
+            boolean marks = true;
+            for (int i = 1; i < decomposed.length(); i++) {
+                marks &= isMark(decomposed.charAt(i));
+            }
+            if (marks) {
+                BASE[c] = decomposed.charAt(0);
+            }
+        }
+        String single = "\u00d8O\u00f8o\u0110D\u0111d\u0141L\u0142l\u0126H\u0127h\u0131i";
+        for (int i = 0; i < single.length(); i += 2) {
+            BASE[single.charAt(i)] = single.charAt(i + 1);
+        }
+        String[] pairs = {"\u00df", "ss", "\u00c6", "AE", "\u00e6", "ae", "\u0152", "OE", "\u0153", "oe",
+                "\u00de", "TH", "\u00fe", "th"};
+        for (int i = 0; i < pairs.length; i += 2) {
+            EXPANDED[pairs[i].charAt(0)] = pairs[i + 1];
+        }
+    }
+
+    private AccentFilter() {
+    }
+
+    @Override
+    public boolean apply(Term term) {
+        char[] chars = term.buffer();
+        int length = term.length();
+        int first = 0;
+        while (first < length && chars[first] < FIRST && !isMark(chars[first])) {
+            first++;
+        }
+        if (first == length) {
+            return true;
+        }
+        int expansions = 0;
+        for (int i = first; i < length; i++) {
+            if (chars[i] < TABLE_SIZE && EXPANDED[chars[i]] != null) {
+                expansions++;
+            }
+        }
+        // the term only shrinks unless a letter is expanded, it is then copied first
+        char[] source = expansions == 0 ? chars : Arrays.copyOf(chars, length);
+        char[] target = term.resize(length + expansions);
+        int out = first;
+        for (int i = first; i < length; i++) {
+            char c = source[i];
+            if (isMark(c)) {
+                continue;
+            }
+            if (c < FIRST || c >= TABLE_SIZE) {
+                target[out++] = c;
+            } else if (EXPANDED[c] != null) {
+                target[out++] = EXPANDED[c].charAt(0);
+                target[out++] = EXPANDED[c].charAt(1);
+            } else {
+                target[out++] = BASE[c] != 0 ? BASE[c] : c;
+            }
+        }
+        term.setLength(out);
+        return true;
+    }
+
+    /**
+     * private helper: true for the combining diacritical marks
+     */
+    private static boolean isMark(char c) {
+        return c >= '\u0300' && c <= '\u036f';
+    }
+}
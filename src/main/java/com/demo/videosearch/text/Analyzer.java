@@ -0,0 +1,155 @@
+package com.demo.videosearch.text;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable text normalization pipeline: a Tokenizer followed by a chain of TokenFilters, in the
+ * order they were added to the builder. The same analyzer must be used to index a text and to read
+ * the queries against it, so both see the same terms. An analyzer is shared by every thread; each
+ * thread reuses its own Tokenizer.
+ */
+public final class Analyzer {
+
+    /**
+     * the analyzer of show titles: case folding then accent stripping; no stop words and no
+     * stemming, so phrases such as "of the" and the exact words of a title can be searched
+     */
+    public static final Analyzer TITLES = builder().caseFolding().stripAccents().build();
+
+    private final TokenFilter[] filters;
+    private final ThreadLocal<Tokenizer> tokenizers;
+
+    private Analyzer(TokenFilter[] filters) {
+        this.filters = filters;
+        this.tokenizers = ThreadLocal.withInitial(() -> new Tokenizer(filters));
+    }
+
+    /**
+     * @return a builder of an analyzer with no filter
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return a new tokenizer running the filters of this analyzer, for a caller that keeps it
+     */
+    public Tokenizer tokenizer() {
+        return new Tokenizer(this.filters);
+    }
+
+    /**
+     * visit the tokens of a text, in order, with the tokenizer of the calling thread
+     *
+     * @param text     the text
+     * @param consumer called for each token kept by the filters
+     */
+    public void analyze(CharSequence text, TokenConsumer consumer) {
+        Tokenizer tokenizer = acquire();
+        try {
+            tokenizer.reset(text);
+            while (tokenizer.next()) {
+                consumer.accept(tokenizer.term(), tokenizer.position());
+            }
+        } finally {
+            release(tokenizer);
+        }
+    }
+
+    /**
+     * @param text the text
+     * @return the tokens of the text, in order
+     */
+    public List<String> terms(CharSequence text) {
+        List<String> terms = new ArrayList<>();
+        analyze(text, (term, position) -> terms.add(term.toString()));
+        return terms;
+    }
+
+    /**
+     * run the filters on a whole text without splitting it, for a completion prefix or a title
+     *
+     * @param text the text
+     * @return the filtered text, or the text as it was when a filter dropped it
+     */
+    public String normalize(CharSequence text) {
+        Tokenizer tokenizer = acquire();
+        try {
+            return tokenizer.normalize(text);
+        } finally {
+            release(tokenizer);
+        }
+    }
+
+    /**
+     * private helper: the tokenizer of the thread, or a new one if a consumer analyzes another text
+     */
+    private Tokenizer acquire() {
+        Tokenizer tokenizer = this.tokenizers.get();
+        if (tokenizer.inUse) {
+            return new Tokenizer(this.filters);
+        }
+        tokenizer.inUse = true;
+        return tokenizer;
+    }
+
+    /**
+     * private helper: give the tokenizer of the thread back
+     */
+    private void release(Tokenizer tokenizer) {
+        tokenizer.inUse = false;
+    }
+
+    /**
+     * Collects the filters of an Analyzer.
+     */
+    public static final class Builder {
+        private final List<TokenFilter> filters = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * @return this builder, with Unicode case folding added
+         */
+        public Builder caseFolding() {
+            return filter(CaseFoldingFilter.INSTANCE);
+        }
+
+        /**
+         * @return this builder, with diacritics removal added
+         */
+        public Builder stripAccents() {
+            return filter(AccentFilter.INSTANCE);
+        }
+
+        /**
+         * @param words words to drop, as they are after the filters added before
+         * @return this builder, with a stop word filter added
+         */
+        public Builder stopWords(String... words) {
+            return filter(new StopWordFilter(words));
+        }
+
+        /**
+         * @return this builder, with the removal of English plural endings added
+         */
+        public Builder stemming() {
+            return filter(PluralStemFilter.INSTANCE);
+        }
+
+        /**
+         * @param filter any other stage
+         * @return this builder, with the filter added
+         */
+        public Builder filter(TokenFilter filter) {
+            this.filters.add(filter);
+            return this;
+        }
+
+        public Analyzer build() {
+            return new Analyzer(this.filters.toArray(new TokenFilter[0]));
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.demo.videosearch.text;
+
+/**
+ * Unicode simple case folding: each code point is mapped to the lower case of its upper case, so
+ * "TITLE", "Title" and "title" are one term, and so are the final and medial forms of the Greek
+ * sigma.
+ * ASCII letters take a branch of their own, the table lookups are only made for other characters.
+ */
+public final class CaseFoldingFilter implements TokenFilter {
+
+    public static final CaseFoldingFilter INSTANCE = new CaseFoldingFilter();
+
+    private CaseFoldingFilter() {
+    }
+
+    @Override
+    public boolean apply(Term term) {
+        char[] chars = term.buffer();
+        int length = term.length();
+        for (int i = 0; i < length; i++) {
+            char c = chars[i];
+            if (c < 0x80) {
+                if (c >= 'A' && c <= 'Z') {
+                    chars[i] = (char) (c + ('a' - 'A'));
+                }
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(chars[i + 1])) {
+                int folded = fold(Character.toCodePoint(c, chars[i + 1]));
+                if (Character.isSupplementaryCodePoint(folded)) {
+                    Character.toChars(folded, chars, i);
+                }
+                i++;
+            } else {
+                int folded = fold(c);
+                if (!Character.isSupplementaryCodePoint(folded)) {
+                    chars[i] = (char) folded;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * private helper: folded code point
+     */
+    private static int fold(int codePoint) {
+        return Character.toLowerCase(Character.toUpperCase(codePoint));
+    }
+}
@@ -0,0 +1,36 @@
+package com.demo.videosearch.text;
+
+/**
+ * A light English stemmer that only removes plural endings, so "stories" and "story", "boxes" and
+ * "box", "robots" and "robot" are one term: -ies becomes -y, -es is cut after s, x, z, ch and sh,
+ * a final s is cut unless the word ends in ss, us or is, and a possessive 's is cut too. Words of
+ * 3 letters or less are kept.
+ * It works on lowercase letters, after case folding.
+ */
+public final class PluralStemFilter implements TokenFilter {
+
+    public static final PluralStemFilter INSTANCE = new PluralStemFilter();
+
+    private PluralStemFilter() {
+    }
+
+    @Override
+    public boolean apply(Term term) {
+        int length = term.length();
+        if (length <= 3 || term.buffer()[length - 1] != 's') {
+            return true;
+        }
+        if (term.endsWith("'s")) {
+            term.setLength(length - 2);
+        } else if (term.endsWith("ies") && length > 4) {
+            term.buffer()[length - 3] = 'y';
+            term.setLength(length - 2);
+        } else if (term.endsWith("sses") || term.endsWith("xes") || term.endsWith("zes") || term.endsWith("ches")
+                || term.endsWith("shes")) {
+            term.setLength(length - 2);
+        } else if (!term.endsWith("ss") && !term.endsWith("us") && !term.endsWith("is")) {
+            term.setLength(length - 1);
+        }
+        return true;
+    }
+}
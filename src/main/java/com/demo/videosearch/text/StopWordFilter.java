@@ -0,0 +1,76 @@
+package com.demo.videosearch.text;
+
+/**
+ * Drops the tokens of a fixed set of words. The words are kept in an open-addressing table of
+ * char arrays hashed like String.hashCode(), so a token is looked up without building a String.
+ * The filter compares the token as it arrives: put it after the filters whose output the words
+ * are written in, case folding for lowercase words.
+ */
+public final class StopWordFilter implements TokenFilter {
+
+    // a few English words, for titles that should be searched without them
+    public static final String[] ENGLISH = {"a", "an", "and", "at", "by", "for", "from", "in", "of", "on", "or",
+            "the", "to", "with"};
+
+    private final char[][] table; // words, null for a free slot
+    private final int mask;
+
+    /**
+     * @param words the words to drop, as they appear after the preceding filters
+     */
+    public StopWordFilter(String... words) {
+        int capacity = Integer.highestOneBit(Math.max(words.length, 1) * 2) * 2;
+        this.table = new char[capacity][];
+        this.mask = capacity - 1;
+        for (String word : words) {
+            int slot = hash(word.toCharArray(), word.length()) & this.mask;
+            while (this.table[slot] != null && !word.equals(new String(this.table[slot]))) {
+                slot = (slot + 1) & this.mask;
+            }
+            this.table[slot] = word.toCharArray();
+        }
+    }
+
+    @Override
+    public boolean apply(Term term) {
+        return !contains(term.buffer(), term.length());
+    }
+
+    /**
+     * @param chars  buffer of a token
+     * @param length number of characters of the token
+     * @return true if the token is one of the words
+     */
+    public boolean contains(char[] chars, int length) {
+        for (int slot = hash(chars, length) & this.mask; this.table[slot] != null; slot = (slot + 1) & this.mask) {
+            char[] word = this.table[slot];
+            if (word.length == length && regionEquals(word, chars, length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * private helper: String.hashCode() of the first characters of a buffer, spread
+     */
+    private static int hash(char[] chars, int length) {
+        int h = 0;
+        for (int i = 0; i < length; i++) {
+            h = 31 * h + chars[i];
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * private helper: true if two buffers start with the same characters
+     */
+    private static boolean regionEquals(char[] a, char[] b, int length) {
+        for (int i = 0; i < length; i++) {
+            if (a[i] != b[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
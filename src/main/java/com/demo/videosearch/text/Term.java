@@ -0,0 +1,115 @@
+package com.demo.videosearch.text;
+
+import java.util.Arrays;
+
+/**
+ * The characters of the current token, in a buffer reused from one token to the next.
+ * Token filters change it in place; toString() is the only method that allocates.
+ */
+public final class Term implements CharSequence {
+
+    private char[] buffer = new char[32];
+    private int length;
+
+    /**
+     * @return the buffer, valid up to length(); replaced by resize()
+     */
+    public char[] buffer() {
+        return this.buffer;
+    }
+
+    /**
+     * make room for a longer term, the characters up to length() are kept
+     *
+     * @param capacity number of characters needed
+     * @return the buffer, a new one if it had to grow
+     */
+    public char[] resize(int capacity) {
+        if (capacity > this.buffer.length) {
+            this.buffer = Arrays.copyOf(this.buffer, Math.max(capacity, this.buffer.length * 2));
+        }
+        return this.buffer;
+    }
+
+    /**
+     * @param length new number of characters, at most the capacity of the buffer
+     */
+    public void setLength(int length) {
+        this.length = length;
+    }
+
+    /**
+     * replace the term with characters of a text
+     *
+     * @param text  the text
+     * @param start index of the first character
+     * @param end   index after the last character
+     */
+    public void set(CharSequence text, int start, int end) {
+        char[] chars = resize(end - start);
+        if (text instanceof String) {
+            ((String) text).getChars(start, end, chars, 0);
+        } else {
+            for (int i = start; i < end; i++) {
+                chars[i - start] = text.charAt(i);
+            }
+        }
+        this.length = end - start;
+    }
+
+    /**
+     * @param s a string
+     * @return true if the term has the same characters
+     */
+    public boolean contentEquals(String s) {
+        if (s.length() != this.length) {
+            return false;
+        }
+        for (int i = 0; i < this.length; i++) {
+            if (this.buffer[i] != s.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param suffix a string
+     * @return true if the term ends with it
+     */
+    public boolean endsWith(String suffix) {
+        int from = this.length - suffix.length();
+        if (from < 0) {
+            return false;
+        }
+        for (int i = 0; i < suffix.length(); i++) {
+            if (this.buffer[from + i] != suffix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int length() {
+        return this.length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index >= this.length) {
+            throw new IndexOutOfBoundsException("index " + index + ", length " + this.length);
+        }
+        return this.buffer[index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return new String(this.buffer, start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        return new String(this.buffer, 0, this.length);
+    }
+}
@@ -0,0 +1,14 @@
+package com.demo.videosearch.text;
+
+/**
+ * Receives the tokens of a text from Analyzer.analyze().
+ */
+@FunctionalInterface
+public interface TokenConsumer {
+
+    /**
+     * @param term     the token, only valid during the call; toString() keeps it
+     * @param position index of the token among the tokens of the text, dropped ones included
+     */
+    void accept(Term term, int position);
+}
@@ -0,0 +1,16 @@
+package com.demo.videosearch.text;
+
+/**
+ * One stage of an Analyzer, applied to every token in turn.
+ * A filter is shared by every thread using its analyzer, so it must not keep state between calls.
+ */
+public interface TokenFilter {
+
+    /**
+     * change a token in place
+     *
+     * @param term the token
+     * @return false to drop the token, its position is then left empty
+     */
+    boolean apply(Term term);
+}
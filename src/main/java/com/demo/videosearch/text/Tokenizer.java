@@ -0,0 +1,125 @@
+package com.demo.videosearch.text;
+
+/**
+ * Splits a text into tokens by scanning its characters once and runs the filters of its analyzer
+ * on each token. A token is a run of letters, digits, combining marks and the characters
+ * _ % . ' (so "what's", "100%" and "s.w.a.t" stay whole); everything else separates tokens.
+ * The tokenizer, its Term and its buffer are reused from one token and one text to the next, so
+ * a token costs no allocation. Not thread-safe: Analyzer keeps one per thread.
+ */
+public final class Tokenizer {
+
+    private final TokenFilter[] filters;
+    private final Term term = new Term();
+    private CharSequence text = "";
+    private int offset; // index of the next character to scan
+    private int position = -1; // position of the current token
+    boolean inUse; // set by Analyzer while a text is analyzed
+
+    Tokenizer(TokenFilter[] filters) {
+        this.filters = filters;
+    }
+
+    /**
+     * start over on another text
+     *
+     * @param text the text
+     * @return this tokenizer
+     */
+    public Tokenizer reset(CharSequence text) {
+        this.text = text;
+        this.offset = 0;
+        this.position = -1;
+        return this;
+    }
+
+    /**
+     * move to the next token kept by the filters
+     *
+     * @return false at the end of the text
+     */
+    public boolean next() {
+        CharSequence text = this.text;
+        int length = text.length();
+        while (true) {
+            int start = this.offset;
+            while (start < length && !isTokenChar(text, start)) {
+                start++;
+            }
+            if (start == length) {
+                this.offset = length;
+                return false;
+            }
+            int end = start;
+            while (end < length && isTokenChar(text, end)) {
+                end++;
+            }
+            this.offset = end;
+            this.position++;
+            this.term.set(text, start, end);
+            if (filter()) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return the current token, changed by the next call to next()
+     */
+    public Term term() {
+        return this.term;
+    }
+
+    /**
+     * @return index of the current token among the tokens of the text, dropped ones included
+     */
+    public int position() {
+        return this.position;
+    }
+
+    /**
+     * run the filters on a single word, without splitting it
+     *
+     * @param word the word
+     * @return the filtered word, or the word as it was when a filter dropped it
+     */
+    String normalize(CharSequence word) {
+        this.term.set(word, 0, word.length());
+        filter();
+        return this.term.toString();
+    }
+
+    /**
+     * private helper: run the filters on the current term, false if one drops it
+     */
+    private boolean filter() {
+        for (TokenFilter filter : this.filters) {
+            if (!filter.apply(this.term) || this.term.length() == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * private helper: true if the character at an index belongs to a token
+     */
+    private static boolean isTokenChar(CharSequence text, int i) {
+        char c = text.charAt(i);
+        if (c < 0x80) {
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '_' || c == '%' || c == '.' || c == '\'';
+        }
+        if (Character.isSurrogate(c)) {
+            // both halves of a pair are classified by the code point
+            int codePoint = Character.isHighSurrogate(c) ? Character.codePointAt(text, i)
+                    : i > 0 && Character.isHighSurrogate(text.charAt(i - 1)) ? Character.codePointAt(text, i - 1) : c;
+            return Character.isLetterOrDigit(codePoint);
+        }
+        if (Character.isLetterOrDigit(c)) {
+            return true;
+        }
+        int type = Character.getType(c);
+        return type == Character.NON_SPACING_MARK || type == Character.COMBINING_SPACING_MARK;
+    }
+}
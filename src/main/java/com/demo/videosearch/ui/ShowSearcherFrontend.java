@@ -1,12 +1,19 @@
 package com.demo.videosearch.ui;
 import com.demo.videosearch.model.IShow;
+import com.demo.videosearch.model.Provider;
+import com.demo.videosearch.service.SearchPage;
 import com.demo.videosearch.service.ShowSearcherBackend;
+import com.demo.videosearch.service.TitleQuery;
+import com.demo.videosearch.text.Analyzer;
 import com.demo.videosearch.ui.IShowSearcherFrontend;
 
 import java.util.List;
 import java.util.Scanner;
 
 public class ShowSearcherFrontend implements IShowSearcherFrontend {
+	// shows printed at a time, the next ones on demand
+	private static final int PAGE_SIZE = 20;
+
 	private enum Mode {
 	    MENU,
 	    TITLE,
@@ -95,19 +102,15 @@ public class ShowSearcherFrontend implements IShowSearcherFrontend {
 
     public void displayShows(List<IShow> shows) {
     	// displays a list of shows
-    	
-    	// display the number of shows found
-    	int id = 1;
+    	displayShows(shows, 1);
+    }
+
+    private void displayShows(List<IShow> shows, int first) {
+    	// displays a list of shows, numbered from first
+    	int id = first;
     	for(IShow show: shows) {
-    		String provider = "";
-    		if(show.isAvailableOn("Netflix"))
-    			provider += "Netflix ";
-    		if(show.isAvailableOn("Hulu"))
-    			provider += "Hulu ";
-    		if(show.isAvailableOn("Prime Video"))
-    			provider += "Prime Video ";
-    		if(show.isAvailableOn("Disney+"))
-    			provider += "Disney+ ";
+    		int mask = show.getProviderMask();
+    		String provider = mask == 0 ? "" : Provider.join(mask, " ") + " ";
     		System.out.println(id + ". " + show.getTitle() + "\n\t" + show.getRating()
     							+ "/100 (" + show.getYear() + ") on: " + provider);
     		id++;
@@ -121,18 +124,45 @@ public class ShowSearcherFrontend implements IShowSearcherFrontend {
     	System.out.println("Choose a word that you would like to search for: ");
     	String filter = scanner.nextLine();
     	
-    	// next use the backend filter method to get the list of shows
-    	List<IShow> filteredByWord = backend.searchByTitleWord(filter);
-    	int count = filteredByWord.size();
+    	// next use the backend filter method to get the first page of shows
+    	SearchPage filteredByWord = backend.searchByTitleWord(filter, 0, PAGE_SIZE);
+    	
+    	// no title has the word: the backend searched the closest title word instead
+    	String corrected = correctionOf(filter, filteredByWord);
+    	if (corrected != null) {
+    		System.out.println("No title has \"" + filter + "\", showing results for: " + corrected);
+    	}
     	
-    	//display the filtered show list using the displayShows method
-    	System.out.println("Found" + count + "/" + total + "matches.");
-    	displayShows(filteredByWord);
+    	//display the filtered shows page by page
+    	System.out.println("Found" + countOf(filteredByWord) + "/" + total + "matches.");
+    	displayPages(filteredByWord);
     	
     	// return to command menu
     	displayCommandMenu();
     }
     
+    /**
+     * the word searched instead of a single typed word, found by comparing the word of the query
+     * of the page with the word as it is indexed
+     *
+     * @param filter the text typed
+     * @param page   first page returned by searchByTitleWord
+     * @return the corrected title word, or null if the typed word itself was searched
+     */
+    static String correctionOf(String filter, SearchPage page) {
+    	TitleQuery title = page.getQuery().getTitleQuery();
+    	if (title == null || !title.isSingleWord()) {
+    		return null;
+    	}
+    	List<String> words = Analyzer.TITLES.terms(filter);
+    	if (words.size() > 1) {
+    		return null;
+    	}
+    	String typed = words.isEmpty() ? Analyzer.TITLES.normalize(filter) : words.get(0);
+    	String searched = title.getAllOf().get(0);
+    	return searched.equals(typed) ? null : searched;
+    }
+
     public void yearSearch() {
     	// reads year from System.in, displays results
     	
@@ -141,18 +171,38 @@ public class ShowSearcherFrontend implements IShowSearcherFrontend {
     	String yr = scanner.nextLine();
     	int year = Integer.parseInt(yr);
     	
-    	// next use the backend search by year method to get the list of shows
-    	List<IShow> filteredByYear = backend.searchByYear(year);
-    	int count = filteredByYear.size();
+    	// next use the backend search by year method to get the first page of shows
+    	SearchPage filteredByYear = backend.searchByYear(year, 0, PAGE_SIZE);
     	
-    	//display the filtered show list using the displayShows method
-    	System.out.println("Found" + count + "/" + total + "matches.");
-    	displayShows(filteredByYear);
+    	//display the filtered shows page by page
+    	System.out.println("Found" + countOf(filteredByYear) + "/" + total + "matches.");
+    	displayPages(filteredByYear);
 
     	// return to command menu
     	displayCommandMenu();
     }
     
+    private void displayPages(SearchPage page) {
+    	// displays the shows of a page, then the next pages as long as the user asks for them
+    	while (true) {
+    		displayShows(page.getShows(), page.getQuery().getOffset() + 1);
+    		if (!page.hasMore()) {
+    			return;
+    		}
+    		System.out.println("Enter [M] for more results, anything else to return: ");
+    		String more = scanner.nextLine();
+    		if (!more.equals("M") && !more.equals("m")) {
+    			return;
+    		}
+    		page = backend.searchPage(page.next());
+    	}
+    }
+
+    private static String countOf(SearchPage page) {
+    	// number of matches, or a lower bound when the search did not count them all
+    	return page.getTotal() >= 0 ? String.valueOf(page.getTotal()) : "over " + page.getShows().size();
+    }
+    
     private void filterByProvider() {		
     	// display the list of providers currently being filtered for
     	boolean loop = true;
@@ -0,0 +1,152 @@
+package com.demo.videosearch.util;
+
+import com.demo.videosearch.cache.CacheStore;
+import com.demo.videosearch.cache.CacheUnavailableException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes the search statistics (hotKeywords zset, historyKeywords list) to the CacheStore off the search thread.
+ * record() only offers the keyword to a bounded queue and never blocks: when the queue is full the
+ * write is dropped and counted. A daemon thread drains the queue, adds up the increments of each
+ * keyword, and sends the batch in one CacheStore call (one Redis pipeline on one pooled connection).
+ */
+public class QueryTelemetryWriter implements AutoCloseable {
+
+    private static final int MAX_BATCH = 1024;
+
+    private final CacheStore store;
+    private final ArrayBlockingQueue<Event> queue;
+    private final long flushMillis;
+    private final Thread writer;
+    private final AtomicLong recorded = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile boolean closed;
+
+    /**
+     * @param store       where the statistics are written
+     * @param capacity    number of writes the queue holds before dropping
+     * @param flushMillis longest time a write waits in the queue while the writer is idle
+     */
+    public QueryTelemetryWriter(CacheStore store, int capacity, long flushMillis) {
+        this.store = store;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.flushMillis = flushMillis;
+        this.writer = new Thread(this::run, "query-telemetry-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * count one search of the keyword, without waiting
+     *
+     * @param keyword the keyword searched
+     * @param history true to also push the keyword on historyKeywords
+     * @return false if the queue was full and the write was dropped
+     */
+    public boolean record(String keyword, boolean history) {
+        if (!this.closed && this.queue.offer(new Event(keyword, history))) {
+            this.recorded.incrementAndGet();
+            return true;
+        }
+        this.dropped.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * @return number of writes accepted by record()
+     */
+    public long getRecordedCount() {
+        return this.recorded.get();
+    }
+
+    /**
+     * @return number of writes dropped because the queue was full or the writer closed
+     */
+    public long getDroppedCount() {
+        return this.dropped.get();
+    }
+
+    /**
+     * @return number of accepted writes lost because the store could not be reached
+     */
+    public long getFailedCount() {
+        return this.failed.get();
+    }
+
+    /**
+     * stop the writer thread after it has sent what is in the queue
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+        this.writer.interrupt();
+        try {
+            this.writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * private helper run by the writer thread
+     */
+    private void run() {
+        ArrayList<Event> batch = new ArrayList<>(MAX_BATCH);
+        while (!this.closed || !this.queue.isEmpty()) {
+            try {
+                Event first = this.queue.poll(this.flushMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                // close() wakes the writer up; the loop ends once the queue is empty
+            }
+            this.queue.drainTo(batch, MAX_BATCH - batch.size());
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * private helper to send one batch: the count of each distinct keyword and the history in order
+     *
+     * @param batch writes in the order they were recorded
+     */
+    private void flush(ArrayList<Event> batch) {
+        HashMap<String, Integer> increments = new HashMap<>();
+        ArrayList<String> history = new ArrayList<>();
+        for (Event event : batch) {
+            increments.merge(event.keyword, 1, Integer::sum);
+            if (event.history) {
+                history.add(event.keyword);
+            }
+        }
+        try {
+            this.store.writeStatistics(increments, history);
+        } catch (CacheUnavailableException e) {
+            this.failed.addAndGet(batch.size());
+        }
+    }
+
+    /**
+     * one recorded search
+     */
+    private static final class Event {
+        final String keyword;
+        final boolean history;
+
+        Event(String keyword, boolean history) {
+            this.keyword = keyword;
+            this.history = history;
+        }
+    }
+}
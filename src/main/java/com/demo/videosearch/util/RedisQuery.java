@@ -37,13 +37,16 @@ public class RedisQuery {
     public static double incrementScore(String key, String member, double score) {
         try {
             Jedis jedis = JedisDBPool.getConnectJedis();
-            double newScore = jedis.zincrby(key, score, member);
+            try {
+                return jedis.zincrby(key, score, member);
+            } finally {
+                // 归还连接，否则连接池会被耗尽
+                jedis.close();
+            }
         } catch (JedisConnectionException e) {
             System.err.println("Failed to connect to Redis, skipping increment score.");
             return score;
         }
-
-        return score;
     }
 
     /**
@@ -83,6 +86,25 @@ public class RedisQuery {
         jedis.close();
     }
 
+    /**
+     * 添加二进制数据，带超时时间，超时自动销毁
+     */
+    public static void setex(byte[] key, byte[] value, int seconds) {
+        Jedis jedis = JedisDBPool.getConnectJedis();
+        jedis.setex(key, seconds, value);
+        jedis.close();
+    }
+
+    /**
+     * 根据key查询二进制数据
+     */
+    public static byte[] getBytes(byte[] key) {
+        Jedis jedis = JedisDBPool.getConnectJedis();
+        byte[] value = jedis.get(key);
+        jedis.close();
+        return value;
+    }
+
     /**
      * 根据key删除数据
      */
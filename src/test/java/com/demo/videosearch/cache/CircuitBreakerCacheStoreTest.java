@@ -0,0 +1,108 @@
+package com.demo.videosearch.cache;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Opening, fail-fast and closing of the circuit of CircuitBreakerCacheStore.
+ */
+public class CircuitBreakerCacheStoreTest {
+
+    private final FlakyCacheStore store = new FlakyCacheStore();
+    private final CircuitBreakerCacheStore breaker = new CircuitBreakerCacheStore(this.store, 2, 20);
+
+    @After
+    public void close() {
+        this.breaker.close();
+    }
+
+    /**
+     * wait for the probe run at construction to be over, so it does not count in a test
+     */
+    private void awaitStartupProbe() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (this.store.calls() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        Thread.sleep(50);
+        assertFalse(this.breaker.isOpen());
+    }
+
+    /**
+     * wait for the probe thread to bring the circuit to the expected state
+     */
+    private void awaitOpen(boolean open) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (this.breaker.isOpen() != open && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(open, this.breaker.isOpen());
+    }
+
+    private void getFails() {
+        try {
+            this.breaker.get("k");
+            fail("the store is unavailable");
+        } catch (CacheUnavailableException expected) {
+            // the caller goes on without the cache
+        }
+    }
+
+    @Test
+    public void passesCallsThroughWhileTheStoreAnswers() throws InterruptedException {
+        awaitStartupProbe();
+        this.breaker.set("k", new byte[]{1, 2}, 60);
+        assertArrayEquals(new byte[]{1, 2}, this.breaker.get("k"));
+    }
+
+    @Test
+    public void opensAfterConsecutiveFailuresAndFailsFast() throws InterruptedException {
+        awaitStartupProbe();
+        this.store.setDown(true);
+        getFails();
+        assertFalse(this.breaker.isOpen());
+        getFails();
+        assertTrue(this.breaker.isOpen());
+        // while open no call reaches the store, except the probes
+        int calls = this.store.calls();
+        for (int i = 0; i < 100; i++) {
+            getFails();
+        }
+        assertTrue(this.store.calls() - calls < 10);
+    }
+
+    @Test
+    public void closesWhenTheStoreAnswersAgain() throws InterruptedException {
+        awaitStartupProbe();
+        this.store.setDown(true);
+        getFails();
+        getFails();
+        assertTrue(this.breaker.isOpen());
+        this.store.setDown(false);
+        awaitOpen(false);
+        this.breaker.set("k", new byte[]{3}, 60);
+        assertArrayEquals(new byte[]{3}, this.breaker.get("k"));
+    }
+
+    @Test
+    public void storeDownAtStartupOpensTheCircuit() throws InterruptedException {
+        FlakyCacheStore down = new FlakyCacheStore();
+        down.setDown(true);
+        CircuitBreakerCacheStore startup = new CircuitBreakerCacheStore(down, 3, 1000);
+        try {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!startup.isOpen() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertTrue(startup.isOpen());
+        } finally {
+            startup.close();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.demo.videosearch.cache;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * InMemoryCacheStore that can be taken down: while it is down every call throws
+ * CacheUnavailableException, like a RedisCacheStore that cannot reach its server.
+ * Counts the calls that reached it, failed or not.
+ */
+public class FlakyCacheStore extends InMemoryCacheStore {
+
+    private volatile boolean down;
+    private final AtomicInteger calls = new AtomicInteger();
+
+    /**
+     * @param down true to fail every call from now on, false to answer again
+     */
+    public void setDown(boolean down) {
+        this.down = down;
+    }
+
+    /**
+     * @return number of calls made to this store
+     */
+    public int calls() {
+        return this.calls.get();
+    }
+
+    private void check() {
+        this.calls.incrementAndGet();
+        if (this.down) {
+            throw new CacheUnavailableException("store is down", false);
+        }
+    }
+
+    @Override
+    public byte[] get(String key) {
+        check();
+        return super.get(key);
+    }
+
+    @Override
+    public void set(String key, byte[] value, int ttlSeconds) {
+        check();
+        super.set(key, value, ttlSeconds);
+    }
+
+    @Override
+    public void delete(Collection<String> keys) {
+        check();
+        super.delete(keys);
+    }
+
+    @Override
+    public void writeStatistics(Map<String, Integer> increments, List<String> history) {
+        check();
+        super.writeStatistics(increments, history);
+    }
+
+    @Override
+    public List<String> hotKeywords(int count) {
+        check();
+        return super.hotKeywords(count);
+    }
+
+    @Override
+    public void publish(String channel, String message) {
+        check();
+        super.publish(channel, message);
+    }
+
+    @Override
+    public void ping() {
+        check();
+        super.ping();
+    }
+}
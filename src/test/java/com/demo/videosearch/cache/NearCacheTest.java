@@ -0,0 +1,135 @@
+package com.demo.videosearch.cache;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Hits, misses, expiry and eviction of NearCache, and its consistency under concurrent reads and writes.
+ */
+public class NearCacheTest {
+
+    private static NearCache<String, String> cache(long maxWeight, long ttlMillis) {
+        return new NearCache<>(maxWeight, ttlMillis, TimeUnit.MILLISECONDS, value -> 10);
+    }
+
+    @Test
+    public void getCountsHitsAndMisses() {
+        NearCache<String, String> cache = cache(1000, 0);
+        assertNull(cache.get("a"));
+        cache.put("a", "1");
+        assertEquals("1", cache.get("a"));
+        assertEquals("1", cache.get("a"));
+        assertEquals(2, cache.hitCount());
+        assertEquals(1, cache.missCount());
+        assertEquals(1, cache.size());
+        assertEquals(10, cache.weight());
+    }
+
+    @Test
+    public void putReplacesTheValue() {
+        NearCache<String, String> cache = cache(1000, 0);
+        cache.put("a", "1");
+        cache.put("a", "2");
+        assertEquals("2", cache.get("a"));
+        assertEquals(1, cache.size());
+        assertEquals(10, cache.weight());
+    }
+
+    @Test
+    public void invalidateRemovesEntries() {
+        NearCache<String, String> cache = cache(1000, 0);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.invalidate("a");
+        assertNull(cache.get("a"));
+        assertEquals("2", cache.get("b"));
+        cache.invalidateAll();
+        assertNull(cache.get("b"));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.weight());
+        assertEquals(0, cache.evictionCount());
+    }
+
+    @Test
+    public void expiredEntryIsAMiss() throws InterruptedException {
+        NearCache<String, String> cache = cache(1000, 1);
+        cache.put("a", "1");
+        Thread.sleep(5);
+        assertNull(cache.get("a"));
+        assertEquals(1, cache.missCount());
+        assertEquals(1, cache.evictionCount());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void entryHeavierThanTheCacheIsNotKept() {
+        NearCache<String, String> cache = new NearCache<>(100, 0, TimeUnit.SECONDS, String::length);
+        cache.put("a", "1");
+        char[] big = new char[101];
+        cache.put("a", new String(big));
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.weight());
+    }
+
+    @Test
+    public void frequentKeySurvivesAScan() {
+        NearCache<String, String> cache = cache(1000, 0);
+        cache.put("hot", "1");
+        for (int i = 0; i < 50; i++) {
+            cache.get("hot");
+        }
+        for (int i = 0; i < 1000; i++) {
+            cache.put("scan" + i, "x");
+        }
+        assertEquals("1", cache.get("hot"));
+        assertTrue(cache.weight() <= 1000);
+        assertTrue(cache.evictionCount() > 0);
+    }
+
+    @Test
+    public void concurrentReadsAndWritesKeepTheWeight() throws InterruptedException {
+        NearCache<String, String> cache = cache(1000, 0);
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 50000; i++) {
+                    String key = "k" + random.nextInt(300);
+                    int op = random.nextInt(10);
+                    if (op < 7) {
+                        String value = cache.get(key);
+                        if (value != null && !value.equals("v" + key)) {
+                            throw new AssertionError(key + " read " + value);
+                        }
+                    } else if (op < 9) {
+                        cache.put(key, "v" + key);
+                    } else {
+                        cache.invalidate(key);
+                    }
+                }
+            });
+            thread.setUncaughtExceptionHandler((failed, e) -> {
+                synchronized (failures) {
+                    failures.add(e);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(failures.toString(), failures.isEmpty());
+        assertEquals(cache.size() * 10L, cache.weight());
+        assertTrue(cache.weight() <= 1000);
+    }
+}
@@ -0,0 +1,209 @@
+package com.demo.videosearch.db;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Stress tests of ConcurrentHashtableMap and ConcurrentHashTableSortedSets: several threads write and
+ * read one table that starts with 2 buckets, so every stripe grows many times while it is used,
+ * then the contents are compared with what the writers did.
+ */
+public class ConcurrentHashtableMapTest {
+
+    private static final int WRITERS = 8;
+    private static final int READERS = 4;
+    private static final int KEYS_PER_WRITER = 30000;
+    // a writer removes the key it put this many steps before, every third step
+    private static final int REMOVE_LAG = 10;
+    // added to the value of every seventh key by compute()
+    private static final int BUMP = 1000000;
+
+    /**
+     * run the threads and rethrow the first failure of any of them
+     */
+    private static void runAll(List<Thread> threads) throws InterruptedException {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (Thread thread : threads) {
+            thread.setUncaughtExceptionHandler((failed, e) -> failure.compareAndSet(null, e));
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError("a thread failed", failure.get());
+        }
+    }
+
+    private static String key(int writer, int i) {
+        return "k" + writer + "_" + i;
+    }
+
+    private static boolean removed(int i) {
+        int remover = i + REMOVE_LAG;
+        return remover < KEYS_PER_WRITER && remover % 3 == 0 && remover > REMOVE_LAG;
+    }
+
+    @Test
+    public void concurrentPutGetRemoveAcrossResizes() throws InterruptedException {
+        ConcurrentHashtableMap<String, Integer> map = new ConcurrentHashtableMap<>(2, WRITERS);
+        AtomicIntegerArray progress = new AtomicIntegerArray(WRITERS); // keys put by each writer
+        AtomicInteger writing = new AtomicInteger(WRITERS); // writers not done yet
+        AtomicInteger badReads = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            int writer = w;
+            threads.add(new Thread(() -> {
+                try {
+                    for (int i = 0; i < KEYS_PER_WRITER; i++) {
+                        assertTrue(map.put(key(writer, i), i));
+                        progress.set(writer, i + 1);
+                        if (i % 3 == 0 && i > REMOVE_LAG) {
+                            Integer value = map.remove(key(writer, i - REMOVE_LAG));
+                            int old = i - REMOVE_LAG;
+                            assertTrue(value != null && (value == old || value == old + BUMP));
+                        }
+                        if (i % 7 == 0) {
+                            map.compute(key(writer, i), (k, v) -> v + BUMP);
+                        }
+                    }
+                } finally {
+                    writing.decrementAndGet();
+                }
+            }));
+        }
+        for (int r = 0; r < READERS; r++) {
+            threads.add(new Thread(() -> {
+                Random random = new Random();
+                while (writing.get() > 0) {
+                    int writer = random.nextInt(WRITERS);
+                    int done = progress.get(writer);
+                    if (done <= REMOVE_LAG) {
+                        continue;
+                    }
+                    // a key put less than REMOVE_LAG steps ago cannot have been removed yet
+                    int i = done - 1 - random.nextInt(REMOVE_LAG / 2);
+                    Integer value = map.getOrDefault(key(writer, i), null);
+                    if ((value == null || (value != i && value != i + BUMP)) && progress.get(writer) < i + REMOVE_LAG) {
+                        badReads.incrementAndGet();
+                    }
+                    if (map.containsKey("missing" + i)) {
+                        badReads.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        runAll(threads);
+        assertEquals(0, badReads.get());
+
+        int expected = 0;
+        for (int w = 0; w < WRITERS; w++) {
+            for (int i = 0; i < KEYS_PER_WRITER; i++) {
+                Integer value = map.getOrDefault(key(w, i), null);
+                if (removed(i)) {
+                    assertNull(key(w, i), value);
+                } else {
+                    expected++;
+                    assertEquals(key(w, i), Integer.valueOf(i % 7 == 0 ? i + BUMP : i), value);
+                }
+            }
+        }
+        assertEquals(expected, map.size());
+        int[] visited = {0};
+        map.forEach((k, v) -> visited[0]++);
+        assertEquals(expected, visited[0]);
+    }
+
+    @Test
+    public void computeIsAtomicUnderContention() throws InterruptedException {
+        ConcurrentHashtableMap<Integer, Integer> map = new ConcurrentHashtableMap<>(2, WRITERS);
+        int keys = 500;
+        int rounds = 200;
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            threads.add(new Thread(() -> {
+                for (int round = 0; round < rounds; round++) {
+                    for (int key = 0; key < keys; key++) {
+                        map.compute(key, (k, v) -> v == null ? 1 : v + 1);
+                    }
+                }
+            }));
+        }
+        runAll(threads);
+        assertEquals(keys, map.size());
+        for (int key = 0; key < keys; key++) {
+            assertEquals(Integer.valueOf(WRITERS * rounds), map.get(key));
+        }
+    }
+
+    @Test
+    public void clearLeavesAnEmptyUsableMap() {
+        ConcurrentHashtableMap<String, Integer> map = new ConcurrentHashtableMap<>(2, 4);
+        for (int i = 0; i < 1000; i++) {
+            map.put("k" + i, i);
+        }
+        map.clear();
+        assertEquals(0, map.size());
+        assertFalse(map.containsKey("k1"));
+        assertTrue(map.put("k1", 1));
+        assertEquals(Integer.valueOf(1), map.get("k1"));
+    }
+
+    @Test
+    public void concurrentSortedSetsMatchSequentialOnes() throws InterruptedException {
+        ConcurrentHashTableSortedSets<Integer, Integer> sets = new ConcurrentHashTableSortedSets<>();
+        HashTableSortedSets<Integer, Integer> expected = new HashTableSortedSets<>();
+        int adds = 200000;
+        int[] keys = new int[adds];
+        int[] values = new int[adds];
+        Random random = new Random(42);
+        for (int i = 0; i < adds; i++) {
+            keys[i] = random.nextInt(300);
+            values[i] = random.nextInt(5000);
+            expected.add(keys[i], values[i]);
+        }
+        expected.freeze();
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger unsorted = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            threads.add(new Thread(() -> {
+                for (int i = next.getAndIncrement(); i < adds; i = next.getAndIncrement()) {
+                    sets.add(keys[i], values[i]);
+                    if (i == adds / 2) {
+                        sets.freeze(); // adds go on after a freeze, each one copies a frozen list
+                    }
+                    if (i % 1000 == 0) {
+                        List<Integer> list = sets.get(keys[i]);
+                        for (int j = 1; j < list.size(); j++) {
+                            if (list.get(j - 1) >= list.get(j)) {
+                                unsorted.incrementAndGet();
+                            }
+                        }
+                    }
+                }
+            }));
+        }
+        runAll(threads);
+        sets.freeze();
+        assertEquals(0, unsorted.get());
+        assertEquals(expected.size(), sets.size());
+        for (int key = 0; key < 300; key++) {
+            assertEquals(expected.containsKey(key), sets.containsKey(key));
+            if (expected.containsKey(key)) {
+                assertEquals(expected.get(key), sets.get(key));
+            }
+        }
+    }
+}
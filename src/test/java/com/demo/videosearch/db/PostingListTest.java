@@ -0,0 +1,180 @@
+package com.demo.videosearch.db;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Encoding of PostingList and the jumps of Cursor.advance() over the skip entries of lists longer
+ * than SKIP_INTERVAL ids, checked against a plain scan of the ids.
+ */
+public class PostingListTest {
+
+    /**
+     * private helper: count ids, every step-th one from first
+     */
+    private static int[] ids(int first, int step, int count) {
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = first + i * step;
+        }
+        return ids;
+    }
+
+    /**
+     * private helper: postings of the ids, each at position id % 3 and every fifth one also at 7
+     */
+    private static PostingListBuilder builder(int[] ids) {
+        PostingListBuilder builder = new PostingListBuilder();
+        for (int id : ids) {
+            builder.add(id, id % 3);
+            if (id % 5 == 0) {
+                builder.add(id, 7);
+            }
+        }
+        return builder;
+    }
+
+    /**
+     * private helper: the first id of ids not smaller than target, as advance() must find it
+     */
+    private static int expected(int[] ids, int target) {
+        int i = Arrays.binarySearch(ids, target);
+        if (i < 0) {
+            i = -i - 1;
+        }
+        return i < ids.length ? ids[i] : PostingList.NO_MORE_IDS;
+    }
+
+    private static void assertPositions(int id, PostingList.Cursor cursor) {
+        assertEquals(id % 3, cursor.nextPosition());
+        if (id % 5 == 0) {
+            assertEquals(7, cursor.nextPosition());
+        }
+        assertEquals(PostingList.NO_MORE_POSITIONS, cursor.nextPosition());
+    }
+
+    @Test
+    public void shortListHasNoSkipEntries() {
+        PostingList list = builder(ids(0, 1, PostingList.SKIP_INTERVAL - 1)).build();
+        assertNull(list.skips());
+        assertEquals(PostingList.SKIP_INTERVAL - 1, list.size());
+        assertEquals(PostingList.SKIP_INTERVAL - 2, list.lastId());
+    }
+
+    @Test
+    public void longListKeepsASkipEntryEverySkipInterval() {
+        int[] ids = ids(3, 3, 1000);
+        PostingList list = builder(ids).build();
+        int[] skips = list.skips();
+        assertNotNull(skips);
+        assertEquals(1000 / PostingList.SKIP_INTERVAL * 2, skips.length);
+        for (int k = 0; k < skips.length / 2; k++) {
+            assertEquals(ids[(k + 1) * PostingList.SKIP_INTERVAL - 1], skips[k * 2]);
+        }
+        assertArrayEquals(ids, list.toArray());
+        PostingList.Cursor cursor = list.cursor();
+        for (int id : ids) {
+            assertEquals(id, cursor.next());
+            assertPositions(id, cursor);
+        }
+        assertEquals(PostingList.NO_MORE_IDS, cursor.next());
+    }
+
+    @Test
+    public void advanceJumpsToTheRightIdAcrossSkipEntries() {
+        int[] ids = ids(5, 7, 2000);
+        PostingList list = builder(ids).build();
+        int[] skips = list.skips();
+        PostingList.Cursor cursor = list.cursor();
+        // the id of a skip entry, the one after it, one inside a block, one between two ids
+        int[] targets = {skips[0], skips[0] + 1, skips[4] - 3, skips[6] + 7, skips[skips.length - 2] + 2};
+        for (int target : targets) {
+            int id = cursor.advance(target);
+            assertEquals(expected(ids, target), id);
+            assertEquals(id, cursor.id());
+            assertPositions(id, cursor);
+            // the cursor goes on from there
+            assertEquals(expected(ids, id + 1), cursor.next());
+        }
+        assertEquals(ids[ids.length - 1], cursor.advance(ids[ids.length - 1]));
+        assertEquals(PostingList.NO_MORE_IDS, cursor.advance(ids[ids.length - 1] + 1));
+    }
+
+    @Test
+    public void advanceToASmallerTargetStaysOnTheCurrentId() {
+        int[] ids = ids(0, 2, 500);
+        PostingList.Cursor cursor = builder(ids).build().cursor();
+        assertEquals(600, cursor.advance(600));
+        assertEquals(600, cursor.advance(10));
+        assertEquals(600, cursor.advance(600));
+        assertEquals(602, cursor.advance(601));
+    }
+
+    @Test
+    public void randomAdvancesMatchAScan() {
+        Random random = new Random(17);
+        for (int round = 0; round < 50; round++) {
+            int count = 1 + random.nextInt(3000);
+            int[] ids = new int[count];
+            int id = random.nextInt(10);
+            for (int i = 0; i < count; i++) {
+                ids[i] = id;
+                id += 1 + random.nextInt(round % 2 == 0 ? 3 : 300);
+            }
+            PostingList list = builder(ids).build();
+            PostingList.Cursor cursor = list.cursor();
+            int current = -1;
+            while (current != PostingList.NO_MORE_IDS) {
+                int target = current + 1 + random.nextInt(random.nextBoolean() ? 20 : 5000);
+                current = cursor.advance(target);
+                assertEquals(expected(ids, target), current);
+                if (current != PostingList.NO_MORE_IDS) {
+                    assertPositions(current, cursor);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void listInASharedArenaJumpsFromItsOwnOffset() {
+        int[] ids = ids(100, 4, 700);
+        PostingListBuilder builder = builder(ids);
+        byte[] bytes = new byte[13 + builder.encodedLength()];
+        Arrays.fill(bytes, (byte) 0x55);
+        PostingList list = builder.encodeTo(ByteBuffer.wrap(bytes), bytes, 13);
+        PostingList.Cursor cursor = list.cursor();
+        for (int target : new int[]{101, 900, 1500, 2895, 2896}) {
+            assertEquals(expected(ids, target), cursor.advance(target));
+        }
+        cursor.reset(list);
+        assertEquals(ids[300], cursor.advance(ids[300]));
+        assertPositions(ids[300], cursor);
+    }
+
+    @Test
+    public void appendedListKeepsItsSkipEntries() {
+        int[] ids = ids(1, 3, 300);
+        PostingList list = PostingList.EMPTY;
+        for (int id : ids) {
+            list = list.append(id, id % 3);
+        }
+        assertEquals(300 / PostingList.SKIP_INTERVAL * 2, list.skips().length);
+        PostingList.Cursor cursor = list.cursor();
+        for (int target = 0; target < 1000; target += 37) {
+            assertEquals(expected(ids, target), cursor.advance(target));
+        }
+        // an id below the last one rebuilds the list in order
+        list = list.append(2, 0);
+        assertEquals(301, list.size());
+        assertEquals(2, list.cursor().advance(2));
+        assertEquals(4, list.cursor().advance(3));
+    }
+}
@@ -0,0 +1,230 @@
+package com.demo.videosearch.db;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * AND, OR and NOT over posting lists, on small hand-made lists and on random lists long enough for
+ * the intersections to go through skip entries, checked against sets of ids; phrase and proximity
+ * matches checked against a scan of the titles.
+ */
+public class PostingListsTest {
+
+    private static PostingList list(int... ids) {
+        PostingListBuilder builder = new PostingListBuilder();
+        for (int id : ids) {
+            builder.add(id, 0);
+        }
+        return builder.build();
+    }
+
+    private static TreeSet<Integer> set(int[] ids) {
+        TreeSet<Integer> set = new TreeSet<>();
+        for (int id : ids) {
+            set.add(id);
+        }
+        return set;
+    }
+
+    private static int[] array(TreeSet<Integer> set) {
+        int[] ids = new int[set.size()];
+        int i = 0;
+        for (int id : set) {
+            ids[i++] = id;
+        }
+        return ids;
+    }
+
+    /**
+     * private helper: ascending ids below limit, each kept with probability 1 / every
+     */
+    private static int[] randomIds(Random random, int limit, int every) {
+        TreeSet<Integer> set = new TreeSet<>();
+        for (int id = 0; id < limit; id++) {
+            if (random.nextInt(every) == 0) {
+                set.add(id);
+            }
+        }
+        return array(set);
+    }
+
+    @Test
+    public void intersectKeepsTheCommonIds() {
+        assertArrayEquals(new int[]{3, 9}, PostingLists.intersect(list(1, 3, 5, 9), list(3, 4, 9, 12), list(0, 3, 9)));
+        assertArrayEquals(new int[]{1, 2}, PostingLists.intersect(list(1, 2)));
+        assertArrayEquals(new int[0], PostingLists.intersect(list(1, 2), list(3, 4)));
+        assertArrayEquals(new int[0], PostingLists.intersect(list(1, 2), PostingList.EMPTY));
+        assertArrayEquals(new int[0], PostingLists.intersect());
+    }
+
+    @Test
+    public void unionMergesWithoutDuplicates() {
+        assertArrayEquals(new int[]{0, 1, 3, 4, 5, 9, 12}, PostingLists.union(list(1, 3, 5, 9), list(3, 4, 9, 12), list(0)));
+        assertArrayEquals(new int[]{2, 7}, PostingLists.union(list(2, 7), PostingList.EMPTY));
+        assertArrayEquals(new int[0], PostingLists.union());
+    }
+
+    @Test
+    public void subtractAndRetainAnyFilterSortedIds() {
+        int[] ids = {1, 3, 5, 9, 12};
+        assertArrayEquals(new int[]{1, 12}, PostingLists.subtract(ids, list(3, 4), list(5, 9, 10)));
+        assertArrayEquals(ids, PostingLists.subtract(ids));
+        assertArrayEquals(new int[]{3, 5, 9}, PostingLists.retainAny(ids, list(3, 4), list(5, 9, 10)));
+        assertArrayEquals(new int[0], PostingLists.retainAny(ids));
+        assertArrayEquals(new int[]{5, 12}, PostingLists.retainAll(ids, new int[]{2, 5, 6, 12, 13}));
+    }
+
+    @Test
+    public void randomListsMatchSetOperations() {
+        Random random = new Random(5);
+        for (int round = 0; round < 30; round++) {
+            int limit = 20000;
+            // a rare list against dense ones, so the dense cursors jump over whole skip blocks
+            int[] rare = randomIds(random, limit, 200);
+            int[] dense = randomIds(random, limit, 2);
+            int[] medium = randomIds(random, limit, 10);
+            PostingList rareList = list(rare);
+            PostingList denseList = list(dense);
+            PostingList mediumList = list(medium);
+
+            TreeSet<Integer> and = set(rare);
+            and.retainAll(set(dense));
+            and.retainAll(set(medium));
+            assertArrayEquals(array(and), PostingLists.intersect(denseList, rareList, mediumList));
+
+            TreeSet<Integer> or = set(rare);
+            or.addAll(set(medium));
+            assertArrayEquals(array(or), PostingLists.union(rareList, mediumList));
+
+            TreeSet<Integer> not = set(medium);
+            not.removeAll(set(dense));
+            assertArrayEquals(array(not), PostingLists.subtract(medium, denseList));
+
+            TreeSet<Integer> any = set(medium);
+            TreeSet<Integer> either = set(rare);
+            either.addAll(set(dense));
+            any.retainAll(either);
+            assertArrayEquals(array(any), PostingLists.retainAny(medium, rareList, denseList));
+        }
+    }
+
+    /**
+     * private helper: the posting lists of the words of titles, the id of a title is its index
+     */
+    private static Map<String, PostingList> index(String... titles) {
+        Map<String, PostingListBuilder> builders = new HashMap<>();
+        for (int id = 0; id < titles.length; id++) {
+            String[] words = titles[id].split(" ");
+            for (int position = 0; position < words.length; position++) {
+                builders.computeIfAbsent(words[position], word -> new PostingListBuilder()).add(id, position);
+            }
+        }
+        Map<String, PostingList> lists = new HashMap<>();
+        builders.forEach((word, builder) -> lists.put(word, builder.build()));
+        return lists;
+    }
+
+    private static int[] phrase(Map<String, PostingList> index, int slop, String... words) {
+        PostingList[] lists = new PostingList[words.length];
+        for (int i = 0; i < words.length; i++) {
+            lists[i] = index.getOrDefault(words[i], PostingList.EMPTY);
+        }
+        return PostingLists.phrase(lists, slop);
+    }
+
+    /**
+     * private helper: true if the words are in the title in order, each at most slop + 1 positions
+     * after the previous one
+     */
+    private static boolean hasPhrase(String[] title, String[] words, int slop) {
+        for (int start = 0; start < title.length; start++) {
+            if (title[start].equals(words[0]) && follows(title, start, words, 1, slop)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean follows(String[] title, int at, String[] words, int next, int slop) {
+        if (next == words.length) {
+            return true;
+        }
+        for (int p = at + 1; p <= at + slop + 1 && p < title.length; p++) {
+            if (title[p].equals(words[next]) && follows(title, p, words, next + 1, slop)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void exactPhraseNeedsTheWordsNextToEachOtherInOrder() {
+        Map<String, PostingList> index = index("the lord of the rings", "lord of war", "the rings of power",
+                "of the lord", "war lord");
+        assertArrayEquals(new int[]{0, 3}, phrase(index, 0, "the", "lord"));
+        assertArrayEquals(new int[]{0, 1}, phrase(index, 0, "lord", "of"));
+        assertArrayEquals(new int[]{0, 3}, phrase(index, 0, "of", "the"));
+        assertArrayEquals(new int[]{4}, phrase(index, 0, "war", "lord"));
+        assertArrayEquals(new int[0], phrase(index, 0, "rings", "the"));
+        assertArrayEquals(new int[0], phrase(index, 0, "lord", "missing"));
+        assertArrayEquals(new int[0], PostingLists.phrase(new PostingList[0], 0));
+    }
+
+    @Test
+    public void repeatedWordOfAPhraseMatchesEachOccurrence() {
+        Map<String, PostingList> index = index("the lord of the rings", "the lord", "of the the end");
+        assertArrayEquals(new int[]{0}, phrase(index, 0, "the", "lord", "of", "the"));
+        assertArrayEquals(new int[]{2}, phrase(index, 0, "the", "the"));
+        assertArrayEquals(new int[]{0, 2}, phrase(index, 2, "the", "the"));
+    }
+
+    @Test
+    public void slopLetsOtherWordsInBetween() {
+        Map<String, PostingList> index = index("the lord of the rings", "lord of war", "rings lord");
+        assertArrayEquals(new int[0], phrase(index, 0, "lord", "rings"));
+        assertArrayEquals(new int[0], phrase(index, 1, "lord", "rings"));
+        assertArrayEquals(new int[]{0}, phrase(index, 2, "lord", "rings"));
+        assertArrayEquals(new int[]{0}, phrase(index, 1, "lord", "the", "rings"));
+        // the order of the words still counts
+        assertArrayEquals(new int[]{2}, phrase(index, 5, "rings", "lord"));
+    }
+
+    @Test
+    public void randomPhrasesMatchAScanOfTheTitles() {
+        Random random = new Random(9);
+        String[] vocabulary = {"a", "b", "c", "d", "e", "f"};
+        List<String[]> titles = new ArrayList<>();
+        String[] lines = new String[3000];
+        for (int id = 0; id < lines.length; id++) {
+            String[] title = new String[1 + random.nextInt(8)];
+            for (int p = 0; p < title.length; p++) {
+                title[p] = vocabulary[random.nextInt(vocabulary.length)];
+            }
+            titles.add(title);
+            lines[id] = String.join(" ", title);
+        }
+        Map<String, PostingList> index = index(lines);
+        for (int round = 0; round < 300; round++) {
+            String[] words = new String[1 + random.nextInt(3)];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = vocabulary[random.nextInt(vocabulary.length)];
+            }
+            int slop = random.nextInt(3);
+            TreeSet<Integer> expected = new TreeSet<>();
+            for (int id = 0; id < titles.size(); id++) {
+                if (hasPhrase(titles.get(id), words, slop)) {
+                    expected.add(id);
+                }
+            }
+            assertArrayEquals(String.join(" ", words) + "~" + slop, array(expected), phrase(index, slop, words));
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.demo.videosearch.service;
+
+import com.demo.videosearch.model.IShow;
+import com.demo.videosearch.model.Provider;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * RFC 4180 details of CsvShowParser: quoted fields, escaped quotes, line breaks inside quotes and
+ * CRLF line endings, from a buffer holding the whole input and from a channel.
+ */
+public class CsvShowParserTest {
+
+    private static final String HEADER = ",ID,Title,Year,Age,IMDb,Rotten Tomatoes,Netflix,Hulu,Prime Video,Disney+,Type\n";
+
+    private static List<IShow> parse(String csv) {
+        List<IShow> shows = new ArrayList<>();
+        new CsvShowParser(ByteBuffer.wrap(csv.getBytes(StandardCharsets.UTF_8))).parse(shows::add);
+        return shows;
+    }
+
+    private static List<IShow> parseChannel(String csv) {
+        List<IShow> shows = new ArrayList<>();
+        new CsvShowParser(Channels.newChannel(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8))))
+                .parse(shows::add);
+        return shows;
+    }
+
+    private static void assertShow(String title, int year, int rating, int providerMask, IShow show) {
+        assertEquals(title, show.getTitle());
+        assertEquals(year, show.getYear());
+        assertEquals(rating, show.getRating());
+        assertEquals(providerMask, show.getProviderMask());
+    }
+
+    @Test
+    public void plainRecordsAfterTheHeader() {
+        List<IShow> shows = parse(HEADER
+                + "0,1,Breaking Bad,2008,18+,9.4/10,100/100,1,0,0,0,1\n"
+                + "1,2,Stranger Things,2016,16+,8.7/10,96/100,1,1,0,1,1\n");
+        assertEquals(2, shows.size());
+        assertShow("Breaking Bad", 2008, 100, Provider.NETFLIX.mask(), shows.get(0));
+        assertShow("Stranger Things", 2016, 96, Provider.NETFLIX.mask() | Provider.HULU.mask()
+                | Provider.DISNEY_PLUS.mask(), shows.get(1));
+    }
+
+    @Test
+    public void quotedFieldsKeepTheirCommas() {
+        List<IShow> shows = parse(HEADER
+                + "0,1,\"Love, Death & Robots\",2019,18+,8.5/10,\"88/100\",\"1\",0,0,0,1\n"
+                + "1,2,\"\",2001,,,50/100,0,0,1,0,1\n");
+        assertShow("Love, Death & Robots", 2019, 88, Provider.NETFLIX.mask(), shows.get(0));
+        assertShow("", 2001, 50, Provider.PRIME_VIDEO.mask(), shows.get(1));
+    }
+
+    @Test
+    public void doubledQuotesAreUnescaped() {
+        List<IShow> shows = parse(HEADER
+                + "0,1,\"The \"\"Office\"\"\",2005,,,81/100,0,1,0,0,1\n"
+                + "1,2,\"\"\"Quoted\"\", then a comma, too\",2010,,,70/100,0,0,0,1,1\n"
+                + "2,3,Cafe \"\"Au Lait\"\",2012,,,60/100,1,0,0,0,1\n");
+        assertShow("The \"Office\"", 2005, 81, Provider.HULU.mask(), shows.get(0));
+        assertShow("\"Quoted\", then a comma, too", 2010, 70, Provider.DISNEY_PLUS.mask(), shows.get(1));
+        // quotes in an unquoted field are kept as they are
+        assertShow("Cafe \"\"Au Lait\"\"", 2012, 60, Provider.NETFLIX.mask(), shows.get(2));
+    }
+
+    @Test
+    public void lineBreaksInsideQuotesBelongToTheField() {
+        List<IShow> shows = parse(HEADER
+                + "0,1,\"First line\nsecond line\",2015,,,75/100,1,0,0,0,1\n"
+                + "1,2,\"Windows\r\nbreak\",2016,,,76/100,0,1,0,0,1\n"
+                + "2,3,After,2017,,,77/100,0,0,1,0,1\n");
+        assertEquals(3, shows.size());
+        assertShow("First line\nsecond line", 2015, 75, Provider.NETFLIX.mask(), shows.get(0));
+        assertShow("Windows\r\nbreak", 2016, 76, Provider.HULU.mask(), shows.get(1));
+        assertShow("After", 2017, 77, Provider.PRIME_VIDEO.mask(), shows.get(2));
+    }
+
+    @Test
+    public void crlfLineEndings() {
+        String csv = HEADER.replace("\n", "\r\n")
+                + "0,1,Breaking Bad,2008,18+,9.4/10,100/100,1,0,0,0,1\r\n"
+                + "\r\n"
+                + "1,2,\"Quoted, Last\",2016,,,96/100,0,0,0,\"1\"\r\n"
+                + "2,3,No Break At End,2020,,,90/100,0,0,0,1\r";
+        List<IShow> shows = parse(csv);
+        assertEquals(3, shows.size());
+        assertShow("Breaking Bad", 2008, 100, Provider.NETFLIX.mask(), shows.get(0));
+        // a quoted last field ends at the CR
+        assertShow("Quoted, Last", 2016, 96, Provider.DISNEY_PLUS.mask(), shows.get(1));
+        assertShow("No Break At End", 2020, 90, Provider.DISNEY_PLUS.mask(), shows.get(2));
+    }
+
+    @Test
+    public void lastRecordWithoutALineBreak() {
+        List<IShow> shows = parse(HEADER + "0,1,\"Quoted \"\"End\"\"\",1999,,,42/100,1,1,1,1");
+        assertEquals(1, shows.size());
+        assertShow("Quoted \"End\"", 1999, 42, 0xF, shows.get(0));
+    }
+
+    @Test
+    public void channelInputGivesTheSameShows() {
+        // more than one read buffer, so records and CRLF pairs cross the end of a block
+        StringBuilder csv = new StringBuilder(HEADER.replace("\n", "\r\n"));
+        for (int i = 0; i < 40000; i++) {
+            csv.append(i).append(',').append(i + 1).append(',');
+            if (i % 3 == 0) {
+                csv.append("\"Show, \"\"").append(i).append("\"\"\nnext line\"");
+            } else {
+                csv.append("Show ").append(i);
+            }
+            csv.append(',').append(1950 + i % 70).append(",,,").append(i % 101).append("/100,")
+                    .append(i % 2).append(",0,0,").append((i / 2) % 2).append(",1\r\n");
+        }
+        assertTrue(csv.length() > 1 << 20);
+        List<IShow> fromBuffer = parse(csv.toString());
+        List<IShow> fromChannel = parseChannel(csv.toString());
+        assertEquals(40000, fromBuffer.size());
+        assertEquals(40000, fromChannel.size());
+        for (int i = 0; i < 40000; i++) {
+            String title = i % 3 == 0 ? "Show, \"" + i + "\"\nnext line" : "Show " + i;
+            int mask = (i % 2 == 1 ? Provider.NETFLIX.mask() : 0) | ((i / 2) % 2 == 1 ? Provider.DISNEY_PLUS.mask() : 0);
+            assertShow(title, 1950 + i % 70, i % 101, mask, fromBuffer.get(i));
+            assertShow(title, 1950 + i % 70, i % 101, mask, fromChannel.get(i));
+        }
+    }
+
+    @Test
+    public void crlfAfterAClosingQuoteAcrossTwoReads() {
+        // the CR is the last byte of the first 1 MiB read, its LF the first byte of the next one
+        String prefix = HEADER + "0,1,";
+        String suffix = ",2000,,,50/100,0,0,0,\"1\"\r\n";
+        StringBuilder title = new StringBuilder();
+        while (prefix.length() + title.length() + suffix.length() - 2 < (1 << 20) - 1) {
+            title.append('x');
+        }
+        String csv = prefix + title + suffix + "1,2,Next,2001,,,60/100,1,0,0,0,1\r\n";
+        assertEquals((1 << 20) - 1, csv.indexOf("\"\r\n") + 1);
+        List<IShow> shows = parseChannel(csv);
+        assertEquals(2, shows.size());
+        assertShow(title.toString(), 2000, 50, Provider.DISNEY_PLUS.mask(), shows.get(0));
+        assertShow("Next", 2001, 60, Provider.NETFLIX.mask(), shows.get(1));
+    }
+
+    @Test
+    public void missingYearIsRejected() {
+        try {
+            parse(HEADER + "0,1,No Year,,,,50/100,1,0,0,0,1\n");
+            fail("a record without a year");
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage().contains("year"));
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.demo.videosearch.service;
+
+import com.demo.videosearch.cache.CacheConfig;
+import com.demo.videosearch.db.CompletionTrie;
+import com.demo.videosearch.model.IShow;
+import com.demo.videosearch.model.Show;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Save and load of IndexSnapshotFile: a loaded backend answers like the one that was saved, and a
+ * damaged, truncated or stale file is refused without touching the backend.
+ */
+public class IndexSnapshotFileTest {
+
+    private static final String[] WORDS = {"the", "lord", "of", "rings", "war", "love", "death", "robots",
+            "stranger", "things", "breaking", "bad", "house", "cards", "night", "day"};
+    private static final int SHOWS = 5000;
+
+    private final List<ShowSearcherBackend> backends = new ArrayList<>();
+    private Path dir;
+    private Path file;
+    private Path source;
+
+    @Before
+    public void setUp() throws IOException {
+        this.dir = Files.createTempDirectory("snapshot");
+        this.file = this.dir.resolve("shows.idx");
+        this.source = Files.write(this.dir.resolve("shows.csv"), new byte[]{'x'});
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (ShowSearcherBackend backend : this.backends) {
+            backend.close();
+        }
+        try (Stream<Path> paths = Files.list(this.dir)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                Files.delete(path);
+            }
+        }
+        Files.delete(this.dir);
+    }
+
+    private ShowSearcherBackend backend() {
+        Properties properties = new Properties();
+        properties.setProperty("cache.store", "memory");
+        ShowSearcherBackend backend = new ShowSearcherBackend(new CacheConfig(properties));
+        this.backends.add(backend);
+        return backend;
+    }
+
+    /**
+     * private helper: a backend of more shows than one segment holds, with removed and updated shows
+     */
+    private ShowSearcherBackend saved() {
+        ShowSearcherBackend backend = backend();
+        Random random = new Random(3);
+        for (int i = 0; i < SHOWS; i++) {
+            StringBuilder title = new StringBuilder();
+            for (int w = 0; w < 1 + random.nextInt(4); w++) {
+                title.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            title.append(i);
+            backend.addShow(new Show(title.toString(), 1950 + random.nextInt(70), random.nextInt(101),
+                    random.nextInt(16)));
+            if (i % 1000 == 999) {
+                // publish, so the next writes seal a segment
+                backend.snapshot();
+            }
+        }
+        for (int id = 0; id < SHOWS; id += 97) {
+            assertTrue(backend.removeShow(id));
+        }
+        backend.updateShow(5, new Show("The Lord of the Rings again", 2001, 99, 3));
+        assertTrue(backend.snapshot().segments().length > 1);
+        return backend;
+    }
+
+    private static List<String> titles(List<IShow> shows) {
+        List<String> titles = new ArrayList<>();
+        for (IShow show : shows) {
+            titles.add(show.getTitle() + "/" + show.getYear() + "/" + show.getRating() + "/" + show.getProviderMask());
+        }
+        return titles;
+    }
+
+    private static List<String> search(ShowSearcherBackend backend, ShowQuery query) {
+        return titles(backend.searchPage(query).getShows());
+    }
+
+    /**
+     * private helper: the scores of the top completions of a prefix, and the keys of the ones that
+     * score above the last; keys of equal score come in no set order
+     */
+    private static List<String> completions(ShowSearcherBackend backend, String prefix) {
+        List<CompletionTrie.Completion> top = backend.snapshot().complete(prefix, 10);
+        List<String> completions = new ArrayList<>();
+        TreeSet<String> above = new TreeSet<>();
+        for (CompletionTrie.Completion completion : top) {
+            completions.add(String.valueOf(completion.getScore()));
+            if (completion.getScore() > top.get(top.size() - 1).getScore()) {
+                above.add(completion.getKey());
+            }
+        }
+        completions.addAll(above);
+        return completions;
+    }
+
+    private static void assertSameAnswers(ShowSearcherBackend expected, ShowSearcherBackend actual) {
+        assertEquals(expected.getNumberOfShows(), actual.getNumberOfShows());
+        assertEquals(expected.snapshot().size(), actual.snapshot().size());
+        for (String word : WORDS) {
+            assertEquals(word, titles(expected.searchByTitleWord(word, 0, 50).getShows()),
+                    titles(actual.searchByTitleWord(word, 0, 50).getShows()));
+            assertEquals(word, completions(expected, word.substring(0, 2)), completions(actual, word.substring(0, 2)));
+            ShowQuery filtered = ShowQuery.builder().words(word).providers(5).limit(30).build();
+            assertEquals(search(expected, filtered), search(actual, filtered));
+        }
+        for (String expression : new String[]{"\"lord of\"", "\"the rings\"~2", "love OR war NOT night", "house cards"}) {
+            ShowQuery query = ShowQuery.builder().title(TitleQuery.parse(expression)).limit(100).build();
+            assertEquals(expression, search(expected, query), search(actual, query));
+        }
+        for (int year = 1950; year < 2020; year += 13) {
+            assertEquals(titles(expected.searchByYear(year)), titles(actual.searchByYear(year)));
+        }
+        assertEquals(titles(expected.searchByYearRange(1990, 2005, 40)), titles(actual.searchByYearRange(1990, 2005, 40)));
+    }
+
+    @Test
+    public void loadedIndexAnswersLikeTheSavedOne() throws IOException {
+        ShowSearcherBackend saved = saved();
+        IndexSnapshotFile.save(saved, this.file, this.source);
+        ShowSearcherBackend loaded = backend();
+        assertTrue(IndexSnapshotFile.load(this.file, this.source, loaded));
+        assertSameAnswers(saved, loaded);
+        assertEquals(saved.snapshot().catalogVersion(), loaded.snapshot().catalogVersion());
+        assertEquals(1, loaded.snapshot().segments().length);
+
+        // the loaded index takes new shows and removals like the one that was saved
+        for (ShowSearcherBackend backend : new ShowSearcherBackend[]{saved, loaded}) {
+            backend.addShow(new Show("Night of the Day", 2022, 100, 15));
+            assertTrue(backend.removeShow(6));
+        }
+        assertSameAnswers(saved, loaded);
+    }
+
+    @Test
+    public void emptyBackendRoundTrips() throws IOException {
+        IndexSnapshotFile.save(backend(), this.file, this.source);
+        ShowSearcherBackend loaded = backend();
+        assertTrue(IndexSnapshotFile.load(this.file, this.source, loaded));
+        assertEquals(0, loaded.getNumberOfShows());
+        loaded.addShow(new Show("Friends", 1994, 93, 1));
+        assertEquals(1, loaded.searchByTitleWord("friends", 0, 10).getShows().size());
+    }
+
+    /**
+     * private helper: the file is refused and the backend stays empty
+     */
+    private void assertRefused(Path damaged) throws IOException {
+        ShowSearcherBackend backend = backend();
+        assertFalse(IndexSnapshotFile.load(damaged, this.source, backend));
+        assertEquals(0, backend.getNumberOfShows());
+        assertEquals(0, backend.snapshot().size());
+    }
+
+    @Test
+    public void corruptedFileIsRefused() throws IOException {
+        IndexSnapshotFile.save(saved(), this.file, this.source);
+        long length = Files.size(this.file);
+        // magic, section table, first show, middle of the postings, last tombstone byte
+        for (long at : new long[]{0, 40, 140, length / 2, length - 1}) {
+            Path damaged = this.dir.resolve("damaged.idx");
+            Files.copy(this.file, damaged, StandardCopyOption.REPLACE_EXISTING);
+            try (RandomAccessFile out = new RandomAccessFile(damaged.toFile(), "rw")) {
+                out.seek(at);
+                int b = out.read();
+                out.seek(at);
+                out.write(b ^ 0x10);
+            }
+            assertRefused(damaged);
+        }
+    }
+
+    @Test
+    public void truncatedFileIsRefused() throws IOException {
+        IndexSnapshotFile.save(saved(), this.file, this.source);
+        long length = Files.size(this.file);
+        for (long keep : new long[]{0, 3, 100, 200, length / 2, length - 1}) {
+            Path truncated = this.dir.resolve("truncated.idx");
+            Files.copy(this.file, truncated, StandardCopyOption.REPLACE_EXISTING);
+            try (RandomAccessFile out = new RandomAccessFile(truncated.toFile(), "rw")) {
+                out.setLength(keep);
+            }
+            assertRefused(truncated);
+        }
+    }
+
+    @Test
+    public void missingOrStaleFileIsRefused() throws IOException {
+        assertRefused(this.dir.resolve("missing.idx"));
+        IndexSnapshotFile.save(saved(), this.file, this.source);
+        // the CSV changed after the index was built
+        Files.write(this.source, new byte[]{'x', 'y'});
+        assertRefused(this.file);
+    }
+}
@@ -0,0 +1,270 @@
+package com.demo.videosearch.service;
+
+import com.demo.videosearch.cache.CacheConfig;
+import com.demo.videosearch.db.HashTablePostingLists;
+import com.demo.videosearch.db.IdBitmap;
+import com.demo.videosearch.db.PostingList;
+import com.demo.videosearch.db.YearIndex;
+import com.demo.videosearch.model.IShow;
+import com.demo.videosearch.model.Show;
+import com.demo.videosearch.model.ShowTable;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Merges of segments holding removed shows: the merged segment leaves the removed shows out of its
+ * title lists and year index, pickMerge chooses the segments with too many of them, and searches
+ * give the same results before and after the background merge.
+ */
+public class SegmentMergeTest {
+
+    // shows a backend holds before its in-memory tables are sealed into a segment
+    private static final int SEAL_SIZE = 4096;
+    private static final String[] WORDS = {"the", "lord", "of", "rings", "war", "love", "death", "robots",
+            "night", "day", "house", "cards"};
+
+    private final List<ShowSearcherBackend> backends = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        for (ShowSearcherBackend backend : this.backends) {
+            backend.close();
+        }
+    }
+
+    private ShowSearcherBackend backend() {
+        Properties properties = new Properties();
+        properties.setProperty("cache.store", "memory");
+        ShowSearcherBackend backend = new ShowSearcherBackend(new CacheConfig(properties));
+        this.backends.add(backend);
+        return backend;
+    }
+
+    /**
+     * private helper: count random shows, a word of each title repeated so its positions matter;
+     * the i-th show is titled after i
+     */
+    private static List<Show> shows(int count) {
+        Random random = new Random(21);
+        List<Show> shows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            String title = word + " " + WORDS[random.nextInt(WORDS.length)] + " " + word + " " + i;
+            shows.add(new Show(title, 1990 + random.nextInt(30), random.nextInt(101), 1 + random.nextInt(15)));
+        }
+        return shows;
+    }
+
+    /**
+     * private helper: a backend holding the shows, published every SEAL_SIZE shows so its writes seal
+     */
+    private ShowSearcherBackend load(List<Show> shows) {
+        ShowSearcherBackend backend = backend();
+        for (int i = 0; i < shows.size(); i++) {
+            backend.addShow(shows.get(i));
+            if (i % SEAL_SIZE == SEAL_SIZE - 1) {
+                backend.snapshot();
+            }
+        }
+        return backend;
+    }
+
+    private static Segment empty(int base, int end, int purged) {
+        HashTablePostingLists<String> titles = new HashTablePostingLists<>();
+        titles.freeze();
+        return new Segment(base, end, purged, titles, YearIndex.EMPTY);
+    }
+
+    @Test
+    public void mergedSegmentLeavesRemovedShowsOut() {
+        ShowSearcherBackend backend = load(shows(SEAL_SIZE + 1000));
+        Random random = new Random(8);
+        for (int i = 0; i < 1500; i++) {
+            backend.removeShow(random.nextInt(SEAL_SIZE + 1000));
+        }
+        // the sealed segment and the in-memory one
+        IndexSnapshot snapshot = backend.snapshot();
+        Segment[] parts = snapshot.segments();
+        assertTrue(parts.length > 1);
+        IdBitmap deleted = snapshot.deleted();
+        ShowTable shows = snapshot.shows();
+        Segment merged = Segment.merge(parts, 0, parts.length, deleted, shows);
+
+        assertEquals(0, merged.base());
+        assertEquals(snapshot.size(), merged.end());
+        assertEquals(0, merged.garbage(deleted));
+        Set<String> keys = new HashSet<>();
+        for (Segment part : parts) {
+            part.titleHash().forEach((key, list) -> keys.add(key));
+        }
+        for (String key : keys) {
+            // the live postings of the parts, in order, with their positions
+            List<Integer> expected = new ArrayList<>();
+            for (Segment part : parts) {
+                PostingList list = part.titlePostings(key);
+                if (list == null) {
+                    continue;
+                }
+                PostingList.Cursor cursor = list.cursor();
+                for (int id = cursor.next(); id != PostingList.NO_MORE_IDS; id = cursor.next()) {
+                    if (!deleted.get(id)) {
+                        expected.add(id);
+                        for (int p = cursor.nextPosition(); p != PostingList.NO_MORE_POSITIONS; p = cursor.nextPosition()) {
+                            expected.add(-1 - p);
+                        }
+                    }
+                }
+            }
+            PostingList list = merged.titlePostings(key);
+            if (expected.isEmpty()) {
+                assertNull(key, list);
+                continue;
+            }
+            List<Integer> actual = new ArrayList<>();
+            PostingList.Cursor cursor = list.cursor();
+            for (int id = cursor.next(); id != PostingList.NO_MORE_IDS; id = cursor.next()) {
+                assertFalse(deleted.get(id));
+                actual.add(id);
+                for (int p = cursor.nextPosition(); p != PostingList.NO_MORE_POSITIONS; p = cursor.nextPosition()) {
+                    actual.add(-1 - p);
+                }
+            }
+            assertEquals(key, expected, actual);
+        }
+
+        YearIndex years = merged.years();
+        assertEquals(snapshot.size() - deleted.cardinality(), years.size());
+        for (int y = 0; y < years.yearCount(); y++) {
+            for (int p = years.offset(y); p < years.offset(y + 1); p++) {
+                int id = years.id(p);
+                assertFalse(deleted.get(id));
+                assertEquals(years.year(y), shows.year(id));
+                if (p > years.offset(y)) {
+                    int previous = years.id(p - 1);
+                    assertTrue(shows.rating(previous) > shows.rating(id)
+                            || shows.rating(previous) == shows.rating(id) && previous < id);
+                }
+            }
+        }
+
+        // a show removed after the merge is garbage of the merged segment
+        int live = years.id(0);
+        IdBitmap more = deleted.copy();
+        more.set(live);
+        assertEquals(1, merged.garbage(more));
+    }
+
+    @Test
+    public void pickMergeChoosesSegmentsWithTooManyRemovedShows() {
+        IdBitmap deleted = new IdBitmap();
+        Segment big = empty(0, 4 * SEAL_SIZE, 0);
+        Segment small = empty(4 * SEAL_SIZE, 5 * SEAL_SIZE, 0);
+        Segment[] segments = {big, small};
+        assertNull(ShowSearcherBackend.pickMerge(segments, deleted));
+
+        // a quarter of the small segment removed is not enough, one more show is
+        for (int id = 4 * SEAL_SIZE; id < 4 * SEAL_SIZE + SEAL_SIZE / 4; id++) {
+            deleted.set(id);
+        }
+        assertNull(ShowSearcherBackend.pickMerge(segments, deleted));
+        deleted.set(5 * SEAL_SIZE - 1);
+        assertArrayEquals(new int[]{1, 2}, ShowSearcherBackend.pickMerge(segments, deleted));
+
+        // removed shows a merge already left out do not count again
+        Segment purged = empty(4 * SEAL_SIZE, 5 * SEAL_SIZE, deleted.cardinality(4 * SEAL_SIZE, 5 * SEAL_SIZE));
+        assertNull(ShowSearcherBackend.pickMerge(new Segment[]{big, purged}, deleted));
+
+        // segments of similar sizes are merged whatever they hold
+        Segment[] similar = {empty(0, 2 * SEAL_SIZE, 0), empty(2 * SEAL_SIZE, 3 * SEAL_SIZE, 0)};
+        assertArrayEquals(new int[]{0, 2}, ShowSearcherBackend.pickMerge(similar, new IdBitmap()));
+    }
+
+    private static List<String> titles(List<IShow> shows) {
+        List<String> titles = new ArrayList<>();
+        for (IShow show : shows) {
+            titles.add(show.getTitle());
+        }
+        return titles;
+    }
+
+    @Test
+    public void searchesAreTheSameAfterTheBackgroundMerge() throws InterruptedException {
+        List<Show> all = shows(3 * SEAL_SIZE + 500);
+        ShowSearcherBackend backend = load(all);
+        awaitMerges(backend);
+        // a reference that never had the removed shows; ids of the others keep their order
+        List<Show> kept = new ArrayList<>();
+        int removed = 0;
+        for (int id = 0; id < all.size(); id++) {
+            if (id % 2 == 0 && id < 2 * SEAL_SIZE) {
+                assertTrue(backend.removeShow(id));
+                removed++;
+            } else {
+                kept.add(all.get(id));
+            }
+        }
+        ShowSearcherBackend reference = load(kept);
+
+        // the merger runs in the background once more than a quarter of a segment is removed
+        awaitMerges(backend);
+        // most removed shows are out of the lists, the tombstones hide the ones removed during a merge
+        assertTrue(garbage(backend.snapshot()) < removed / 2);
+        assertEquals(reference.getNumberOfShows(), backend.getNumberOfShows());
+        for (String word : WORDS) {
+            assertEquals(word, titles(reference.searchByTitleWord(word, 0, 100).getShows()),
+                    titles(backend.searchByTitleWord(word, 0, 100).getShows()));
+            ShowQuery phrase = ShowQuery.builder().title(TitleQuery.parse("\"" + word + " " + word + "\"~1"))
+                    .limit(100).build();
+            assertEquals(word, titles(reference.searchPage(phrase).getShows()), titles(backend.searchPage(phrase).getShows()));
+        }
+        for (int year = 1990; year < 2020; year += 7) {
+            assertEquals(titles(reference.searchByYear(year)), titles(backend.searchByYear(year)));
+        }
+        assertEquals(titles(reference.searchByYearRange(1995, 2010, 50)), titles(backend.searchByYearRange(1995, 2010, 50)));
+        assertTrue(backend.searchByTitleWord("0", 0, 10).getShows().isEmpty());
+    }
+
+    /**
+     * private helper to wait for the merger to leave the segments of a backend as they should be
+     */
+    private static void awaitMerges(ShowSearcherBackend backend) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (mergePending(backend.snapshot()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(mergePending(backend.snapshot()));
+    }
+
+    /**
+     * private helper: true if the sealed segments of a snapshot, all but the in-memory one, need a merge
+     */
+    private static boolean mergePending(IndexSnapshot snapshot) {
+        Segment[] segments = snapshot.segments();
+        return ShowSearcherBackend.pickMerge(Arrays.copyOf(segments, segments.length - 1), snapshot.deleted()) != null;
+    }
+
+    /**
+     * private helper: removed shows still in the lists of the segments of a snapshot
+     */
+    private static int garbage(IndexSnapshot snapshot) {
+        int garbage = 0;
+        for (Segment segment : snapshot.segments()) {
+            garbage += segment.garbage(snapshot.deleted());
+        }
+        return garbage;
+    }
+}
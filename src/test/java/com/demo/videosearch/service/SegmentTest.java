@@ -0,0 +1,72 @@
+package com.demo.videosearch.service;
+
+import com.demo.videosearch.cache.CacheConfig;
+import com.demo.videosearch.model.Show;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Sealed segments of ShowSearcherBackend: what their cached completion trie and trigram index
+ * give once shows of the segment are removed or updated.
+ */
+public class SegmentTest {
+
+    // shows a backend holds before its in-memory tables are sealed into a segment
+    private static final int SEAL_SIZE = 4096;
+
+    private ShowSearcherBackend backend;
+
+    @Before
+    public void setUp() {
+        Properties properties = new Properties();
+        properties.setProperty("cache.store", "memory");
+        this.backend = new ShowSearcherBackend(new CacheConfig(properties));
+        this.backend.addShow(new Show("Stranger Things", 2016, 97, 1));
+        this.backend.addShow(new Show("Breaking Bad", 2008, 96, 1));
+        for (int i = 2; i < SEAL_SIZE; i++) {
+            this.backend.addShow(new Show("Filler " + i, 2000, 10, 1));
+        }
+        // publish, then the next write seals the first SEAL_SIZE shows
+        this.backend.snapshot();
+        this.backend.addShow(new Show("Friends", 1994, 93, 1));
+        assertEquals(2, this.backend.snapshot().segments().length);
+    }
+
+    @After
+    public void tearDown() {
+        this.backend.close();
+    }
+
+    @Test
+    public void removedShowLeavesTheCompletionsOfItsSegment() {
+        assertTrue(this.backend.autocomplete("strang", 5).contains("stranger"));
+        assertTrue(this.backend.autocomplete("strang", 5).contains("stranger things"));
+        assertTrue(this.backend.suggestTitleWords("strnger", 5).contains("stranger"));
+
+        assertTrue(this.backend.removeShow(0));
+        assertTrue(this.backend.autocomplete("strang", 5).isEmpty());
+        assertTrue(this.backend.suggestTitleWords("strnger", 5).isEmpty());
+        // no correction to a word that only removed shows had
+        assertTrue(this.backend.searchByTitleWord("strnger", 0, 10).getShows().isEmpty());
+        assertTrue(this.backend.autocomplete("break", 5).contains("breaking bad"));
+    }
+
+    @Test
+    public void updatedShowIsCompletedUnderItsNewTitle() {
+        assertTrue(this.backend.autocomplete("break", 5).contains("breaking bad"));
+        assertTrue(this.backend.suggestTitleWords("braking", 5).contains("breaking"));
+
+        this.backend.updateShow(1, new Show("Better Call Saul", 2015, 95, 1));
+        assertFalse(this.backend.autocomplete("break", 5).contains("breaking bad"));
+        assertFalse(this.backend.suggestTitleWords("braking", 5).contains("breaking"));
+        assertTrue(this.backend.autocomplete("better", 5).contains("better call saul"));
+        assertTrue(this.backend.autocomplete("strang", 5).contains("stranger things"));
+    }
+}
@@ -0,0 +1,215 @@
+package com.demo.videosearch.service;
+
+import com.demo.videosearch.cache.CacheConfig;
+import com.demo.videosearch.cache.CircuitBreakerCacheStore;
+import com.demo.videosearch.cache.FlakyCacheStore;
+import com.demo.videosearch.cache.InMemoryCacheStore;
+import com.demo.videosearch.cache.InMemoryInvalidationBus;
+import com.demo.videosearch.cache.InvalidationBus;
+import com.demo.videosearch.model.IShow;
+import com.demo.videosearch.model.Show;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The result cache of ShowSearcherBackend: near-cache hits and misses, two backends sharing a cache
+ * store and an invalidation bus like two app nodes, and searches going on when the store is down.
+ */
+public class ShowSearcherBackendCacheTest {
+
+    private final List<ShowSearcherBackend> backends = new ArrayList<>();
+    private InMemoryCacheStore store;
+    private InvalidationBus bus;
+
+    @Before
+    public void setUp() {
+        this.store = new InMemoryCacheStore();
+        this.bus = new InMemoryInvalidationBus();
+    }
+
+    @After
+    public void tearDown() {
+        for (ShowSearcherBackend backend : this.backends) {
+            backend.close();
+        }
+    }
+
+    private static CacheConfig config() {
+        Properties properties = new Properties();
+        properties.setProperty("cache.store", "memory");
+        return new CacheConfig(properties);
+    }
+
+    /**
+     * a backend on the shared store and bus, holding the same catalog as the others
+     */
+    private ShowSearcherBackend node() {
+        ShowSearcherBackend backend = new ShowSearcherBackend(config(), this.store, this.bus);
+        this.backends.add(backend);
+        load(backend);
+        return backend;
+    }
+
+    private static void load(ShowSearcherBackend backend) {
+        backend.addShow(new Show("Stranger Things", 2016, 97, 1));
+        backend.addShow(new Show("The Stranger", 2020, 80, 2));
+        backend.addShow(new Show("Stranger", 2017, 90, 4));
+        backend.addShow(new Show("Friends", 1994, 93, 1));
+        backend.addShow(new Show("Friends from College", 2017, 60, 1));
+        backend.addShow(new Show("Breaking Bad", 2008, 96, 1));
+    }
+
+    private static List<String> titles(SearchPage page) {
+        List<String> titles = new ArrayList<>();
+        for (IShow show : page.getShows()) {
+            titles.add(show.getTitle());
+        }
+        return titles;
+    }
+
+    private static int idOf(ShowSearcherBackend backend, String word) {
+        return backend.snapshot().titleIds(ShowQuery.builder()
+                .title(TitleQuery.builder().allOf(word).build())
+                .limit(1)
+                .build())[0];
+    }
+
+    @Test
+    public void secondSearchIsANearCacheHit() {
+        ShowSearcherBackend backend = node();
+        List<String> first = titles(backend.searchByTitleWord("stranger", 0, 10));
+        assertEquals(0, backend.getNearCache().hitCount());
+        assertEquals(1, backend.getNearCache().missCount());
+        List<String> second = titles(backend.searchByTitleWord("Stranger", 0, 10));
+        assertEquals(1, backend.getNearCache().hitCount());
+        assertEquals(first, second);
+        assertEquals(3, first.size());
+        assertEquals("Stranger Things", first.get(0));
+        assertNotNull(this.store.get(ShowSearcherBackend.cacheKey("stranger", 0)));
+    }
+
+    @Test
+    public void storeServesTheLoadThatCachedTheResult() {
+        ShowSearcherBackend a = node();
+        ShowSearcherBackend b = node();
+        List<String> fromA = titles(a.searchByTitleWord("friends", 0, 10));
+        String key = ShowSearcherBackend.cacheKey("friends", 0);
+        IndexSnapshot snapshot = a.snapshot();
+        assertNotNull(a.getCachedSearchResult(key, snapshot.catalogEpoch(), snapshot.catalogVersion(), snapshot.size()));
+        // b holds the same version of the catalog, but loaded on its own: another epoch
+        IndexSnapshot other = b.snapshot();
+        assertEquals(snapshot.catalogVersion(), other.catalogVersion());
+        assertNull(b.getCachedSearchResult(key, other.catalogEpoch(), other.catalogVersion(), other.size()));
+        assertEquals(fromA, titles(b.searchByTitleWord("friends", 0, 10)));
+        titles(b.searchByTitleWord("friends", 0, 10));
+        assertEquals(1, b.getNearCache().hitCount());
+    }
+
+    @Test
+    public void restartFromTheSameIndexFileDoesNotReadOldResults() throws IOException {
+        Path dir = Files.createTempDirectory("index");
+        try {
+            Path file = dir.resolve("shows.idx");
+            Path source = Files.write(dir.resolve("shows.csv"), new byte[]{'x'});
+            ShowSearcherBackend saved = node();
+            IndexSnapshotFile.save(saved, file, source);
+
+            ShowSearcherBackend before = new ShowSearcherBackend(config(), this.store, this.bus);
+            this.backends.add(before);
+            assertTrue(IndexSnapshotFile.load(file, source, before));
+            before.addShow(new Show("Friends Again", 2021, 70, 1));
+            assertEquals(3, titles(before.searchByTitleWord("friends", 0, 10)).size());
+
+            // the same file after a restart, another show added: same catalog version as before
+            ShowSearcherBackend after = new ShowSearcherBackend(config(), this.store, this.bus);
+            this.backends.add(after);
+            assertTrue(IndexSnapshotFile.load(file, source, after));
+            after.addShow(new Show("Old Friends", 2022, 99, 1));
+            assertEquals(before.snapshot().catalogVersion(), after.snapshot().catalogVersion());
+            List<String> titles = titles(after.searchByTitleWord("friends", 0, 10));
+            assertEquals(3, titles.size());
+            assertEquals("Old Friends", titles.get(0));
+        } finally {
+            for (Path path : new Path[]{dir.resolve("shows.idx"), dir.resolve("shows.csv"), dir}) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Test
+    public void fillingTheCacheDoesNotInvalidateOtherNodes() {
+        ShowSearcherBackend a = node();
+        ShowSearcherBackend b = node();
+        b.searchByTitleWord("stranger", 0, 10);
+        a.searchByTitleWord("stranger", 0, 10);
+        a.searchByTitleWord("friends", 0, 10);
+        assertEquals(1, b.getNearCache().size());
+        b.searchByTitleWord("stranger", 0, 10);
+        assertEquals(1, b.getNearCache().hitCount());
+    }
+
+    @Test
+    public void removeInvalidatesEveryNode() {
+        ShowSearcherBackend a = node();
+        ShowSearcherBackend b = node();
+        a.searchByTitleWord("stranger", 0, 10);
+        b.searchByTitleWord("stranger", 0, 10);
+        b.searchByTitleWord("bad", 0, 10);
+        assertEquals(2, b.getNearCache().size());
+
+        assertTrue(a.removeShow(idOf(a, "things")));
+        // the words of the removed title are dropped here, in the store and on b; "bad" stays
+        assertEquals(0, a.getNearCache().size());
+        assertEquals(1, b.getNearCache().size());
+        assertNull(this.store.get(ShowSearcherBackend.cacheKey("stranger", 0)));
+        assertEquals(2, titles(a.searchByTitleWord("stranger", 0, 10)).size());
+    }
+
+    @Test
+    public void updateServesTheNewTitle() {
+        ShowSearcherBackend a = node();
+        ShowSearcherBackend b = node();
+        assertEquals(2, titles(a.searchByTitleWord("friends", 0, 10)).size());
+        b.searchByTitleWord("friends", 0, 10);
+
+        a.updateShow(idOf(a, "college"), new Show("Roommates from College", 2017, 60, 1));
+        assertEquals(0, b.getNearCache().size());
+        assertEquals(1, titles(a.searchByTitleWord("friends", 0, 10)).size());
+        assertEquals("Roommates from College", titles(a.searchByTitleWord("roommates", 0, 10)).get(0));
+    }
+
+    @Test
+    public void searchesGoOnWhileTheStoreIsDown() {
+        FlakyCacheStore flaky = new FlakyCacheStore();
+        CircuitBreakerCacheStore breaker = new CircuitBreakerCacheStore(flaky, 2, 60000);
+        ShowSearcherBackend backend = new ShowSearcherBackend(config(), breaker, new InMemoryInvalidationBus());
+        this.backends.add(backend);
+        load(backend);
+        ShowSearcherBackend reference = node();
+
+        flaky.setDown(true);
+        for (String word : new String[]{"stranger", "friends", "breaking", "college"}) {
+            assertEquals(titles(reference.searchByTitleWord(word, 0, 10)), titles(backend.searchByTitleWord(word, 0, 10)));
+        }
+        assertTrue(breaker.isOpen());
+        // the near cache still serves what was computed while the store was down
+        long hits = backend.getNearCache().hitCount();
+        assertEquals(3, titles(backend.searchByTitleWord("stranger", 0, 10)).size());
+        assertEquals(hits + 1, backend.getNearCache().hitCount());
+        assertTrue(backend.removeShow(idOf(backend, "things")));
+        assertEquals(2, titles(backend.searchByTitleWord("stranger", 0, 10)).size());
+    }
+}
@@ -0,0 +1,60 @@
+package com.demo.videosearch.ui;
+
+import com.demo.videosearch.cache.CacheConfig;
+import com.demo.videosearch.model.Show;
+import com.demo.videosearch.service.SearchPage;
+import com.demo.videosearch.service.ShowSearcherBackend;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * The "showing results for" correction the frontend prints when the backend searched another word.
+ */
+public class ShowSearcherFrontendTest {
+
+    private ShowSearcherBackend backend;
+
+    @Before
+    public void setUp() {
+        Properties properties = new Properties();
+        properties.setProperty("cache.store", "memory");
+        this.backend = new ShowSearcherBackend(new CacheConfig(properties));
+        this.backend.addShow(new Show("Stranger Things", 2016, 97, 1));
+        this.backend.addShow(new Show("Friends", 1994, 93, 1));
+    }
+
+    @After
+    public void tearDown() {
+        this.backend.close();
+    }
+
+    private String correctionOf(String typed) {
+        SearchPage page = this.backend.searchByTitleWord(typed, 0, 20);
+        return ShowSearcherFrontend.correctionOf(typed, page);
+    }
+
+    @Test
+    public void misspelledWordReportsTheCorrection() {
+        assertEquals("stranger", correctionOf("strnger"));
+        assertEquals("friends", correctionOf("Frends"));
+    }
+
+    @Test
+    public void indexedWordIsNotACorrection() {
+        assertNull(correctionOf("Stranger"));
+        assertNull(correctionOf("FRIENDS"));
+        assertNull(correctionOf("stranger things"));
+    }
+
+    @Test
+    public void wordWithoutCorrectionIsNotACorrection() {
+        assertNull(correctionOf("zzzzzz"));
+        assertNull(correctionOf("mon"));
+    }
+}